@@ -0,0 +1,256 @@
+package dev.rilling.webmention4j.client;
+
+import dev.rilling.webmention4j.client.WebmentionClient.Config;
+import dev.rilling.webmention4j.client.internal.BlockingExecutors;
+import dev.rilling.webmention4j.client.internal.CircuitBreaker;
+import dev.rilling.webmention4j.client.internal.EndpointDiscoveryService;
+import dev.rilling.webmention4j.client.internal.EndpointService;
+import dev.rilling.webmention4j.client.internal.Http2Policy;
+import dev.rilling.webmention4j.client.internal.SingleFlight;
+import dev.rilling.webmention4j.common.CacheStats;
+import dev.rilling.webmention4j.common.HttpStatusException;
+import dev.rilling.webmention4j.common.Webmention;
+import dev.rilling.webmention4j.common.internal.UriUtils;
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.core5.io.CloseMode;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Clock;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Non-blocking variant of {@link WebmentionClient}.
+ * <p>
+ * Requests are performed by a small number of I/O threads, allowing for many discoveries and notifications to be in
+ * flight at once without a thread per request. Futures returned by this client mostly complete on those I/O threads, so
+ * callers should avoid long-running work in dependent stages. Host lookups to reject localhost endpoints may block,
+ * so they run on a separate small pool instead.
+ * <p>
+ * Instances hold a pool of HTTP connections, so a single instance should be shared
+ * and {@link #close() closed} once it is no longer needed.
+ * <p>
+ * If {@link Config#setHttp2(boolean)} is enabled, notifications are sent over HTTP/2 where the endpoint supports it,
+ * so that many notifications to the same endpoint host share one connection.
+ */
+// Spec: '3.1 Sending Webmentions'
+public final class AsyncWebmentionClient implements AutoCloseable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(AsyncWebmentionClient.class);
+
+	private final EndpointDiscoveryService endpointDiscoveryService;
+	private final EndpointService endpointService;
+	private final Config config;
+	private final SingleFlight<Webmention, Optional<URI>> notifications = new SingleFlight<>();
+	private final CircuitBreaker circuitBreaker;
+
+	private final Http2Policy http2Policy;
+	private final DnsResolver dnsResolver;
+	private final ExecutorService lookupExecutor;
+
+	private final CloseableHttpAsyncClient httpClient;
+	@Nullable
+	private final CloseableHttpAsyncClient h2HttpClient;
+
+	/**
+	 * Creates a new client with the default configuration.
+	 */
+	public AsyncWebmentionClient() {
+		this(new Config());
+	}
+
+	/**
+	 * Creates a new client with a custom configuration.
+	 *
+	 * @param config Custom configuration.
+	 */
+	public AsyncWebmentionClient(@NotNull Config config) {
+		this(new Config(config),
+			HttpClientFactory.createDnsResolver(config),
+			WebmentionClient.createCircuitBreaker(config));
+	}
+
+	private AsyncWebmentionClient(@NotNull Config config,
+								  @NotNull DnsResolver dnsResolver,
+								  @NotNull CircuitBreaker circuitBreaker) {
+		this(config,
+			dnsResolver,
+			circuitBreaker,
+			WebmentionClient.createEndpointService(config, dnsResolver),
+			WebmentionClient.createEndpointDiscoveryService(config, circuitBreaker));
+	}
+
+	// The circuit breaker must be the one used by endpointDiscoveryService, so both count failures of a host together.
+	AsyncWebmentionClient(@NotNull Config config,
+						  @NotNull CircuitBreaker circuitBreaker,
+						  @NotNull EndpointService endpointService,
+						  @NotNull EndpointDiscoveryService endpointDiscoveryService) {
+		this(config,
+			HttpClientFactory.createDnsResolver(config),
+			circuitBreaker,
+			endpointService,
+			endpointDiscoveryService);
+	}
+
+	private AsyncWebmentionClient(@NotNull Config config,
+								  @NotNull DnsResolver dnsResolver,
+								  @NotNull CircuitBreaker circuitBreaker,
+								  @NotNull EndpointService endpointService,
+								  @NotNull EndpointDiscoveryService endpointDiscoveryService) {
+		this.config = config;
+		this.endpointDiscoveryService = endpointDiscoveryService;
+		this.endpointService = endpointService;
+		this.circuitBreaker = circuitBreaker;
+
+		http2Policy = new Http2Policy(config.isHttp2(), Clock.systemUTC());
+
+		this.dnsResolver = dnsResolver;
+		lookupExecutor = BlockingExecutors.newExecutor("webmention4j-client-lookup", config.getBatchParallelism());
+		httpClient = HttpClientFactory.createAsyncHttpClient(config, dnsResolver);
+		h2HttpClient = config.isHttp2() ? HttpClientFactory.createH2AsyncHttpClient(config, dnsResolver) : null;
+	}
+
+	/**
+	 * Checks if a Webmention endpoint exists for this target URL.
+	 *
+	 * @param target Page to check endpoint of.
+	 * @return Future completing with the result, or exceptionally with an {@link IOException} if I/O fails.
+	 */
+	@NotNull
+	public CompletableFuture<Boolean> supportsWebmention(@NotNull URI target) {
+		return discoverEndpoint(target).thenApply(Optional::isPresent);
+	}
+
+	/**
+	 * Notifies the target page that it was mentioned by the source page.
+	 * <p>
+	 * Concurrent calls for the same target share one discovery, and concurrent calls for an identical Webmention share
+	 * one notification. Hosts that failed repeatedly are not contacted for a while,
+	 * see {@link Config#setCircuitBreakerFailureThreshold(int)}.
+	 *
+	 * @param webmention Webmention to send.
+	 * @return Future of the URL to use to monitor request status, if supported by the endpoint.
+	 * Completes exceptionally with an {@link IOException} if I/O fails.
+	 */
+	@NotNull
+	public CompletableFuture<Optional<URI>> sendWebmention(@NotNull Webmention webmention) {
+		// Spec: '3.1.2 Sender discovers receiver Webmention endpoint'
+		// Not on an I/O thread, as the localhost checks may look up hosts.
+		return discoverEndpoint(webmention.target())
+			.thenComposeAsync(endpointOptional -> {
+				try {
+					URI endpoint = endpointOptional.orElseThrow(() -> new IOException(
+						"Could not find any webmention endpoint URL in the target resource."));
+
+					// See WebmentionClient#sendWebmention for spec references.
+					if (!config.isAllowLocalhostEndpoint() && UriUtils.isLocalhost(endpoint, dnsResolver)) {
+						throw new IOException(("Endpoint '%s' is localhost or a loopback IP address, refusing to notify.").formatted(
+							endpoint));
+					}
+
+					// Spec: '3.1.3 Sender notifies receiver'
+					// See WebmentionClient#notifyEndpoint.
+					return notifications.executeAsync(webmention,
+						() -> circuitBreaker.executeAsync(WebmentionClient.getHost(endpoint),
+							() -> notifyEndpoint(endpoint, webmention)))
+						.whenComplete((statusUrl, throwable) -> {
+							// Nothing was sent if the circuit is open, so this says nothing about the endpoint.
+							if (throwable != null && !((throwable instanceof CompletionException ?
+								throwable.getCause() :
+								throwable) instanceof CircuitOpenException)) {
+								endpointDiscoveryService.invalidateEndpoint(webmention.target());
+							}
+						});
+				} catch (IOException e) {
+					return CompletableFuture.failedFuture(e);
+				}
+			}, lookupExecutor);
+	}
+
+	@NotNull
+	private CompletableFuture<Optional<URI>> discoverEndpoint(@NotNull URI target) {
+		// Guarded by the circuit breaker within, so that coalesced discoveries count once.
+		return endpointDiscoveryService.discoverEndpointAsync(httpClient, target);
+	}
+
+	@NotNull
+	private CompletableFuture<Optional<URI>> notifyEndpoint(@NotNull URI endpoint, @NotNull Webmention webmention) {
+		if (h2HttpClient == null || !http2Policy.shouldTryHttp2(endpoint)) {
+			return endpointService.notifyEndpointAsync(httpClient, endpoint, webmention, lookupExecutor);
+		}
+		return endpointService.notifyEndpointAsync(h2HttpClient, endpoint, webmention, lookupExecutor)
+			.whenComplete((statusUrl, throwable) -> {
+				// An HTTP status error still means the server spoke HTTP/2.
+				if (throwable == null || (throwable instanceof CompletionException ?
+					throwable.getCause() :
+					throwable) instanceof HttpStatusException) {
+					http2Policy.onHttp2Succeeded(endpoint);
+				}
+			})
+			.exceptionallyCompose(throwable -> {
+				if (!http2Policy.onHttp2Failed(endpoint, throwable)) {
+					return CompletableFuture.failedFuture(throwable);
+				}
+				LOGGER.debug("Endpoint '{}' does not support HTTP/2, falling back to HTTP/1.1.", endpoint, throwable);
+				return endpointService.notifyEndpointAsync(httpClient, endpoint, webmention, lookupExecutor);
+			});
+	}
+
+	/**
+	 * @return Statistics of the cache of discovered endpoints.
+	 * @see WebmentionClient#getEndpointCacheStats()
+	 */
+	@NotNull
+	public CacheStats getEndpointCacheStats() {
+		return endpointDiscoveryService.getEndpointCacheStats();
+	}
+
+	/**
+	 * @return Statistics of the cache of targets and hosts without endpoint.
+	 * @see WebmentionClient#getNoEndpointCacheStats()
+	 */
+	@NotNull
+	public CacheStats getNoEndpointCacheStats() {
+		return endpointDiscoveryService.getNoEndpointCacheStats();
+	}
+
+	/**
+	 * @return Statistics of the cache of permanent redirects.
+	 * @see WebmentionClient#getPermanentRedirectCacheStats()
+	 */
+	@NotNull
+	public CacheStats getPermanentRedirectCacheStats() {
+		return endpointDiscoveryService.getPermanentRedirectCacheStats()
+			.plus(endpointService.getPermanentRedirectCacheStats());
+	}
+
+	/**
+	 * @return Names of hosts that are currently not contacted because they failed repeatedly.
+	 * @see WebmentionClient#getUnavailableHosts()
+	 */
+	@NotNull
+	public Set<String> getUnavailableHosts() {
+		return circuitBreaker.getUnavailableHosts();
+	}
+
+	/**
+	 * Closes the underlying I/O reactor and connection pool.
+	 * Pending requests are cancelled. The client must not be used afterwards.
+	 */
+	@Override
+	public void close() {
+		httpClient.close(CloseMode.GRACEFUL);
+		if (h2HttpClient != null) {
+			h2HttpClient.close(CloseMode.GRACEFUL);
+		}
+		lookupExecutor.shutdown();
+	}
+}
@@ -0,0 +1,48 @@
+package dev.rilling.webmention4j.client;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.time.Duration;
+
+/**
+ * Thrown if a request was not sent because its host failed repeatedly and is assumed to be unavailable.
+ *
+ * @see WebmentionClient.Config#setCircuitBreakerFailureThreshold(int)
+ */
+public class CircuitOpenException extends IOException {
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	private final String host;
+	private final transient Duration retryAfter;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param host       Host which is assumed to be unavailable.
+	 * @param retryAfter Time after which requests to the host are tried again.
+	 */
+	public CircuitOpenException(@NotNull String host, @NotNull Duration retryAfter) {
+		super("Host '%s' failed repeatedly, not sending requests to it for %s.".formatted(host, retryAfter));
+		this.host = host;
+		this.retryAfter = retryAfter;
+	}
+
+	/**
+	 * @return Host which is assumed to be unavailable.
+	 */
+	@NotNull
+	public String getHost() {
+		return host;
+	}
+
+	/**
+	 * @return Time after which requests to the host are tried again.
+	 */
+	@NotNull
+	public Duration getRetryAfter() {
+		return retryAfter;
+	}
+}
@@ -0,0 +1,28 @@
+package dev.rilling.webmention4j.client;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.InterruptedIOException;
+import java.io.Serial;
+import java.time.Duration;
+
+/**
+ * Thrown if sending a Webmention was stopped because it did not complete within its time budget.
+ *
+ * @see WebmentionClient#sendWebmention(dev.rilling.webmention4j.common.Webmention, Duration)
+ */
+public class DeadlineExceededException extends InterruptedIOException {
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param timeout Time budget which was exceeded.
+	 * @param cause   Failure of the request which was in progress, if any.
+	 */
+	public DeadlineExceededException(@NotNull Duration timeout, Throwable cause) {
+		super("Did not complete within %s.".formatted(timeout));
+		initCause(cause);
+	}
+}
@@ -0,0 +1,235 @@
+package dev.rilling.webmention4j.client;
+
+import dev.rilling.webmention4j.client.WebmentionClient.Config;
+import dev.rilling.webmention4j.client.internal.FileHttpCacheStorage;
+import dev.rilling.webmention4j.client.internal.LocalhostRejectingRedirectStrategy;
+import dev.rilling.webmention4j.client.internal.RecordingRedirectStrategy;
+import dev.rilling.webmention4j.common.internal.CachingDnsResolver;
+import dev.rilling.webmention4j.common.internal.HttpUtils;
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.H2AsyncClientBuilder;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.cache.CacheConfig;
+import org.apache.hc.client5.http.impl.cache.CachingHttpClientBuilder;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.ssl.ClientTlsStrategyBuilder;
+import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactoryBuilder;
+import org.apache.hc.core5.http.Method;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.ssl.SSLContexts;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.jetbrains.annotations.NotNull;
+
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+
+/**
+ * Creates the HTTP clients used by {@link WebmentionClient} and {@link AsyncWebmentionClient}.
+ */
+final class HttpClientFactory {
+
+	/*
+	 * Spec:
+	 * 'Senders MAY customize the HTTP User Agent used when fetching the target URL
+	 *  in order to indicate to the recipient that this request is made as part of Webmention discovery.
+	 *  In this case, it is recommended to include the string "Webmention" in the User Agent.
+	 *  This provides people with a pointer to find out why the discovery request was made.'
+	 */
+	private static final String USER_AGENT = HttpUtils.createUserAgentString("webmention4j-client",
+		WebmentionClient.class.getPackage());
+
+	private HttpClientFactory() {
+	}
+
+	/**
+	 * Creates the resolver to be shared by a client's connection managers and localhost checks.
+	 */
+	@NotNull
+	static CachingDnsResolver createDnsResolver(@NotNull Config config) {
+		return new CachingDnsResolver(config.getDnsCacheSize(), config.getDnsCacheTimeToLive(), false);
+	}
+
+	@NotNull
+	static PoolingHttpClientConnectionManager createConnectionManager(@NotNull Config config,
+																	  @NotNull DnsResolver dnsResolver) {
+		return PoolingHttpClientConnectionManagerBuilder.create()
+			.setDnsResolver(dnsResolver)
+			.setSSLSocketFactory(SSLConnectionSocketFactoryBuilder.create()
+				.setSslContext(createSslContext(config))
+				.build())
+			.setMaxConnPerRoute(config.getMaxConnectionsPerRoute())
+			.setMaxConnTotal(config.getMaxConnectionsTotal())
+			.setDefaultConnectionConfig(createConnectionConfig(config))
+			.build();
+	}
+
+	@NotNull
+	static CloseableHttpClient createHttpClient(@NotNull Config config,
+												@NotNull PoolingHttpClientConnectionManager connectionManager,
+												@NotNull DnsResolver dnsResolver,
+												boolean allowLocalhostRedirect) {
+		return createHttpClient(HttpClients.custom(), config, connectionManager, dnsResolver, allowLocalhostRedirect);
+	}
+
+	/**
+	 * Creates the client used for endpoint discovery, which may follow localhost redirects.
+	 * <p>
+	 * If {@link Config#getHttpCacheDirectory()} is set, responses are cached there, and stale ones are revalidated
+	 * using conditional requests.
+	 */
+	@NotNull
+	static CloseableHttpClient createDiscoveryHttpClient(@NotNull Config config,
+														 @NotNull PoolingHttpClientConnectionManager connectionManager,
+														 @NotNull DnsResolver dnsResolver) {
+		if (config.getHttpCacheDirectory() == null) {
+			return createHttpClient(config, connectionManager, dnsResolver, true);
+		}
+
+		CacheConfig cacheConfig = CacheConfig.custom()
+			// Responses are only used by us, so those marked as private may be cached as well.
+			.setSharedCache(false)
+			.setMaxObjectSize(config.getMaxDiscoveryBodySize())
+			.build();
+		FileHttpCacheStorage cacheStorage;
+		try {
+			cacheStorage = new FileHttpCacheStorage(config.getHttpCacheDirectory(),
+				config.getHttpCacheSize(),
+				cacheConfig.getMaxUpdateRetries());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not open HTTP cache directory.", e);
+		}
+		CachingHttpClientBuilder builder = CachingHttpClientBuilder.create()
+			.setCacheConfig(cacheConfig)
+			.setHttpCacheStorage(cacheStorage);
+		return createHttpClient(builder, config, connectionManager, dnsResolver, true);
+	}
+
+	private static CloseableHttpClient createHttpClient(HttpClientBuilder builder,
+														Config config,
+														PoolingHttpClientConnectionManager connectionManager,
+														DnsResolver dnsResolver,
+														boolean allowLocalhostRedirect) {
+		if (allowLocalhostRedirect) {
+			builder.setRedirectStrategy(new RecordingRedirectStrategy());
+		} else {
+			/*
+			 * Spec:
+			 * 'During the discovery step, if the sender discovers the endpoint is localhost or a loopback IP address (127.0.0.0/8),
+			 *  it SHOULD NOT send the Webmention to that endpoint.'
+			 */
+			builder.setRedirectStrategy(new LocalhostRejectingRedirectStrategy(dnsResolver, request -> true));
+		}
+		return builder.setConnectionManager(connectionManager)
+			.setConnectionManagerShared(true)
+			.setDefaultRequestConfig(createRequestConfig(config))
+			.setUserAgent(USER_AGENT)
+			.build();
+	}
+
+	/**
+	 * Creates and starts an async client.
+	 * <p>
+	 * As only a single client (and therefore a single I/O reactor) is used, localhost redirects are rejected based on the
+	 * request method: discovery uses {@code GET} and may follow them, notification uses {@code POST} and may only
+	 * follow them if {@link Config#isAllowLocalhostEndpoint()} is set.
+	 */
+	@NotNull
+	static CloseableHttpAsyncClient createAsyncHttpClient(@NotNull Config config, @NotNull DnsResolver dnsResolver) {
+		CloseableHttpAsyncClient httpClient = HttpAsyncClients.custom()
+			.setConnectionManager(PoolingAsyncClientConnectionManagerBuilder.create()
+				.setDnsResolver(dnsResolver)
+				.setTlsStrategy(ClientTlsStrategyBuilder.create().setSslContext(createSslContext(config)).build())
+				.setMaxConnPerRoute(config.getMaxConnectionsPerRoute())
+				.setMaxConnTotal(config.getMaxConnectionsTotal())
+				.setDefaultConnectionConfig(createConnectionConfig(config))
+				.build())
+			.setIOReactorConfig(IOReactorConfig.custom().setSoTimeout(Timeout.of(config.getSocketTimeout())).build())
+			.setRedirectStrategy(new LocalhostRejectingRedirectStrategy(dnsResolver,
+				request -> !config.isAllowLocalhostEndpoint() && Method.POST.isSame(request.getMethod())))
+			.setDefaultRequestConfig(createRequestConfig(config))
+			.evictIdleConnections(TimeValue.of(config.getKeepAlive()))
+			.setUserAgent(USER_AGENT)
+			.build();
+		httpClient.start();
+		return httpClient;
+	}
+
+	/**
+	 * Creates and starts an async client which only speaks HTTP/2.
+	 * <p>
+	 * Unlike the client created by {@link #createAsyncHttpClient(Config, DnsResolver)}, which leases a connection per
+	 * request, this client keeps a single connection per host and multiplexes concurrent requests over it as separate
+	 * streams.
+	 * Requests fail with a protocol error if the server does not support HTTP/2.
+	 */
+	@NotNull
+	static CloseableHttpAsyncClient createH2AsyncHttpClient(@NotNull Config config, @NotNull DnsResolver dnsResolver) {
+		CloseableHttpAsyncClient httpClient = H2AsyncClientBuilder.create()
+			.setDnsResolver(dnsResolver)
+			.setTlsStrategy(ClientTlsStrategyBuilder.create().setSslContext(createSslContext(config)).build())
+			.setDefaultConnectionConfig(createConnectionConfig(config))
+			.setIOReactorConfig(IOReactorConfig.custom().setSoTimeout(Timeout.of(config.getSocketTimeout())).build())
+			.setRedirectStrategy(new LocalhostRejectingRedirectStrategy(dnsResolver,
+				request -> !config.isAllowLocalhostEndpoint() && Method.POST.isSame(request.getMethod())))
+			.setDefaultRequestConfig(createRequestConfig(config))
+			.evictIdleConnections(TimeValue.of(config.getKeepAlive()))
+			.setUserAgent(USER_AGENT)
+			.build();
+		httpClient.start();
+		return httpClient;
+	}
+
+	private static SSLContext createSslContext(Config config) {
+		SSLContext sslContext = SSLContexts.createDefault();
+		// Allows resuming TLS sessions for hosts we talk to repeatedly, skipping the full handshake.
+		sslContext.getClientSessionContext().setSessionCacheSize(config.getTlsSessionCacheSize());
+		sslContext.getClientSessionContext()
+			.setSessionTimeout(Math.toIntExact(config.getTlsSessionTimeout().toSeconds()));
+		return sslContext;
+	}
+
+	private static ConnectionConfig createConnectionConfig(Config config) {
+		return ConnectionConfig.custom()
+			.setConnectTimeout(Timeout.of(config.getConnectTimeout()))
+			.setSocketTimeout(Timeout.of(config.getSocketTimeout()))
+			.build();
+	}
+
+	private static RequestConfig createRequestConfig(Config config) {
+		return RequestConfig.custom()
+			.setConnectionRequestTimeout(Timeout.of(config.getConnectionRequestTimeout()))
+			.setConnectionKeepAlive(TimeValue.of(config.getKeepAlive()))
+			.build();
+	}
+
+	/**
+	 * Creates the configuration of a single request whose timeouts must not exceed a limit, e.g. the time remaining
+	 * until a deadline.
+	 */
+	@NotNull
+	@SuppressWarnings("deprecation")
+	static RequestConfig createRequestConfig(@NotNull Config config, @NotNull Duration limit) {
+		return RequestConfig.copy(createRequestConfig(config))
+			.setConnectionRequestTimeout(Timeout.of(limit(config.getConnectionRequestTimeout(), limit)))
+			// The connection config applies to the whole pool, so the request config is the only way to shorten it.
+			.setConnectTimeout(Timeout.of(limit(config.getConnectTimeout(), limit)))
+			.setResponseTimeout(Timeout.of(limit(config.getSocketTimeout(), limit)))
+			.build();
+	}
+
+	private static Duration limit(Duration timeout, Duration limit) {
+		// A timeout of 0 means no timeout.
+		return timeout.isZero() || timeout.compareTo(limit) > 0 ? limit : timeout;
+	}
+}
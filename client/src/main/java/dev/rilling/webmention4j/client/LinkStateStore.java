@@ -0,0 +1,306 @@
+package dev.rilling.webmention4j.client;
+
+import dev.rilling.webmention4j.client.internal.Journal;
+import dev.rilling.webmention4j.common.Webmention;
+import dev.rilling.webmention4j.common.internal.HtmlUtils.LinkLikeElementEvaluator;
+import dev.rilling.webmention4j.common.internal.UriUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Remembers which targets a source page linked to when Webmentions were last sent for it,
+ * so that after an update of the source only the Webmentions that are needed are sent.
+ * <p>
+ * From the <a href="https://www.w3.org/TR/webmention/#sending-webmentions-for-updated-posts">specification</a>:
+ * <br>
+ * "If the source URL was updated, the sender SHOULD re-send any previously sent Webmentions,
+ * (including re-sending a Webmention to a URL that may have been removed from the document),
+ * and SHOULD send Webmentions for any new links that appear at the URL."
+ * <p>
+ * Following this, Webmentions are sent to added and removed targets. Targets which are still linked to
+ * are only notified again if the content of the source changed, as otherwise there is nothing new for them to see.
+ * <p>
+ * The state is stored in a journal file, which is compacted when the store is opened and from time to time.
+ *
+ * @see WebmentionOutbox
+ */
+public final class LinkStateStore implements AutoCloseable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(LinkStateStore.class);
+
+	/**
+	 * Minimum number of records in the journal before it is compacted.
+	 */
+	private static final int COMPACTION_THRESHOLD = 1000;
+
+	private static final String SAVED = "S";
+	private static final String DELETED = "D";
+
+	/**
+	 * Base64url alphabet, which does not contain the separator of records.
+	 */
+	private static final Pattern CONTENT_HASH_PATTERN = Pattern.compile("[A-Za-z0-9_-]*");
+
+	private final Journal journal;
+	private final Map<URI, LinkState> states = new HashMap<>();
+	private final AtomicBoolean compacting = new AtomicBoolean(false);
+
+	/**
+	 * Opens a store, reading the state stored in the file.
+	 *
+	 * @param file File to store the state in. Is created if it does not exist.
+	 *             Must not be used by more than one store at once.
+	 * @throws IOException if the file cannot be read or opened.
+	 */
+	public LinkStateStore(@NotNull Path file) throws IOException {
+		journal = new Journal(file, "webmention4j-link-state-journal");
+		journal.getRecoveredRecords().forEach(this::recover);
+
+		if (journal.getRecordCount() > states.size()) {
+			compact();
+		}
+	}
+
+	/**
+	 * Determines which targets to notify after the source was published or updated.
+	 * Links are extracted from link-like elements of the source document, see
+	 * {@link LinkLikeElementEvaluator}, and the content is compared based on the text of the document.
+	 * Links within the source itself and non-HTTP links are ignored.
+	 *
+	 * @param source   Source URL.
+	 * @param document Current source document.
+	 * @return Changes compared to the last saved state.
+	 */
+	@NotNull
+	public Update diff(@NotNull URI source, @NotNull Document document) {
+		return diff(source, extractTargets(source, document), hash(document.text()));
+	}
+
+	/**
+	 * Determines which targets to notify after the source was published or updated.
+	 *
+	 * @param source      Source URL.
+	 * @param targets     Targets the source currently links to.
+	 * @param contentHash Hash of the content of the source, Base64url encoded without padding. If it differs from the
+	 *                    saved one, unchanged targets are notified as well.
+	 * @return Changes compared to the last saved state.
+	 * @throws IllegalArgumentException if the hash contains characters outside the Base64url alphabet.
+	 */
+	@NotNull
+	public Update diff(@NotNull URI source, @NotNull Set<URI> targets, @NotNull String contentHash) {
+		if (!CONTENT_HASH_PATTERN.matcher(contentHash).matches()) {
+			throw new IllegalArgumentException("Content hash must be Base64url encoded without padding.");
+		}
+		LinkState previous;
+		synchronized (states) {
+			previous = states.getOrDefault(source, LinkState.NONE);
+		}
+
+		Set<URI> added = new LinkedHashSet<>(targets);
+		added.removeAll(previous.targets);
+		Set<URI> removed = new LinkedHashSet<>(previous.targets);
+		removed.removeAll(targets);
+		Set<URI> unchanged = new LinkedHashSet<>(targets);
+		unchanged.retainAll(previous.targets);
+
+		return new Update(source,
+			Collections.unmodifiableSet(added),
+			Collections.unmodifiableSet(removed),
+			Collections.unmodifiableSet(unchanged),
+			!contentHash.equals(previous.contentHash),
+			contentHash);
+	}
+
+	/**
+	 * Determines which targets to notify after the source was deleted, which are all targets it linked to.
+	 *
+	 * @param source Source URL.
+	 * @return Changes compared to the last saved state. Saving it forgets the source.
+	 */
+	@NotNull
+	public Update diffDeleted(@NotNull URI source) {
+		return diff(source, Set.of(), "");
+	}
+
+	/**
+	 * Saves the new state after an update. Should be called once the Webmentions of the update were sent or
+	 * enqueued, so that they are not lost if the application stops in between.
+	 *
+	 * @param update Update to save.
+	 * @throws IOException if the state cannot be written.
+	 */
+	public void save(@NotNull Update update) throws IOException {
+		Set<URI> targets = new LinkedHashSet<>(update.unchanged);
+		targets.addAll(update.added);
+		CompletableFuture<Void> appended;
+		synchronized (states) {
+			String record;
+			if (targets.isEmpty() && update.contentHash.isEmpty()) {
+				states.remove(update.source);
+				record = createDeletedRecord(update.source);
+			} else {
+				LinkState linkState = new LinkState(update.contentHash, targets);
+				states.put(update.source, linkState);
+				record = createSavedRecord(update.source, linkState);
+			}
+			// Append while holding the lock, so that records are written in the same order as the state is changed.
+			appended = journal.append(List.of(record));
+		}
+
+		try {
+			appended.join();
+		} catch (CompletionException e) {
+			throw new IOException("Could not save link state.", e.getCause());
+		}
+
+		if (journal.getRecordCount() > Math.max(COMPACTION_THRESHOLD, states.size() * 2L)) {
+			compact();
+		}
+	}
+
+	private void compact() {
+		if (!compacting.compareAndSet(false, true)) {
+			return;
+		}
+		journal.compact(() -> {
+			synchronized (states) {
+				return states.entrySet()
+					.stream()
+					.map(entry -> createSavedRecord(entry.getKey(), entry.getValue()))
+					.toList();
+			}
+		}).whenComplete((ignored, throwable) -> compacting.set(false));
+	}
+
+	private void recover(String record) {
+		String[] parts = record.split(" ");
+		try {
+			if (SAVED.equals(parts[0])) {
+				Set<URI> targets = new LinkedHashSet<>();
+				for (int i = 3; i < parts.length; i++) {
+					targets.add(new URI(parts[i]));
+				}
+				states.put(new URI(parts[1]), new LinkState(parts[2], targets));
+			} else if (DELETED.equals(parts[0])) {
+				states.remove(new URI(parts[1]));
+			} else {
+				LOGGER.warn("Skipping unknown record '{}'.", record);
+			}
+		} catch (RuntimeException | URISyntaxException e) {
+			LOGGER.warn("Skipping malformed record '{}'.", record, e);
+		}
+	}
+
+	private static String createSavedRecord(URI source, LinkState linkState) {
+		// URIs cannot contain spaces, and hashes are Base64, so spaces can be used as separator.
+		return Stream.concat(Stream.of(SAVED, source.toString(), linkState.contentHash),
+			linkState.targets.stream().map(URI::toString)).collect(Collectors.joining(" "));
+	}
+
+	private static String createDeletedRecord(URI source) {
+		return String.join(" ", DELETED, source.toString());
+	}
+
+	private static Set<URI> extractTargets(URI source, Document document) {
+		Set<URI> targets = new LinkedHashSet<>();
+		for (Element element : document.select(new LinkLikeElementEvaluator())) {
+			String link = LinkLikeElementEvaluator.getLink(element).trim();
+			if (link.isEmpty() || link.startsWith("#")) {
+				// Links to the source itself.
+				continue;
+			}
+			URI target;
+			try {
+				target = source.resolve(new URI(link));
+			} catch (URISyntaxException | IllegalArgumentException e) {
+				LOGGER.debug("Skipping link '{}' due to invalid syntax.", link, e);
+				continue;
+			}
+			if (UriUtils.isHttp(target) && !target.equals(source)) {
+				targets.add(target);
+			}
+		}
+		return targets;
+	}
+
+	private static String hash(String content) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+		} catch (NoSuchAlgorithmException e) {
+			// Every Java platform is required to support SHA-256.
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Closes the underlying file.
+	 */
+	@Override
+	public void close() throws IOException {
+		journal.close();
+	}
+
+	/**
+	 * Changes of a source compared to the last saved state.
+	 *
+	 * @param source         Source URL.
+	 * @param added          Targets that are newly linked to.
+	 * @param removed        Targets that are no longer linked to.
+	 * @param unchanged      Targets that were and are still linked to.
+	 * @param contentChanged If the content of the source changed.
+	 * @param contentHash    Hash of the new content.
+	 */
+	public record Update(@NotNull URI source,
+						 @NotNull Set<URI> added,
+						 @NotNull Set<URI> removed,
+						 @NotNull Set<URI> unchanged,
+						 boolean contentChanged,
+						 @NotNull String contentHash) {
+
+		/**
+		 * @return Targets to send Webmentions to: added and removed targets,
+		 * and unchanged ones if the content changed.
+		 */
+		@NotNull
+		public Set<URI> getTargetsToNotify() {
+			Set<URI> targets = new LinkedHashSet<>(added);
+			targets.addAll(removed);
+			if (contentChanged) {
+				targets.addAll(unchanged);
+			}
+			return targets;
+		}
+
+		/**
+		 * @return Webmentions to send for {@link #getTargetsToNotify()}.
+		 */
+		@NotNull
+		public Set<Webmention> getWebmentions() {
+			return getTargetsToNotify().stream()
+				.map(target -> new Webmention(source, target))
+				.collect(Collectors.toCollection(LinkedHashSet::new));
+		}
+	}
+
+	private record LinkState(String contentHash, Set<URI> targets) {
+		private static final LinkState NONE = new LinkState("", Set.of());
+	}
+}
@@ -1,33 +1,71 @@
 package dev.rilling.webmention4j.client;
 
+import dev.rilling.webmention4j.client.internal.BlockingExecutors;
+import dev.rilling.webmention4j.client.internal.CircuitBreaker;
+import dev.rilling.webmention4j.client.internal.Deadline;
+import dev.rilling.webmention4j.client.internal.EndpointCache;
 import dev.rilling.webmention4j.client.internal.EndpointDiscoveryService;
 import dev.rilling.webmention4j.client.internal.EndpointService;
-import dev.rilling.webmention4j.client.internal.LocalhostRejectingRedirectStrategy;
+import dev.rilling.webmention4j.client.internal.HeadRequestPolicy;
+import dev.rilling.webmention4j.client.internal.HostScheduler;
+import dev.rilling.webmention4j.client.internal.NoEndpointCache;
+import dev.rilling.webmention4j.client.internal.PermanentRedirectCache;
+import dev.rilling.webmention4j.client.internal.RetryScheduler;
+import dev.rilling.webmention4j.client.internal.SingleFlight;
 import dev.rilling.webmention4j.client.internal.link.HeaderLinkParser;
 import dev.rilling.webmention4j.client.internal.link.HtmlLinkParser;
+import dev.rilling.webmention4j.common.CacheStats;
+import dev.rilling.webmention4j.common.HttpStatusException;
 import dev.rilling.webmention4j.common.Webmention;
-import dev.rilling.webmention4j.common.internal.HttpUtils;
 import dev.rilling.webmention4j.common.internal.UriUtils;
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.impl.IdleConnectionEvictor;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.TimeValue;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
+import java.net.SocketTimeoutException;
 import java.net.URI;
-import java.util.Objects;
-import java.util.Optional;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
  * Client that allows for Webmention sending and Webmention endpoint discovery.
+ * <p>
+ * Instances hold a pool of HTTP connections that is reused across calls, so a single instance should be shared
+ * and {@link #close() closed} once it is no longer needed.
  */
 // Spec: '3.1 Sending Webmentions'
-public final class WebmentionClient {
+public final class WebmentionClient implements AutoCloseable {
 	private final EndpointDiscoveryService endpointDiscoveryService;
 	private final EndpointService endpointService;
-	private final HttpClientFactory httpClientFactory;
 	private final Config config;
+	private final SingleFlight<Webmention, Optional<URI>> notifications = new SingleFlight<>();
+	private final CircuitBreaker circuitBreaker;
 
+	private final DnsResolver dnsResolver;
+	private final PoolingHttpClientConnectionManager connectionManager;
+	private final IdleConnectionEvictor idleConnectionEvictor;
+	private final CloseableHttpClient httpClient;
+	private final CloseableHttpClient localhostAllowingHttpClient;
+	private final CloseableHttpClient discoveryHttpClient;
+
+	private final ExecutorService batchExecutor;
+	private final HostScheduler hostScheduler;
+	private final ScheduledExecutorService timerExecutor;
+	private final RetryScheduler retryScheduler;
 
 	/**
 	 * Creates a new client with the default configuration.
@@ -42,17 +80,65 @@ public final class WebmentionClient {
 	 * @param config Custom configuration.
 	 */
 	public WebmentionClient(@NotNull Config config) {
-		this(new Config(config), WebmentionClient::createDefaultHttpClient, new EndpointService(), new EndpointDiscoveryService(new HeaderLinkParser(), new HtmlLinkParser()));
+		this(new Config(config), HttpClientFactory.createDnsResolver(config), createCircuitBreaker(config));
+	}
+
+	private WebmentionClient(@NotNull Config config,
+							 @NotNull DnsResolver dnsResolver,
+							 @NotNull CircuitBreaker circuitBreaker) {
+		this(config,
+			dnsResolver,
+			circuitBreaker,
+			createEndpointService(config, dnsResolver),
+			createEndpointDiscoveryService(config, circuitBreaker));
 	}
 
+	// The circuit breaker must be the one used by endpointDiscoveryService, so both count failures of a host together.
 	WebmentionClient(@NotNull Config config,
-					 @NotNull HttpClientFactory httpClientFactory,
+					 @NotNull CircuitBreaker circuitBreaker,
 					 @NotNull EndpointService endpointService,
 					 @NotNull EndpointDiscoveryService endpointDiscoveryService) {
+		this(config,
+			HttpClientFactory.createDnsResolver(config),
+			circuitBreaker,
+			endpointService,
+			endpointDiscoveryService);
+	}
+
+	private WebmentionClient(@NotNull Config config,
+							 @NotNull DnsResolver dnsResolver,
+							 @NotNull CircuitBreaker circuitBreaker,
+							 @NotNull EndpointService endpointService,
+							 @NotNull EndpointDiscoveryService endpointDiscoveryService) {
 		this.config = config;
 		this.endpointDiscoveryService = endpointDiscoveryService;
 		this.endpointService = endpointService;
-		this.httpClientFactory = httpClientFactory;
+		this.circuitBreaker = circuitBreaker;
+
+		// All clients share one pool so that connections to a host are reused regardless of which one is used.
+		this.dnsResolver = dnsResolver;
+		connectionManager = HttpClientFactory.createConnectionManager(config, dnsResolver);
+		// The builder only evicts for non-shared pools, so we do it ourselves.
+		idleConnectionEvictor = new IdleConnectionEvictor(connectionManager, TimeValue.of(config.getKeepAlive()));
+		idleConnectionEvictor.start();
+		httpClient = HttpClientFactory.createHttpClient(config, connectionManager, dnsResolver, false);
+		localhostAllowingHttpClient = HttpClientFactory.createHttpClient(config, connectionManager, dnsResolver, true);
+		discoveryHttpClient = HttpClientFactory.createDiscoveryHttpClient(config, connectionManager, dnsResolver);
+
+		// Parallelism is limited by the host scheduler, so that the executor may use a thread per task.
+		batchExecutor = BlockingExecutors.newExecutor("webmention4j-client-batch", config.getBatchParallelism());
+		timerExecutor = createTimerExecutor();
+		hostScheduler = new HostScheduler(batchExecutor,
+			timerExecutor,
+			config.getBatchParallelism(),
+			config.getMaxConcurrentRequestsPerHost(),
+			new HostScheduler.Politeness(config.getMinDelayPerHost(), config.getMaxRequestsPerSecondPerHost()),
+			config.isAdaptiveConcurrencyPerHost() ? new HostScheduler.Adaptivity(config.getMaxAdaptiveConcurrentRequestsPerHost(),
+				WebmentionClient::isOverload) : null);
+		retryScheduler = new RetryScheduler(timerExecutor,
+			config.getMaxRetries(),
+			config.getRetryInitialDelay(),
+			config.getRetryMaxDelay());
 	}
 
 	/**
@@ -62,13 +148,15 @@ public final class WebmentionClient {
 	 * @throws IOException if I/O fails.
 	 */
 	public boolean supportsWebmention(@NotNull URI target) throws IOException {
-		try (CloseableHttpClient httpClient = httpClientFactory.create(true)) {
-			return endpointDiscoveryService.discoverEndpoint(httpClient, target).isPresent();
-		}
+		return discoverEndpoint(target, Deadline.none()).isPresent();
 	}
 
 	/**
 	 * Notifies the target page that it was mentioned by the source page.
+	 * <p>
+	 * Concurrent calls for the same target share one discovery, and concurrent calls for an identical Webmention share
+	 * one notification. Hosts that failed repeatedly are not contacted for a while,
+	 * see {@link Config#setCircuitBreakerFailureThreshold(int)}.
 	 *
 	 * @param webmention Webmention to send.
 	 * @return URL to use to monitor request status, if supported by the endpoint.
@@ -76,27 +164,328 @@ public final class WebmentionClient {
 	 */
 	@NotNull
 	public Optional<URI> sendWebmention(@NotNull Webmention webmention) throws IOException {
-		URI endpoint;
-		try (CloseableHttpClient httpClient = httpClientFactory.create(true)) {
-			// Spec: '3.1.2 Sender discovers receiver Webmention endpoint'
-			endpoint = endpointDiscoveryService.discoverEndpoint(httpClient, webmention.target()).orElseThrow(() -> new IOException("Could not find any webmention endpoint URL in the target resource."));
+		return sendWebmention(webmention, config.getSendTimeout());
+	}
+
+	/**
+	 * Variant of {@link #sendWebmention(Webmention)} which gives up once a time budget is used up.
+	 * <p>
+	 * The budget covers discovery, notification and all redirects followed by them: each request may only take the
+	 * time remaining, and a request still in progress when the budget is used up is aborted.
+	 * Calls with a budget are not coalesced with concurrent calls.
+	 *
+	 * @param webmention Webmention to send.
+	 * @param timeout    Time budget. {@link Duration#ZERO} means no limit apart from the timeouts of each request.
+	 * @return URL to use to monitor request status, if supported by the endpoint.
+	 * @throws DeadlineExceededException if sending did not complete within the budget.
+	 * @throws IOException               if I/O fails.
+	 */
+	@NotNull
+	public Optional<URI> sendWebmention(@NotNull Webmention webmention, @NotNull Duration timeout) throws IOException {
+		try (Deadline deadline = createDeadline(timeout)) {
+			URI endpoint = discoverEndpoint(webmention.target(), deadline).orElseThrow(() -> new IOException(
+				"Could not find any webmention endpoint URL in the target resource."));
+			return notifyEndpoint(endpoint, webmention, deadline);
+		}
+	}
+
+	/**
+	 * Sends a Webmention if the target supports it, using a single discovery.
+	 * <p>
+	 * Unlike calling {@link #supportsWebmention(URI)} before {@link #sendWebmention(Webmention)}, this fetches the
+	 * target only once.
+	 *
+	 * @param webmention Webmention to send.
+	 * @return The outcome, which is never thrown.
+	 */
+	@NotNull
+	public WebmentionSendResult trySendWebmention(@NotNull Webmention webmention) {
+		try (Deadline deadline = createDeadline(config.getSendTimeout())) {
+			Optional<URI> endpoint;
+			try {
+				endpoint = discoverEndpoint(webmention.target(), deadline);
+			} catch (IOException e) {
+				return new WebmentionSendResult.Failed(e);
+			}
+			if (endpoint.isEmpty()) {
+				return new WebmentionSendResult.NoEndpoint();
+			}
+
+			try {
+				return new WebmentionSendResult.Sent(notifyEndpoint(endpoint.get(), webmention, deadline));
+			} catch (IOException e) {
+				return createNotificationFailure(e);
+			}
+		}
+	}
+
+	/**
+	 * Returns statistics of the cache of discovered endpoints, e.g. to help with sizing it
+	 * via {@link Config#setEndpointCacheSize(int)}.
+	 *
+	 * @return Statistics of the endpoint cache.
+	 */
+	@NotNull
+	public CacheStats getEndpointCacheStats() {
+		return endpointDiscoveryService.getEndpointCacheStats();
+	}
+
+	/**
+	 * Returns statistics of the cache of targets and hosts without endpoint, e.g. to help with sizing it
+	 * via {@link Config#setNoEndpointCacheSize(int)}.
+	 *
+	 * @return Statistics of the cache of targets without endpoint.
+	 */
+	@NotNull
+	public CacheStats getNoEndpointCacheStats() {
+		return endpointDiscoveryService.getNoEndpointCacheStats();
+	}
+
+	/**
+	 * Returns statistics of the cache of permanent redirects, e.g. to help with sizing it
+	 * via {@link Config#setPermanentRedirectCacheSize(int)}.
+	 *
+	 * @return Statistics of the cache of permanent redirects.
+	 */
+	@NotNull
+	public CacheStats getPermanentRedirectCacheStats() {
+		return endpointDiscoveryService.getPermanentRedirectCacheStats()
+			.plus(endpointService.getPermanentRedirectCacheStats());
+	}
+
+	/**
+	 * Returns the hosts that are currently not contacted because they failed repeatedly,
+	 * see {@link Config#setCircuitBreakerFailureThreshold(int)}.
+	 *
+	 * @return Names of unavailable hosts.
+	 */
+	@NotNull
+	public Set<String> getUnavailableHosts() {
+		return circuitBreaker.getUnavailableHosts();
+	}
+
+	/**
+	 * Returns the current limit of requests performed at once by {@link #sendWebmentions(Collection)} for each
+	 * recently contacted host. Unless {@link Config#setAdaptiveConcurrencyPerHost(boolean)} is enabled,
+	 * this is {@link Config#getMaxConcurrentRequestsPerHost()} for all hosts.
+	 *
+	 * @return Limit by host name.
+	 */
+	@NotNull
+	public Map<String, Integer> getConcurrencyLimits() {
+		return hostScheduler.getConcurrencyLimits();
+	}
+
+	/**
+	 * Sends multiple Webmentions in parallel.
+	 * <p>
+	 * At most {@link Config#getBatchParallelism()} requests are performed at once, of which at most
+	 * {@link Config#getMaxConcurrentRequestsPerHost()} go to the same host. Hosts are served in turns, and requests
+	 * to the same host are spaced out according to {@link Config#getMinDelayPerHost()} and
+	 * {@link Config#getMaxRequestsPerSecondPerHost()}.
+	 * Requests that failed temporarily are retried after a delay, see {@link Config#setMaxRetries(int)}. This includes
+	 * requests to hosts that are not contacted because they failed repeatedly, which are retried once the host is
+	 * tried again.
+	 * Failures do not affect other Webmentions of the batch.
+	 *
+	 * @param webmentions Webmentions to send.
+	 * @return The result for each Webmention, in iteration order of the input.
+	 */
+	@NotNull
+	public Map<Webmention, WebmentionSendResult> sendWebmentions(@NotNull Collection<Webmention> webmentions) {
+		Map<Webmention, CompletableFuture<WebmentionSendResult>> futures = new LinkedHashMap<>(webmentions.size());
+		for (Webmention webmention : webmentions) {
+			futures.computeIfAbsent(webmention, this::scheduleWebmention);
+		}
+
+		Map<Webmention, WebmentionSendResult> results = new LinkedHashMap<>(futures.size());
+		futures.forEach((webmention, future) -> results.put(webmention, future.join()));
+		return results;
+	}
+
+	@NotNull
+	CompletableFuture<WebmentionSendResult> scheduleWebmention(@NotNull Webmention webmention) {
+		// Retries wait on the timer executor and are then queued again, so that they do not block batch threads.
+		return retryScheduler.execute(() -> hostScheduler.submit(getHost(webmention.target()),
+				() -> discoverEndpoint(webmention.target(), Deadline.none())))
+			.<WebmentionSendResult>thenCompose(endpointOptional -> {
+				if (endpointOptional.isEmpty()) {
+					return CompletableFuture.completedFuture(new WebmentionSendResult.NoEndpoint());
+				}
+				URI endpoint = endpointOptional.get();
+				return retryScheduler.execute(() -> hostScheduler.submit(getHost(endpoint),
+						() -> notifyEndpoint(endpoint, webmention, Deadline.none())))
+					.<WebmentionSendResult>thenApply(WebmentionSendResult.Sent::new)
+					.exceptionally(throwable -> createNotificationFailure(unwrapException(throwable)));
+			})
+			.exceptionally(throwable -> new WebmentionSendResult.Failed(unwrapException(throwable)));
+	}
+
+	/**
+	 * Fetches a status URL using the batch scheduling of this client.
+	 */
+	@NotNull
+	CompletableFuture<WebmentionStatus> scheduleStatusFetch(@NotNull URI statusUrl) {
+		return hostScheduler.submit(getHost(statusUrl), () -> {
+			// Same reasoning as for the endpoint itself, see #notifyEndpoint.
+			if (!config.isAllowLocalhostEndpoint() && UriUtils.isLocalhost(statusUrl, dnsResolver)) {
+				throw new IOException("Status URL '%s' is localhost or a loopback IP address, refusing to fetch.".formatted(
+					statusUrl));
+			}
+			return endpointService.fetchStatus(config.isAllowLocalhostEndpoint() ? localhostAllowingHttpClient : httpClient,
+				statusUrl);
+		});
+	}
+
+	private Deadline createDeadline(Duration timeout) {
+		if (timeout.isZero()) {
+			return Deadline.none();
 		}
+		return Deadline.after(timeout,
+			limit -> HttpClientFactory.createRequestConfig(config, limit),
+			timerExecutor,
+			Clock.systemUTC());
+	}
+
+	private Optional<URI> discoverEndpoint(URI target, Deadline deadline) throws IOException {
+		// Spec: '3.1.2 Sender discovers receiver Webmention endpoint'
+		// Guarded by the circuit breaker within, so that coalesced discoveries count once.
+		return endpointDiscoveryService.discoverEndpoint(discoveryHttpClient, target, deadline);
+	}
 
+	private Optional<URI> notifyEndpoint(URI endpoint, Webmention webmention, Deadline deadline) throws IOException {
+		// See EndpointDiscoveryService#discoverEndpoint for why calls with a deadline are not coalesced.
+		if (deadline.isBounded()) {
+			return notifyEndpointUncoalesced(endpoint, webmention, deadline);
+		}
+		// Identical Webmentions sent concurrently, e.g. duplicate submissions, only need to be sent once.
+		return notifications.execute(webmention, () -> notifyEndpointUncoalesced(endpoint, webmention, deadline));
+	}
+
+	private Optional<URI> notifyEndpointUncoalesced(URI endpoint, Webmention webmention, Deadline deadline)
+		throws IOException {
 		/*
 		 * Spec:
 		 * 'During the discovery step, if the sender discovers the endpoint is localhost or a loopback IP address (127.0.0.0/8),
 		 *  it SHOULD NOT send the Webmention to that endpoint.'
 		 *
-		 * Note that this is check needs to also be done following redirects (see #createDefaultHttpClient).
+		 * Note that this is check needs to also be done following redirects (see HttpClientFactory#createHttpClient).
 		 */
-		if (!config.isAllowLocalhostEndpoint() && UriUtils.isLocalhost(endpoint)) {
+		if (!config.isAllowLocalhostEndpoint() && UriUtils.isLocalhost(endpoint, dnsResolver)) {
 			throw new IOException(("Endpoint '%s' is localhost or a loopback IP address, refusing to notify.").formatted(
 				endpoint));
 		}
-		try (CloseableHttpClient httpClient = httpClientFactory.create(config.isAllowLocalhostEndpoint())) {
-			// Spec: '3.1.3 Sender notifies receiver'
-			return endpointService.notifyEndpoint(httpClient, endpoint, webmention);
+		// Spec: '3.1.3 Sender notifies receiver'
+		try {
+			return circuitBreaker.execute(getHost(endpoint), () -> {
+				try {
+					return endpointService.notifyEndpoint(config.isAllowLocalhostEndpoint() ?
+						localhostAllowingHttpClient :
+						httpClient, endpoint, webmention, deadline);
+				} catch (IOException e) {
+					throw deadline.translate(e);
+				}
+			});
+		} catch (CircuitOpenException | DeadlineExceededException e) {
+			// Nothing was sent or the endpoint was not given enough time, so this says nothing about the endpoint.
+			throw e;
+		} catch (IOException e) {
+			// The endpoint may have changed, so rediscover it next time.
+			endpointDiscoveryService.invalidateEndpoint(webmention.target());
+			throw e;
+		}
+	}
+
+	private static PermanentRedirectCache createPermanentRedirectCache(Config config) {
+		return new PermanentRedirectCache(config.getPermanentRedirectCacheSize(),
+			config.getPermanentRedirectCacheTimeToLive(),
+			Clock.systemUTC());
+	}
+
+	/*
+	 * Discovery may follow redirects to localhost, so its redirects must not be used for notifications,
+	 * which is why each service gets a cache of its own.
+	 */
+	static EndpointService createEndpointService(Config config, DnsResolver dnsResolver) {
+		return new EndpointService(createPermanentRedirectCache(config),
+			config.isAllowLocalhostEndpoint() ? null : dnsResolver);
+	}
+
+	static CircuitBreaker createCircuitBreaker(Config config) {
+		return new CircuitBreaker(config.getCircuitBreakerFailureThreshold(),
+			config.getCircuitBreakerOpenDuration(),
+			Clock.systemUTC());
+	}
+
+	static EndpointDiscoveryService createEndpointDiscoveryService(Config config, CircuitBreaker circuitBreaker) {
+		EndpointCache endpointCache = new EndpointCache(config.getEndpointCacheSize(),
+			config.getEndpointCacheDefaultTimeToLive(),
+			config.getEndpointCacheMaxTimeToLive(),
+			config.isEndpointCacheByOrigin(),
+			Clock.systemUTC());
+		NoEndpointCache noEndpointCache = new NoEndpointCache(config.getNoEndpointCacheSize(),
+			config.getNoEndpointCacheTimeToLive(),
+			config.getNoEndpointHostThreshold(),
+			Clock.systemUTC());
+		return new EndpointDiscoveryService(new HeaderLinkParser(), new HtmlLinkParser(config.getMaxDiscoveryBodySize()),
+			endpointCache,
+			noEndpointCache,
+			new HeadRequestPolicy(config.isHeadFirstDiscovery(), Clock.systemUTC()),
+			createPermanentRedirectCache(config),
+			circuitBreaker);
+	}
+
+
+	private static WebmentionSendResult createNotificationFailure(Exception e) {
+		// Spec: 'If the Webmention was not successful because of something the sender did, it MUST return a 400 Bad Request status code'
+		// Timeouts and rate limiting say nothing about the Webmention itself, so they may succeed later.
+		if (e instanceof HttpStatusException httpStatusException && httpStatusException.getStatusCode() >= 400 &&
+			httpStatusException.getStatusCode() < 500 &&
+			httpStatusException.getStatusCode() != HttpStatus.SC_REQUEST_TIMEOUT && !RetryScheduler.isRetryable(e)) {
+			return new WebmentionSendResult.Rejected(httpStatusException.getStatusCode());
 		}
+		return new WebmentionSendResult.Failed(e);
+	}
+
+	private static boolean isOverload(Throwable failure) {
+		return RetryScheduler.isRetryable(failure) || failure instanceof SocketTimeoutException;
+	}
+
+	private static ScheduledExecutorService createTimerExecutor() {
+		return Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "webmention4j-client-timer");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	static String getHost(URI uri) {
+		return Objects.requireNonNullElse(uri.getHost(), "");
+	}
+
+	private static Exception unwrapException(Throwable throwable) {
+		Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+		if (cause instanceof Exception exception) {
+			return exception;
+		}
+		throw new IllegalStateException("Unexpected error.", cause);
+	}
+
+	/**
+	 * Closes the underlying HTTP connection pool. Batch sends still in progress, including those waiting for a retry,
+	 * will fail. The client must not be used afterwards.
+	 */
+	@Override
+	public void close() {
+		timerExecutor.shutdownNow();
+		retryScheduler.failPendingRetries();
+		hostScheduler.failWaitingTasks();
+		batchExecutor.shutdown();
+		idleConnectionEvictor.shutdown();
+		discoveryHttpClient.close(CloseMode.GRACEFUL);
+		localhostAllowingHttpClient.close(CloseMode.GRACEFUL);
+		httpClient.close(CloseMode.GRACEFUL);
+		connectionManager.close(CloseMode.GRACEFUL);
 	}
 
 	/**
@@ -104,16 +493,124 @@ public final class WebmentionClient {
 	 */
 	public static class Config {
 		private boolean allowLocalhostEndpoint;
+		private int maxConnectionsPerRoute;
+		private int maxConnectionsTotal;
+		private Duration connectTimeout;
+		private Duration socketTimeout;
+		private Duration connectionRequestTimeout;
+		private Duration keepAlive;
+		private int tlsSessionCacheSize;
+		private Duration tlsSessionTimeout;
+		private int batchParallelism;
+		private int maxConcurrentRequestsPerHost;
+		private int endpointCacheSize;
+		private Duration endpointCacheDefaultTimeToLive;
+		private Duration endpointCacheMaxTimeToLive;
+		private boolean endpointCacheByOrigin;
+		private int noEndpointCacheSize;
+		private Duration noEndpointCacheTimeToLive;
+		private int noEndpointHostThreshold;
+		private long maxDiscoveryBodySize;
+		private boolean headFirstDiscovery;
+		private int maxRetries;
+		private Duration retryInitialDelay;
+		private Duration retryMaxDelay;
+		private Duration minDelayPerHost;
+		private double maxRequestsPerSecondPerHost;
+		private boolean adaptiveConcurrencyPerHost;
+		private int maxAdaptiveConcurrentRequestsPerHost;
+		private boolean http2;
+		private int dnsCacheSize;
+		private Duration dnsCacheTimeToLive;
+		private Path httpCacheDirectory;
+		private int httpCacheSize;
+		private int permanentRedirectCacheSize;
+		private Duration permanentRedirectCacheTimeToLive;
+		private int circuitBreakerFailureThreshold;
+		private Duration circuitBreakerOpenDuration;
+		private Duration sendTimeout;
 
 		/**
 		 * Creates a new configuration with default values.
 		 */
 		public Config() {
 			allowLocalhostEndpoint = false;
+			maxConnectionsPerRoute = 5;
+			maxConnectionsTotal = 25;
+			connectTimeout = Duration.ofSeconds(10);
+			socketTimeout = Duration.ofSeconds(30);
+			connectionRequestTimeout = Duration.ofSeconds(30);
+			keepAlive = Duration.ofMinutes(1);
+			tlsSessionCacheSize = 1000;
+			tlsSessionTimeout = Duration.ofHours(1);
+			batchParallelism = 8;
+			maxConcurrentRequestsPerHost = 2;
+			endpointCacheSize = 1000;
+			endpointCacheDefaultTimeToLive = Duration.ofHours(1);
+			endpointCacheMaxTimeToLive = Duration.ofDays(1);
+			endpointCacheByOrigin = false;
+			noEndpointCacheSize = 1000;
+			noEndpointCacheTimeToLive = Duration.ofHours(6);
+			noEndpointHostThreshold = 5;
+			maxDiscoveryBodySize = HtmlLinkParser.DEFAULT_MAX_BODY_SIZE;
+			headFirstDiscovery = false;
+			maxRetries = 3;
+			retryInitialDelay = Duration.ofSeconds(1);
+			retryMaxDelay = Duration.ofMinutes(5);
+			minDelayPerHost = Duration.ZERO;
+			maxRequestsPerSecondPerHost = 0;
+			adaptiveConcurrencyPerHost = false;
+			maxAdaptiveConcurrentRequestsPerHost = 16;
+			http2 = false;
+			dnsCacheSize = 1000;
+			dnsCacheTimeToLive = Duration.ofMinutes(1);
+			httpCacheDirectory = null;
+			httpCacheSize = 10_000;
+			permanentRedirectCacheSize = 1000;
+			permanentRedirectCacheTimeToLive = Duration.ofDays(1);
+			circuitBreakerFailureThreshold = 5;
+			circuitBreakerOpenDuration = Duration.ofMinutes(1);
+			sendTimeout = Duration.ZERO;
 		}
 
-		private Config(Config original) {
+		Config(@NotNull Config original) {
 			allowLocalhostEndpoint = original.allowLocalhostEndpoint;
+			maxConnectionsPerRoute = original.maxConnectionsPerRoute;
+			maxConnectionsTotal = original.maxConnectionsTotal;
+			connectTimeout = original.connectTimeout;
+			socketTimeout = original.socketTimeout;
+			connectionRequestTimeout = original.connectionRequestTimeout;
+			keepAlive = original.keepAlive;
+			tlsSessionCacheSize = original.tlsSessionCacheSize;
+			tlsSessionTimeout = original.tlsSessionTimeout;
+			batchParallelism = original.batchParallelism;
+			maxConcurrentRequestsPerHost = original.maxConcurrentRequestsPerHost;
+			endpointCacheSize = original.endpointCacheSize;
+			endpointCacheDefaultTimeToLive = original.endpointCacheDefaultTimeToLive;
+			endpointCacheMaxTimeToLive = original.endpointCacheMaxTimeToLive;
+			endpointCacheByOrigin = original.endpointCacheByOrigin;
+			noEndpointCacheSize = original.noEndpointCacheSize;
+			noEndpointCacheTimeToLive = original.noEndpointCacheTimeToLive;
+			noEndpointHostThreshold = original.noEndpointHostThreshold;
+			maxDiscoveryBodySize = original.maxDiscoveryBodySize;
+			headFirstDiscovery = original.headFirstDiscovery;
+			maxRetries = original.maxRetries;
+			retryInitialDelay = original.retryInitialDelay;
+			retryMaxDelay = original.retryMaxDelay;
+			minDelayPerHost = original.minDelayPerHost;
+			maxRequestsPerSecondPerHost = original.maxRequestsPerSecondPerHost;
+			adaptiveConcurrencyPerHost = original.adaptiveConcurrencyPerHost;
+			maxAdaptiveConcurrentRequestsPerHost = original.maxAdaptiveConcurrentRequestsPerHost;
+			http2 = original.http2;
+			dnsCacheSize = original.dnsCacheSize;
+			dnsCacheTimeToLive = original.dnsCacheTimeToLive;
+			httpCacheDirectory = original.httpCacheDirectory;
+			httpCacheSize = original.httpCacheSize;
+			permanentRedirectCacheSize = original.permanentRedirectCacheSize;
+			permanentRedirectCacheTimeToLive = original.permanentRedirectCacheTimeToLive;
+			circuitBreakerFailureThreshold = original.circuitBreakerFailureThreshold;
+			circuitBreakerOpenDuration = original.circuitBreakerOpenDuration;
+			sendTimeout = original.sendTimeout;
 		}
 
 		/**
@@ -139,6 +636,613 @@ public final class WebmentionClient {
 			return allowLocalhostEndpoint;
 		}
 
+		/**
+		 * Configures the maximum number of pooled connections per route (i.e. per host).
+		 * Defaults to {@code 5}.
+		 */
+		public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+			this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+		}
+
+		/**
+		 * @see #setMaxConnectionsPerRoute(int)
+		 */
+		public int getMaxConnectionsPerRoute() {
+			return maxConnectionsPerRoute;
+		}
+
+		/**
+		 * Configures the maximum number of pooled connections in total.
+		 * Defaults to {@code 25}.
+		 */
+		public void setMaxConnectionsTotal(int maxConnectionsTotal) {
+			this.maxConnectionsTotal = maxConnectionsTotal;
+		}
+
+		/**
+		 * @see #setMaxConnectionsTotal(int)
+		 */
+		public int getMaxConnectionsTotal() {
+			return maxConnectionsTotal;
+		}
+
+		/**
+		 * Configures the timeout until a new connection is established.
+		 * Defaults to 10 seconds.
+		 */
+		public void setConnectTimeout(@NotNull Duration connectTimeout) {
+			this.connectTimeout = connectTimeout;
+		}
+
+		/**
+		 * @see #setConnectTimeout(Duration)
+		 */
+		@NotNull
+		public Duration getConnectTimeout() {
+			return connectTimeout;
+		}
+
+		/**
+		 * Configures the maximum period of inactivity while waiting for response data.
+		 * Defaults to 30 seconds.
+		 */
+		public void setSocketTimeout(@NotNull Duration socketTimeout) {
+			this.socketTimeout = socketTimeout;
+		}
+
+		/**
+		 * @see #setSocketTimeout(Duration)
+		 */
+		@NotNull
+		public Duration getSocketTimeout() {
+			return socketTimeout;
+		}
+
+		/**
+		 * Configures the timeout for waiting on a free connection from the pool.
+		 * Defaults to 30 seconds.
+		 */
+		public void setConnectionRequestTimeout(@NotNull Duration connectionRequestTimeout) {
+			this.connectionRequestTimeout = connectionRequestTimeout;
+		}
+
+		/**
+		 * @see #setConnectionRequestTimeout(Duration)
+		 */
+		@NotNull
+		public Duration getConnectionRequestTimeout() {
+			return connectionRequestTimeout;
+		}
+
+		/**
+		 * Configures how long idle connections are kept alive in the pool if the server does not specify a duration.
+		 * Defaults to 1 minute.
+		 */
+		public void setKeepAlive(@NotNull Duration keepAlive) {
+			this.keepAlive = keepAlive;
+		}
+
+		/**
+		 * @see #setKeepAlive(Duration)
+		 */
+		@NotNull
+		public Duration getKeepAlive() {
+			return keepAlive;
+		}
+
+		/**
+		 * Configures how many TLS sessions are cached for resumption. {@code 0} means no limit.
+		 * Defaults to {@code 1000}.
+		 */
+		public void setTlsSessionCacheSize(int tlsSessionCacheSize) {
+			this.tlsSessionCacheSize = tlsSessionCacheSize;
+		}
+
+		/**
+		 * @see #setTlsSessionCacheSize(int)
+		 */
+		public int getTlsSessionCacheSize() {
+			return tlsSessionCacheSize;
+		}
+
+		/**
+		 * Configures how long cached TLS sessions may be resumed for.
+		 * Defaults to 1 hour.
+		 */
+		public void setTlsSessionTimeout(@NotNull Duration tlsSessionTimeout) {
+			this.tlsSessionTimeout = tlsSessionTimeout;
+		}
+
+		/**
+		 * @see #setTlsSessionTimeout(Duration)
+		 */
+		@NotNull
+		public Duration getTlsSessionTimeout() {
+			return tlsSessionTimeout;
+		}
+
+		/**
+		 * Configures how many requests {@link #sendWebmentions(Collection)} performs at once.
+		 * Defaults to {@code 8}.
+		 */
+		public void setBatchParallelism(int batchParallelism) {
+			this.batchParallelism = batchParallelism;
+		}
+
+		/**
+		 * @see #setBatchParallelism(int)
+		 */
+		public int getBatchParallelism() {
+			return batchParallelism;
+		}
+
+		/**
+		 * Configures how many requests {@link #sendWebmentions(Collection)} performs at once to the same host.
+		 * This applies to both target hosts during discovery and endpoint hosts during notification.
+		 * Defaults to {@code 2}.
+		 */
+		public void setMaxConcurrentRequestsPerHost(int maxConcurrentRequestsPerHost) {
+			this.maxConcurrentRequestsPerHost = maxConcurrentRequestsPerHost;
+		}
+
+		/**
+		 * @see #setMaxConcurrentRequestsPerHost(int)
+		 */
+		public int getMaxConcurrentRequestsPerHost() {
+			return maxConcurrentRequestsPerHost;
+		}
+
+		/**
+		 * Configures how many discovered endpoints are cached. {@code 0} disables caching.
+		 * Defaults to {@code 1000}.
+		 *
+		 * @see WebmentionClient#getEndpointCacheStats()
+		 */
+		public void setEndpointCacheSize(int endpointCacheSize) {
+			this.endpointCacheSize = endpointCacheSize;
+		}
+
+		/**
+		 * @see #setEndpointCacheSize(int)
+		 */
+		public int getEndpointCacheSize() {
+			return endpointCacheSize;
+		}
+
+		/**
+		 * Configures how long a discovered endpoint is cached
+		 * if the target response has no 'Cache-Control' or 'Expires' header.
+		 * Defaults to 1 hour.
+		 */
+		public void setEndpointCacheDefaultTimeToLive(@NotNull Duration endpointCacheDefaultTimeToLive) {
+			this.endpointCacheDefaultTimeToLive = endpointCacheDefaultTimeToLive;
+		}
+
+		/**
+		 * @see #setEndpointCacheDefaultTimeToLive(Duration)
+		 */
+		@NotNull
+		public Duration getEndpointCacheDefaultTimeToLive() {
+			return endpointCacheDefaultTimeToLive;
+		}
+
+		/**
+		 * Configures how long a discovered endpoint is cached at most, even if the target response allows longer.
+		 * Defaults to 1 day.
+		 */
+		public void setEndpointCacheMaxTimeToLive(@NotNull Duration endpointCacheMaxTimeToLive) {
+			this.endpointCacheMaxTimeToLive = endpointCacheMaxTimeToLive;
+		}
+
+		/**
+		 * @see #setEndpointCacheMaxTimeToLive(Duration)
+		 */
+		@NotNull
+		public Duration getEndpointCacheMaxTimeToLive() {
+			return endpointCacheMaxTimeToLive;
+		}
+
+		/**
+		 * Configures if a discovered endpoint is reused for all targets of the same origin (scheme, host and port)
+		 * instead of only for the same target URL.
+		 * This avoids fetching every page of a site, but is only correct if the site uses a single endpoint.
+		 * Defaults to {@code false}.
+		 */
+		public void setEndpointCacheByOrigin(boolean endpointCacheByOrigin) {
+			this.endpointCacheByOrigin = endpointCacheByOrigin;
+		}
+
+		/**
+		 * @see #setEndpointCacheByOrigin(boolean)
+		 */
+		public boolean isEndpointCacheByOrigin() {
+			return endpointCacheByOrigin;
+		}
+
+		/**
+		 * Configures how many targets without endpoint are remembered, and separately how many hosts.
+		 * Those are not fetched again until they expire. {@code 0} disables caching.
+		 * Defaults to {@code 1000}.
+		 *
+		 * @see WebmentionClient#getNoEndpointCacheStats()
+		 */
+		public void setNoEndpointCacheSize(int noEndpointCacheSize) {
+			this.noEndpointCacheSize = noEndpointCacheSize;
+		}
+
+		/**
+		 * @see #setNoEndpointCacheSize(int)
+		 */
+		public int getNoEndpointCacheSize() {
+			return noEndpointCacheSize;
+		}
+
+		/**
+		 * Configures how long targets and hosts without endpoint are remembered.
+		 * Defaults to 6 hours.
+		 */
+		public void setNoEndpointCacheTimeToLive(@NotNull Duration noEndpointCacheTimeToLive) {
+			this.noEndpointCacheTimeToLive = noEndpointCacheTimeToLive;
+		}
+
+		/**
+		 * @see #setNoEndpointCacheTimeToLive(Duration)
+		 */
+		@NotNull
+		public Duration getNoEndpointCacheTimeToLive() {
+			return noEndpointCacheTimeToLive;
+		}
+
+		/**
+		 * Configures after how many different targets of a host without endpoint the whole host is assumed to have none,
+		 * provided no endpoint was found for any of its targets in the meantime. {@code 0} disables this.
+		 * Defaults to {@code 5}.
+		 */
+		public void setNoEndpointHostThreshold(int noEndpointHostThreshold) {
+			this.noEndpointHostThreshold = noEndpointHostThreshold;
+		}
+
+		/**
+		 * @see #setNoEndpointHostThreshold(int)
+		 */
+		public int getNoEndpointHostThreshold() {
+			return noEndpointHostThreshold;
+		}
+
+		/**
+		 * Configures how many bytes of an HTML target are read at most when looking for an endpoint.
+		 * Endpoints linked after that are not found.
+		 * Defaults to 1 MiB.
+		 */
+		public void setMaxDiscoveryBodySize(long maxDiscoveryBodySize) {
+			this.maxDiscoveryBodySize = maxDiscoveryBodySize;
+		}
+
+		/**
+		 * @see #setMaxDiscoveryBodySize(long)
+		 */
+		public long getMaxDiscoveryBodySize() {
+			return maxDiscoveryBodySize;
+		}
+
+		/**
+		 * Configures if discovery first sends a HEAD request to check the 'Link' header,
+		 * only fetching and parsing the whole target if that does not find an endpoint.
+		 * Hosts which turn out to advertise their endpoint only in the body are remembered and not sent HEAD requests
+		 * for a while.
+		 * Defaults to {@code false}.
+		 */
+		public void setHeadFirstDiscovery(boolean headFirstDiscovery) {
+			this.headFirstDiscovery = headFirstDiscovery;
+		}
+
+		/**
+		 * @see #setHeadFirstDiscovery(boolean)
+		 */
+		public boolean isHeadFirstDiscovery() {
+			return headFirstDiscovery;
+		}
+
+		/**
+		 * Configures how often {@link #sendWebmentions(Collection)} retries a request that failed temporarily,
+		 * i.e. that could not connect or got a 429, 502, 503 or 504 response. {@code 0} disables retries.
+		 * Defaults to {@code 3}.
+		 */
+		public void setMaxRetries(int maxRetries) {
+			this.maxRetries = maxRetries;
+		}
+
+		/**
+		 * @see #setMaxRetries(int)
+		 */
+		public int getMaxRetries() {
+			return maxRetries;
+		}
+
+		/**
+		 * Configures the delay before the first retry. The delay doubles with each further retry, with some randomness added.
+		 * Defaults to 1 second.
+		 */
+		public void setRetryInitialDelay(@NotNull Duration retryInitialDelay) {
+			this.retryInitialDelay = retryInitialDelay;
+		}
+
+		/**
+		 * @see #setRetryInitialDelay(Duration)
+		 */
+		@NotNull
+		public Duration getRetryInitialDelay() {
+			return retryInitialDelay;
+		}
+
+		/**
+		 * Configures the maximum delay before a retry. Requests for which the server asks for a longer delay using
+		 * the 'Retry-After' header are not retried.
+		 * Defaults to 5 minutes.
+		 */
+		public void setRetryMaxDelay(@NotNull Duration retryMaxDelay) {
+			this.retryMaxDelay = retryMaxDelay;
+		}
+
+		/**
+		 * @see #setRetryMaxDelay(Duration)
+		 */
+		@NotNull
+		public Duration getRetryMaxDelay() {
+			return retryMaxDelay;
+		}
+
+		/**
+		 * Configures the minimum delay between two requests {@link #sendWebmentions(Collection)} sends to the same host.
+		 * This applies to both target hosts during discovery and endpoint hosts during notification.
+		 * Defaults to no delay.
+		 */
+		public void setMinDelayPerHost(@NotNull Duration minDelayPerHost) {
+			this.minDelayPerHost = minDelayPerHost;
+		}
+
+		/**
+		 * @see #setMinDelayPerHost(Duration)
+		 */
+		@NotNull
+		public Duration getMinDelayPerHost() {
+			return minDelayPerHost;
+		}
+
+		/**
+		 * Configures how many requests per second {@link #sendWebmentions(Collection)} sends to the same host on average.
+		 * Short bursts of up to this many requests at once are allowed. {@code 0} disables the limit.
+		 * This applies to both target hosts during discovery and endpoint hosts during notification.
+		 * Defaults to {@code 0}.
+		 */
+		public void setMaxRequestsPerSecondPerHost(double maxRequestsPerSecondPerHost) {
+			this.maxRequestsPerSecondPerHost = maxRequestsPerSecondPerHost;
+		}
+
+		/**
+		 * @see #setMaxRequestsPerSecondPerHost(double)
+		 */
+		public double getMaxRequestsPerSecondPerHost() {
+			return maxRequestsPerSecondPerHost;
+		}
+
+		/**
+		 * Configures if the number of requests {@link #sendWebmentions(Collection)} performs at once to the same host adapts to
+		 * how well the host copes: It grows while requests succeed quickly, up to
+		 * {@link #getMaxAdaptiveConcurrentRequestsPerHost()}, and is halved if the host responds much slower than usual
+		 * or is overloaded. {@link #getMaxConcurrentRequestsPerHost()} is the limit hosts start with.
+		 * Defaults to {@code false}.
+		 */
+		public void setAdaptiveConcurrencyPerHost(boolean adaptiveConcurrencyPerHost) {
+			this.adaptiveConcurrencyPerHost = adaptiveConcurrencyPerHost;
+		}
+
+		/**
+		 * @see #setAdaptiveConcurrencyPerHost(boolean)
+		 */
+		public boolean isAdaptiveConcurrencyPerHost() {
+			return adaptiveConcurrencyPerHost;
+		}
+
+		/**
+		 * Configures the maximum number of requests performed at once to the same host if
+		 * {@link #isAdaptiveConcurrencyPerHost()} is enabled.
+		 * Defaults to {@code 16}.
+		 */
+		public void setMaxAdaptiveConcurrentRequestsPerHost(int maxAdaptiveConcurrentRequestsPerHost) {
+			this.maxAdaptiveConcurrentRequestsPerHost = maxAdaptiveConcurrentRequestsPerHost;
+		}
+
+		/**
+		 * @see #setMaxAdaptiveConcurrentRequestsPerHost(int)
+		 */
+		public int getMaxAdaptiveConcurrentRequestsPerHost() {
+			return maxAdaptiveConcurrentRequestsPerHost;
+		}
+
+		/**
+		 * Configures if {@link AsyncWebmentionClient} sends notifications over HTTP/2,
+		 * multiplexing concurrent notifications to the same endpoint host over a single connection.
+		 * HTTPS endpoints negotiate HTTP/2 via ALPN, plain HTTP endpoints are contacted with prior knowledge (h2c).
+		 * Hosts which do not support HTTP/2 are remembered and notified over HTTP/1.1 instead. As a plain HTTP
+		 * endpoint may have processed a notification before failing, the first notification to such an endpoint
+		 * which does not support HTTP/2 fails instead of being repeated over HTTP/1.1.
+		 * Defaults to {@code false}.
+		 */
+		public void setHttp2(boolean http2) {
+			this.http2 = http2;
+		}
+
+		/**
+		 * @see #setHttp2(boolean)
+		 */
+		public boolean isHttp2() {
+			return http2;
+		}
+
+		/**
+		 * Configures for how many hosts resolved addresses are cached. {@code 0} disables caching.
+		 * The same addresses are used to check if an endpoint is localhost and to connect to it.
+		 * Defaults to {@code 1000}.
+		 */
+		public void setDnsCacheSize(int dnsCacheSize) {
+			this.dnsCacheSize = dnsCacheSize;
+		}
+
+		/**
+		 * @see #setDnsCacheSize(int)
+		 */
+		public int getDnsCacheSize() {
+			return dnsCacheSize;
+		}
+
+		/**
+		 * Configures how long resolved addresses are cached.
+		 * Defaults to 1 minute.
+		 */
+		public void setDnsCacheTimeToLive(@NotNull Duration dnsCacheTimeToLive) {
+			this.dnsCacheTimeToLive = dnsCacheTimeToLive;
+		}
+
+		/**
+		 * @see #setDnsCacheTimeToLive(Duration)
+		 */
+		@NotNull
+		public Duration getDnsCacheTimeToLive() {
+			return dnsCacheTimeToLive;
+		}
+
+		/**
+		 * Configures a directory in which responses fetched during endpoint discovery are cached, following the caching
+		 * rules of HTTP (RFC 9111). Fresh responses are served from the cache, stale ones are revalidated with a
+		 * conditional request so that an unchanged target is answered with {@code 304 Not Modified} instead of its full
+		 * content.
+		 * As the cache is kept on disk, it is retained when the application is restarted.
+		 * Only used by {@link WebmentionClient}.
+		 * Defaults to {@code null}, which disables the cache.
+		 */
+		public void setHttpCacheDirectory(@Nullable Path httpCacheDirectory) {
+			this.httpCacheDirectory = httpCacheDirectory;
+		}
+
+		/**
+		 * @see #setHttpCacheDirectory(Path)
+		 */
+		@Nullable
+		public Path getHttpCacheDirectory() {
+			return httpCacheDirectory;
+		}
+
+		/**
+		 * Configures the maximum number of responses kept in the {@link #setHttpCacheDirectory(Path) HTTP cache}.
+		 * If the cache is full, the least recently stored responses are removed.
+		 * Defaults to 10000.
+		 */
+		public void setHttpCacheSize(int httpCacheSize) {
+			this.httpCacheSize = httpCacheSize;
+		}
+
+		/**
+		 * @see #setHttpCacheSize(int)
+		 */
+		public int getHttpCacheSize() {
+			return httpCacheSize;
+		}
+
+		/**
+		 * Configures how many permanent redirects of targets and endpoints are cached, so that they are requested at their
+		 * new location directly. {@code 0} disables caching.
+		 * Defaults to {@code 1000}.
+		 *
+		 * @see WebmentionClient#getPermanentRedirectCacheStats()
+		 */
+		public void setPermanentRedirectCacheSize(int permanentRedirectCacheSize) {
+			this.permanentRedirectCacheSize = permanentRedirectCacheSize;
+		}
+
+		/**
+		 * @see #setPermanentRedirectCacheSize(int)
+		 */
+		public int getPermanentRedirectCacheSize() {
+			return permanentRedirectCacheSize;
+		}
+
+		/**
+		 * Configures how long a permanent redirect is cached.
+		 * Defaults to 1 day.
+		 */
+		public void setPermanentRedirectCacheTimeToLive(@NotNull Duration permanentRedirectCacheTimeToLive) {
+			this.permanentRedirectCacheTimeToLive = permanentRedirectCacheTimeToLive;
+		}
+
+		/**
+		 * @see #setPermanentRedirectCacheTimeToLive(Duration)
+		 */
+		@NotNull
+		public Duration getPermanentRedirectCacheTimeToLive() {
+			return permanentRedirectCacheTimeToLive;
+		}
+
+		/**
+		 * Configures after how many consecutive failures of a host, e.g. timeouts or {@code 503 Service Unavailable}
+		 * responses, no further requests are sent to it for a while. Sending to such a host fails with a
+		 * {@link CircuitOpenException}, except for batch sends, which retry once the host is tried again.
+		 * {@code 0} disables this.
+		 * Defaults to {@code 5}.
+		 *
+		 * @see #setCircuitBreakerOpenDuration(Duration)
+		 * @see WebmentionClient#getUnavailableHosts()
+		 */
+		public void setCircuitBreakerFailureThreshold(int circuitBreakerFailureThreshold) {
+			this.circuitBreakerFailureThreshold = circuitBreakerFailureThreshold;
+		}
+
+		/**
+		 * @see #setCircuitBreakerFailureThreshold(int)
+		 */
+		public int getCircuitBreakerFailureThreshold() {
+			return circuitBreakerFailureThreshold;
+		}
+
+		/**
+		 * Configures how long no requests are sent to a host that failed repeatedly. Afterwards, a single request is sent
+		 * to check if the host is available again.
+		 * Defaults to 1 minute.
+		 *
+		 * @see #setCircuitBreakerFailureThreshold(int)
+		 */
+		public void setCircuitBreakerOpenDuration(@NotNull Duration circuitBreakerOpenDuration) {
+			this.circuitBreakerOpenDuration = circuitBreakerOpenDuration;
+		}
+
+		/**
+		 * @see #setCircuitBreakerOpenDuration(Duration)
+		 */
+		@NotNull
+		public Duration getCircuitBreakerOpenDuration() {
+			return circuitBreakerOpenDuration;
+		}
+
+		/**
+		 * Configures the time budget of {@link WebmentionClient#sendWebmention(Webmention)} and
+		 * {@link WebmentionClient#trySendWebmention(Webmention)}, covering discovery, notification and all redirects followed
+		 * by them. {@link Duration#ZERO} means no limit apart from the timeouts of each request.
+		 * Defaults to no limit.
+		 *
+		 * @see WebmentionClient#sendWebmention(Webmention, Duration)
+		 */
+		public void setSendTimeout(@NotNull Duration sendTimeout) {
+			this.sendTimeout = sendTimeout;
+		}
+
+		/**
+		 * @see #setSendTimeout(Duration)
+		 */
+		@NotNull
+		public Duration getSendTimeout() {
+			return sendTimeout;
+		}
+
 		@Override
 		public boolean equals(Object obj) {
 			if (this == obj) {
@@ -148,43 +1252,109 @@ public final class WebmentionClient {
 				return false;
 			}
 			Config config = (Config) obj;
-			return allowLocalhostEndpoint == config.allowLocalhostEndpoint;
+			return allowLocalhostEndpoint == config.allowLocalhostEndpoint &&
+				maxConnectionsPerRoute == config.maxConnectionsPerRoute &&
+				maxConnectionsTotal == config.maxConnectionsTotal &&
+				tlsSessionCacheSize == config.tlsSessionCacheSize &&
+				batchParallelism == config.batchParallelism &&
+				maxConcurrentRequestsPerHost == config.maxConcurrentRequestsPerHost &&
+				endpointCacheSize == config.endpointCacheSize &&
+				endpointCacheByOrigin == config.endpointCacheByOrigin &&
+				noEndpointCacheSize == config.noEndpointCacheSize &&
+				noEndpointHostThreshold == config.noEndpointHostThreshold &&
+				maxDiscoveryBodySize == config.maxDiscoveryBodySize &&
+				headFirstDiscovery == config.headFirstDiscovery &&
+				maxRetries == config.maxRetries &&
+				adaptiveConcurrencyPerHost == config.adaptiveConcurrencyPerHost &&
+				maxAdaptiveConcurrentRequestsPerHost == config.maxAdaptiveConcurrentRequestsPerHost &&
+				http2 == config.http2 &&
+				dnsCacheSize == config.dnsCacheSize &&
+				httpCacheSize == config.httpCacheSize &&
+				permanentRedirectCacheSize == config.permanentRedirectCacheSize &&
+				circuitBreakerFailureThreshold == config.circuitBreakerFailureThreshold &&
+				Double.compare(maxRequestsPerSecondPerHost, config.maxRequestsPerSecondPerHost) == 0 &&
+				connectTimeout.equals(config.connectTimeout) &&
+				socketTimeout.equals(config.socketTimeout) &&
+				connectionRequestTimeout.equals(config.connectionRequestTimeout) &&
+				keepAlive.equals(config.keepAlive) &&
+				tlsSessionTimeout.equals(config.tlsSessionTimeout) &&
+				endpointCacheDefaultTimeToLive.equals(config.endpointCacheDefaultTimeToLive) &&
+				endpointCacheMaxTimeToLive.equals(config.endpointCacheMaxTimeToLive) &&
+				noEndpointCacheTimeToLive.equals(config.noEndpointCacheTimeToLive) &&
+				retryInitialDelay.equals(config.retryInitialDelay) &&
+				retryMaxDelay.equals(config.retryMaxDelay) &&
+				minDelayPerHost.equals(config.minDelayPerHost) &&
+				dnsCacheTimeToLive.equals(config.dnsCacheTimeToLive) &&
+				Objects.equals(httpCacheDirectory, config.httpCacheDirectory) &&
+				permanentRedirectCacheTimeToLive.equals(config.permanentRedirectCacheTimeToLive) &&
+				circuitBreakerOpenDuration.equals(config.circuitBreakerOpenDuration) &&
+				sendTimeout.equals(config.sendTimeout);
 		}
 
 		@Override
 		public int hashCode() {
-			return Objects.hash(allowLocalhostEndpoint);
+			return Objects.hash(allowLocalhostEndpoint,
+				maxConnectionsPerRoute,
+				maxConnectionsTotal,
+				connectTimeout,
+				socketTimeout,
+				connectionRequestTimeout,
+				keepAlive,
+				tlsSessionCacheSize,
+				tlsSessionTimeout,
+				batchParallelism,
+				maxConcurrentRequestsPerHost,
+				endpointCacheSize,
+				endpointCacheDefaultTimeToLive,
+				endpointCacheMaxTimeToLive,
+				endpointCacheByOrigin,
+				noEndpointCacheSize,
+				noEndpointCacheTimeToLive,
+				noEndpointHostThreshold,
+				maxDiscoveryBodySize,
+				headFirstDiscovery,
+				maxRetries,
+				retryInitialDelay,
+				retryMaxDelay,
+				minDelayPerHost,
+				maxRequestsPerSecondPerHost,
+				adaptiveConcurrencyPerHost,
+				maxAdaptiveConcurrentRequestsPerHost,
+				http2,
+				dnsCacheSize,
+				dnsCacheTimeToLive,
+				httpCacheDirectory,
+				httpCacheSize,
+				permanentRedirectCacheSize,
+				permanentRedirectCacheTimeToLive,
+				circuitBreakerFailureThreshold,
+				circuitBreakerOpenDuration,
+				sendTimeout);
 		}
 
 		@Override
 		public String toString() {
-			return "Config{" + "allowLocalhostEndpoint=" + allowLocalhostEndpoint + '}';
+			return "Config{" + "allowLocalhostEndpoint=" + allowLocalhostEndpoint + ", maxConnectionsPerRoute=" +
+				maxConnectionsPerRoute + ", maxConnectionsTotal=" + maxConnectionsTotal + ", connectTimeout=" +
+				connectTimeout + ", socketTimeout=" + socketTimeout + ", connectionRequestTimeout=" +
+				connectionRequestTimeout + ", keepAlive=" + keepAlive + ", tlsSessionCacheSize=" + tlsSessionCacheSize +
+				", tlsSessionTimeout=" + tlsSessionTimeout + ", batchParallelism=" + batchParallelism +
+				", maxConcurrentRequestsPerHost=" + maxConcurrentRequestsPerHost + ", endpointCacheSize=" +
+				endpointCacheSize + ", endpointCacheDefaultTimeToLive=" + endpointCacheDefaultTimeToLive +
+				", endpointCacheMaxTimeToLive=" + endpointCacheMaxTimeToLive + ", endpointCacheByOrigin=" +
+				endpointCacheByOrigin + ", noEndpointCacheSize=" + noEndpointCacheSize + ", noEndpointCacheTimeToLive=" +
+				noEndpointCacheTimeToLive + ", noEndpointHostThreshold=" + noEndpointHostThreshold +
+				", maxDiscoveryBodySize=" + maxDiscoveryBodySize + ", headFirstDiscovery=" + headFirstDiscovery +
+				", maxRetries=" + maxRetries + ", retryInitialDelay=" + retryInitialDelay + ", retryMaxDelay=" +
+				retryMaxDelay + ", minDelayPerHost=" + minDelayPerHost + ", maxRequestsPerSecondPerHost=" +
+				maxRequestsPerSecondPerHost + ", adaptiveConcurrencyPerHost=" + adaptiveConcurrencyPerHost +
+				", maxAdaptiveConcurrentRequestsPerHost=" + maxAdaptiveConcurrentRequestsPerHost + ", http2=" + http2 +
+				", dnsCacheSize=" + dnsCacheSize + ", dnsCacheTimeToLive=" + dnsCacheTimeToLive +
+				", httpCacheDirectory=" + httpCacheDirectory + ", httpCacheSize=" + httpCacheSize +
+				", permanentRedirectCacheSize=" + permanentRedirectCacheSize + ", permanentRedirectCacheTimeToLive=" +
+				permanentRedirectCacheTimeToLive + ", circuitBreakerFailureThreshold=" + circuitBreakerFailureThreshold +
+				", circuitBreakerOpenDuration=" + circuitBreakerOpenDuration + ", sendTimeout=" + sendTimeout + '}';
 		}
 	}
 
-	@FunctionalInterface
-	private interface HttpClientFactory {
-		CloseableHttpClient create(boolean allowLocalhostRedirect);
-	}
-
-	private static CloseableHttpClient createDefaultHttpClient(boolean allowLocalhostRedirect) {
-		/*
-		 * Spec:
-		 * 'Senders MAY customize the HTTP User Agent used when fetching the target URL
-		 *  in order to indicate to the recipient that this request is made as part of Webmention discovery.
-		 *  In this case, it is recommended to include the string "Webmention" in the User Agent.
-		 *  This provides people with a pointer to find out why the discovery request was made.'
-		 */
-		HttpClientBuilder builder = HttpClients.custom();
-		if (!allowLocalhostRedirect) {
-			/*
-			 * Spec:
-			 * 'During the discovery step, if the sender discovers the endpoint is localhost or a loopback IP address (127.0.0.0/8),
-			 *  it SHOULD NOT send the Webmention to that endpoint.'
-			 */
-			builder.setRedirectStrategy(new LocalhostRejectingRedirectStrategy());
-		}
-		return builder.setUserAgent(HttpUtils.createUserAgentString("webmention4j-client", WebmentionClient.class.getPackage())).build();
-	}
-
 }
@@ -0,0 +1,248 @@
+package dev.rilling.webmention4j.client;
+
+import dev.rilling.webmention4j.client.internal.Journal;
+import dev.rilling.webmention4j.client.internal.RetryScheduler;
+import dev.rilling.webmention4j.common.Webmention;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Queue of Webmentions to send which survives restarts and crashes.
+ * <p>
+ * Enqueued Webmentions are written to a journal file before they are sent using the batch facilities of a
+ * {@link WebmentionClient}. Once a Webmention was sent, found to have no endpoint, rejected, or failed for a reason that
+ * is not going to go away, its outcome is written to the journal as well. Webmentions without outcome, e.g. because the
+ * process crashed before they were sent or because their endpoint was temporarily unavailable, are sent again once an
+ * outbox is opened for the same journal file.
+ * This means that a Webmention may be sent more than once, but none are lost.
+ * <p>
+ * Writes to the journal are synced to disk in batches, so enqueueing from multiple threads at once is cheap.
+ * The journal is compacted from time to time to drop Webmentions that are done.
+ */
+public final class WebmentionOutbox implements AutoCloseable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(WebmentionOutbox.class);
+
+	/**
+	 * Minimum number of records in the journal before it is compacted.
+	 */
+	private static final int COMPACTION_THRESHOLD = 1000;
+
+	private static final String ENQUEUED = "E";
+	private static final String DONE = "D";
+
+	private final WebmentionClient webmentionClient;
+	private final Journal journal;
+
+	private final Map<Long, Webmention> pending = new ConcurrentHashMap<>();
+	private final AtomicLong nextId;
+	private final AtomicBoolean compacting = new AtomicBoolean(false);
+	private volatile boolean closed = false;
+
+	/**
+	 * Opens an outbox, sending all Webmentions that are still pending from a previous outbox for the same journal file.
+	 *
+	 * @param webmentionClient Client to send Webmentions with. Is not closed by the outbox.
+	 * @param journalFile      File to store the journal in. Is created if it does not exist.
+	 *                         Must not be used by more than one outbox at once.
+	 * @throws IOException if the journal file cannot be read or opened.
+	 */
+	public WebmentionOutbox(@NotNull WebmentionClient webmentionClient, @NotNull Path journalFile) throws IOException {
+		this.webmentionClient = webmentionClient;
+		journal = new Journal(journalFile, "webmention4j-outbox-journal");
+
+		long maxId = recover(journal.getRecoveredRecords());
+		nextId = new AtomicLong(maxId + 1);
+
+		if (journal.getRecordCount() > pending.size()) {
+			compact();
+		}
+		if (!pending.isEmpty()) {
+			LOGGER.info("Resuming {} pending Webmention(s) from journal '{}'.", pending.size(), journalFile);
+			pending.forEach(this::send);
+		}
+	}
+
+	/**
+	 * Enqueues a Webmention. Returns once the Webmention is stored in the journal.
+	 *
+	 * @param webmention Webmention to send.
+	 * @return Future completing with the outcome once the Webmention was sent.
+	 * @throws IOException if the Webmention cannot be stored in the journal.
+	 */
+	@NotNull
+	public CompletableFuture<WebmentionSendResult> enqueue(@NotNull Webmention webmention) throws IOException {
+		return enqueueAll(List.of(webmention)).get(0);
+	}
+
+	/**
+	 * Enqueues multiple Webmentions. Returns once all Webmentions are stored in the journal.
+	 *
+	 * @param webmentions Webmentions to send.
+	 * @return Futures completing with the outcome once the Webmention was sent, in iteration order of the input.
+	 * @throws IOException if the Webmentions cannot be stored in the journal.
+	 */
+	@NotNull
+	public List<CompletableFuture<WebmentionSendResult>> enqueueAll(@NotNull Collection<Webmention> webmentions)
+		throws IOException {
+		if (closed) {
+			throw new IllegalStateException("Outbox is closed.");
+		}
+
+		Map<Long, Webmention> enqueued = new LinkedHashMap<>(webmentions.size());
+		for (Webmention webmention : webmentions) {
+			enqueued.put(nextId.getAndIncrement(), webmention);
+		}
+		// Register before writing, so that a concurrent compaction keeps the records.
+		pending.putAll(enqueued);
+
+		List<String> records = new ArrayList<>(enqueued.size());
+		enqueued.forEach((id, webmention) -> records.add(createEnqueuedRecord(id, webmention)));
+		try {
+			journal.append(records).join();
+		} catch (CompletionException e) {
+			enqueued.keySet().forEach(pending::remove);
+			throw new IOException("Could not store Webmention(s) in journal.", e.getCause());
+		}
+
+		List<CompletableFuture<WebmentionSendResult>> results = new ArrayList<>(enqueued.size());
+		enqueued.forEach((id, webmention) -> results.add(send(id, webmention)));
+		return results;
+	}
+
+	/**
+	 * @return Number of Webmentions enqueued, but not yet sent. Includes Webmentions sending failed for temporarily.
+	 */
+	public int getPendingCount() {
+		return pending.size();
+	}
+
+	private CompletableFuture<WebmentionSendResult> send(long id, Webmention webmention) {
+		return webmentionClient.scheduleWebmention(webmention).thenApply(result -> {
+			onDone(id, webmention, result);
+			return result;
+		});
+	}
+
+	private void onDone(long id, Webmention webmention, WebmentionSendResult result) {
+		if (result instanceof WebmentionSendResult.Failed failed) {
+			if (isTransient(failed.cause())) {
+				LOGGER.warn("Sending '{}' failed, keeping it pending.", webmention, failed.cause());
+				return;
+			}
+			LOGGER.warn("Sending '{}' failed permanently.", webmention, failed.cause());
+		}
+		CompletableFuture<Void> appended;
+		synchronized (this) {
+			if (closed) {
+				// Will be sent again once the journal is opened again.
+				LOGGER.debug("Outbox closed before outcome of '{}' could be stored.", webmention);
+				return;
+			}
+			// Remove before writing, so that a concurrent compaction drops the records.
+			pending.remove(id);
+			appended = journal.append(List.of(createDoneRecord(id, result)));
+		}
+		appended.whenComplete((ignored, throwable) -> {
+			if (throwable != null) {
+				LOGGER.error("Could not store outcome of '{}' in journal.", webmention, throwable);
+			} else if (journal.getRecordCount() > Math.max(COMPACTION_THRESHOLD, pending.size() * 2L)) {
+				compact();
+			}
+		});
+	}
+
+	/*
+	 * Same rule as for retries of the client, e.g. an unknown host or a missing target will still fail after a restart.
+	 * Failures because the client was closed while sending are kept as well.
+	 */
+	private static boolean isTransient(Exception cause) {
+		return RetryScheduler.isRetryable(cause) ||
+			cause instanceof SocketTimeoutException ||
+			cause instanceof RejectedExecutionException ||
+			cause instanceof CancellationException ||
+			cause instanceof IllegalStateException;
+	}
+
+	private void compact() {
+		if (!compacting.compareAndSet(false, true)) {
+			return;
+		}
+		journal.compact(() -> {
+			List<String> records = new ArrayList<>(pending.size());
+			new TreeMap<>(pending).forEach((id, webmention) -> records.add(createEnqueuedRecord(id, webmention)));
+			return records;
+		}).whenComplete((ignored, throwable) -> compacting.set(false));
+	}
+
+	/**
+	 * Reads pending Webmentions from journal records.
+	 *
+	 * @return Largest ID found.
+	 */
+	private long recover(List<String> records) {
+		long maxId = 0;
+		for (String record : records) {
+			String[] parts = record.split(" ");
+			try {
+				long id = Long.parseLong(parts[1]);
+				maxId = Math.max(maxId, id);
+				if (ENQUEUED.equals(parts[0])) {
+					pending.put(id, new Webmention(new URI(parts[2]), new URI(parts[3])));
+				} else if (DONE.equals(parts[0])) {
+					pending.remove(id);
+				} else {
+					LOGGER.warn("Skipping unknown record '{}'.", record);
+				}
+			} catch (RuntimeException | URISyntaxException e) {
+				LOGGER.warn("Skipping malformed record '{}'.", record, e);
+			}
+		}
+		return maxId;
+	}
+
+	private static String createEnqueuedRecord(long id, Webmention webmention) {
+		// URIs cannot contain spaces, so they can be used as separator.
+		return String.join(" ", ENQUEUED, String.valueOf(id), webmention.source().toString(), webmention.target().toString());
+	}
+
+	private static String createDoneRecord(long id, WebmentionSendResult result) {
+		String outcome;
+		if (result instanceof WebmentionSendResult.Sent sent) {
+			outcome = sent.statusUrl().map(statusUrl -> "sent " + statusUrl).orElse("sent");
+		} else if (result instanceof WebmentionSendResult.NoEndpoint) {
+			outcome = "no-endpoint";
+		} else if (result instanceof WebmentionSendResult.Rejected rejected) {
+			outcome = "rejected " + rejected.statusCode();
+		} else {
+			outcome = "failed";
+		}
+		return String.join(" ", DONE, String.valueOf(id), outcome);
+	}
+
+	/**
+	 * Closes the journal. Webmentions that are still pending are sent once an outbox is opened
+	 * for the same journal file. The {@link WebmentionClient} is not closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (this) {
+			closed = true;
+		}
+		journal.close();
+	}
+}
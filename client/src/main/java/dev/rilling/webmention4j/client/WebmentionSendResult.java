@@ -0,0 +1,44 @@
+package dev.rilling.webmention4j.client;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.net.URI;
+import java.util.Optional;
+
+/**
+ * Outcome of sending a single Webmention.
+ */
+public sealed interface WebmentionSendResult {
+
+	/**
+	 * The endpoint accepted the Webmention.
+	 *
+	 * @param statusUrl URL to use to monitor request status, if supported by the endpoint.
+	 */
+	record Sent(@NotNull Optional<URI> statusUrl) implements WebmentionSendResult {
+	}
+
+	/**
+	 * The target does not advertise a Webmention endpoint, so nothing was sent.
+	 */
+	record NoEndpoint() implements WebmentionSendResult {
+	}
+
+	/**
+	 * The endpoint refused the Webmention with a client error (4xx) response, e.g. because it considers the Webmention
+	 * invalid. Sending the same Webmention again is unlikely to succeed.
+	 * Responses which only ask to try again later, like 408 or 429, are {@link Failed} instead.
+	 *
+	 * @param statusCode Status code of the response.
+	 */
+	record Rejected(int statusCode) implements WebmentionSendResult {
+	}
+
+	/**
+	 * Discovery or notification failed.
+	 *
+	 * @param cause Cause of the failure.
+	 */
+	record Failed(@NotNull Exception cause) implements WebmentionSendResult {
+	}
+}
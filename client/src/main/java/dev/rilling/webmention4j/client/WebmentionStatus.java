@@ -0,0 +1,39 @@
+package dev.rilling.webmention4j.client;
+
+import org.apache.hc.core5.http.HttpStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.net.URI;
+import java.util.regex.Pattern;
+
+/**
+ * Status of a sent Webmention, as reported by the status URL the endpoint returned.
+ * The specification does not define the format of status pages, so only the raw response is available.
+ *
+ * @param statusUrl  Status URL.
+ * @param statusCode Status code of the response.
+ * @param body       Body of the response, possibly truncated, or an empty string if there is none.
+ * @see WebmentionStatusTracker
+ */
+public record WebmentionStatus(@NotNull URI statusUrl, int statusCode, @NotNull String body) {
+	// E.g. '{"status": "queued"}' as used by webmention.io.
+	private static final Pattern PENDING_STATUS_PATTERN = Pattern.compile(
+		"\"status\"\\s*:\\s*\"(queued|pending|processing|in progress)\"",
+		Pattern.CASE_INSENSITIVE);
+
+	/**
+	 * Checks if the status is final, i.e. if processing of the Webmention finished and the status will not change.
+	 * As there is no standard format, this is a heuristic: The status is pending if the status URL responds with
+	 * '202 Accepted', with a temporary error, or with a JSON body containing a pending status like
+	 * {@code "status": "queued"}. Otherwise, e.g. if the Webmention was accepted or rejected, it is final.
+	 *
+	 * @return If the status is final.
+	 */
+	public boolean isFinal() {
+		if (statusCode == HttpStatus.SC_ACCEPTED || statusCode == HttpStatus.SC_TOO_MANY_REQUESTS ||
+			statusCode >= HttpStatus.SC_SERVER_ERROR) {
+			return false;
+		}
+		return !PENDING_STATUS_PATTERN.matcher(body).find();
+	}
+}
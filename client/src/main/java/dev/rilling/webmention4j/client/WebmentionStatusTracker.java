@@ -0,0 +1,211 @@
+package dev.rilling.webmention4j.client;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Polls status URLs of sent Webmentions until they report a final status.
+ * <p>
+ * Status URLs are polled with exponential backoff, starting with the initial delay and doubling up to the maximum
+ * delay. Polling the same status URL more than once at a time is avoided.
+ * <p>
+ * All status URLs share a single timer, which only triggers fetches that are then performed
+ * using the batch scheduling of the {@link WebmentionClient}, so many status URLs can be tracked at once.
+ *
+ * @see WebmentionStatus#isFinal()
+ */
+public final class WebmentionStatusTracker implements AutoCloseable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(WebmentionStatusTracker.class);
+
+	private final WebmentionClient webmentionClient;
+	private final Duration initialDelay;
+	private final Duration maxDelay;
+	private final Duration maxDuration;
+	private final ScheduledExecutorService timer;
+
+	private final Object lock = new Object();
+	private final Map<URI, TrackedStatus> trackedStatuses = new HashMap<>();
+	private final PriorityQueue<TrackedStatus> scheduledPolls = new PriorityQueue<>(Comparator.comparingLong(
+		trackedStatus -> trackedStatus.nextPollNanos));
+	private long wakeUpNanos = Long.MAX_VALUE;
+	private boolean closed = false;
+
+	/**
+	 * Creates a tracker polling after 10 seconds at first, and at most every hour, for up to a day.
+	 *
+	 * @param webmentionClient Client to fetch status URLs with. Is not closed by the tracker.
+	 */
+	public WebmentionStatusTracker(@NotNull WebmentionClient webmentionClient) {
+		this(webmentionClient, Duration.ofSeconds(10), Duration.ofHours(1), Duration.ofDays(1));
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param webmentionClient Client to fetch status URLs with. Is not closed by the tracker.
+	 * @param initialDelay     Delay before the first poll. Doubles with each poll.
+	 * @param maxDelay         Maximum delay between polls.
+	 * @param maxDuration      Duration after which to stop polling a status URL that did not reach a final status.
+	 */
+	public WebmentionStatusTracker(@NotNull WebmentionClient webmentionClient,
+								   @NotNull Duration initialDelay,
+								   @NotNull Duration maxDelay,
+								   @NotNull Duration maxDuration) {
+		this.webmentionClient = webmentionClient;
+		this.initialDelay = initialDelay;
+		this.maxDelay = maxDelay;
+		this.maxDuration = maxDuration;
+		timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "webmention4j-status-tracker");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Starts polling a status URL. Tracking a status URL that is already tracked returns the same future.
+	 *
+	 * @param statusUrl Status URL as returned when sending a Webmention, see {@link WebmentionSendResult.Sent}.
+	 * @return Future completing with the final status, or exceptionally with a {@link TimeoutException} if no final
+	 * status was reported within the maximum duration.
+	 */
+	@NotNull
+	public CompletableFuture<WebmentionStatus> track(@NotNull URI statusUrl) {
+		synchronized (lock) {
+			if (closed) {
+				throw new IllegalStateException("Tracker is closed.");
+			}
+			TrackedStatus trackedStatus = trackedStatuses.get(statusUrl);
+			if (trackedStatus == null) {
+				long now = System.nanoTime();
+				trackedStatus = new TrackedStatus(statusUrl, now + maxDuration.toNanos());
+				trackedStatuses.put(statusUrl, trackedStatus);
+				schedulePoll(trackedStatus, initialDelay, now);
+			}
+			return trackedStatus.result;
+		}
+	}
+
+	/**
+	 * @return Number of status URLs that did not reach a final status yet.
+	 */
+	public int getTrackedCount() {
+		synchronized (lock) {
+			return trackedStatuses.size();
+		}
+	}
+
+	private void schedulePoll(TrackedStatus trackedStatus, Duration delay, long now) {
+		trackedStatus.nextPollNanos = now + delay.toNanos();
+		scheduledPolls.add(trackedStatus);
+		// A single wake-up is enough, as it handles all due polls.
+		if (wakeUpNanos == Long.MAX_VALUE || trackedStatus.nextPollNanos - wakeUpNanos < 0) {
+			wakeUpNanos = trackedStatus.nextPollNanos;
+			timer.schedule(this::onWakeUp, trackedStatus.nextPollNanos - now, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private void onWakeUp() {
+		List<TrackedStatus> duePolls = new ArrayList<>();
+		synchronized (lock) {
+			long now = System.nanoTime();
+			while (!scheduledPolls.isEmpty() && scheduledPolls.peek().nextPollNanos - now <= 0) {
+				duePolls.add(scheduledPolls.poll());
+			}
+			wakeUpNanos = Long.MAX_VALUE;
+			if (!scheduledPolls.isEmpty()) {
+				TrackedStatus next = scheduledPolls.peek();
+				wakeUpNanos = next.nextPollNanos;
+				timer.schedule(this::onWakeUp, next.nextPollNanos - now, TimeUnit.NANOSECONDS);
+			}
+		}
+		duePolls.forEach(this::poll);
+	}
+
+	private void poll(TrackedStatus trackedStatus) {
+		webmentionClient.scheduleStatusFetch(trackedStatus.statusUrl).whenComplete((status, throwable) -> {
+			if (throwable != null) {
+				// Might be temporary, so keep polling.
+				LOGGER.debug("Fetching status URL '{}' failed.", trackedStatus.statusUrl, throwable);
+			} else if (status.isFinal()) {
+				complete(trackedStatus, status);
+				return;
+			}
+			onPending(trackedStatus);
+		});
+	}
+
+	private void complete(TrackedStatus trackedStatus, WebmentionStatus status) {
+		synchronized (lock) {
+			trackedStatuses.remove(trackedStatus.statusUrl);
+		}
+		trackedStatus.result.complete(status);
+	}
+
+	private void onPending(TrackedStatus trackedStatus) {
+		synchronized (lock) {
+			if (closed) {
+				return;
+			}
+			long now = System.nanoTime();
+			if (now - trackedStatus.deadlineNanos < 0) {
+				scheduleNextPoll(trackedStatus, now);
+				return;
+			}
+			trackedStatuses.remove(trackedStatus.statusUrl);
+		}
+		trackedStatus.result.completeExceptionally(new TimeoutException(
+			"Status URL '%s' did not report a final status in time.".formatted(trackedStatus.statusUrl)));
+	}
+
+	private void scheduleNextPoll(TrackedStatus trackedStatus, long now) {
+		trackedStatus.polls++;
+		Duration delay = maxDelay;
+		// Avoid overflow for large poll counts.
+		if (trackedStatus.polls < 31) {
+			Duration exponentialDelay = initialDelay.multipliedBy(1L << trackedStatus.polls);
+			if (exponentialDelay.compareTo(maxDelay) < 0) {
+				delay = exponentialDelay;
+			}
+		}
+		schedulePoll(trackedStatus, delay, now);
+	}
+
+	/**
+	 * Stops polling. Futures of status URLs that did not reach a final status yet complete exceptionally.
+	 * The {@link WebmentionClient} is not closed.
+	 */
+	@Override
+	public void close() {
+		List<TrackedStatus> pending;
+		synchronized (lock) {
+			closed = true;
+			pending = List.copyOf(trackedStatuses.values());
+			trackedStatuses.clear();
+			scheduledPolls.clear();
+		}
+		timer.shutdownNow();
+		IOException exception = new IOException("Status tracker was closed.");
+		pending.forEach(trackedStatus -> trackedStatus.result.completeExceptionally(exception));
+	}
+
+	private static final class TrackedStatus {
+		private final URI statusUrl;
+		private final long deadlineNanos;
+		private final CompletableFuture<WebmentionStatus> result = new CompletableFuture<>();
+		private int polls = 0;
+		private long nextPollNanos;
+
+		TrackedStatus(URI statusUrl, long deadlineNanos) {
+			this.statusUrl = statusUrl;
+			this.deadlineNanos = deadlineNanos;
+		}
+	}
+}
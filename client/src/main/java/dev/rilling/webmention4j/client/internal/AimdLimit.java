@@ -0,0 +1,89 @@
+package dev.rilling.webmention4j.client.internal;
+
+/**
+ * Concurrency limit that adapts to the observed health of a host, similar to TCP congestion control:
+ * While requests succeed quickly, the limit grows by one for each limit's worth of successful requests (additive
+ * increase). Once requests fail due to overload or take much longer than usual, the limit is halved (multiplicative
+ * decrease).
+ * <p>
+ * Not thread-safe.
+ */
+final class AimdLimit {
+	/**
+	 * How much slower than the baseline a request may be before it counts as a sign of overload.
+	 */
+	private static final double LATENCY_TOLERANCE = 2.0;
+	/**
+	 * How fast the baseline latency moves towards slower latencies, so that it recovers from outliers.
+	 */
+	private static final double BASELINE_SMOOTHING = 0.05;
+	private static final double BACKOFF_RATIO = 0.5;
+
+	private final int maxLimit;
+	private double limit;
+	private double baselineLatencyNanos = Double.NaN;
+	private long lastDecreaseNanos;
+	private boolean decreased = false;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param initialLimit Limit to start with.
+	 * @param maxLimit     Maximum the limit grows to. Is the same as the initial limit if the limit should be fixed.
+	 */
+	AimdLimit(int initialLimit, int maxLimit) {
+		if (initialLimit < 1 || maxLimit < initialLimit) {
+			throw new IllegalArgumentException("Limits must be at least 1, and the maximum at least the initial limit.");
+		}
+		this.maxLimit = maxLimit;
+		limit = initialLimit;
+	}
+
+	/**
+	 * @return The current limit, at least 1.
+	 */
+	int getLimit() {
+		return (int) limit;
+	}
+
+	/**
+	 * Records a request that completed without overload.
+	 *
+	 * @param latencyNanos Duration of the request.
+	 * @param inFlight     Number of requests that were in flight when the request completed, including itself.
+	 * @param now          Current time.
+	 */
+	void onSuccess(long latencyNanos, int inFlight, long now) {
+		if (Double.isNaN(baselineLatencyNanos) || latencyNanos < baselineLatencyNanos) {
+			baselineLatencyNanos = latencyNanos;
+		} else {
+			baselineLatencyNanos += (latencyNanos - baselineLatencyNanos) * BASELINE_SMOOTHING;
+		}
+
+		if (latencyNanos > baselineLatencyNanos * LATENCY_TOLERANCE) {
+			decrease(now);
+		} else if (inFlight >= getLimit()) {
+			// Only grow if the limit is actually used, otherwise a quiet period would leave it far too high.
+			limit = Math.min(maxLimit, limit + 1 / limit);
+		}
+	}
+
+	/**
+	 * Records a request that failed because the host is overloaded.
+	 *
+	 * @param now Current time.
+	 */
+	void onOverload(long now) {
+		decrease(now);
+	}
+
+	private void decrease(long now) {
+		// Requests in flight at once tend to fail at once, which should only count as one sign of overload.
+		if (decreased && !Double.isNaN(baselineLatencyNanos) && now - lastDecreaseNanos < baselineLatencyNanos) {
+			return;
+		}
+		limit = Math.max(1, limit * BACKOFF_RATIO);
+		lastDecreaseNanos = now;
+		decreased = true;
+	}
+}
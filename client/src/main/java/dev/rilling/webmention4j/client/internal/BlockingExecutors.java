@@ -0,0 +1,37 @@
+package dev.rilling.webmention4j.client.internal;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates executors for tasks which block on I/O, e.g. sending Webmentions.
+ * <p>
+ * This variant uses a bounded pool of platform threads. On Java 21 and newer, a variant running each task on its own
+ * virtual thread is used instead (see {@code src/main/java21}), so callers must limit concurrency themselves.
+ */
+public final class BlockingExecutors {
+
+	private BlockingExecutors() {
+	}
+
+	/**
+	 * Creates an executor for blocking tasks. Its threads do not keep the JVM alive.
+	 *
+	 * @param name        Name prefix of the threads.
+	 * @param parallelism Maximum number of tasks the caller runs at once.
+	 * @return The executor.
+	 */
+	@NotNull
+	public static ExecutorService newExecutor(@NotNull String name, int parallelism) {
+		AtomicInteger threadCount = new AtomicInteger();
+		return Executors.newFixedThreadPool(parallelism, runnable -> {
+			Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+			// Do not keep the JVM alive if the executor is not shut down.
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+}
@@ -0,0 +1,250 @@
+package dev.rilling.webmention4j.client.internal;
+
+import dev.rilling.webmention4j.client.CircuitOpenException;
+import dev.rilling.webmention4j.client.DeadlineExceededException;
+import dev.rilling.webmention4j.common.HttpStatusException;
+import org.apache.hc.core5.http.HttpStatus;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Stops sending requests to hosts which failed repeatedly, so that waiting for their timeouts does not slow down
+ * requests to other hosts.
+ * <p>
+ * Each host has its own circuit, which starts out closed, i.e. requests are sent. After a number of consecutive
+ * failures which indicate that the host is unavailable (e.g. connection failures, timeouts and responses like
+ * {@code 503 Service Unavailable}), the circuit opens and requests fail with a {@link CircuitOpenException} without
+ * being sent. Once the open duration passed, the circuit is half-open and a single request is sent as a probe: if it
+ * succeeds, the circuit closes again, otherwise it opens again.
+ */
+public final class CircuitBreaker {
+	private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreaker.class);
+
+	private final int failureThreshold;
+	private final Duration openDuration;
+	private final Clock clock;
+
+	// Only hosts which failed recently are tracked, closing a circuit removes its host.
+	private final ConcurrentMap<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param failureThreshold Number of consecutive failures after which the circuit of a host opens.
+	 *                         {@code 0} disables circuit breaking.
+	 * @param openDuration     How long a circuit stays open before a request is tried again.
+	 * @param clock            Clock used to determine when a circuit is half-open.
+	 */
+	public CircuitBreaker(int failureThreshold, @NotNull Duration openDuration, @NotNull Clock clock) {
+		if (failureThreshold < 0) {
+			throw new IllegalArgumentException("Failure threshold must not be negative.");
+		}
+		this.failureThreshold = failureThreshold;
+		this.openDuration = openDuration;
+		this.clock = clock;
+	}
+
+	/**
+	 * Creates a circuit breaker that never opens.
+	 */
+	@NotNull
+	public static CircuitBreaker disabled() {
+		return new CircuitBreaker(0, Duration.ZERO, Clock.systemUTC());
+	}
+
+	/**
+	 * Runs a request to a host on the calling thread, unless its circuit is open.
+	 *
+	 * @param host    Host the request is sent to.
+	 * @param request Request to run.
+	 * @return The result of the request.
+	 * @throws CircuitOpenException if the circuit of the host is open.
+	 * @throws IOException          if the request fails.
+	 */
+	public <T> T execute(@NotNull String host, @NotNull Callable<T> request) throws IOException {
+		acquire(host);
+		T result;
+		try {
+			result = request.call();
+		} catch (Exception e) {
+			onFailure(host, e);
+			throw rethrow(e);
+		}
+		onSuccess(host);
+		return result;
+	}
+
+	/**
+	 * Starts a request to a host, unless its circuit is open.
+	 *
+	 * @param host    Host the request is sent to.
+	 * @param request Request to start.
+	 * @return Future of the result of the request. Completes exceptionally with a {@link CircuitOpenException} if the
+	 * circuit of the host is open.
+	 */
+	@NotNull
+	public <T> CompletableFuture<T> executeAsync(@NotNull String host,
+												 @NotNull Supplier<CompletableFuture<T>> request) {
+		try {
+			acquire(host);
+		} catch (CircuitOpenException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+		CompletableFuture<T> result;
+		try {
+			result = request.get();
+		} catch (RuntimeException e) {
+			result = CompletableFuture.failedFuture(e);
+		}
+		return result.whenComplete((value, throwable) -> {
+			if (throwable == null) {
+				onSuccess(host);
+			} else {
+				onFailure(host, throwable);
+			}
+		});
+	}
+
+	/**
+	 * @return Hosts whose circuit is currently open or half-open.
+	 */
+	@NotNull
+	public Set<String> getUnavailableHosts() {
+		return circuits.entrySet()
+			.stream()
+			.filter(entry -> entry.getValue().isOpen())
+			.map(ConcurrentMap.Entry::getKey)
+			.collect(Collectors.toUnmodifiableSet());
+	}
+
+	private void acquire(String host) throws CircuitOpenException {
+		Circuit circuit = circuits.get(host);
+		if (circuit == null) {
+			return;
+		}
+		synchronized (circuit) {
+			if (!circuit.isOpen()) {
+				return;
+			}
+			Instant now = clock.instant();
+			if (now.isBefore(circuit.openUntil) || circuit.probing) {
+				Duration retryAfter = Duration.between(now, circuit.openUntil);
+				throw new CircuitOpenException(host, retryAfter.isNegative() ? Duration.ZERO : retryAfter);
+			}
+			LOGGER.debug("Circuit of host '{}' is half-open, sending probe request.", host);
+			circuit.probing = true;
+		}
+	}
+
+	private void onSuccess(String host) {
+		Circuit circuit = circuits.remove(host);
+		if (circuit != null && circuit.isOpen()) {
+			LOGGER.info("Host '{}' is available again, closing circuit.", host);
+		}
+	}
+
+	private void onFailure(String host, Throwable throwable) {
+		if (isCallerTimeout(throwable)) {
+			// Neither a success nor a failure of the host, but a probe in progress has ended.
+			Circuit circuit = circuits.get(host);
+			if (circuit != null) {
+				synchronized (circuit) {
+					circuit.probing = false;
+				}
+			}
+			return;
+		}
+		if (!isUnavailability(throwable)) {
+			// The host responded, it is just the request which failed.
+			onSuccess(host);
+			return;
+		}
+		if (failureThreshold == 0) {
+			return;
+		}
+		Circuit circuit = circuits.computeIfAbsent(host, key -> new Circuit());
+		synchronized (circuit) {
+			circuit.failureCount++;
+			if (circuit.probing || (!circuit.isOpen() && circuit.failureCount >= failureThreshold)) {
+				LOGGER.info("Host '{}' failed {} times, opening circuit for {}.",
+					host,
+					circuit.failureCount,
+					openDuration);
+				circuit.openUntil = clock.instant().plus(openDuration);
+				circuit.probing = false;
+			}
+		}
+	}
+
+	/*
+	 * The caller ran out of time, which does not mean the host would not have responded in time for others.
+	 */
+	private static boolean isCallerTimeout(Throwable throwable) {
+		return unwrap(throwable) instanceof DeadlineExceededException;
+	}
+
+	/**
+	 * Checks if a failure indicates that the host is unavailable, as opposed to e.g. rejecting a single request.
+	 */
+	static boolean isUnavailability(@NotNull Throwable throwable) {
+		Throwable failure = unwrap(throwable);
+		if (failure instanceof HttpStatusException httpStatusException) {
+			int statusCode = httpStatusException.getStatusCode();
+			return statusCode == HttpStatus.SC_BAD_GATEWAY ||
+				statusCode == HttpStatus.SC_SERVICE_UNAVAILABLE ||
+				statusCode == HttpStatus.SC_GATEWAY_TIMEOUT;
+		}
+		// Covers connect and read timeouts. Interruption of the calling thread says nothing about the host, though.
+		if (failure instanceof InterruptedIOException && !(failure instanceof DeadlineExceededException) &&
+			!Thread.currentThread().isInterrupted()) {
+			return true;
+		}
+		return failure instanceof ConnectException ||
+			failure instanceof NoRouteToHostException ||
+			failure instanceof UnknownHostException;
+	}
+
+	private static Throwable unwrap(Throwable throwable) {
+		return throwable instanceof CompletionException && throwable.getCause() != null ?
+			throwable.getCause() :
+			throwable;
+	}
+
+	private static IOException rethrow(Exception exception) {
+		if (exception instanceof IOException ioException) {
+			return ioException;
+		}
+		if (exception instanceof RuntimeException runtimeException) {
+			throw runtimeException;
+		}
+		return new IOException(exception);
+	}
+
+	private static final class Circuit {
+		private int failureCount = 0;
+		private Instant openUntil = null;
+		private boolean probing = false;
+
+		boolean isOpen() {
+			return openUntil != null;
+		}
+	}
+}
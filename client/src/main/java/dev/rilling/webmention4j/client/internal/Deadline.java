@@ -0,0 +1,203 @@
+package dev.rilling.webmention4j.client.internal;
+
+import dev.rilling.webmention4j.client.DeadlineExceededException;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.ProtocolException;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Time budget shared by all requests needed for a single operation, e.g. the discovery, redirects and notification
+ * of sending a Webmention.
+ * <p>
+ * Each request is given the remaining time as its connection request, connect and response timeout, and redirects
+ * are only followed while time remains. As a response timeout only limits the time between two packets, requests
+ * still in progress when the deadline passes are aborted.
+ * <p>
+ * Deadlines should be {@link #close() closed} once the operation completed.
+ */
+public final class Deadline implements AutoCloseable {
+
+	private static final String ATTRIBUTE = Deadline.class.getName();
+	private static final Deadline NONE = new Deadline(null, null, null, Clock.systemUTC());
+
+	/**
+	 * Timeouts of 0 mean no timeout for the client, so the remaining time is never passed on as less than this.
+	 */
+	private static final Duration MIN_TIMEOUT = Duration.ofMillis(1);
+
+	private final @Nullable Duration timeout;
+	private final @Nullable Instant expiry;
+	private final @Nullable Function<Duration, RequestConfig> requestConfigFactory;
+	private final Clock clock;
+
+	private final Set<HttpUriRequestBase> requests = ConcurrentHashMap.newKeySet();
+	private volatile boolean cancelled = false;
+	private @Nullable ScheduledFuture<?> cancellation = null;
+
+	private Deadline(@Nullable Duration timeout,
+					 @Nullable Instant expiry,
+					 @Nullable Function<Duration, RequestConfig> requestConfigFactory,
+					 @NotNull Clock clock) {
+		this.timeout = timeout;
+		this.expiry = expiry;
+		this.requestConfigFactory = requestConfigFactory;
+		this.clock = clock;
+	}
+
+	/**
+	 * @return A deadline which never passes. Requests use the timeouts configured for the client.
+	 */
+	@NotNull
+	public static Deadline none() {
+		return NONE;
+	}
+
+	/**
+	 * Creates a deadline.
+	 *
+	 * @param timeout              Time budget, starting now.
+	 * @param requestConfigFactory Creates the configuration of a request, given the maximum duration of its timeouts.
+	 * @param scheduler            Executor to abort requests in progress on once the deadline passed.
+	 * @param clock                Clock used to determine the remaining time.
+	 */
+	@NotNull
+	public static Deadline after(@NotNull Duration timeout,
+								 @NotNull Function<Duration, RequestConfig> requestConfigFactory,
+								 @NotNull ScheduledExecutorService scheduler,
+								 @NotNull Clock clock) {
+		if (timeout.isNegative()) {
+			throw new IllegalArgumentException("Timeout must not be negative.");
+		}
+		Deadline deadline = new Deadline(timeout, clock.instant().plus(timeout), requestConfigFactory, clock);
+		deadline.cancellation = scheduler.schedule(deadline::cancel, timeout.toNanos(), TimeUnit.NANOSECONDS);
+		return deadline;
+	}
+
+	/**
+	 * @return If this deadline can pass at all.
+	 */
+	public boolean isBounded() {
+		return expiry != null;
+	}
+
+	/**
+	 * @return The remaining time, or empty if this deadline is not bounded.
+	 */
+	@NotNull
+	public Optional<Duration> getRemaining() {
+		if (expiry == null) {
+			return Optional.empty();
+		}
+		Duration remaining = Duration.between(clock.instant(), expiry);
+		return Optional.of(remaining.isNegative() ? Duration.ZERO : remaining);
+	}
+
+	/**
+	 * @return If the deadline passed or was cancelled.
+	 */
+	public boolean isExpired() {
+		return cancelled || getRemaining().map(Duration::isZero).orElse(false);
+	}
+
+	/**
+	 * Creates the context to execute a request with, limiting it to the remaining time.
+	 *
+	 * @param request Request to execute. Is aborted if this deadline is {@link #cancel() cancelled}.
+	 * @return The context.
+	 * @throws DeadlineExceededException if the deadline already passed.
+	 */
+	@NotNull
+	public HttpClientContext createContext(@NotNull HttpUriRequestBase request) throws DeadlineExceededException {
+		HttpClientContext context = HttpClientContext.create();
+		if (!isBounded()) {
+			return context;
+		}
+
+		if (isExpired()) {
+			throw new DeadlineExceededException(timeout, null);
+		}
+		context.setRequestConfig(createRequestConfig());
+		context.setAttribute(ATTRIBUTE, this);
+		requests.add(request);
+		// Cancellation may have happened concurrently, in which case the request might have been missed.
+		if (cancelled) {
+			request.cancel();
+		}
+		return context;
+	}
+
+	/**
+	 * Called before a redirect of a request is followed, so that the next request is limited to the time which is
+	 * remaining then.
+	 *
+	 * @param context Context of the request.
+	 * @throws ProtocolException if the deadline of the request passed.
+	 */
+	static void onRedirect(@NotNull HttpContext context) throws ProtocolException {
+		if (!(context.getAttribute(ATTRIBUTE) instanceof Deadline deadline)) {
+			return;
+		}
+		if (deadline.isExpired()) {
+			throw new ProtocolException("Deadline exceeded, not following redirect.");
+		}
+		HttpClientContext.adapt(context).setRequestConfig(deadline.createRequestConfig());
+	}
+
+	/**
+	 * Aborts all requests in progress and prevents new ones from being started, as if the deadline passed.
+	 */
+	public void cancel() {
+		cancelled = true;
+		for (HttpUriRequestBase request : requests) {
+			request.cancel();
+		}
+	}
+
+	/**
+	 * Translates the failure of a request into a {@link DeadlineExceededException} if it was caused by this deadline
+	 * passing, e.g. because a timeout was shortened or the request was aborted.
+	 *
+	 * @param exception Failure.
+	 * @return The translated failure, or the failure itself if it is unrelated to this deadline.
+	 */
+	@NotNull
+	public IOException translate(@NotNull IOException exception) {
+		if (exception instanceof DeadlineExceededException || !isExpired()) {
+			return exception;
+		}
+		return new DeadlineExceededException(timeout, exception);
+	}
+
+	/**
+	 * Stops waiting for the deadline to pass. Requests started afterwards are still limited to the remaining time,
+	 * but no longer aborted.
+	 */
+	@Override
+	public void close() {
+		if (cancellation != null) {
+			cancellation.cancel(false);
+		}
+		requests.clear();
+	}
+
+	private RequestConfig createRequestConfig() {
+		Duration remaining = getRemaining().orElseThrow();
+		return requestConfigFactory.apply(remaining.compareTo(MIN_TIMEOUT) < 0 ? MIN_TIMEOUT : remaining);
+	}
+}
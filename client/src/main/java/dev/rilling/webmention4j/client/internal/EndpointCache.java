@@ -0,0 +1,116 @@
+package dev.rilling.webmention4j.client.internal;
+
+import dev.rilling.webmention4j.common.CacheStats;
+import dev.rilling.webmention4j.common.internal.ExpiringCache;
+import dev.rilling.webmention4j.common.internal.HttpUtils;
+import org.apache.hc.core5.http.HttpResponse;
+import org.jetbrains.annotations.NotNull;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Cache of discovered Webmention endpoints.
+ * <p>
+ * Entries expire based on the caching headers of the target response.
+ */
+public final class EndpointCache {
+
+	private final ExpiringCache<URI, URI> cache;
+	private final Duration defaultTimeToLive;
+	private final Duration maxTimeToLive;
+	private final boolean keyByOrigin;
+	private final Clock clock;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param maxSize           Maximum number of cached endpoints. {@code 0} disables caching.
+	 * @param defaultTimeToLive How long to cache an endpoint for if the target response does not specify it.
+	 * @param maxTimeToLive     Maximum time to cache an endpoint for, regardless of the target response.
+	 * @param keyByOrigin       If endpoints should be shared between all targets of the same origin
+	 *                          (scheme, host and port) instead of being cached per target URL.
+	 * @param clock             Clock used to determine expiry.
+	 */
+	public EndpointCache(int maxSize,
+						 @NotNull Duration defaultTimeToLive,
+						 @NotNull Duration maxTimeToLive,
+						 boolean keyByOrigin,
+						 @NotNull Clock clock) {
+		cache = new ExpiringCache<>(maxSize, clock);
+		this.defaultTimeToLive = defaultTimeToLive;
+		this.maxTimeToLive = maxTimeToLive;
+		this.keyByOrigin = keyByOrigin;
+		this.clock = clock;
+	}
+
+	/**
+	 * Creates a cache that does not store anything.
+	 */
+	@NotNull
+	public static EndpointCache disabled() {
+		return new EndpointCache(0, Duration.ZERO, Duration.ZERO, false, Clock.systemUTC());
+	}
+
+	/**
+	 * Looks up the endpoint of a target.
+	 *
+	 * @param target Target URL.
+	 * @return The cached endpoint, or empty if none is cached.
+	 */
+	@NotNull
+	public Optional<URI> get(@NotNull URI target) {
+		return cache.get(createKey(target));
+	}
+
+	/**
+	 * Caches the endpoint discovered for a target.
+	 *
+	 * @param target   Target URL.
+	 * @param endpoint Discovered endpoint.
+	 * @param response Response of the target the endpoint was discovered in.
+	 */
+	public void put(@NotNull URI target, @NotNull URI endpoint, @NotNull HttpResponse response) {
+		Duration timeToLive = HttpUtils.getFreshnessLifetime(response, clock.instant()).orElse(defaultTimeToLive);
+		if (timeToLive.compareTo(maxTimeToLive) > 0) {
+			timeToLive = maxTimeToLive;
+		}
+		cache.put(createKey(target), endpoint, timeToLive);
+	}
+
+	/**
+	 * Removes the endpoint of a target, e.g. because it could not be notified.
+	 *
+	 * @param target Target URL.
+	 */
+	public void invalidate(@NotNull URI target) {
+		cache.invalidate(createKey(target));
+	}
+
+	/**
+	 * @return Statistics of this cache.
+	 */
+	@NotNull
+	public CacheStats getStats() {
+		return cache.getStats();
+	}
+
+	private URI createKey(URI target) {
+		if (keyByOrigin) {
+			try {
+				return new URI(target.getScheme(), null, target.getHost(), target.getPort(), null, null, null);
+			} catch (URISyntaxException e) {
+				return target;
+			}
+		}
+		// The fragment is not sent to the server, so it cannot affect the endpoint.
+		if (target.getRawFragment() != null) {
+			String targetString = target.toString();
+			return URI.create(targetString.substring(0, targetString.indexOf('#')));
+		}
+		return target;
+	}
+}
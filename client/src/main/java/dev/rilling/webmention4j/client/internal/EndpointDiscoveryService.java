@@ -4,18 +4,34 @@ import dev.rilling.webmention4j.client.internal.link.HeaderLinkParser;
 import dev.rilling.webmention4j.client.internal.link.HtmlLinkParser;
 import dev.rilling.webmention4j.client.internal.link.Link;
 import dev.rilling.webmention4j.client.internal.link.LinkParser;
+import dev.rilling.webmention4j.common.CacheStats;
 import dev.rilling.webmention4j.common.internal.HttpUtils;
+import dev.rilling.webmention4j.common.internal.LimitedInputStream;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.classic.methods.HttpHead;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.client5.http.protocol.RedirectLocations;
 import org.apache.hc.core5.http.ClassicHttpResponse;
-import org.apache.hc.core5.http.io.support.ClassicRequestBuilder;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URI;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Service handling Webmention endpoint detection.
@@ -23,26 +39,126 @@ import java.util.Optional;
 public final class EndpointDiscoveryService {
 	private static final Logger LOGGER = LoggerFactory.getLogger(EndpointDiscoveryService.class);
 
+	/**
+	 * Maximum number of unneeded response bytes to read to keep the connection reusable.
+	 */
+	private static final long MAX_DRAIN_SIZE = 16 * 1024;
+
 	private final @NotNull HeaderLinkParser headerLinkParser;
 	private final @NotNull HtmlLinkParser htmlLinkParser;
+	private final @NotNull EndpointCache endpointCache;
+	private final @NotNull NoEndpointCache noEndpointCache;
+	private final @NotNull HeadRequestPolicy headRequestPolicy;
+	private final @NotNull PermanentRedirectCache permanentRedirectCache;
+	private final @NotNull CircuitBreaker circuitBreaker;
+	private final SingleFlight<URI, Optional<URI>> discoveries = new SingleFlight<>();
 
 	/**
-	 * Constructor.
+	 * Constructor for a service which does not cache endpoints.
 	 *
 	 * @param headerLinkParser A {@link HeaderLinkParser}.
 	 * @param htmlLinkParser   A {@link HtmlLinkParser}.
 	 */
 	public EndpointDiscoveryService(@NotNull HeaderLinkParser headerLinkParser,
 									@NotNull HtmlLinkParser htmlLinkParser) {
+		this(headerLinkParser,
+			htmlLinkParser,
+			EndpointCache.disabled(),
+			NoEndpointCache.disabled(),
+			HeadRequestPolicy.disabled(),
+			PermanentRedirectCache.disabled(),
+			CircuitBreaker.disabled());
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param headerLinkParser  A {@link HeaderLinkParser}.
+	 * @param htmlLinkParser    A {@link HtmlLinkParser}.
+	 * @param endpointCache     Cache to look up endpoints in before fetching the target, and to store discovered ones in.
+	 * @param noEndpointCache   Cache of targets known to have no endpoint, which are not fetched again.
+	 * @param headRequestPolicy Policy deciding if a HEAD request is tried before fetching the target.
+	 */
+	public EndpointDiscoveryService(@NotNull HeaderLinkParser headerLinkParser,
+									@NotNull HtmlLinkParser htmlLinkParser,
+									@NotNull EndpointCache endpointCache,
+									@NotNull NoEndpointCache noEndpointCache,
+									@NotNull HeadRequestPolicy headRequestPolicy) {
+		this(headerLinkParser,
+			htmlLinkParser,
+			endpointCache,
+			noEndpointCache,
+			headRequestPolicy,
+			PermanentRedirectCache.disabled(),
+			CircuitBreaker.disabled());
+	}
+
+	/**
+	 * Constructor for a service without circuit breaking.
+	 *
+	 * @param headerLinkParser       A {@link HeaderLinkParser}.
+	 * @param htmlLinkParser         A {@link HtmlLinkParser}.
+	 * @param endpointCache          Cache to look up endpoints in before fetching the target, and to store discovered
+	 *                               ones in.
+	 * @param noEndpointCache        Cache of targets known to have no endpoint, which are not fetched again.
+	 * @param headRequestPolicy      Policy deciding if a HEAD request is tried before fetching the target.
+	 * @param permanentRedirectCache Cache of permanent redirects, so that moved targets are fetched at their new
+	 *                               location directly.
+	 */
+	public EndpointDiscoveryService(@NotNull HeaderLinkParser headerLinkParser,
+									@NotNull HtmlLinkParser htmlLinkParser,
+									@NotNull EndpointCache endpointCache,
+									@NotNull NoEndpointCache noEndpointCache,
+									@NotNull HeadRequestPolicy headRequestPolicy,
+									@NotNull PermanentRedirectCache permanentRedirectCache) {
+		this(headerLinkParser,
+			htmlLinkParser,
+			endpointCache,
+			noEndpointCache,
+			headRequestPolicy,
+			permanentRedirectCache,
+			CircuitBreaker.disabled());
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param headerLinkParser       A {@link HeaderLinkParser}.
+	 * @param htmlLinkParser         A {@link HtmlLinkParser}.
+	 * @param endpointCache          Cache to look up endpoints in before fetching the target, and to store discovered
+	 *                               ones in.
+	 * @param noEndpointCache        Cache of targets known to have no endpoint, which are not fetched again.
+	 * @param headRequestPolicy      Policy deciding if a HEAD request is tried before fetching the target.
+	 * @param permanentRedirectCache Cache of permanent redirects, so that moved targets are fetched at their new
+	 *                               location directly.
+	 * @param circuitBreaker         Circuit breaker guarding target hosts. Discoveries coalesced into a single one
+	 *                               count as a single request.
+	 */
+	public EndpointDiscoveryService(@NotNull HeaderLinkParser headerLinkParser,
+									@NotNull HtmlLinkParser htmlLinkParser,
+									@NotNull EndpointCache endpointCache,
+									@NotNull NoEndpointCache noEndpointCache,
+									@NotNull HeadRequestPolicy headRequestPolicy,
+									@NotNull PermanentRedirectCache permanentRedirectCache,
+									@NotNull CircuitBreaker circuitBreaker) {
 		this.headerLinkParser = headerLinkParser;
 		this.htmlLinkParser = htmlLinkParser;
+		this.endpointCache = endpointCache;
+		this.noEndpointCache = noEndpointCache;
+		this.headRequestPolicy = headRequestPolicy;
+		this.permanentRedirectCache = permanentRedirectCache;
+		this.circuitBreaker = circuitBreaker;
 	}
 
 	/**
 	 * Attempts to discover the Webmention endpoint that is used for this target URL.
+	 * <p>
+	 * Concurrent discoveries of the same target are coalesced into a single one.
+	 * Targets known to have moved permanently are fetched at their new location directly.
 	 *
 	 * @param httpClient HTTP client.
 	 *                   Must be configured to follow redirects.
+	 *                   Should be configured to record them using {@link RecordingRedirectStrategy}.
 	 *                   Should be configured to use a fitting UA string.
 	 * @param target     Target URL (e.g. the referenced website).
 	 * @return The Webmention endpoint URL if one is found, or empty.
@@ -52,18 +168,342 @@ public final class EndpointDiscoveryService {
 	@NotNull
 	public Optional<URI> discoverEndpoint(@NotNull CloseableHttpClient httpClient, @NotNull URI target)
 		throws IOException {
-		// We could make a HEAD request beforehand, but this is not required.
+		return discoverEndpoint(httpClient, target, Deadline.none());
+	}
+
+	/**
+	 * Variant of {@link #discoverEndpoint(CloseableHttpClient, URI)} limited to a deadline.
+	 * <p>
+	 * Discoveries with a bounded deadline are not coalesced, so that one caller's deadline neither cuts short the
+	 * discovery of others nor makes a caller wait beyond its own.
+	 *
+	 * @param httpClient HTTP client. See {@link #discoverEndpoint(CloseableHttpClient, URI)}.
+	 * @param target     Target URL (e.g. the referenced website).
+	 * @param deadline   Deadline for all requests of the discovery, including redirects.
+	 * @return The Webmention endpoint URL if one is found, or empty.
+	 * @throws IOException if I/O fails. A passed deadline may surface as any {@link IOException},
+	 *                     see {@link Deadline#translate(IOException)}.
+	 */
+	@NotNull
+	public Optional<URI> discoverEndpoint(@NotNull CloseableHttpClient httpClient,
+										  @NotNull URI target,
+										  @NotNull Deadline deadline) throws IOException {
+		Optional<URI> cached = getCachedEndpoint(target);
+		if (cached != null) {
+			return cached;
+		}
+		if (deadline.isBounded()) {
+			return discoverEndpointGuarded(httpClient, target, deadline);
+		}
+		return discoveries.execute(target, () -> discoverEndpointGuarded(httpClient, target, deadline));
+	}
+
+	private Optional<URI> discoverEndpointGuarded(CloseableHttpClient httpClient, URI target, Deadline deadline)
+		throws IOException {
+		return circuitBreaker.execute(getHost(target), () -> {
+			try {
+				return discoverEndpointUncoalesced(httpClient, target, deadline);
+			} catch (IOException e) {
+				// So that running out of time is not mistaken for the host being unavailable.
+				throw deadline.translate(e);
+			}
+		});
+	}
+
+	/*
+	 * Answers from the caches need no request, so they are not guarded by the circuit breaker: they neither count as
+	 * success of the host nor are they blocked while its circuit is open.
+	 */
+	@Nullable
+	private Optional<URI> getCachedEndpoint(URI target) {
+		Optional<URI> cached = endpointCache.get(target);
+		if (cached.isPresent()) {
+			LOGGER.debug("Using cached endpoint '{}' for '{}'.", cached.get(), target);
+			return cached;
+		}
+		if (noEndpointCache.isKnownWithoutEndpoint(target)) {
+			LOGGER.debug("Target '{}' is known to have no endpoint.", target);
+			return Optional.empty();
+		}
+		return null;
+	}
+
+	private Optional<URI> discoverEndpointUncoalesced(CloseableHttpClient httpClient, URI target, Deadline deadline)
+		throws IOException {
+		URI location = resolvePermanentRedirects(target);
+		boolean headTried = headRequestPolicy.shouldTryHead(target);
+		if (headTried) {
+			LOGGER.debug("Requesting header endpoint information from '{}'.", location);
+			HttpHead headRequest = new HttpHead(location);
+			HttpClientContext context = deadline.createContext(headRequest);
+			RedirectChain redirectChain = RedirectChain.attach(context);
+			Optional<URI> fromHead;
+			try {
+				fromHead = httpClient.execute(headRequest,
+					context,
+					response -> discoverEndpointInHead(target, getResponseLocation(context, location), response));
+				permanentRedirectCache.putAll(redirectChain);
+			} catch (IOException e) {
+				LOGGER.debug("HEAD request to '{}' failed, falling back to GET.", location, e);
+				fromHead = Optional.empty();
+			}
+			if (fromHead.isPresent()) {
+				return fromHead;
+			}
+		}
 
 		// Spec: 'The sender MUST fetch the target URL'
-		ClassicHttpRequest request = ClassicRequestBuilder.get(target).build();
+		HttpGet request = new HttpGet(location);
+		HttpClientContext context = deadline.createContext(request);
+		RedirectChain redirectChain = RedirectChain.attach(context);
+
+		LOGGER.debug("Requesting endpoint information from '{}'.", location);
+		Optional<URI> endpoint;
+		try {
+			endpoint = httpClient.execute(request, context, response -> {
+				ReadTrackingEntity entity = null;
+				if (response.getEntity() != null) {
+					entity = new ReadTrackingEntity(response.getEntity());
+					response.setEntity(entity);
+				}
+				try {
+					return discoverEndpoint(target, getResponseLocation(context, location), response);
+				} finally {
+					if (entity != null) {
+						discardRemainingBody(location, request, entity);
+					}
+				}
+			});
+		} catch (IOException e) {
+			// Running out of time says nothing about the location.
+			if (!deadline.isExpired()) {
+				onFetchFailed(target, location);
+			}
+			throw e;
+		}
+		permanentRedirectCache.putAll(redirectChain);
+		if (headTried && endpoint.isPresent()) {
+			headRequestPolicy.onGetNeeded(target);
+		}
+		return endpoint;
+	}
+
+	/*
+	 * The client keeps track of the redirects it followed regardless of the redirect strategy used.
+	 */
+	private static URI getResponseLocation(HttpClientContext context, URI requested) {
+		RedirectLocations redirectLocations = context.getRedirectLocations();
+		if (redirectLocations == null || redirectLocations.size() == 0) {
+			return requested;
+		}
+		return redirectLocations.get(redirectLocations.size() - 1);
+	}
 
-		LOGGER.debug("Requesting endpoint information from '{}'.", target);
-		return httpClient.execute(request, response -> discoverEndpoint(target, response));
+	private URI resolvePermanentRedirects(URI target) {
+		URI location = permanentRedirectCache.resolve(target);
+		if (!location.equals(target)) {
+			LOGGER.debug("Target '{}' is known to have moved permanently to '{}'.", target, location);
+		}
+		return location;
 	}
 
-	private Optional<URI> discoverEndpoint(URI target, ClassicHttpResponse response)
+	/*
+	 * A cached redirect may have become outdated, e.g. if the new location was removed again, so the next discovery
+	 * starts from the target itself.
+	 */
+	private void onFetchFailed(URI target, URI location) {
+		if (!location.equals(target)) {
+			permanentRedirectCache.invalidate(target);
+		}
+	}
+
+	/*
+	 * Discovery usually does not need the whole body, e.g. if the endpoint is found in the header or early in the body.
+	 * The client would read the rest to be able to reuse the connection, which is cheap for small remainders
+	 * but not for large ones, in which case opening a new connection later is preferable.
+	 */
+	private static void discardRemainingBody(URI target, HttpUriRequestBase request, ReadTrackingEntity entity)
 		throws IOException {
-		LOGGER.trace("Received response '{}' from '{}'.", response, target);
+		if (entity.isFullyRead()) {
+			return;
+		}
+		long remaining = entity.getContentLength() >= 0 ? entity.getContentLength() - entity.getBytesRead() : -1;
+		if (remaining >= 0 && remaining <= MAX_DRAIN_SIZE) {
+			LOGGER.trace("Draining remaining {} bytes of response from '{}'.", remaining, target);
+			EntityUtils.consume(entity);
+			return;
+		}
+		if (remaining == -1) {
+			// Unknown length (e.g. chunked or compressed), try if the rest is small enough.
+			// Not closing the stream, as that would read all of it.
+			try {
+				new LimitedInputStream(entity.getContent(), MAX_DRAIN_SIZE).transferTo(OutputStream.nullOutputStream());
+			} catch (IOException e) {
+				LOGGER.trace("Draining response from '{}' failed.", target, e);
+			}
+			if (entity.isFullyRead()) {
+				return;
+			}
+		}
+		LOGGER.trace("Aborting response from '{}' after reading {} bytes.", target, entity.getBytesRead());
+		request.cancel();
+	}
+
+	/**
+	 * Asynchronous variant of {@link #discoverEndpoint(CloseableHttpClient, URI)}.
+	 * <p>
+	 * The response is processed on the thread completing the request.
+	 *
+	 * @param httpClient Started HTTP client.
+	 *                   Must be configured to follow redirects.
+	 *                   Should be configured to record them using {@link RecordingRedirectStrategy}.
+	 *                   Should be configured to use a fitting UA string.
+	 * @param target     Target URL (e.g. the referenced website).
+	 * @return Future of the Webmention endpoint URL if one is found, or empty.
+	 * Completes exceptionally with an {@link IOException} if I/O fails.
+	 */
+	@NotNull
+	public CompletableFuture<Optional<URI>> discoverEndpointAsync(@NotNull CloseableHttpAsyncClient httpClient,
+																  @NotNull URI target) {
+		Optional<URI> cached = getCachedEndpoint(target);
+		if (cached != null) {
+			return CompletableFuture.completedFuture(cached);
+		}
+		return discoveries.executeAsync(target,
+			() -> circuitBreaker.executeAsync(getHost(target),
+				() -> discoverEndpointAsyncUncoalesced(httpClient, target)));
+	}
+
+	private CompletableFuture<Optional<URI>> discoverEndpointAsyncUncoalesced(CloseableHttpAsyncClient httpClient,
+																			  URI target) {
+		URI location = resolvePermanentRedirects(target);
+		if (!headRequestPolicy.shouldTryHead(target)) {
+			return discoverEndpointAsyncByGet(httpClient, target, location);
+		}
+
+		LOGGER.debug("Requesting header endpoint information from '{}'.", location);
+		HttpClientContext context = HttpClientContext.create();
+		RedirectChain redirectChain = RedirectChain.attach(context);
+		return HttpUtils.execute(httpClient, SimpleRequestBuilder.head(location).build(), context)
+			.thenApply(response -> {
+				try {
+					Optional<URI> fromHead = discoverEndpointInHead(target,
+						getResponseLocation(context, location),
+						HttpUtils.toClassicResponse(response));
+					permanentRedirectCache.putAll(redirectChain);
+					return fromHead;
+				} catch (IOException e) {
+					throw new CompletionException(e);
+				}
+			})
+			.exceptionally(throwable -> {
+				LOGGER.debug("HEAD request to '{}' failed, falling back to GET.", location, throwable);
+				return Optional.empty();
+			})
+			.thenCompose(fromHead -> {
+				if (fromHead.isPresent()) {
+					return CompletableFuture.completedFuture(fromHead);
+				}
+				return discoverEndpointAsyncByGet(httpClient, target, location).thenApply(endpoint -> {
+					if (endpoint.isPresent()) {
+						headRequestPolicy.onGetNeeded(target);
+					}
+					return endpoint;
+				});
+			});
+	}
+
+	private CompletableFuture<Optional<URI>> discoverEndpointAsyncByGet(CloseableHttpAsyncClient httpClient,
+																		URI target,
+																		URI location) {
+		// Spec: 'The sender MUST fetch the target URL'
+		// Unlike the classic client, the async client does not negotiate compression on its own.
+		SimpleHttpRequest request = SimpleRequestBuilder.get(location)
+			.addHeader(HttpHeaders.ACCEPT_ENCODING, HttpUtils.ACCEPT_ENCODING)
+			.build();
+		HttpClientContext context = HttpClientContext.create();
+		RedirectChain redirectChain = RedirectChain.attach(context);
+
+		LOGGER.debug("Requesting endpoint information from '{}'.", location);
+		// Same limit as when reading the body in the classic client, as the async client buffers the body first.
+		return HttpUtils.execute(httpClient, request, context, htmlLinkParser.getMaxBodySize()).thenCompose(response -> {
+			try {
+				Optional<URI> endpoint = discoverEndpoint(target,
+					getResponseLocation(context, location),
+					HttpUtils.toClassicResponse(response));
+				permanentRedirectCache.putAll(redirectChain);
+				return CompletableFuture.completedFuture(endpoint);
+			} catch (IOException e) {
+				return CompletableFuture.failedFuture(e);
+			}
+		}).whenComplete((endpoint, throwable) -> {
+			if (throwable != null) {
+				onFetchFailed(target, location);
+			}
+		});
+	}
+
+	/**
+	 * Removes the cached endpoint of a target, e.g. because notifying it failed.
+	 *
+	 * @param target Target URL.
+	 */
+	public void invalidateEndpoint(@NotNull URI target) {
+		endpointCache.invalidate(target);
+	}
+
+	/**
+	 * @return Statistics of the endpoint cache.
+	 */
+	@NotNull
+	public CacheStats getEndpointCacheStats() {
+		return endpointCache.getStats();
+	}
+
+	/**
+	 * @return Statistics of the cache of targets without endpoint.
+	 */
+	@NotNull
+	public CacheStats getNoEndpointCacheStats() {
+		return noEndpointCache.getStats();
+	}
+
+	/**
+	 * @return Statistics of the cache of permanent redirects.
+	 */
+	@NotNull
+	public CacheStats getPermanentRedirectCacheStats() {
+		return permanentRedirectCache.getStats();
+	}
+
+	/*
+	 * A HEAD response can only answer discovery via the 'Link' header. If it does not, e.g. because the server does
+	 * not support HEAD requests or advertises in the body, the caller falls back to a GET request.
+	 */
+	private Optional<URI> discoverEndpointInHead(URI target, URI location, ClassicHttpResponse response)
+		throws IOException {
+		LOGGER.trace("Received HEAD response '{}' from '{}'.", response, location);
+		if (response.getCode() >= HttpStatus.SC_REDIRECTION) {
+			return Optional.empty();
+		}
+
+		Optional<URI> fromHeader = findWebmentionEndpoint(headerLinkParser, location, response);
+		if (fromHeader.isPresent()) {
+			LOGGER.debug("Found endpoint '{}' in HEAD header.", fromHeader.get());
+			endpointCache.put(target, fromHeader.get(), response);
+			noEndpointCache.putWithEndpoint(target);
+			headRequestPolicy.onHeadSucceeded(target);
+		}
+		return fromHeader;
+	}
+
+	/*
+	 * Caches are keyed by the target, as that is what callers look up and invalidate, while relative endpoints are
+	 * resolved against the location the response was received from.
+	 */
+	private Optional<URI> discoverEndpoint(URI target, URI location, ClassicHttpResponse response)
+		throws IOException {
+		LOGGER.trace("Received response '{}' from '{}'.", response, location);
 
 		HttpUtils.validateResponse(response);
 
@@ -76,38 +516,43 @@ public final class EndpointDiscoveryService {
 		 * followed by the first <link> or <a> element in document order.
 		 * Senders MUST support all three options and fall back in this order.'
 		 */
-		Optional<URI> fromHeader = findWebmentionEndpoint(headerLinkParser, target, response);
+		Optional<URI> fromHeader = findWebmentionEndpoint(headerLinkParser, location, response);
 		if (fromHeader.isPresent()) {
 			LOGGER.debug("Found endpoint '{}' in header.", fromHeader.get());
+			endpointCache.put(target, fromHeader.get(), response);
+			noEndpointCache.putWithEndpoint(target);
 			return fromHeader;
 		}
 
-		Optional<URI> fromBody = findWebmentionEndpoint(htmlLinkParser, target, response);
+		Optional<URI> fromBody = findWebmentionEndpoint(htmlLinkParser, location, response);
 		if (fromBody.isPresent()) {
 			LOGGER.debug("Found endpoint '{}' in body.", fromBody.get());
+			endpointCache.put(target, fromBody.get(), response);
+			noEndpointCache.putWithEndpoint(target);
 			return fromBody;
 		}
 
 		LOGGER.debug("Found no endpoint for '{}'.", target);
+		noEndpointCache.putWithoutEndpoint(target);
 		return Optional.empty();
 	}
 
 	private Optional<URI> findWebmentionEndpoint(LinkParser linkParser,
-												 URI target,
+												 URI location,
 												 ClassicHttpResponse response) throws IOException {
 		/*
 		 * Spec:
 		 * 'The endpoint MAY be a relative URL, in which case the sender MUST resolve it relative to the target
 		 * URL.' (done via dev.rilling.webmention4j.client.link.Link.convert)
+		 * If the target redirected, this is the URL it redirected to, as the document was received from there.
 		 *
 		 * 'The endpoint MAY contain query string parameters, which MUST be preserved as query string parameters
 		 *  and MUST NOT be sent as POST body parameters when sending the Webmention request.'
 		 */
-		// TODO: is `target` really equal to the response location? e.g. with redirects
-		return linkParser.parse(target, response)
-			.stream()
-			.filter(link -> link.rel().contains("webmention"))
-			.findFirst()
-			.map(Link::uri);
+		return linkParser.findFirst(location, response, link -> link.rel().contains("webmention")).map(Link::uri);
+	}
+
+	private static String getHost(URI target) {
+		return Objects.requireNonNullElse(target.getHost(), "");
 	}
 }
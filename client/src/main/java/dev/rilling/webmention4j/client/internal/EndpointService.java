@@ -1,20 +1,39 @@
 package dev.rilling.webmention4j.client.internal;
 
+import dev.rilling.webmention4j.client.WebmentionStatus;
 import dev.rilling.webmention4j.common.Webmention;
+import dev.rilling.webmention4j.common.CacheStats;
 import dev.rilling.webmention4j.common.internal.HttpUtils;
+import dev.rilling.webmention4j.common.internal.UriUtils;
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.entity.UrlEncodedFormEntity;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
 import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
 import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.ParseException;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.apache.hc.core5.http.io.support.ClassicRequestBuilder;
 import org.apache.hc.core5.http.message.BasicNameValuePair;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.net.URI;
+import java.net.UnknownHostException;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 /**
  * Service handling endpoint contact.
@@ -22,11 +41,44 @@ import java.util.Optional;
 public final class EndpointService {
 	private static final Logger LOGGER = LoggerFactory.getLogger(EndpointService.class);
 
+	/**
+	 * Status pages are only kept to be looked at, so there is no need to read huge ones fully.
+	 */
+	private static final int MAX_STATUS_BODY_SIZE = 64 * 1024;
+
+	private final @NotNull PermanentRedirectCache permanentRedirectCache;
+	private final @Nullable DnsResolver localhostRejectingDnsResolver;
+
+	/**
+	 * Constructor for a service which does not cache redirects.
+	 */
+	public EndpointService() {
+		this(PermanentRedirectCache.disabled(), null);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param permanentRedirectCache        Cache of permanent redirects, so that moved endpoints are notified at their
+	 *                                      new location directly. Should not be shared with other services, as the
+	 *                                      redirects they follow may not have been checked the same way.
+	 * @param localhostRejectingDnsResolver If set, redirects to localhost are neither cached nor followed from the
+	 *                                      cache, looking up hosts with this resolver. Should be the resolver the HTTP
+	 *                                      client connects with.
+	 */
+	public EndpointService(@NotNull PermanentRedirectCache permanentRedirectCache,
+						   @Nullable DnsResolver localhostRejectingDnsResolver) {
+		this.permanentRedirectCache = permanentRedirectCache;
+		this.localhostRejectingDnsResolver = localhostRejectingDnsResolver;
+	}
+
 	/**
 	 * Sends a Webmention request to the given endpoint.
+	 * Endpoints known to have moved permanently are notified at their new location directly.
 	 *
 	 * @param httpClient HTTP client.
 	 *                   Must be configured to follow redirects.
+	 *                   Should be configured to record them using {@link RecordingRedirectStrategy}.
 	 *                   Should be configured to use a fitting UA string.
 	 * @param endpoint   Endpoint. See {@link EndpointDiscoveryService}.
 	 * @param webmention Webmention to send.
@@ -38,6 +90,25 @@ public final class EndpointService {
 	public Optional<URI> notifyEndpoint(@NotNull CloseableHttpClient httpClient,
 										@NotNull URI endpoint,
 										@NotNull Webmention webmention) throws IOException {
+		return notifyEndpoint(httpClient, endpoint, webmention, Deadline.none());
+	}
+
+	/**
+	 * Variant of {@link #notifyEndpoint(CloseableHttpClient, URI, Webmention)} limited to a deadline.
+	 *
+	 * @param httpClient HTTP client. See {@link #notifyEndpoint(CloseableHttpClient, URI, Webmention)}.
+	 * @param endpoint   Endpoint. See {@link EndpointDiscoveryService}.
+	 * @param webmention Webmention to send.
+	 * @param deadline   Deadline for the request, including redirects.
+	 * @return URL to use to monitor request status (if supported by the endpoint server).
+	 * @throws IOException if I/O fails. A passed deadline may surface as any {@link IOException},
+	 *                     see {@link Deadline#translate(IOException)}.
+	 */
+	@NotNull
+	public Optional<URI> notifyEndpoint(@NotNull CloseableHttpClient httpClient,
+										@NotNull URI endpoint,
+										@NotNull Webmention webmention,
+										@NotNull Deadline deadline) throws IOException {
 		/*
 		 * Spec:
 		 * 'The sender MUST post x-www-form-urlencoded source and target parameters to the Webmention endpoint,
@@ -47,39 +118,190 @@ public final class EndpointService {
 		 * 'Note that if the Webmention endpoint URL contains query string parameters,
 		 * the query string parameters MUST be preserved, and MUST NOT be sent in the POST body.'
 		 */
-		BasicNameValuePair sourcePair = new BasicNameValuePair("source", webmention.source().toString());
-		BasicNameValuePair targetPair = new BasicNameValuePair("target", webmention.target().toString());
-		ClassicHttpRequest request = ClassicRequestBuilder.post(endpoint)
-			.addParameters(sourcePair, targetPair)
-			.setCharset(StandardCharsets.UTF_8) // Not part of spec, but probably better than ISO
+		URI location = resolveLocation(endpoint);
+		HttpPost request = new HttpPost(location);
+		request.setEntity(new UrlEncodedFormEntity(List.of(createSourcePair(webmention), createTargetPair(webmention)),
+			StandardCharsets.UTF_8)); // Not part of spec, but probably better than ISO
+		HttpClientContext context = deadline.createContext(request);
+		RedirectChain redirectChain = RedirectChain.attach(context);
+
+		LOGGER.debug("Sending request '{}'.", request);
+		Optional<URI> statusUrl;
+		try {
+			statusUrl = httpClient.execute(request, context, response -> handleResponse(location, response));
+		} catch (IOException e) {
+			// Running out of time says nothing about the location.
+			if (!deadline.isExpired()) {
+				onNotifyFailed(endpoint, location);
+			}
+			throw e;
+		}
+		permanentRedirectCache.putAll(redirectChain, this::isAllowedLocation);
+		return statusUrl;
+	}
+
+	/**
+	 * Asynchronous variant of {@link #notifyEndpoint(CloseableHttpClient, URI, Webmention)}.
+	 *
+	 * @param httpClient Started HTTP client.
+	 *                   Must be configured to follow redirects.
+	 *                   Should be configured to record them using {@link RecordingRedirectStrategy}.
+	 *                   Should be configured to use a fitting UA string.
+	 * @param endpoint   Endpoint. See {@link EndpointDiscoveryService}.
+	 * @param webmention Webmention to send.
+	 * @param executor   Executor to look up hosts of redirect locations on, as lookups may block.
+	 *                   Must not be one of the I/O threads of the HTTP client.
+	 * @return Future of the URL to use to monitor request status (if supported by the endpoint server).
+	 * Completes exceptionally with an {@link IOException} if I/O fails.
+	 */
+	@NotNull
+	public CompletableFuture<Optional<URI>> notifyEndpointAsync(@NotNull CloseableHttpAsyncClient httpClient,
+																@NotNull URI endpoint,
+																@NotNull Webmention webmention,
+																@NotNull Executor executor) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return resolveLocation(endpoint);
+			} catch (IOException e) {
+				throw new CompletionException(e);
+			}
+		}, executor).thenCompose(location -> notifyLocationAsync(httpClient, endpoint, location, webmention, executor));
+	}
+
+	private CompletableFuture<Optional<URI>> notifyLocationAsync(CloseableHttpAsyncClient httpClient,
+																 URI endpoint,
+																 URI location,
+																 Webmention webmention,
+																 Executor executor) {
+		// See #notifyEndpoint for spec references.
+		SimpleHttpRequest request = SimpleRequestBuilder.post(location)
+			.addParameters(createSourcePair(webmention), createTargetPair(webmention))
+			.setCharset(StandardCharsets.UTF_8)
 			.build();
+		HttpClientContext context = HttpClientContext.create();
+		RedirectChain redirectChain = RedirectChain.attach(context);
+
+		LOGGER.debug("Sending request '{}'.", request);
+		return HttpUtils.execute(httpClient, request, context).thenComposeAsync(response -> {
+			try {
+				Optional<URI> statusUrl = handleResponse(location, HttpUtils.toClassicResponse(response));
+				permanentRedirectCache.putAll(redirectChain, this::isAllowedLocation);
+				return CompletableFuture.completedFuture(statusUrl);
+			} catch (IOException e) {
+				return CompletableFuture.failedFuture(e);
+			}
+		}, executor).whenComplete((statusUrl, throwable) -> {
+			if (throwable != null) {
+				onNotifyFailed(endpoint, location);
+			}
+		});
+	}
+
+	/*
+	 * The endpoint itself was checked by the caller, but the location it moved to was not, and its host may resolve
+	 * differently by now.
+	 */
+	private URI resolveLocation(URI endpoint) throws IOException {
+		URI location = permanentRedirectCache.resolve(endpoint);
+		if (!location.equals(endpoint) && !isAllowedLocation(location)) {
+			permanentRedirectCache.invalidate(endpoint);
+			throw new IOException("Endpoint '%s' moved to localhost or a loopback IP address '%s', refusing to notify.".formatted(
+				endpoint,
+				location));
+		}
+		return location;
+	}
+
+	private boolean isAllowedLocation(URI location) {
+		if (localhostRejectingDnsResolver == null) {
+			return true;
+		}
+		try {
+			return !UriUtils.isLocalhost(location, localhostRejectingDnsResolver);
+		} catch (UnknownHostException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * @return Statistics of the cache of permanent redirects.
+	 */
+	@NotNull
+	public CacheStats getPermanentRedirectCacheStats() {
+		return permanentRedirectCache.getStats();
+	}
+
+	/*
+	 * A cached redirect may have become outdated, so the next notification starts from the endpoint itself.
+	 */
+	private void onNotifyFailed(URI endpoint, URI location) {
+		if (!location.equals(endpoint)) {
+			permanentRedirectCache.invalidate(endpoint);
+		}
+	}
+
+	/**
+	 * Fetches the status of a Webmention sent before.
+	 *
+	 * @param httpClient HTTP client.
+	 *                   Must be configured to follow redirects.
+	 *                   Should be configured to use a fitting UA string.
+	 * @param statusUrl  Status URL as returned by {@link #notifyEndpoint(CloseableHttpClient, URI, Webmention)}.
+	 * @return The status. Unsuccessful responses are returned as well, as they may be meaningful.
+	 * @throws IOException if I/O fails.
+	 */
+	@NotNull
+	public WebmentionStatus fetchStatus(@NotNull CloseableHttpClient httpClient, @NotNull URI statusUrl)
+		throws IOException {
+		ClassicHttpRequest request = ClassicRequestBuilder.get(statusUrl).build();
 
 		LOGGER.debug("Sending request '{}'.", request);
 		return httpClient.execute(request, response -> {
-			LOGGER.trace("Received response '{}' from '{}'.", response, endpoint);
-
-			/*
-			 * Spec:
-			 * 'The Webmention endpoint will validate and process the request, and return an HTTP status code.
-			 * Most often, 202 Accepted or 201 Created will be returned,
-			 * indicating that the request is queued and being processed asynchronously to prevent DoS (Denial of Service) attacks.
-			 * If the response code is 201,
-			 * the Location header will include a URL that can be used to monitor the status of the request.
-			 *
-			 * 'Any 2xx response code MUST be considered a success.'
-			 */
-
-			HttpUtils.validateResponse(response);
-
-			/*
-			 * Spec:
-			 * 'If the response code is 201,
-			 * the Location header will include a URL that can be used to monitor the status of the request.'
-			 */
-			if (response.getCode() == HttpStatus.SC_CREATED) {
-				return HttpUtils.extractLocation(response);
+			LOGGER.trace("Received response '{}' from '{}'.", response, statusUrl);
+			String body = "";
+			if (response.getEntity() != null) {
+				try {
+					body = EntityUtils.toString(response.getEntity(), MAX_STATUS_BODY_SIZE);
+				} catch (ParseException e) {
+					throw new IOException("Could not parse body.", e);
+				}
 			}
-			return Optional.empty();
+			return new WebmentionStatus(statusUrl, response.getCode(), body);
 		});
 	}
+
+	private Optional<URI> handleResponse(URI endpoint, ClassicHttpResponse response) throws IOException {
+		LOGGER.trace("Received response '{}' from '{}'.", response, endpoint);
+
+		/*
+		 * Spec:
+		 * 'The Webmention endpoint will validate and process the request, and return an HTTP status code.
+		 * Most often, 202 Accepted or 201 Created will be returned,
+		 * indicating that the request is queued and being processed asynchronously to prevent DoS (Denial of Service) attacks.
+		 * If the response code is 201,
+		 * the Location header will include a URL that can be used to monitor the status of the request.
+		 *
+		 * 'Any 2xx response code MUST be considered a success.'
+		 */
+
+		HttpUtils.validateResponse(response);
+
+		/*
+		 * Spec:
+		 * 'If the response code is 201,
+		 * the Location header will include a URL that can be used to monitor the status of the request.'
+		 */
+		if (response.getCode() == HttpStatus.SC_CREATED) {
+			return HttpUtils.extractLocation(response);
+		}
+		return Optional.empty();
+	}
+
+	private static BasicNameValuePair createSourcePair(Webmention webmention) {
+		return new BasicNameValuePair("source", webmention.source().toString());
+	}
+
+	private static BasicNameValuePair createTargetPair(Webmention webmention) {
+		return new BasicNameValuePair("target", webmention.target().toString());
+	}
 }
@@ -0,0 +1,238 @@
+package dev.rilling.webmention4j.client.internal;
+
+import org.apache.hc.client5.http.cache.HttpCacheStorage;
+import org.apache.hc.client5.http.cache.ResourceIOException;
+import org.apache.hc.client5.http.impl.cache.AbstractBinaryCacheStorage;
+import org.apache.hc.client5.http.impl.cache.HttpByteArrayCacheEntrySerializer;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * {@link HttpCacheStorage} keeping each cache entry, including its body, in a file of a directory, so that cached
+ * responses are retained when the application is restarted.
+ * <p>
+ * Entries are written to a temporary file which is then moved in place, so that neither a crash nor a concurrent read
+ * ever sees a partially written entry. If more than the maximum number of entries are stored, the least recently
+ * stored ones are removed.
+ * <p>
+ * The directory must not be shared by multiple instances at the same time.
+ */
+public final class FileHttpCacheStorage extends AbstractBinaryCacheStorage<byte[]> {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(FileHttpCacheStorage.class);
+
+	private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+	/**
+	 * Fraction of the maximum number of entries which is kept when the cache is full, so that not every following
+	 * write needs to scan the directory again.
+	 */
+	private static final double EVICTION_RETAINED_FRACTION = 0.9;
+	private static final int UPDATE_LOCK_STRIPES = 64;
+
+	private final Path directory;
+	private final int maxEntries;
+	/*
+	 * Only updates need locking, to make their read-compare-write atomic, so they are locked by key.
+	 * Not monitors, as entries are read and written while holding them, which would pin virtual threads.
+	 */
+	private final ReentrantLock[] updateLocks = new ReentrantLock[UPDATE_LOCK_STRIPES];
+	private final ReentrantLock evictionLock = new ReentrantLock();
+	private final AtomicInteger entryCount = new AtomicInteger();
+
+	/**
+	 * Constructor.
+	 * Creates the directory if it does not exist and removes temporary files left behind by a crash.
+	 *
+	 * @param directory        Directory to store entries in.
+	 * @param maxEntries       Maximum number of entries to store.
+	 * @param maxUpdateRetries How often an update of an entry which was concurrently modified is retried.
+	 * @throws IOException if the directory cannot be prepared.
+	 */
+	public FileHttpCacheStorage(@NotNull Path directory, int maxEntries, int maxUpdateRetries) throws IOException {
+		super(maxUpdateRetries, HttpByteArrayCacheEntrySerializer.INSTANCE);
+		this.directory = directory;
+		this.maxEntries = maxEntries;
+		for (int i = 0; i < updateLocks.length; i++) {
+			updateLocks[i] = new ReentrantLock();
+		}
+
+		Files.createDirectories(directory);
+		for (Path file : listFiles()) {
+			if (isTemporaryFile(file)) {
+				Files.deleteIfExists(file);
+			} else {
+				entryCount.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * @return How many entries are currently stored.
+	 */
+	public int getEntryCount() {
+		return entryCount.get();
+	}
+
+	@Override
+	protected String digestToStorageKey(String key) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+			return HexFormat.of().formatHex(digest);
+		} catch (NoSuchAlgorithmException e) {
+			// Every Java platform is required to support SHA-256.
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@Override
+	protected void store(String storageKey, byte[] storageObject) throws ResourceIOException {
+		write(storageKey, storageObject);
+	}
+
+	@Override
+	protected byte[] restore(String storageKey) throws ResourceIOException {
+		return read(storageKey);
+	}
+
+	@Override
+	protected byte[] getForUpdateCAS(String storageKey) throws ResourceIOException {
+		return restore(storageKey);
+	}
+
+	@Override
+	protected byte[] getStorageObject(byte[] cas) {
+		return cas;
+	}
+
+	@Override
+	protected boolean updateCAS(String storageKey, byte[] cas, byte[] storageObject) throws ResourceIOException {
+		ReentrantLock lock = updateLocks[Math.floorMod(storageKey.hashCode(), updateLocks.length)];
+		lock.lock();
+		try {
+			if (!Arrays.equals(read(storageKey), cas)) {
+				return false;
+			}
+			write(storageKey, storageObject);
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@Override
+	protected void delete(String storageKey) throws ResourceIOException {
+		try {
+			if (Files.deleteIfExists(directory.resolve(storageKey))) {
+				entryCount.decrementAndGet();
+			}
+		} catch (IOException e) {
+			throw new ResourceIOException("Could not delete cache entry.", e);
+		}
+	}
+
+	@Override
+	protected Map<String, byte[]> bulkRestore(Collection<String> storageKeys) throws ResourceIOException {
+		Map<String, byte[]> storageObjects = new HashMap<>(storageKeys.size());
+		for (String storageKey : storageKeys) {
+			byte[] storageObject = restore(storageKey);
+			if (storageObject != null) {
+				storageObjects.put(storageKey, storageObject);
+			}
+		}
+		return storageObjects;
+	}
+
+	private byte[] read(String storageKey) throws ResourceIOException {
+		try {
+			return Files.readAllBytes(directory.resolve(storageKey));
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			throw new ResourceIOException("Could not read cache entry.", e);
+		}
+	}
+
+	private void write(String storageKey, byte[] storageObject) throws ResourceIOException {
+		Path file = directory.resolve(storageKey);
+		try {
+			boolean isNew = !Files.exists(file);
+			// Unique, so that concurrent writes of the same entry do not write to the same temporary file.
+			Path temporaryFile = Files.createTempFile(directory, storageKey + ".", TEMPORARY_FILE_SUFFIX);
+			try {
+				Files.write(temporaryFile, storageObject);
+				Files.move(temporaryFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (IOException e) {
+				Files.deleteIfExists(temporaryFile);
+				throw e;
+			}
+			// Concurrent writes of a new entry may count it twice, which the next eviction corrects.
+			if (isNew && entryCount.incrementAndGet() > maxEntries) {
+				evict();
+			}
+		} catch (IOException e) {
+			throw new ResourceIOException("Could not write cache entry.", e);
+		}
+	}
+
+	private void evict() throws IOException {
+		// One eviction makes enough room for all writes concurrent to it.
+		if (!evictionLock.tryLock()) {
+			return;
+		}
+		try {
+			int retainedCount = (int) (maxEntries * EVICTION_RETAINED_FRACTION);
+			List<Path> files = listFiles().stream()
+				.filter(file -> !isTemporaryFile(file))
+				.sorted(Comparator.comparing(FileHttpCacheStorage::getLastModifiedTime))
+				.toList();
+			int evictedCount = Math.max(0, files.size() - retainedCount);
+			for (Path file : files.subList(0, evictedCount)) {
+				Files.deleteIfExists(file);
+			}
+			entryCount.set(files.size() - evictedCount);
+			LOGGER.debug("Evicted {} HTTP cache entries.", evictedCount);
+		} finally {
+			evictionLock.unlock();
+		}
+	}
+
+	private List<Path> listFiles() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.toList();
+		}
+	}
+
+	private static boolean isTemporaryFile(Path file) {
+		return file.getFileName().toString().endsWith(TEMPORARY_FILE_SUFFIX);
+	}
+
+	private static FileTime getLastModifiedTime(Path file) {
+		try {
+			return Files.getLastModifiedTime(file);
+		} catch (IOException e) {
+			// Treat files which vanished as oldest, they are skipped when deleting anyway.
+			return FileTime.fromMillis(0);
+		}
+	}
+}
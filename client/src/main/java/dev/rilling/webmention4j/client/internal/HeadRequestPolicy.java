@@ -0,0 +1,73 @@
+package dev.rilling.webmention4j.client.internal;
+
+import dev.rilling.webmention4j.common.internal.ExpiringCache;
+import org.jetbrains.annotations.NotNull;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Decides if discovery should try a HEAD request before fetching the whole target, learning per host if it works.
+ * <p>
+ * A HEAD request is only able to find endpoints advertised in the 'Link' header. Hosts which advertise their endpoint
+ * in the HTML body are remembered, so that no HEAD request is wasted on them next time.
+ */
+public final class HeadRequestPolicy {
+
+	private static final int MAX_HOSTS = 1000;
+	private static final Duration HOST_TIME_TO_LIVE = Duration.ofDays(1);
+
+	private final boolean enabled;
+	private final ExpiringCache<String, Boolean> getOnlyHosts;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param enabled If HEAD requests should be tried at all.
+	 * @param clock   Clock used to expire what was learned about hosts.
+	 */
+	public HeadRequestPolicy(boolean enabled, @NotNull Clock clock) {
+		this.enabled = enabled;
+		getOnlyHosts = new ExpiringCache<>(enabled ? MAX_HOSTS : 0, clock);
+	}
+
+	/**
+	 * Creates a policy which never tries HEAD requests.
+	 */
+	@NotNull
+	public static HeadRequestPolicy disabled() {
+		return new HeadRequestPolicy(false, Clock.systemUTC());
+	}
+
+	/**
+	 * @param target Target URL.
+	 * @return If a HEAD request should be tried for the target.
+	 */
+	public boolean shouldTryHead(@NotNull URI target) {
+		return enabled && getOnlyHosts.get(getHost(target)).isEmpty();
+	}
+
+	/**
+	 * Records that a HEAD request found the endpoint for the target.
+	 *
+	 * @param target Target URL.
+	 */
+	public void onHeadSucceeded(@NotNull URI target) {
+		getOnlyHosts.invalidate(getHost(target));
+	}
+
+	/**
+	 * Records that a HEAD request found nothing for the target, but the full request did find the endpoint.
+	 *
+	 * @param target Target URL.
+	 */
+	public void onGetNeeded(@NotNull URI target) {
+		getOnlyHosts.put(getHost(target), true, HOST_TIME_TO_LIVE);
+	}
+
+	private static String getHost(URI target) {
+		return target.getHost() == null ? "" : target.getHost().toLowerCase(Locale.ROOT);
+	}
+}
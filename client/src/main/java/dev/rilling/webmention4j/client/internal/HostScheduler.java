@@ -0,0 +1,374 @@
+package dev.rilling.webmention4j.client.internal;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Predicate;
+
+/**
+ * Runs tasks on an executor while being polite to the hosts they contact.
+ * <p>
+ * Tasks are queued per host, and are only started if:
+ * <ul>
+ *     <li>fewer tasks than allowed are running, both in total and for the host of the task</li>
+ *     <li>the minimum delay since the last start of a task for the same host has passed</li>
+ *     <li>the host's token bucket has a token left, limiting the rate of tasks per host</li>
+ * </ul>
+ * Hosts are served round-robin, so a slow or rate-limited host does not block tasks for other hosts.
+ * Tasks waiting in queues do not occupy a thread of the executor.
+ * <p>
+ * Optionally, the concurrency limit of each host adapts to how well the host copes with the load, see {@link AimdLimit}.
+ */
+public final class HostScheduler {
+	/**
+	 * Maximum number of hosts to remember the concurrency limit of.
+	 */
+	private static final int MAX_TRACKED_HOSTS = 1000;
+
+	private final Executor executor;
+	private final ScheduledExecutorService timer;
+	private final int maxConcurrentTasks;
+	private final int maxConcurrentTasksPerHost;
+	private final Politeness politeness;
+	private final Adaptivity adaptivity;
+
+	private final Object lock = new Object();
+	private final Map<String, HostState> hostStates = new HashMap<>();
+	/**
+	 * Limits are kept separately from the host states, so that they are remembered while a host is idle.
+	 */
+	private final Map<String, AimdLimit> limits = new LinkedHashMap<>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, AimdLimit> eldest) {
+			return size() > MAX_TRACKED_HOSTS;
+		}
+	};
+	/**
+	 * Hosts with waiting tasks, in the order they are served.
+	 */
+	private final Deque<HostState> waitingHosts = new ArrayDeque<>();
+	private int running = 0;
+	private long wakeUpNanos = Long.MAX_VALUE;
+	private int submitsSinceCleanUp = 0;
+
+	/**
+	 * Creates a scheduler that only limits concurrency per host.
+	 *
+	 * @param executor                  Executor to run tasks on. Its parallelism is the global limit of running tasks.
+	 * @param maxConcurrentTasksPerHost Maximum number of tasks running at once for a single host.
+	 */
+	public HostScheduler(@NotNull Executor executor, int maxConcurrentTasksPerHost) {
+		this(executor, null, Integer.MAX_VALUE, maxConcurrentTasksPerHost, Politeness.NONE, null);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param executor                  Executor to run tasks on.
+	 * @param timer                     Executor to schedule delayed starts on. Should only be used for short tasks.
+	 *                                  May only be null if politeness is {@link Politeness#NONE}.
+	 * @param maxConcurrentTasks        Maximum number of tasks running at once. Should not exceed the parallelism
+	 *                                  of the executor, as otherwise hosts are no longer served in turns.
+	 * @param maxConcurrentTasksPerHost Maximum number of tasks running at once for a single host.
+	 *                                  If adaptive, this is the limit hosts start with.
+	 * @param politeness                Limits for starting tasks for the same host.
+	 * @param adaptivity                How the concurrency limit per host adapts, or null if it is fixed.
+	 */
+	public HostScheduler(@NotNull Executor executor,
+						 @Nullable ScheduledExecutorService timer,
+						 int maxConcurrentTasks,
+						 int maxConcurrentTasksPerHost,
+						 @NotNull Politeness politeness,
+						 @Nullable Adaptivity adaptivity) {
+		if (maxConcurrentTasks < 1 || maxConcurrentTasksPerHost < 1) {
+			throw new IllegalArgumentException("Maximum concurrent tasks must be at least 1.");
+		}
+		if (timer == null && !politeness.equals(Politeness.NONE)) {
+			throw new IllegalArgumentException("A timer is needed for politeness.");
+		}
+		this.executor = executor;
+		this.timer = timer;
+		this.maxConcurrentTasks = maxConcurrentTasks;
+		this.maxConcurrentTasksPerHost = maxConcurrentTasksPerHost;
+		this.politeness = politeness;
+		this.adaptivity = adaptivity;
+	}
+
+	/**
+	 * Schedules a task for the given host.
+	 *
+	 * @param host Host the task contacts.
+	 * @param task Task to run.
+	 * @return Future completing with the result of the task.
+	 */
+	@NotNull
+	public <T> CompletableFuture<T> submit(@NotNull String host, @NotNull Callable<T> task) {
+		HostTask<T> hostTask = new HostTask<>(host, task);
+		synchronized (lock) {
+			long now = System.nanoTime();
+			HostState hostState = hostStates.computeIfAbsent(host, ignored -> new HostState(getLimit(host), now));
+			if (hostState.waiting.isEmpty()) {
+				waitingHosts.add(hostState);
+			}
+			hostState.waiting.add(hostTask);
+
+			if (++submitsSinceCleanUp >= 1000) {
+				submitsSinceCleanUp = 0;
+				hostStates.values().removeIf(state -> state.isIdle(now));
+			}
+		}
+		dispatch();
+		return hostTask.result;
+	}
+
+	/**
+	 * @return The current concurrency limit of hosts that tasks were submitted for recently.
+	 */
+	@NotNull
+	public Map<String, Integer> getConcurrencyLimits() {
+		synchronized (lock) {
+			Map<String, Integer> concurrencyLimits = new HashMap<>(limits.size());
+			limits.forEach((host, limit) -> concurrencyLimits.put(host, limit.getLimit()));
+			return concurrencyLimits;
+		}
+	}
+
+	private AimdLimit getLimit(String host) {
+		return limits.computeIfAbsent(host, ignored -> new AimdLimit(maxConcurrentTasksPerHost,
+			adaptivity == null ? maxConcurrentTasksPerHost : Math.max(maxConcurrentTasksPerHost,
+				adaptivity.maxConcurrentTasksPerHost())));
+	}
+
+	/**
+	 * Starts as many waiting tasks as allowed, serving hosts in turns.
+	 */
+	private void dispatch() {
+		List<HostTask<?>> started = new ArrayList<>();
+		synchronized (lock) {
+			long now = System.nanoTime();
+			long nextStartNanos = Long.MAX_VALUE;
+			// Stop once a whole round over the waiting hosts did not start anything.
+			int skipped = 0;
+			while (running < maxConcurrentTasks && skipped < waitingHosts.size()) {
+				HostState hostState = waitingHosts.poll();
+				long startNanos = hostState.getNextStartNanos(now);
+				if (startNanos != Long.MAX_VALUE && startNanos - now <= 0) {
+					hostState.onStart(now);
+					running++;
+					started.add(hostState.waiting.poll());
+					skipped = 0;
+				} else {
+					skipped++;
+					if (startNanos != Long.MAX_VALUE) {
+						nextStartNanos = Math.min(nextStartNanos, startNanos);
+					}
+				}
+				if (!hostState.waiting.isEmpty()) {
+					waitingHosts.add(hostState);
+				}
+			}
+			if (running < maxConcurrentTasks && nextStartNanos != Long.MAX_VALUE) {
+				scheduleWakeUp(nextStartNanos, now);
+			}
+		}
+		started.forEach(this::execute);
+	}
+
+	private void scheduleWakeUp(long nanos, long now) {
+		// Only one wake-up is needed, as it dispatches for all hosts.
+		if (wakeUpNanos != Long.MAX_VALUE && nanos - wakeUpNanos >= 0) {
+			return;
+		}
+		wakeUpNanos = nanos;
+		try {
+			timer.schedule(() -> {
+				synchronized (lock) {
+					wakeUpNanos = Long.MAX_VALUE;
+				}
+				dispatch();
+			}, nanos - now, TimeUnit.NANOSECONDS);
+		} catch (RejectedExecutionException e) {
+			// E.g. if the timer was shut down. Tasks waiting for it would never start.
+			wakeUpNanos = Long.MAX_VALUE;
+			failWaitingTasks(e);
+		}
+	}
+
+	/**
+	 * Fails all tasks that were not started yet.
+	 * Should be called when the executor or timer is shut down, as waiting tasks might never complete otherwise.
+	 */
+	public void failWaitingTasks() {
+		synchronized (lock) {
+			failWaitingTasks(new RejectedExecutionException("Scheduler was shut down."));
+		}
+	}
+
+	private void failWaitingTasks(Exception e) {
+		for (HostState hostState : waitingHosts) {
+			hostState.waiting.forEach(hostTask -> hostTask.result.completeExceptionally(e));
+			hostState.waiting.clear();
+		}
+		waitingHosts.clear();
+	}
+
+	private void onTaskFinished(String host, long latencyNanos, @Nullable Throwable failure) {
+		synchronized (lock) {
+			running--;
+			HostState hostState = hostStates.get(host);
+			if (adaptivity != null && latencyNanos >= 0) {
+				long now = System.nanoTime();
+				if (failure != null && adaptivity.isOverload().test(failure)) {
+					hostState.limit.onOverload(now);
+				} else {
+					// Other failures still mean the host responded.
+					hostState.limit.onSuccess(latencyNanos, hostState.running, now);
+				}
+			}
+			hostState.running--;
+			if (hostState.isIdle(System.nanoTime())) {
+				hostStates.remove(host);
+			}
+		}
+		dispatch();
+	}
+
+	private void execute(HostTask<?> hostTask) {
+		try {
+			executor.execute(hostTask);
+		} catch (RuntimeException e) {
+			// E.g. if the executor was shut down. Release the slot so that waiting tasks are not stuck.
+			hostTask.result.completeExceptionally(e);
+			onTaskFinished(hostTask.host, -1, null);
+		}
+	}
+
+	/**
+	 * Limits for starting tasks for the same host.
+	 *
+	 * @param minDelay         Minimum delay between the starts of two tasks.
+	 * @param maxRatePerSecond Maximum average number of tasks started per second, allowing for short bursts.
+	 *                         {@code 0} disables the limit.
+	 */
+	public record Politeness(@NotNull Duration minDelay, double maxRatePerSecond) {
+		/**
+		 * No limits.
+		 */
+		public static final Politeness NONE = new Politeness(Duration.ZERO, 0);
+
+		public Politeness {
+			if (minDelay.isNegative() || maxRatePerSecond < 0) {
+				throw new IllegalArgumentException("Politeness limits must not be negative.");
+			}
+		}
+
+		/**
+		 * @return Maximum number of tasks that can be started at once before the rate limit applies.
+		 */
+		double getBurst() {
+			return Math.max(1, maxRatePerSecond);
+		}
+	}
+
+	/**
+	 * Configures how the concurrency limit per host adapts.
+	 *
+	 * @param maxConcurrentTasksPerHost Maximum the limit of a host grows to.
+	 * @param isOverload                Checks if the failure of a task is a sign of the host being overloaded.
+	 */
+	public record Adaptivity(int maxConcurrentTasksPerHost, @NotNull Predicate<Throwable> isOverload) {
+	}
+
+	private final class HostTask<T> implements Runnable {
+		private final String host;
+		private final Callable<T> task;
+		private final CompletableFuture<T> result = new CompletableFuture<>();
+
+		HostTask(String host, Callable<T> task) {
+			this.host = host;
+			this.task = task;
+		}
+
+		@Override
+		public void run() {
+			long start = System.nanoTime();
+			Exception failure = null;
+			try {
+				result.complete(task.call());
+			} catch (Exception e) {
+				failure = e;
+				result.completeExceptionally(e);
+			} finally {
+				onTaskFinished(host, System.nanoTime() - start, failure);
+			}
+		}
+	}
+
+	private final class HostState {
+		private final AimdLimit limit;
+		private final Queue<HostTask<?>> waiting = new ArrayDeque<>();
+		private int running = 0;
+		private long minStartNanos;
+		// Token bucket
+		private double tokens;
+		private long refilledNanos;
+
+		HostState(AimdLimit limit, long now) {
+			this.limit = limit;
+			minStartNanos = now;
+			tokens = politeness.getBurst();
+			refilledNanos = now;
+		}
+
+		/**
+		 * @return When the next task may be started, or {@link Long#MAX_VALUE} if too many tasks are running.
+		 */
+		long getNextStartNanos(long now) {
+			if (running >= limit.getLimit()) {
+				return Long.MAX_VALUE;
+			}
+			long startNanos = minStartNanos;
+			if (politeness.maxRatePerSecond() > 0) {
+				refill(now);
+				if (tokens < 1) {
+					long tokenNanos = now + (long) Math.ceil((1 - tokens) / politeness.maxRatePerSecond() * 1_000_000_000);
+					if (tokenNanos - startNanos > 0) {
+						startNanos = tokenNanos;
+					}
+				}
+			}
+			return startNanos;
+		}
+
+		void onStart(long now) {
+			running++;
+			minStartNanos = now + politeness.minDelay().toNanos();
+			if (politeness.maxRatePerSecond() > 0) {
+				tokens--;
+			}
+		}
+
+		/**
+		 * @return If the state can be discarded, as a new state would behave the same.
+		 */
+		boolean isIdle(long now) {
+			if (running > 0 || !waiting.isEmpty() || minStartNanos - now > 0) {
+				return false;
+			}
+			if (politeness.maxRatePerSecond() > 0) {
+				refill(now);
+				return tokens >= politeness.getBurst();
+			}
+			return true;
+		}
+
+		private void refill(long now) {
+			tokens = Math.min(politeness.getBurst(),
+				tokens + (now - refilledNanos) / 1_000_000_000.0 * politeness.maxRatePerSecond());
+			refilledNanos = now;
+		}
+	}
+}
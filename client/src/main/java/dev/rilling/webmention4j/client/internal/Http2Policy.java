@@ -0,0 +1,103 @@
+package dev.rilling.webmention4j.client.internal;
+
+import dev.rilling.webmention4j.common.internal.ExpiringCache;
+import org.apache.hc.core5.http.ConnectionClosedException;
+import org.apache.hc.core5.http2.H2ConnectionException;
+import org.apache.hc.core5.http2.H2Error;
+import org.apache.hc.core5.http2.impl.nio.ProtocolNegotiationException;
+import org.jetbrains.annotations.NotNull;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Decides if a request should be sent over HTTP/2, learning per host if it is supported.
+ * <p>
+ * Hosts which fail HTTP/2 protocol negotiation, or appear not to speak HTTP/2, are remembered, so that they are
+ * contacted over HTTP/1.1 right away next time. Hosts which did answer over HTTP/2 are remembered as well, so that a connection closed by them is not
+ * mistaken for missing HTTP/2 support.
+ */
+public final class Http2Policy {
+
+	private static final int MAX_HOSTS = 1000;
+	private static final Duration HOST_TIME_TO_LIVE = Duration.ofDays(1);
+
+	private final boolean enabled;
+	private final ExpiringCache<String, Boolean> http1OnlyHosts;
+	private final ExpiringCache<String, Boolean> http2Hosts;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param enabled If HTTP/2 should be tried at all.
+	 * @param clock   Clock used to expire what was learned about hosts.
+	 */
+	public Http2Policy(boolean enabled, @NotNull Clock clock) {
+		this.enabled = enabled;
+		http1OnlyHosts = new ExpiringCache<>(enabled ? MAX_HOSTS : 0, clock);
+		http2Hosts = new ExpiringCache<>(enabled ? MAX_HOSTS : 0, clock);
+	}
+
+	/**
+	 * @param uri URL to request.
+	 * @return If HTTP/2 should be tried for the URL.
+	 */
+	public boolean shouldTryHttp2(@NotNull URI uri) {
+		return enabled && http1OnlyHosts.get(getAuthority(uri)).isEmpty();
+	}
+
+	/**
+	 * Records that the host of the URL answered over HTTP/2.
+	 *
+	 * @param uri URL that was requested.
+	 */
+	public void onHttp2Succeeded(@NotNull URI uri) {
+		http2Hosts.put(getAuthority(uri), true, HOST_TIME_TO_LIVE);
+	}
+
+	/**
+	 * Checks if a failure of an HTTP/2 request means that the server does not speak HTTP/2, and records it if so.
+	 * <p>
+	 * Only if protocol negotiation failed, e.g. because ALPN did not select HTTP/2, it is certain that no request was
+	 * sent, so that it may be repeated over HTTP/1.1 right away.
+	 * <p>
+	 * HTTP/1.1 servers usually answer the connection preface of a cleartext connection with something that is not an
+	 * HTTP/2 frame, or just close the connection. As an HTTP/2 server may fail the same way after having processed the
+	 * request, such a request is not repeated, but the host is contacted over HTTP/1.1 next time unless it is known to
+	 * speak HTTP/2.
+	 *
+	 * @param uri       URL that was requested.
+	 * @param throwable Failure of the HTTP/2 request.
+	 * @return If the request should be repeated over HTTP/1.1.
+	 */
+	public boolean onHttp2Failed(@NotNull URI uri, @NotNull Throwable throwable) {
+		Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ?
+			throwable.getCause() :
+			throwable;
+		if (cause instanceof ProtocolNegotiationException) {
+			http1OnlyHosts.put(getAuthority(uri), true, HOST_TIME_TO_LIVE);
+			return true;
+		}
+		if (isLikelyUnsupported(cause) && http2Hosts.get(getAuthority(uri)).isEmpty()) {
+			http1OnlyHosts.put(getAuthority(uri), true, HOST_TIME_TO_LIVE);
+		}
+		return false;
+	}
+
+	private static boolean isLikelyUnsupported(Throwable cause) {
+		if (cause instanceof H2ConnectionException h2ConnectionException) {
+			H2Error error = H2Error.getByCode(h2ConnectionException.getCode());
+			return error == H2Error.PROTOCOL_ERROR || error == H2Error.FRAME_SIZE_ERROR;
+		}
+		return cause instanceof ConnectionClosedException;
+	}
+
+	private static String getAuthority(URI uri) {
+		return "%s://%s:%d".formatted(uri.getScheme(),
+			uri.getHost() == null ? "" : uri.getHost().toLowerCase(Locale.ROOT),
+			uri.getPort());
+	}
+}
@@ -0,0 +1,328 @@
+package dev.rilling.webmention4j.client.internal;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only file of text records which survives crashes.
+ * <p>
+ * Appends are written by a single thread which syncs a whole batch of appends to disk at once (group commit),
+ * so concurrent callers share the cost of syncing. Records are checksummed, so a partially written record at the end
+ * of the file, e.g. after a crash, is ignored and cut off when opening the file.
+ * <p>
+ * As the file only grows, callers should periodically {@link #compact(Supplier) compact} it to the records
+ * still relevant to them.
+ */
+public final class Journal implements Closeable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(Journal.class);
+
+	private final Path path;
+	private final List<String> recoveredRecords;
+	private final BlockingQueue<Task> tasks = new LinkedBlockingQueue<>();
+	private final Thread writerThread;
+
+	private FileChannel channel;
+	private final AtomicLong recordCount = new AtomicLong();
+
+	/**
+	 * Guards {@link #closed}, so that no task is submitted after {@link Task#CLOSE}.
+	 */
+	private final Object lock = new Object();
+	private boolean closed = false;
+
+	/**
+	 * Opens or creates a journal.
+	 *
+	 * @param path       File to store the journal in.
+	 * @param threadName Name of the thread writing the journal.
+	 * @throws IOException if the file cannot be read or opened.
+	 */
+	public Journal(@NotNull Path path, @NotNull String threadName) throws IOException {
+		this.path = path;
+		recoveredRecords = recover(path);
+		recordCount.set(recoveredRecords.size());
+		channel = openChannel(path);
+
+		writerThread = new Thread(this::processTasks, threadName);
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+
+	/**
+	 * @return The valid records that were in the file when the journal was opened, in the order they were written.
+	 */
+	@NotNull
+	public List<String> getRecoveredRecords() {
+		return recoveredRecords;
+	}
+
+	/**
+	 * @return Number of records in the file, including those pending to be written.
+	 */
+	public long getRecordCount() {
+		return recordCount.get();
+	}
+
+	/**
+	 * Appends records.
+	 *
+	 * @param records Records to append. Must not contain line breaks.
+	 * @return Future completing once the records are synced to disk.
+	 */
+	@NotNull
+	public CompletableFuture<Void> append(@NotNull Collection<String> records) {
+		for (String record : records) {
+			if (record.indexOf('\n') != -1 || record.indexOf('\r') != -1) {
+				throw new IllegalArgumentException("Records must not contain line breaks.");
+			}
+		}
+		Task task = new Task(List.copyOf(records), null);
+		submit(task);
+		return task.result;
+	}
+
+	/**
+	 * Replaces the file with only the given records, dropping all others.
+	 * This happens in order with appends, i.e. after all appends submitted before.
+	 *
+	 * @param liveRecords Supplier of the records to keep. Called on the writer thread.
+	 * @return Future completing once the compacted file is synced to disk.
+	 */
+	@NotNull
+	public CompletableFuture<Void> compact(@NotNull Supplier<Collection<String>> liveRecords) {
+		Task task = new Task(List.of(), liveRecords);
+		submit(task);
+		return task.result;
+	}
+
+	/**
+	 * Writes pending records and closes the file.
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (lock) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			tasks.add(Task.CLOSE);
+		}
+		try {
+			writerThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		// Only left if the writer thread stopped early, e.g. because it was interrupted.
+		List<Task> leftover = new ArrayList<>();
+		tasks.drainTo(leftover);
+		leftover.forEach(task -> task.result.completeExceptionally(new IOException("Journal is closed.")));
+		channel.close();
+	}
+
+	private void submit(Task task) {
+		synchronized (lock) {
+			if (closed) {
+				task.result.completeExceptionally(new IOException("Journal is closed."));
+				return;
+			}
+			recordCount.addAndGet(task.records.size());
+			tasks.add(task);
+		}
+	}
+
+	private void processTasks() {
+		List<Task> batch = new ArrayList<>();
+		while (true) {
+			try {
+				batch.add(tasks.take());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			tasks.drainTo(batch);
+
+			boolean close = false;
+			List<Task> appends = new ArrayList<>(batch.size());
+			for (Task task : batch) {
+				if (task == Task.CLOSE) {
+					close = true;
+				} else if (task.compaction == null) {
+					appends.add(task);
+				} else {
+					// Compactions must not overtake appends submitted before them.
+					writeAndSync(appends);
+					appends.clear();
+					compact(task);
+				}
+			}
+			writeAndSync(appends);
+			batch.clear();
+
+			if (close) {
+				return;
+			}
+		}
+	}
+
+	private void writeAndSync(List<Task> appends) {
+		if (appends.isEmpty()) {
+			return;
+		}
+		try {
+			List<String> records = new ArrayList<>();
+			appends.forEach(task -> records.addAll(task.records));
+			write(channel, records);
+			channel.force(false);
+			appends.forEach(task -> task.result.complete(null));
+		} catch (IOException e) {
+			LOGGER.error("Writing to journal '{}' failed.", path, e);
+			appends.forEach(task -> task.result.completeExceptionally(e));
+		}
+	}
+
+	private void compact(Task task) {
+		Path compactedPath = path.resolveSibling(path.getFileName() + ".compact");
+		try {
+			List<String> records = List.copyOf(task.compaction.get());
+			try (FileChannel compactedChannel = FileChannel.open(compactedPath,
+				StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+				write(compactedChannel, records);
+				compactedChannel.force(true);
+			}
+			channel.close();
+			Files.move(compactedPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			syncDirectory(path);
+			channel = openChannel(path);
+			recordCount.set(records.size() + tasks.stream().mapToLong(pending -> pending.records.size()).sum());
+			LOGGER.debug("Compacted journal '{}' to {} records.", path, records.size());
+			task.result.complete(null);
+		} catch (IOException | RuntimeException e) {
+			LOGGER.error("Compacting journal '{}' failed.", path, e);
+			task.result.completeExceptionally(e);
+			if (!channel.isOpen()) {
+				try {
+					channel = openChannel(path);
+				} catch (IOException reopenException) {
+					e.addSuppressed(reopenException);
+				}
+			}
+		}
+	}
+
+	private static FileChannel openChannel(Path path) throws IOException {
+		return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+	}
+
+	/*
+	 * Makes a rename durable, as it is only stored in the directory. Some platforms, e.g. Windows, cannot open
+	 * directories; there the rename is made durable by the file system itself.
+	 */
+	private static void syncDirectory(Path path) {
+		Path directory = path.toAbsolutePath().getParent();
+		try (FileChannel directoryChannel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			directoryChannel.force(true);
+		} catch (IOException e) {
+			LOGGER.debug("Could not sync directory '{}'.", directory, e);
+		}
+	}
+
+	private static void write(FileChannel channel, List<String> records) throws IOException {
+		StringBuilder stringBuilder = new StringBuilder();
+		for (String record : records) {
+			stringBuilder.append(Long.toHexString(checksum(record))).append(' ').append(record).append('\n');
+		}
+		ByteBuffer buffer = StandardCharsets.UTF_8.encode(stringBuilder.toString());
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	/*
+	 * Reads the valid records and cuts off whatever follows the last of them, so that new records are not appended to
+	 * a partially written one. The file is read as bytes, as the cut may have split a character.
+	 */
+	private static List<String> recover(Path path) throws IOException {
+		byte[] content;
+		try {
+			content = Files.readAllBytes(path);
+		} catch (NoSuchFileException e) {
+			return List.of();
+		}
+
+		List<String> records = new ArrayList<>();
+		int validLength = 0;
+		int lineStart = 0;
+		for (int i = 0; i < content.length; i++) {
+			if (content[i] != '\n') {
+				continue;
+			}
+			String line = new String(content, lineStart, i - lineStart, StandardCharsets.UTF_8);
+			lineStart = i + 1;
+			int separator = line.indexOf(' ');
+			if (separator == -1) {
+				LOGGER.warn("Skipping malformed record in journal '{}'.", path);
+				continue;
+			}
+			String record = line.substring(separator + 1);
+			if (!line.substring(0, separator).equals(Long.toHexString(checksum(record)))) {
+				LOGGER.warn("Skipping corrupted record in journal '{}'.", path);
+				continue;
+			}
+			records.add(record);
+			validLength = lineStart;
+		}
+
+		if (validLength < content.length) {
+			LOGGER.warn("Cutting off {} bytes following the last valid record in journal '{}'.",
+				content.length - validLength,
+				path);
+			try (FileChannel truncatingChannel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+				truncatingChannel.truncate(validLength);
+				truncatingChannel.force(true);
+			}
+		}
+		return List.copyOf(records);
+	}
+
+	private static long checksum(String record) {
+		CRC32 crc32 = new CRC32();
+		crc32.update(record.getBytes(StandardCharsets.UTF_8));
+		return crc32.getValue();
+	}
+
+	private static final class Task {
+		private static final Task CLOSE = new Task(List.of(), null);
+
+		private final List<String> records;
+		private final Supplier<Collection<String>> compaction;
+		private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+		private Task(List<String> records, Supplier<Collection<String>> compaction) {
+			this.records = records;
+			this.compaction = compaction;
+		}
+	}
+}
@@ -1,7 +1,9 @@
 package dev.rilling.webmention4j.client.internal;
 
 import dev.rilling.webmention4j.common.internal.UriUtils;
+import org.apache.hc.client5.http.DnsResolver;
 import org.apache.hc.client5.http.RedirectException;
+import org.apache.hc.client5.http.SystemDefaultDnsResolver;
 import org.apache.hc.client5.http.impl.DefaultRedirectStrategy;
 import org.apache.hc.core5.http.HttpException;
 import org.apache.hc.core5.http.HttpRequest;
@@ -10,20 +12,55 @@ import org.apache.hc.core5.http.ProtocolException;
 import org.apache.hc.core5.http.protocol.HttpContext;
 
 import java.net.UnknownHostException;
+import java.util.function.Predicate;
 
 /**
  * Variant of {@link DefaultRedirectStrategy} that rejects redirects to localhost.
  * <p>
  * This may be useful if redirecting to localhost is security sensitive.
+ * Redirects which are followed are recorded like {@link RecordingRedirectStrategy} does.
  */
-public class LocalhostRejectingRedirectStrategy extends DefaultRedirectStrategy {
+public class LocalhostRejectingRedirectStrategy extends RecordingRedirectStrategy {
+
+	private final DnsResolver dnsResolver;
+	private final Predicate<HttpRequest> appliesTo;
+
+	/**
+	 * Creates a strategy that rejects localhost redirects for all requests.
+	 */
+	public LocalhostRejectingRedirectStrategy() {
+		this(request -> true);
+	}
+
+	/**
+	 * Creates a strategy that rejects localhost redirects only for some requests.
+	 *
+	 * @param appliesTo Decides if localhost redirects are rejected for a request. Redirects of other requests are
+	 *                  handled like {@link DefaultRedirectStrategy} does.
+	 */
+	public LocalhostRejectingRedirectStrategy(Predicate<HttpRequest> appliesTo) {
+		this(SystemDefaultDnsResolver.INSTANCE, appliesTo);
+	}
+
+	/**
+	 * Creates a strategy that rejects localhost redirects only for some requests.
+	 *
+	 * @param dnsResolver Resolver to look up redirect locations with. Should be the one the client connects with, so
+	 *                    that the location is only looked up once and the connection goes to the checked address.
+	 * @param appliesTo   Decides if localhost redirects are rejected for a request. Redirects of other requests are
+	 *                    handled like {@link DefaultRedirectStrategy} does.
+	 */
+	public LocalhostRejectingRedirectStrategy(DnsResolver dnsResolver, Predicate<HttpRequest> appliesTo) {
+		this.dnsResolver = dnsResolver;
+		this.appliesTo = appliesTo;
+	}
 
 	@Override
 	public boolean isRedirected(HttpRequest request, HttpResponse response, HttpContext context)
 		throws ProtocolException {
 		boolean redirected = super.isRedirected(request, response, context);
-		if (!redirected) {
-			return false;
+		if (!redirected || !appliesTo.test(request)) {
+			return redirected;
 		}
 
 		if (isLocalhostRedirect(request, response, context)) {
@@ -35,7 +72,7 @@ public class LocalhostRejectingRedirectStrategy extends DefaultRedirectStrategy
 	private boolean isLocalhostRedirect(HttpRequest request, HttpResponse response, HttpContext context)
 		throws ProtocolException {
 		try {
-			return UriUtils.isLocalhost(getLocationURI(request, response, context));
+			return UriUtils.isLocalhost(resolveLocation(request, response, context), dnsResolver);
 		} catch (UnknownHostException | HttpException e) {
 			throw new ProtocolException("Failed to check redirect location.", e);
 		}
@@ -0,0 +1,125 @@
+package dev.rilling.webmention4j.client.internal;
+
+import dev.rilling.webmention4j.common.CacheStats;
+import dev.rilling.webmention4j.common.internal.ExpiringCache;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of targets which do not advertise a Webmention endpoint.
+ * <p>
+ * Besides single targets, hosts are learned to have no endpoint if multiple of their targets do not advertise one
+ * while none does. Finding an endpoint for a target of a host resets what was learned about it.
+ */
+public final class NoEndpointCache {
+
+	private final ExpiringCache<URI, Boolean> targets;
+	private final ExpiringCache<String, Integer> hostTargetCounts;
+	private final ExpiringCache<String, Boolean> hosts;
+	private final Duration timeToLive;
+	private final int hostThreshold;
+
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param maxSize       Maximum number of cached targets, and separately of hosts. {@code 0} disables caching.
+	 * @param timeToLive    How long targets and hosts are remembered to have no endpoint.
+	 * @param hostThreshold Number of targets of a host without an endpoint after which the whole host is
+	 *                      assumed to have none. {@code 0} disables learning hosts.
+	 * @param clock         Clock used to determine expiry.
+	 */
+	public NoEndpointCache(int maxSize, @NotNull Duration timeToLive, int hostThreshold, @NotNull Clock clock) {
+		targets = new ExpiringCache<>(maxSize, clock);
+		hostTargetCounts = new ExpiringCache<>(maxSize, clock);
+		hosts = new ExpiringCache<>(maxSize, clock);
+		this.timeToLive = timeToLive;
+		this.hostThreshold = hostThreshold;
+	}
+
+	/**
+	 * Creates a cache that does not store anything.
+	 */
+	@NotNull
+	public static NoEndpointCache disabled() {
+		return new NoEndpointCache(0, Duration.ZERO, 0, Clock.systemUTC());
+	}
+
+	/**
+	 * Checks if the target or its host is known to have no endpoint.
+	 *
+	 * @param target Target URL.
+	 * @return If the target is known to have no endpoint.
+	 */
+	public boolean isKnownWithoutEndpoint(@NotNull URI target) {
+		String host = getHost(target);
+		boolean known = targets.get(target).isPresent() || (host != null && hosts.get(host).isPresent());
+		(known ? hitCount : missCount).increment();
+		return known;
+	}
+
+	/**
+	 * Remembers that a target does not advertise an endpoint.
+	 *
+	 * @param target Target URL.
+	 */
+	public void putWithoutEndpoint(@NotNull URI target) {
+		if (targets.get(target).isPresent()) {
+			return;
+		}
+		targets.put(target, true, timeToLive);
+
+		String host = getHost(target);
+		if (hostThreshold == 0 || host == null) {
+			return;
+		}
+		synchronized (hostTargetCounts) {
+			int count = hostTargetCounts.get(host).orElse(0) + 1;
+			if (count >= hostThreshold) {
+				hostTargetCounts.invalidate(host);
+				hosts.put(host, true, timeToLive);
+			} else {
+				hostTargetCounts.put(host, count, timeToLive);
+			}
+		}
+	}
+
+	/**
+	 * Forgets what is known about a target and its host, because an endpoint was found for it.
+	 *
+	 * @param target Target URL.
+	 */
+	public void putWithEndpoint(@NotNull URI target) {
+		targets.invalidate(target);
+		String host = getHost(target);
+		if (host != null) {
+			synchronized (hostTargetCounts) {
+				hostTargetCounts.invalidate(host);
+				hosts.invalidate(host);
+			}
+		}
+	}
+
+	/**
+	 * @return Statistics of this cache. The size is the number of cached targets and hosts.
+	 */
+	@NotNull
+	public CacheStats getStats() {
+		return new CacheStats(hitCount.sum(),
+			missCount.sum(),
+			targets.getStats().size() + hosts.getStats().size());
+	}
+
+	@Nullable
+	private static String getHost(URI target) {
+		return target.getHost() == null ? null : target.getHost().toLowerCase(Locale.ROOT);
+	}
+}
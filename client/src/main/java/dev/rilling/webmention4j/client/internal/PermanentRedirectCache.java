@@ -0,0 +1,112 @@
+package dev.rilling.webmention4j.client.internal;
+
+import dev.rilling.webmention4j.common.CacheStats;
+import dev.rilling.webmention4j.common.internal.ExpiringCache;
+import org.jetbrains.annotations.NotNull;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of permanent redirects, so that URLs known to have moved are requested at their new location directly.
+ */
+public final class PermanentRedirectCache {
+
+	/**
+	 * Maximum number of cached redirects followed for a single URL, guarding against loops.
+	 */
+	private static final int MAX_REDIRECTS = 10;
+
+	private final ExpiringCache<URI, URI> cache;
+	private final Duration timeToLive;
+
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param maxSize    Maximum number of cached redirects. {@code 0} disables caching.
+	 * @param timeToLive How long redirects are cached.
+	 * @param clock      Clock used to determine expiry.
+	 */
+	public PermanentRedirectCache(int maxSize, @NotNull Duration timeToLive, @NotNull Clock clock) {
+		cache = new ExpiringCache<>(maxSize, clock);
+		this.timeToLive = timeToLive;
+	}
+
+	/**
+	 * Creates a cache that does not store anything.
+	 */
+	@NotNull
+	public static PermanentRedirectCache disabled() {
+		return new PermanentRedirectCache(0, Duration.ZERO, Clock.systemUTC());
+	}
+
+	/**
+	 * Looks up where a URL has moved to, following multiple cached redirects if needed.
+	 *
+	 * @param uri URL to look up.
+	 * @return The location the URL has moved to, or the URL itself if it is not known to have moved.
+	 */
+	@NotNull
+	public URI resolve(@NotNull URI uri) {
+		URI location = uri;
+		for (int i = 0; i < MAX_REDIRECTS; i++) {
+			Optional<URI> next = cache.get(location);
+			if (next.isEmpty() || next.get().equals(uri)) {
+				break;
+			}
+			location = next.get();
+		}
+		(location.equals(uri) ? missCount : hitCount).increment();
+		return location;
+	}
+
+	/**
+	 * Caches the permanent redirects of a chain. A temporary redirect replaces a permanent one cached for the same URL.
+	 *
+	 * @param chain Redirects followed by a request.
+	 */
+	public void putAll(@NotNull RedirectChain chain) {
+		putAll(chain, location -> true);
+	}
+
+	/**
+	 * Variant of {@link #putAll(RedirectChain)} which only caches redirects to some locations.
+	 * A permanent redirect to any other location is treated like a temporary one.
+	 *
+	 * @param chain       Redirects followed by a request.
+	 * @param isCacheable Checks if redirects to a location may be cached.
+	 */
+	public void putAll(@NotNull RedirectChain chain, @NotNull Predicate<URI> isCacheable) {
+		for (RedirectChain.Redirect redirect : chain.getRedirects()) {
+			if (redirect.isPermanent() && isCacheable.test(redirect.to())) {
+				cache.put(redirect.from(), redirect.to(), timeToLive);
+			} else {
+				cache.invalidate(redirect.from());
+			}
+		}
+	}
+
+	/**
+	 * Forgets the cached redirects starting at a URL, e.g. because requesting the location they lead to failed.
+	 *
+	 * @param uri URL to forget the redirects of.
+	 */
+	public void invalidate(@NotNull URI uri) {
+		cache.invalidate(uri);
+	}
+
+	/**
+	 * @return Statistics of this cache. A lookup counts as hit if it found the URL to have moved.
+	 */
+	@NotNull
+	public CacheStats getStats() {
+		return new CacheStats(hitCount.sum(), missCount.sum(), cache.getStats().size());
+	}
+}
@@ -0,0 +1,70 @@
+package dev.rilling.webmention4j.client.internal;
+
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.io.entity.HttpEntityWrapper;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Entity wrapper tracking how far its content was read.
+ */
+final class ReadTrackingEntity extends HttpEntityWrapper {
+
+	private boolean endOfStream = false;
+	private long bytesRead = 0;
+
+	ReadTrackingEntity(@NotNull HttpEntity wrappedEntity) {
+		super(wrappedEntity);
+	}
+
+	/**
+	 * @return If the content was read until its end.
+	 */
+	boolean isFullyRead() {
+		return endOfStream;
+	}
+
+	/**
+	 * @return Number of bytes of the content that were read.
+	 */
+	long getBytesRead() {
+		return bytesRead;
+	}
+
+	@Override
+	public InputStream getContent() throws IOException {
+		return new FilterInputStream(super.getContent()) {
+			@Override
+			public int read() throws IOException {
+				int result = super.read();
+				track(result == -1 ? -1 : 1);
+				return result;
+			}
+
+			@Override
+			public int read(byte @NotNull [] b, int off, int len) throws IOException {
+				int result = super.read(b, off, len);
+				track(result);
+				return result;
+			}
+
+			@Override
+			public long skip(long n) throws IOException {
+				long skipped = super.skip(n);
+				bytesRead += skipped;
+				return skipped;
+			}
+		};
+	}
+
+	private void track(int count) {
+		if (count == -1) {
+			endOfStream = true;
+		} else {
+			bytesRead += count;
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package dev.rilling.webmention4j.client.internal;
+
+import org.apache.hc.client5.http.impl.DefaultRedirectStrategy;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.ProtocolException;
+import org.apache.hc.core5.http.protocol.HttpContext;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+
+/**
+ * Variant of {@link DefaultRedirectStrategy} that records the redirects it follows in the {@link RedirectChain}
+ * attached to the request context, if there is one.
+ * <p>
+ * If the request has a {@link Deadline}, redirects are only followed while it has not passed.
+ */
+public class RecordingRedirectStrategy extends DefaultRedirectStrategy {
+
+	@Override
+	public URI getLocationURI(HttpRequest request, HttpResponse response, HttpContext context) throws HttpException {
+		Deadline.onRedirect(context);
+		URI location = resolveLocation(request, response, context);
+		RedirectChain chain = RedirectChain.get(context);
+		if (chain != null) {
+			try {
+				chain.add(new RedirectChain.Redirect(request.getUri(), location, response.getCode()));
+			} catch (URISyntaxException e) {
+				throw new ProtocolException("Invalid request URI.", e);
+			}
+		}
+		return location;
+	}
+
+	/**
+	 * Determines the location of a redirect without recording it.
+	 */
+	protected final URI resolveLocation(HttpRequest request, HttpResponse response, HttpContext context)
+		throws HttpException {
+		return super.getLocationURI(request, response, context);
+	}
+}
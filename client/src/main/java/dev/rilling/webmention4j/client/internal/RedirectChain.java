@@ -0,0 +1,75 @@
+package dev.rilling.webmention4j.client.internal;
+
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Redirects followed while executing a request.
+ * <p>
+ * A chain is {@link #attach(HttpContext) attached} to the context of a request before executing it and is filled by
+ * {@link RecordingRedirectStrategy} as the client follows redirects.
+ */
+public final class RedirectChain {
+
+	private static final String ATTRIBUTE = RedirectChain.class.getName();
+
+	// Async clients follow redirects on their I/O threads.
+	private final List<Redirect> redirects = new CopyOnWriteArrayList<>();
+
+	/**
+	 * A single redirect.
+	 *
+	 * @param from   URL that was requested.
+	 * @param to     URL that was redirected to.
+	 * @param status Status code of the redirect response.
+	 */
+	public record Redirect(@NotNull URI from, @NotNull URI to, int status) {
+
+		/**
+		 * @return If the redirect is permanent, i.e. future requests should use the new URL.
+		 */
+		public boolean isPermanent() {
+			return status == HttpStatus.SC_MOVED_PERMANENTLY || status == HttpStatus.SC_PERMANENT_REDIRECT;
+		}
+	}
+
+	/**
+	 * Creates a chain and attaches it to a context, so that redirects of requests executed with it are recorded.
+	 *
+	 * @param context Context to execute the request with.
+	 * @return The chain.
+	 */
+	@NotNull
+	public static RedirectChain attach(@NotNull HttpContext context) {
+		RedirectChain chain = new RedirectChain();
+		context.setAttribute(ATTRIBUTE, chain);
+		return chain;
+	}
+
+	/**
+	 * @return The chain attached to the context, or {@code null} if none is.
+	 */
+	@Nullable
+	static RedirectChain get(@NotNull HttpContext context) {
+		Object chain = context.getAttribute(ATTRIBUTE);
+		return chain instanceof RedirectChain redirectChain ? redirectChain : null;
+	}
+
+	void add(@NotNull Redirect redirect) {
+		redirects.add(redirect);
+	}
+
+	/**
+	 * @return The redirects that were followed, in order.
+	 */
+	@NotNull
+	public List<Redirect> getRedirects() {
+		return List.copyOf(redirects);
+	}
+}
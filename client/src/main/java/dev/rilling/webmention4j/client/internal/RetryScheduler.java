@@ -0,0 +1,202 @@
+package dev.rilling.webmention4j.client.internal;
+
+import dev.rilling.webmention4j.client.CircuitOpenException;
+import dev.rilling.webmention4j.common.HttpStatusException;
+import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.apache.hc.core5.http.HttpStatus;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Retries failed asynchronous tasks if the failure is likely temporary.
+ * <p>
+ * Retries are delayed using exponential backoff with jitter, honoring the 'Retry-After' header of the failed response.
+ * Waiting happens on a {@link ScheduledExecutorService}, so no thread is blocked while waiting for a retry.
+ */
+public final class RetryScheduler {
+	private static final Logger LOGGER = LoggerFactory.getLogger(RetryScheduler.class);
+
+	private final ScheduledExecutorService scheduler;
+	private final int maxRetries;
+	private final Duration initialDelay;
+	private final Duration maxDelay;
+	private final DoubleSupplier random;
+
+	private final Set<PendingRetry> pendingRetries = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param scheduler    Executor to schedule retries on. Should only be used for short tasks.
+	 * @param maxRetries   Maximum number of retries per task. {@code 0} disables retries.
+	 * @param initialDelay Delay before the first retry. Doubles with each retry.
+	 * @param maxDelay     Maximum delay before a retry. If the server requests a longer delay, no retry is done.
+	 */
+	public RetryScheduler(@NotNull ScheduledExecutorService scheduler,
+						  int maxRetries,
+						  @NotNull Duration initialDelay,
+						  @NotNull Duration maxDelay) {
+		this(scheduler, maxRetries, initialDelay, maxDelay, () -> ThreadLocalRandom.current().nextDouble());
+	}
+
+	RetryScheduler(@NotNull ScheduledExecutorService scheduler,
+				   int maxRetries,
+				   @NotNull Duration initialDelay,
+				   @NotNull Duration maxDelay,
+				   @NotNull DoubleSupplier random) {
+		if (maxRetries < 0) {
+			throw new IllegalArgumentException("Maximum retries must not be negative.");
+		}
+		this.scheduler = scheduler;
+		this.maxRetries = maxRetries;
+		this.initialDelay = initialDelay;
+		this.maxDelay = maxDelay;
+		this.random = random;
+	}
+
+	/**
+	 * Runs a task, retrying it if it fails with a retryable failure.
+	 *
+	 * @param task Task to run, called once per attempt.
+	 * @return Future completing with the result of the first successful attempt,
+	 * or with the failure of the last attempt.
+	 */
+	@NotNull
+	public <T> CompletableFuture<T> execute(@NotNull Supplier<CompletableFuture<T>> task) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		attempt(task, 0, result);
+		return result;
+	}
+
+	/**
+	 * Fails all tasks currently waiting for a retry with the failure of their last attempt.
+	 * Should be called when the executor is shut down, as waiting tasks would never complete otherwise.
+	 */
+	public void failPendingRetries() {
+		for (PendingRetry pendingRetry : pendingRetries) {
+			pendingRetries.remove(pendingRetry);
+			pendingRetry.result.completeExceptionally(pendingRetry.failure);
+		}
+	}
+
+	private <T> void attempt(Supplier<CompletableFuture<T>> task, int retry, CompletableFuture<T> result) {
+		task.get().whenComplete((value, throwable) -> {
+			if (throwable == null) {
+				result.complete(value);
+				return;
+			}
+			Throwable failure = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+
+			Optional<Duration> delay = retry < maxRetries ? getRetryDelay(retry, failure) : Optional.empty();
+			if (delay.isEmpty()) {
+				result.completeExceptionally(failure);
+				return;
+			}
+
+			LOGGER.debug("Retrying in {} after failure: {}", delay.get(), failure.getMessage());
+			PendingRetry pendingRetry = new PendingRetry(result, failure);
+			pendingRetries.add(pendingRetry);
+			try {
+				scheduler.schedule(() -> {
+					if (pendingRetries.remove(pendingRetry)) {
+						attempt(task, retry + 1, result);
+					}
+				}, delay.get().toMillis(), TimeUnit.MILLISECONDS);
+			} catch (RejectedExecutionException e) {
+				// E.g. if the executor was shut down.
+				pendingRetries.remove(pendingRetry);
+				result.completeExceptionally(failure);
+			}
+		});
+	}
+
+	/**
+	 * Determines the delay before retrying after a failure.
+	 *
+	 * @param retry   Number of retries done so far.
+	 * @param failure Failure of the last attempt.
+	 * @return The delay, or empty if the failure should not be retried.
+	 */
+	@NotNull
+	Optional<Duration> getRetryDelay(int retry, @NotNull Throwable failure) {
+		if (!isRetryable(failure)) {
+			return Optional.empty();
+		}
+
+		Duration backoff = maxDelay;
+		// Avoid overflow for large retry counts.
+		if (retry < 31) {
+			Duration exponentialDelay = initialDelay.multipliedBy(1L << retry);
+			if (exponentialDelay.compareTo(maxDelay) < 0) {
+				backoff = exponentialDelay;
+			}
+		}
+		// Random between half and full backoff, so that clients failing at once do not retry at once.
+		Duration delay = backoff.dividedBy(2).plusMillis((long) (backoff.toMillis() / 2.0 * random.getAsDouble()));
+
+		Optional<Duration> requestedDelay = getRequestedDelay(failure);
+		if (requestedDelay.isPresent()) {
+			Duration retryAfter = requestedDelay.get();
+			if (retryAfter.compareTo(maxDelay) > 0) {
+				return Optional.empty();
+			}
+			if (retryAfter.compareTo(delay) > 0) {
+				delay = retryAfter;
+			}
+		}
+		return Optional.of(delay);
+	}
+
+	private static Optional<Duration> getRequestedDelay(Throwable failure) {
+		if (failure instanceof HttpStatusException httpStatusException) {
+			return httpStatusException.getRetryAfter();
+		}
+		// Retrying before the circuit is half-open would fail right away again.
+		if (failure instanceof CircuitOpenException circuitOpenException) {
+			return Optional.of(circuitOpenException.getRetryAfter());
+		}
+		return Optional.empty();
+	}
+
+	/**
+	 * Checks if a failure is likely temporary, i.e. if retrying might succeed.
+	 * This is the case for failures to connect, responses that signal overload or a temporary outage, and hosts that
+	 * are skipped because they failed repeatedly.
+	 * Other client errors (4xx) and server errors are considered permanent.
+	 */
+	public static boolean isRetryable(@NotNull Throwable failure) {
+		if (failure instanceof CircuitOpenException) {
+			return true;
+		}
+		if (failure instanceof HttpStatusException httpStatusException) {
+			int statusCode = httpStatusException.getStatusCode();
+			return statusCode == HttpStatus.SC_TOO_MANY_REQUESTS ||
+				statusCode == HttpStatus.SC_BAD_GATEWAY ||
+				statusCode == HttpStatus.SC_SERVICE_UNAVAILABLE ||
+				statusCode == HttpStatus.SC_GATEWAY_TIMEOUT;
+		}
+		return failure instanceof ConnectException ||
+			failure instanceof ConnectTimeoutException ||
+			failure instanceof NoRouteToHostException;
+	}
+
+	private static final class PendingRetry {
+		private final CompletableFuture<?> result;
+		private final Throwable failure;
+
+		PendingRetry(CompletableFuture<?> result, Throwable failure) {
+			this.result = result;
+			this.failure = failure;
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package dev.rilling.webmention4j.client.internal;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent executions of the same operation.
+ * <p>
+ * The first caller for a key runs the operation, callers arriving while it is in flight wait for it and share its
+ * result or failure. Nothing is cached: once the operation completed, the next caller runs it again.
+ *
+ * @param <K> Key type.
+ * @param <V> Result type.
+ */
+public final class SingleFlight<K, V> {
+
+	private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+	/**
+	 * Runs the operation on the calling thread, unless it is already in flight for the key.
+	 *
+	 * @param key       Key identifying the operation.
+	 * @param operation Operation to run.
+	 * @return The result of the operation, possibly run by another caller.
+	 * @throws IOException if the operation fails. Callers sharing an execution get the same exception instance.
+	 */
+	public V execute(@NotNull K key, @NotNull Callable<V> operation) throws IOException {
+		CompletableFuture<V> own = new CompletableFuture<>();
+		CompletableFuture<V> existing = inFlight.putIfAbsent(key, own);
+		if (existing != null) {
+			return await(existing);
+		}
+
+		try {
+			V result = operation.call();
+			own.complete(result);
+			return result;
+		} catch (Exception e) {
+			own.completeExceptionally(e);
+			throw rethrow(e);
+		} finally {
+			inFlight.remove(key, own);
+		}
+	}
+
+	/**
+	 * Starts the operation, unless it is already in flight for the key.
+	 * <p>
+	 * Each caller gets its own future, so cancelling it does not affect other callers.
+	 * The operation itself is not cancelled.
+	 *
+	 * @param key       Key identifying the operation.
+	 * @param operation Operation to start.
+	 * @return Future of the result of the operation, possibly started by another caller.
+	 */
+	@NotNull
+	public CompletableFuture<V> executeAsync(@NotNull K key, @NotNull Supplier<CompletableFuture<V>> operation) {
+		CompletableFuture<V> own = new CompletableFuture<>();
+		CompletableFuture<V> existing = inFlight.putIfAbsent(key, own);
+		if (existing != null) {
+			return existing.copy();
+		}
+
+		CompletableFuture<V> result;
+		try {
+			result = operation.get();
+		} catch (RuntimeException e) {
+			result = CompletableFuture.failedFuture(e);
+		}
+		result.whenComplete((value, throwable) -> {
+			inFlight.remove(key, own);
+			if (throwable != null) {
+				own.completeExceptionally(throwable instanceof CompletionException && throwable.getCause() != null ?
+					throwable.getCause() :
+					throwable);
+			} else {
+				own.complete(value);
+			}
+		});
+		return own.copy();
+	}
+
+	/**
+	 * @return How many operations are currently in flight.
+	 */
+	public int getInFlightCount() {
+		return inFlight.size();
+	}
+
+	private static <V> V await(CompletableFuture<V> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for concurrent execution.");
+		} catch (ExecutionException e) {
+			throw rethrow(e.getCause());
+		}
+	}
+
+	private static IOException rethrow(Throwable throwable) {
+		if (throwable instanceof IOException ioException) {
+			return ioException;
+		}
+		if (throwable instanceof RuntimeException runtimeException) {
+			throw runtimeException;
+		}
+		if (throwable instanceof Error error) {
+			throw error;
+		}
+		return new IOException(throwable);
+	}
+}
@@ -1,18 +1,22 @@
 package dev.rilling.webmention4j.client.internal.link;
 
 import dev.rilling.webmention4j.common.internal.HtmlUtils;
-import jakarta.ws.rs.ext.RuntimeDelegate;
 import org.apache.hc.core5.http.ClassicHttpResponse;
 import org.jetbrains.annotations.NotNull;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
+import org.jsoup.parser.StreamParser;
 import org.jsoup.select.Elements;
 import org.jsoup.select.Evaluator;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.function.Predicate;
 
 /**
  * {@link LinkParser} checking HTML body for {@link Link}s.
@@ -20,8 +24,39 @@ import java.util.Set;
  */
 public final class HtmlLinkParser implements LinkParser {
 
+	/**
+	 * Default for {@link #HtmlLinkParser(long)}.
+	 */
+	public static final long DEFAULT_MAX_BODY_SIZE = 1024 * 1024;
+
 	private static final LinkElementEvaluator LINK_ELEMENT_EVALUATOR = new LinkElementEvaluator();
 
+	private final long maxBodySize;
+
+	/**
+	 * Creates a parser reading at most {@link #DEFAULT_MAX_BODY_SIZE} bytes in {@link #findFirst}.
+	 */
+	public HtmlLinkParser() {
+		this(DEFAULT_MAX_BODY_SIZE);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param maxBodySize Maximum number of bytes of the body to read in {@link #findFirst}.
+	 *                    Links after that are not found.
+	 */
+	public HtmlLinkParser(long maxBodySize) {
+		this.maxBodySize = maxBodySize;
+	}
+
+	/**
+	 * @return Maximum number of bytes of the body to read in {@link #findFirst}.
+	 */
+	public long getMaxBodySize() {
+		return maxBodySize;
+	}
+
 	public @NotNull List<Link> parse(@NotNull URI location, @NotNull ClassicHttpResponse response)
 		throws IOException {
 		if (!HtmlUtils.isHtml(response) || response.getEntity() == null) {
@@ -32,20 +67,59 @@ public final class HtmlLinkParser implements LinkParser {
 		Elements linkElements = document.select(LINK_ELEMENT_EVALUATOR);
 
 		try {
-			return linkElements.stream()
-				.map(element -> RuntimeDelegate.getInstance()
-					.createLinkBuilder()
-					.baseUri(location)
-					.uri(element.attr("href"))
-					.rel(element.attr("rel"))
-					.build())
-				.map(link -> new Link(link.getUri(), Set.copyOf(link.getRels())))
-				.toList();
+			return linkElements.stream().map(element -> toLink(location, element)).toList();
 		} catch (Exception e) {
 			throw new IOException("Could not parse link(s) in HTML.", e);
 		}
 	}
 
+	/**
+	 * Parses the body progressively, without reading further than needed to find the first match.
+	 */
+	@Override
+	public @NotNull Optional<Link> findFirst(@NotNull URI location,
+											 @NotNull ClassicHttpResponse response,
+											 @NotNull Predicate<Link> predicate) throws IOException {
+		if (!HtmlUtils.isHtml(response) || response.getEntity() == null) {
+			return Optional.empty();
+		}
+
+		try (StreamParser streamParser = HtmlUtils.parseStreaming(response.getEntity(), maxBodySize)) {
+			Iterator<Element> iterator = streamParser.iterator();
+			while (iterator.hasNext()) {
+				Element element = iterator.next();
+				if (!isMatch(location, element, predicate)) {
+					continue;
+				}
+				/*
+				 * Elements are emitted once they are closed, so a matching element that was opened earlier may still
+				 * be open. That can only be an ancestor, with the outermost one being first in document order.
+				 */
+				Element first = element;
+				for (Element ancestor : element.parents()) {
+					if (isMatch(location, ancestor, predicate)) {
+						first = ancestor;
+					}
+				}
+				streamParser.stop();
+				return Optional.of(toLink(location, first));
+			}
+			return Optional.empty();
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} catch (RuntimeException e) {
+			throw new IOException("Could not parse link(s) in HTML.", e);
+		}
+	}
+
+	private static boolean isMatch(URI location, Element element, Predicate<Link> predicate) {
+		return LINK_ELEMENT_EVALUATOR.matches(element, element) && predicate.test(toLink(location, element));
+	}
+
+	private static Link toLink(URI location, Element element) {
+		return LinkValueParser.createLink(location, element.attr("href"), element.attr("rel"));
+	}
+
 	private static class LinkElementEvaluator extends Evaluator {
 
 		private static final Set<String> LINK_ELEMENT_NAMES = Set.of("link", "a");
@@ -6,6 +6,8 @@ import org.jetbrains.annotations.NotNull;
 import java.io.IOException;
 import java.net.URI;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
 
 /**
  * Handles extraction of {@link Link} elements from a HTTP response.
@@ -24,4 +26,21 @@ public interface LinkParser {
 	 */
 	@NotNull List<Link> parse(@NotNull URI location, @NotNull ClassicHttpResponse response) throws IOException;
 
+	/**
+	 * Finds the first link element in the HTTP response matching the predicate.
+	 * Implementations may stop reading the response once a match is found.
+	 *
+	 * @param location  The location of the response.
+	 * @param response  The response.
+	 * @param predicate Predicate to check links with.
+	 * @return The first matching link element by position in the response, or empty if none matches.
+	 * @throws IOException if parsing fails.
+	 */
+	@NotNull
+	default Optional<Link> findFirst(@NotNull URI location,
+									 @NotNull ClassicHttpResponse response,
+									 @NotNull Predicate<Link> predicate) throws IOException {
+		return parse(location, response).stream().filter(predicate).findFirst();
+	}
+
 }
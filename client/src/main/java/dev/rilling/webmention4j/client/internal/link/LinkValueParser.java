@@ -0,0 +1,196 @@
+package dev.rilling.webmention4j.client.internal.link;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Parser for the 'Link' header field value:
+ * <a href="https://datatracker.ietf.org/doc/html/rfc8288#section-3">https://datatracker.ietf.org/doc/html/rfc8288#section-3</a>
+ * <p>
+ * Only the target URI and the 'rel' parameter are extracted, all other parameters are skipped.
+ */
+public final class LinkValueParser {
+
+	private static final String TOKEN_SPECIAL_CHARS = "!#$%&'*+-.^_`|~";
+
+	private LinkValueParser() {
+	}
+
+	/**
+	 * Parses all links of a 'Link' header field value.
+	 *
+	 * @param base  URI to resolve relative link targets against.
+	 * @param value Header field value, which may contain multiple comma-separated links.
+	 * @return The links, in the order they appear in.
+	 * @throws IllegalArgumentException if the value or a link target is malformed.
+	 */
+	@NotNull
+	public static List<Link> parseHeaderValue(@NotNull URI base, @NotNull String value) {
+		List<Link> links = new ArrayList<>(1);
+		int length = value.length();
+		int i = 0;
+		while (true) {
+			// Empty list elements are allowed.
+			while (i < length && (isWhitespace(value.charAt(i)) || value.charAt(i) == ',')) {
+				i++;
+			}
+			if (i == length) {
+				return links;
+			}
+
+			// '"<" URI-Reference ">"'
+			if (value.charAt(i) != '<') {
+				throw parseError(value, i, "expected '<'");
+			}
+			int uriEnd = value.indexOf('>', i + 1);
+			if (uriEnd == -1) {
+				throw parseError(value, i, "missing '>'");
+			}
+			String uriReference = value.substring(i + 1, uriEnd);
+			i = uriEnd + 1;
+
+			// '*( OWS ";" OWS link-param )'
+			String rel = null;
+			while (true) {
+				i = skipWhitespace(value, i);
+				if (i == length || value.charAt(i) == ',') {
+					break;
+				}
+				if (value.charAt(i) != ';') {
+					throw parseError(value, i, "expected ';' or ','");
+				}
+				i = skipWhitespace(value, i + 1);
+
+				// 'link-param = token BWS [ "=" BWS ( token / quoted-string ) ]'
+				int nameStart = i;
+				i = skipToken(value, i);
+				if (i == nameStart) {
+					// Tolerate trailing or duplicate ';'.
+					continue;
+				}
+				String name = value.substring(nameStart, i);
+				String paramValue = "";
+				i = skipWhitespace(value, i);
+				if (i < length && value.charAt(i) == '=') {
+					i = skipWhitespace(value, i + 1);
+					if (i < length && value.charAt(i) == '"') {
+						StringBuilder quoted = new StringBuilder();
+						i = readQuotedString(value, i, quoted);
+						paramValue = quoted.toString();
+					} else {
+						int valueStart = i;
+						i = skipToken(value, i);
+						paramValue = value.substring(valueStart, i);
+					}
+				}
+				// Spec: 'The "rel" parameter MUST NOT appear more than once in a given link-value; occurrences after
+				// the first MUST be ignored by parsers.'
+				if (rel == null && name.equalsIgnoreCase("rel")) {
+					rel = paramValue;
+				}
+			}
+
+			links.add(createLink(base, uriReference, rel));
+		}
+	}
+
+	/**
+	 * Creates a link from its unparsed parts, as found in a 'Link' header or an HTML element.
+	 *
+	 * @param base         URI to resolve a relative link target against.
+	 * @param uriReference Link target, which may be relative.
+	 * @param rel          Value of the 'rel' parameter or attribute, containing space-separated relation types.
+	 * @return The link.
+	 * @throws IllegalArgumentException if the link target is malformed.
+	 */
+	@NotNull
+	public static Link createLink(@NotNull URI base, @NotNull String uriReference, @Nullable String rel) {
+		return new Link(resolve(base, uriReference.strip()), parseRelationTypes(rel));
+	}
+
+	private static URI resolve(URI base, String uriReference) {
+		URI reference;
+		try {
+			reference = new URI(uriReference);
+		} catch (URISyntaxException e) {
+			throw new IllegalArgumentException("Invalid link target '%s'.".formatted(uriReference), e);
+		}
+		if (reference.isAbsolute()) {
+			return reference;
+		}
+		// URI#resolve does not handle an empty base path, which RFC 3986 treats as "/".
+		if (!base.isOpaque() && base.getRawAuthority() != null && base.getRawPath().isEmpty()) {
+			base = URI.create(base.getScheme() + "://" + base.getRawAuthority() + "/" +
+				(base.getRawQuery() == null ? "" : "?" + base.getRawQuery()));
+		}
+		// URI#resolve does not handle an empty reference, which RFC 3986 treats as the base without its fragment.
+		if (uriReference.isEmpty()) {
+			String baseString = base.toString();
+			int fragmentStart = baseString.indexOf('#');
+			return fragmentStart == -1 ? base : URI.create(baseString.substring(0, fragmentStart));
+		}
+		return base.resolve(reference);
+	}
+
+	private static Set<String> parseRelationTypes(@Nullable String rel) {
+		if (rel == null || rel.isBlank()) {
+			return Set.of();
+		}
+		// Spec: 'relation types are compared [...] in a case-insensitive fashion'
+		return Set.copyOf(Arrays.asList(rel.strip().toLowerCase(Locale.ROOT).split("\\s+")));
+	}
+
+	private static int readQuotedString(String value, int start, StringBuilder result) {
+		int i = start + 1;
+		while (i < value.length()) {
+			char c = value.charAt(i);
+			if (c == '"') {
+				return i + 1;
+			}
+			if (c == '\\' && i + 1 < value.length()) {
+				i++;
+				c = value.charAt(i);
+			}
+			result.append(c);
+			i++;
+		}
+		throw parseError(value, start, "unterminated quoted string");
+	}
+
+	private static int skipToken(String value, int i) {
+		while (i < value.length() && isTokenChar(value.charAt(i))) {
+			i++;
+		}
+		return i;
+	}
+
+	private static int skipWhitespace(String value, int i) {
+		while (i < value.length() && isWhitespace(value.charAt(i))) {
+			i++;
+		}
+		return i;
+	}
+
+	private static boolean isTokenChar(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') ||
+			TOKEN_SPECIAL_CHARS.indexOf(c) != -1;
+	}
+
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t';
+	}
+
+	private static IllegalArgumentException parseError(String value, int position, String reason) {
+		return new IllegalArgumentException("Invalid link header value '%s' at position %d: %s.".formatted(value,
+			position,
+			reason));
+	}
+}
@@ -0,0 +1,30 @@
+package dev.rilling.webmention4j.client.internal;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates executors for tasks which block on I/O, e.g. sending Webmentions.
+ * <p>
+ * This variant runs each task on its own virtual thread, so blocking does not tie up a platform thread.
+ * Virtual threads never keep the JVM alive.
+ */
+public final class BlockingExecutors {
+
+	private BlockingExecutors() {
+	}
+
+	/**
+	 * Creates an executor for blocking tasks. Its threads do not keep the JVM alive.
+	 *
+	 * @param name        Name prefix of the threads.
+	 * @param parallelism Maximum number of tasks the caller runs at once. Not needed to size virtual threads.
+	 * @return The executor.
+	 */
+	@NotNull
+	public static ExecutorService newExecutor(@NotNull String name, int parallelism) {
+		return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 1).factory());
+	}
+}
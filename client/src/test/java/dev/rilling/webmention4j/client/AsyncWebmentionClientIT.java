@@ -0,0 +1,304 @@
+package dev.rilling.webmention4j.client;
+
+import com.github.tomakehurst.wiremock.http.RequestMethod;
+import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+import com.github.tomakehurst.wiremock.matching.EqualToPattern;
+import com.github.tomakehurst.wiremock.matching.UrlPattern;
+import dev.rilling.webmention4j.client.WebmentionClient.Config;
+import dev.rilling.webmention4j.common.Webmention;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.impl.bootstrap.HttpServer;
+import org.apache.hc.core5.http.impl.bootstrap.ServerBootstrap;
+import org.apache.hc.core5.io.CloseMode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static com.github.tomakehurst.wiremock.matching.RequestPatternBuilder.newRequestPattern;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AsyncWebmentionClientIT {
+
+	static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+	@RegisterExtension
+	static final WireMockExtension TARGET_SERVER = WireMockExtension.newInstance()
+		.options(wireMockConfig().dynamicPort())
+		.build();
+
+	AsyncWebmentionClient webmentionClient;
+
+	@BeforeEach
+	void setUp() {
+		Config config = new Config();
+		config.setAllowLocalhostEndpoint(true);
+		webmentionClient = new AsyncWebmentionClient(config);
+	}
+
+	@AfterEach
+	void tearDown() {
+		webmentionClient.close();
+	}
+
+	@Test
+	@DisplayName("#supportsWebmention completes with false if no endpoint is found")
+	void supportsWebmentionFalse() {
+		TARGET_SERVER.stubFor(get("/no-content").willReturn(ok()));
+
+		URI target = URI.create(TARGET_SERVER.url("/no-content"));
+		assertThat(webmentionClient.supportsWebmention(target)).succeedsWithin(TIMEOUT).isEqualTo(false);
+	}
+
+	@Test
+	@DisplayName("#supportsWebmention completes with true if an endpoint is found")
+	void supportsWebmentionTrue() {
+		TARGET_SERVER.stubFor(get("/post").willReturn(ok().withHeader(HttpHeaders.LINK,
+			"<http://aaronpk.example/webmention-endpoint>; rel=\"webmention\"")));
+
+		URI target = URI.create(TARGET_SERVER.url("/post"));
+		assertThat(webmentionClient.supportsWebmention(target)).succeedsWithin(TIMEOUT).isEqualTo(true);
+	}
+
+	@Test
+	@DisplayName("#supportsWebmention negotiates and decompresses compressed responses")
+	void supportsWebmentionDecompresses() throws IOException {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressed)) {
+			gzipOutputStream.write("""
+				<html lang="en">
+				<head>
+					<link href="http://aaronpk.example/webmention-endpoint" rel="webmention" />
+				</head>
+				</html>""".getBytes(StandardCharsets.UTF_8));
+		}
+		TARGET_SERVER.stubFor(get("/compressed").willReturn(ok().withHeader(HttpHeaders.CONTENT_TYPE,
+				ContentType.TEXT_HTML.toString())
+			.withHeader(HttpHeaders.CONTENT_ENCODING, "gzip")
+			.withBody(compressed.toByteArray())));
+
+		URI target = URI.create(TARGET_SERVER.url("/compressed"));
+		assertThat(webmentionClient.supportsWebmention(target)).succeedsWithin(TIMEOUT).isEqualTo(true);
+		TARGET_SERVER.verify(getRequestedFor(urlEqualTo("/compressed")).withHeader(HttpHeaders.ACCEPT_ENCODING,
+			containing("gzip")));
+	}
+
+	@Test
+	@DisplayName("#sendWebmention prefers the Link header over HTML elements")
+	void sendWebmentionPrefersHeader() {
+		TARGET_SERVER.stubFor(get("/post").willReturn(ok().withHeader(HttpHeaders.LINK,
+				"</header-endpoint>; rel=\"webmention\"")
+			.withHeader(HttpHeaders.CONTENT_TYPE, ContentType.TEXT_HTML.toString())
+			.withBody("""
+				<html lang="en">
+				<head>
+					<link href="/html-endpoint" rel="webmention" />
+				</head>
+				</html>""")));
+		TARGET_SERVER.stubFor(post("/header-endpoint").willReturn(ok()));
+
+		URI target = URI.create(TARGET_SERVER.url("/post"));
+		assertThat(webmentionClient.sendWebmention(new Webmention(URI.create("https://example.com"),
+			target))).succeedsWithin(TIMEOUT);
+
+		TARGET_SERVER.verify(postRequestedFor(urlEqualTo("/header-endpoint")));
+		TARGET_SERVER.verify(0, postRequestedFor(urlEqualTo("/html-endpoint")));
+	}
+
+	@Test
+	@DisplayName("#sendWebmention completes exceptionally if no endpoint exists")
+	void sendWebmentionNoEndpoint() {
+		TARGET_SERVER.stubFor(get("/no-content").willReturn(ok()));
+
+		URI target = URI.create(TARGET_SERVER.url("/no-content"));
+		Webmention webmention = new Webmention(URI.create("https://example.com"), target);
+		assertThat(webmentionClient.sendWebmention(webmention)).failsWithin(TIMEOUT)
+			.withThrowableThat()
+			.havingCause()
+			.isInstanceOf(IOException.class)
+			.withMessage("Could not find any webmention endpoint URL in the target resource.");
+	}
+
+	@Test
+	@DisplayName("#sendWebmention completes exceptionally if the endpoint is localhost")
+	void sendWebmentionLocalhostEndpoint() {
+		try (AsyncWebmentionClient localhostRejectingWebmentionClient = new AsyncWebmentionClient()) {
+			TARGET_SERVER.stubFor(get("/post").willReturn(ok().withHeader(HttpHeaders.LINK,
+				"</endpoint>; rel=\"webmention\"")));
+			TARGET_SERVER.stubFor(post("/endpoint").willReturn(ok()));
+
+			Webmention webmention = new Webmention(URI.create("https://example.com"),
+				URI.create(TARGET_SERVER.url("/post")));
+			assertThat(localhostRejectingWebmentionClient.sendWebmention(webmention)).failsWithin(TIMEOUT)
+				.withThrowableThat()
+				.havingCause()
+				.isInstanceOf(IOException.class)
+				.withMessageContaining("is localhost or a loopback IP address");
+			TARGET_SERVER.verify(0, postRequestedFor(urlEqualTo("/endpoint")));
+		}
+	}
+
+	@Test
+	@DisplayName("#sendWebmention sends webmention and returns status URL")
+	void sendWebmentionSends() {
+		TARGET_SERVER.stubFor(get("/post").willReturn(ok().withHeader(HttpHeaders.LINK,
+			"</endpoint>; rel=\"webmention\"")));
+		TARGET_SERVER.stubFor(post("/endpoint").willReturn(aResponse().withStatus(HttpStatus.SC_CREATED)
+			.withHeader(HttpHeaders.LOCATION, "http://aaronpk.example/status/1")));
+
+		URI target = URI.create(TARGET_SERVER.url("/post"));
+		URI source = URI.create("https://example.com");
+		assertThat(webmentionClient.sendWebmention(new Webmention(source, target))).succeedsWithin(TIMEOUT)
+			.isEqualTo(Optional.of(URI.create("http://aaronpk.example/status/1")));
+
+		UrlPattern urlPattern = new UrlPattern(new EqualToPattern("/endpoint", false), false);
+		String encodedTarget = URLEncoder.encode(target.toString(), StandardCharsets.UTF_8);
+		String encodedSource = URLEncoder.encode(source.toString(), StandardCharsets.UTF_8);
+		EqualToPattern bodyPattern = new EqualToPattern("source=%s&target=%s".formatted(encodedSource, encodedTarget));
+		TARGET_SERVER.verify(newRequestPattern(RequestMethod.POST, urlPattern).withRequestBody(bodyPattern));
+	}
+
+	@Test
+	@DisplayName("#sendWebmention handles many concurrent sends")
+	void sendWebmentionConcurrently() {
+		TARGET_SERVER.stubFor(get("/post").willReturn(ok().withHeader(HttpHeaders.LINK,
+			"</endpoint>; rel=\"webmention\"")));
+		TARGET_SERVER.stubFor(post("/endpoint").willReturn(ok()));
+
+		URI target = URI.create(TARGET_SERVER.url("/post"));
+		List<CompletableFuture<?>> futures = IntStream.range(0, 50)
+			.mapToObj(i -> webmentionClient.sendWebmention(new Webmention(URI.create("https://example.com/" + i),
+				target)))
+			.<CompletableFuture<?>>map(future -> future)
+			.toList();
+
+		assertThat(CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))).succeedsWithin(TIMEOUT);
+		TARGET_SERVER.verify(50, postRequestedFor(urlEqualTo("/endpoint")));
+	}
+
+	@Test
+	@DisplayName("#supportsWebmention does not read beyond maximum discovery body size")
+	void supportsWebmentionRespectsMaxDiscoveryBodySize() {
+		Config config = new Config();
+		config.setMaxDiscoveryBodySize(1024);
+		try (AsyncWebmentionClient limitedWebmentionClient = new AsyncWebmentionClient(config)) {
+			TARGET_SERVER.stubFor(get("/link-first").willReturn(ok("""
+				<html><head><link href="http://aaronpk.example/webmention-endpoint" rel="webmention" /></head>
+				<body><p>%s</p></body></html>""".formatted("a".repeat(1024 * 1024))).withHeader(HttpHeaders.CONTENT_TYPE,
+				ContentType.TEXT_HTML.toString())));
+			TARGET_SERVER.stubFor(get("/link-last").willReturn(ok("""
+				<html><body><p>%s</p>
+				<a href="http://aaronpk.example/webmention-endpoint" rel="webmention">webmention</a></body></html>""".formatted(
+				"a".repeat(2048))).withHeader(HttpHeaders.CONTENT_TYPE, ContentType.TEXT_HTML.toString())));
+
+			assertThat(limitedWebmentionClient.supportsWebmention(URI.create(TARGET_SERVER.url("/link-first")))).succeedsWithin(
+				TIMEOUT).isEqualTo(true);
+			assertThat(limitedWebmentionClient.supportsWebmention(URI.create(TARGET_SERVER.url("/link-last")))).succeedsWithin(
+				TIMEOUT).isEqualTo(false);
+		}
+	}
+
+	@Test
+	@DisplayName("#supportsWebmention falls back to GET if HEAD finds nothing")
+	void supportsWebmentionHeadFirst() {
+		Config config = new Config();
+		config.setHeadFirstDiscovery(true);
+		try (AsyncWebmentionClient headFirstWebmentionClient = new AsyncWebmentionClient(config)) {
+			TARGET_SERVER.stubFor(head(urlEqualTo("/header")).willReturn(ok().withHeader(HttpHeaders.LINK,
+				"<http://aaronpk.example/webmention-endpoint>; rel=\"webmention\"")));
+			TARGET_SERVER.stubFor(head(urlEqualTo("/body")).willReturn(ok()));
+			TARGET_SERVER.stubFor(get("/body").willReturn(ok("""
+				<html><head><link href="http://aaronpk.example/webmention-endpoint" rel="webmention" /></head></html>""").withHeader(
+				HttpHeaders.CONTENT_TYPE,
+				ContentType.TEXT_HTML.toString())));
+
+			assertThat(headFirstWebmentionClient.supportsWebmention(URI.create(TARGET_SERVER.url("/header")))).succeedsWithin(
+				TIMEOUT).isEqualTo(true);
+			TARGET_SERVER.verify(0, getRequestedFor(urlEqualTo("/header")));
+
+			assertThat(headFirstWebmentionClient.supportsWebmention(URI.create(TARGET_SERVER.url("/body")))).succeedsWithin(
+				TIMEOUT).isEqualTo(true);
+			TARGET_SERVER.verify(1, getRequestedFor(urlEqualTo("/body")));
+		}
+	}
+
+	@Test
+	@DisplayName("#sendWebmention sends over HTTP/2 if enabled")
+	void sendWebmentionHttp2() {
+		Config config = new Config();
+		config.setAllowLocalhostEndpoint(true);
+		config.setHttp2(true);
+		try (AsyncWebmentionClient http2WebmentionClient = new AsyncWebmentionClient(config)) {
+			TARGET_SERVER.stubFor(get("/post").willReturn(ok().withHeader(HttpHeaders.LINK,
+				"</endpoint>; rel=\"webmention\"")));
+			TARGET_SERVER.stubFor(post("/endpoint").willReturn(ok()));
+
+			URI target = URI.create(TARGET_SERVER.url("/post"));
+			List<CompletableFuture<?>> futures = IntStream.range(0, 20)
+				.mapToObj(i -> http2WebmentionClient.sendWebmention(new Webmention(URI.create("https://example.com/" + i),
+					target)))
+				.<CompletableFuture<?>>map(future -> future)
+				.toList();
+
+			assertThat(CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))).succeedsWithin(TIMEOUT);
+			assertThat(TARGET_SERVER.findAll(postRequestedFor(urlEqualTo("/endpoint")))).hasSize(20)
+				.allSatisfy(request -> assertThat(request.getProtocol()).isEqualTo("HTTP/2.0"));
+		}
+	}
+
+	@Test
+	@DisplayName("#sendWebmention uses HTTP/1.1 once the endpoint turned out not to support HTTP/2")
+	void sendWebmentionHttp2Fallback() throws IOException {
+		// WireMock always accepts h2c, so use a plain HTTP/1.1 server instead.
+		AtomicInteger notificationCount = new AtomicInteger();
+		HttpServer http1Server = ServerBootstrap.bootstrap()
+			.setLocalAddress(InetAddress.getLoopbackAddress())
+			.register("/post", (request, response, context) -> {
+				response.setCode(HttpStatus.SC_OK);
+				response.addHeader(HttpHeaders.LINK, "</endpoint>; rel=\"webmention\"");
+			})
+			.register("/endpoint", (request, response, context) -> {
+				notificationCount.incrementAndGet();
+				response.setCode(HttpStatus.SC_OK);
+			})
+			.create();
+		http1Server.start();
+
+		Config config = new Config();
+		config.setAllowLocalhostEndpoint(true);
+		config.setHttp2(true);
+		try (AsyncWebmentionClient http2WebmentionClient = new AsyncWebmentionClient(config)) {
+			URI target = URI.create("http://localhost:%d/post".formatted(http1Server.getLocalPort()));
+			// Not repeated, as it is unknown if the endpoint processed it.
+			assertThat(http2WebmentionClient.sendWebmention(new Webmention(URI.create("https://example.com/1"),
+				target))).failsWithin(TIMEOUT);
+			assertThat(http2WebmentionClient.sendWebmention(new Webmention(URI.create("https://example.com/2"),
+				target))).succeedsWithin(TIMEOUT);
+			assertThat(http2WebmentionClient.sendWebmention(new Webmention(URI.create("https://example.com/3"),
+				target))).succeedsWithin(TIMEOUT);
+
+			assertThat(notificationCount).hasValue(2);
+		} finally {
+			http1Server.close(CloseMode.IMMEDIATE);
+		}
+	}
+}
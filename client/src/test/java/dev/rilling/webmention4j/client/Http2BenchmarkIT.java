@@ -0,0 +1,85 @@
+package dev.rilling.webmention4j.client;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+import dev.rilling.webmention4j.client.WebmentionClient.Config;
+import dev.rilling.webmention4j.common.Webmention;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares sending many notifications to a single endpoint host over HTTP/1.1 and HTTP/2.
+ * <p>
+ * The endpoint is a local WireMock stub which speaks h2c and delays its responses to simulate network latency.
+ * Over HTTP/1.1 at most {@link Config#getMaxConnectionsPerRoute()} notifications are in flight at once, while over
+ * HTTP/2 all of them are multiplexed over a single connection.
+ */
+@Tag("manual")
+@Disabled("Designed for manual execution.")
+class Http2BenchmarkIT {
+
+	private static final int WEBMENTION_COUNT = 1000;
+	private static final int WARMUP_ROUNDS = 3;
+	private static final int MEASURED_ROUNDS = 5;
+	private static final int RESPONSE_DELAY_MILLIS = 20;
+
+	@RegisterExtension
+	static final WireMockExtension TARGET_SERVER = WireMockExtension.newInstance()
+		.options(wireMockConfig().dynamicPort().containerThreads(200))
+		.build();
+
+	@ParameterizedTest
+	@ValueSource(booleans = {false, true})
+	void sendWebmentions(boolean http2) {
+		TARGET_SERVER.stubFor(get("/post").willReturn(ok().withHeader(HttpHeaders.LINK,
+			"</endpoint>; rel=\"webmention\"")));
+		TARGET_SERVER.stubFor(post("/endpoint").willReturn(ok().withFixedDelay(RESPONSE_DELAY_MILLIS)));
+
+		Config config = new Config();
+		config.setAllowLocalhostEndpoint(true);
+		config.setHttp2(http2);
+		try (AsyncWebmentionClient webmentionClient = new AsyncWebmentionClient(config)) {
+			URI target = URI.create(TARGET_SERVER.url("/post"));
+
+			for (int i = 0; i < WARMUP_ROUNDS; i++) {
+				sendAll(webmentionClient, target);
+			}
+			long totalNanos = 0;
+			for (int i = 0; i < MEASURED_ROUNDS; i++) {
+				long start = System.nanoTime();
+				sendAll(webmentionClient, target);
+				totalNanos += System.nanoTime() - start;
+			}
+
+			Duration average = Duration.ofNanos(totalNanos / MEASURED_ROUNDS);
+			System.out.printf("%s: %d webmentions in %d ms on average (%.0f/s).%n",
+				http2 ? "HTTP/2" : "HTTP/1.1",
+				WEBMENTION_COUNT,
+				average.toMillis(),
+				WEBMENTION_COUNT / (average.toNanos() / 1e9));
+		}
+	}
+
+	private static void sendAll(AsyncWebmentionClient webmentionClient, URI target) {
+		List<CompletableFuture<?>> futures = IntStream.range(0, WEBMENTION_COUNT)
+			.mapToObj(i -> webmentionClient.sendWebmention(new Webmention(URI.create("https://example.com/" + i),
+				target)))
+			.<CompletableFuture<?>>map(future -> future)
+			.toList();
+		assertThat(CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))).succeedsWithin(Duration.ofMinutes(
+			5));
+	}
+}
@@ -0,0 +1,156 @@
+package dev.rilling.webmention4j.client;
+
+import dev.rilling.webmention4j.common.Webmention;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LinkStateStoreTest {
+
+	static final URI SOURCE = URI.create("https://example.com/post");
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	@DisplayName("#diff notifies all targets of a new source")
+	void diffNewSource() throws IOException {
+		try (LinkStateStore linkStateStore = new LinkStateStore(tempDir.resolve("links"))) {
+			LinkStateStore.Update update = linkStateStore.diff(SOURCE, document("""
+				<p>Hello <a href="https://example.org/a">A</a> and <a href="/b">B</a>.</p>
+				<img src="https://example.net/c.png">
+				<a href="mailto:foo@example.com">Mail</a> <a href="">Self</a> <a href="#top">Top</a>"""));
+
+			assertThat(update.added()).containsExactly(URI.create("https://example.org/a"),
+				URI.create("https://example.com/b"),
+				URI.create("https://example.net/c.png"));
+			assertThat(update.removed()).isEmpty();
+			assertThat(update.getWebmentions()).containsExactly(
+				new Webmention(SOURCE, URI.create("https://example.org/a")),
+				new Webmention(SOURCE, URI.create("https://example.com/b")),
+				new Webmention(SOURCE, URI.create("https://example.net/c.png")));
+		}
+	}
+
+	@Test
+	@DisplayName("#diff notifies nothing if the source did not change")
+	void diffUnchanged() throws IOException {
+		try (LinkStateStore linkStateStore = new LinkStateStore(tempDir.resolve("links"))) {
+			Document document = document("<p>Hello <a href=\"https://example.org/a\">A</a>.</p>");
+			linkStateStore.save(linkStateStore.diff(SOURCE, document));
+
+			LinkStateStore.Update update = linkStateStore.diff(SOURCE, document);
+			assertThat(update.contentChanged()).isFalse();
+			assertThat(update.getTargetsToNotify()).isEmpty();
+		}
+	}
+
+	@Test
+	@DisplayName("#diff notifies only added and removed targets if the content did not change")
+	void diffLinksChanged() throws IOException {
+		try (LinkStateStore linkStateStore = new LinkStateStore(tempDir.resolve("links"))) {
+			linkStateStore.save(linkStateStore.diff(SOURCE, document("""
+				<p>Hello <a href="https://example.org/a">A</a> <a href="https://example.org/b">B</a>.</p>""")));
+
+			LinkStateStore.Update update = linkStateStore.diff(SOURCE, document("""
+				<p>Hello <a href="https://example.org/a">A</a> <a href="https://example.org/c">B</a>.</p>"""));
+			assertThat(update.contentChanged()).isFalse();
+			assertThat(update.added()).containsExactly(URI.create("https://example.org/c"));
+			assertThat(update.removed()).containsExactly(URI.create("https://example.org/b"));
+			assertThat(update.unchanged()).containsExactly(URI.create("https://example.org/a"));
+			assertThat(update.getTargetsToNotify()).containsExactlyInAnyOrder(URI.create("https://example.org/b"),
+				URI.create("https://example.org/c"));
+		}
+	}
+
+	@Test
+	@DisplayName("#diff notifies all targets if the content changed")
+	void diffContentChanged() throws IOException {
+		try (LinkStateStore linkStateStore = new LinkStateStore(tempDir.resolve("links"))) {
+			linkStateStore.save(linkStateStore.diff(SOURCE, document("""
+				<p>Hello <a href="https://example.org/a">A</a> <a href="https://example.org/b">B</a>.</p>""")));
+
+			LinkStateStore.Update update = linkStateStore.diff(SOURCE, document("""
+				<p>Hello World <a href="https://example.org/a">A</a>.</p>"""));
+			assertThat(update.contentChanged()).isTrue();
+			assertThat(update.getTargetsToNotify()).containsExactlyInAnyOrder(URI.create("https://example.org/a"),
+				URI.create("https://example.org/b"));
+		}
+	}
+
+	@Test
+	@DisplayName("#diff rejects content hashes which are not Base64url")
+	void diffRejectsInvalidContentHash() throws IOException {
+		try (LinkStateStore linkStateStore = new LinkStateStore(tempDir.resolve("links"))) {
+			assertThatThrownBy(() -> linkStateStore.diff(SOURCE, Set.of(), "foo bar")).isInstanceOf(
+				IllegalArgumentException.class);
+			assertThatThrownBy(() -> linkStateStore.diff(SOURCE, Set.of(), "foo\nS https://example.org")).isInstanceOf(
+				IllegalArgumentException.class);
+			assertThat(linkStateStore.diff(SOURCE, Set.of(), "Zm9v_-").contentChanged()).isTrue();
+		}
+	}
+
+	@Test
+	@DisplayName("#diffDeleted notifies all previous targets and forgets the source")
+	void diffDeleted() throws IOException {
+		try (LinkStateStore linkStateStore = new LinkStateStore(tempDir.resolve("links"))) {
+			linkStateStore.save(linkStateStore.diff(SOURCE, document("<a href=\"https://example.org/a\">A</a>")));
+
+			LinkStateStore.Update update = linkStateStore.diffDeleted(SOURCE);
+			assertThat(update.getTargetsToNotify()).containsExactly(URI.create("https://example.org/a"));
+			linkStateStore.save(update);
+
+			assertThat(linkStateStore.diffDeleted(SOURCE).getTargetsToNotify()).isEmpty();
+		}
+	}
+
+	@Test
+	@DisplayName("#save persists the state")
+	void savePersists() throws IOException {
+		Path file = tempDir.resolve("links");
+		Document document = document("<p>Hello <a href=\"https://example.org/a\">A</a>.</p>");
+		URI otherSource = URI.create("https://example.com/other");
+		try (LinkStateStore linkStateStore = new LinkStateStore(file)) {
+			linkStateStore.save(linkStateStore.diff(SOURCE, document));
+			linkStateStore.save(linkStateStore.diff(otherSource, document));
+			linkStateStore.save(linkStateStore.diffDeleted(otherSource));
+		}
+
+		try (LinkStateStore linkStateStore = new LinkStateStore(file)) {
+			assertThat(linkStateStore.diff(SOURCE, document).getTargetsToNotify()).isEmpty();
+			assertThat(linkStateStore.diff(otherSource, document).getTargetsToNotify()).containsExactly(URI.create(
+				"https://example.org/a"));
+		}
+	}
+
+	@Test
+	@DisplayName("#LinkStateStore compacts superseded state when opened")
+	void compactsOnOpen() throws IOException {
+		Path file = tempDir.resolve("links");
+		try (LinkStateStore linkStateStore = new LinkStateStore(file)) {
+			linkStateStore.save(linkStateStore.diff(SOURCE, document("<p><a href=\"https://example.org/a\">A</a></p>")));
+			linkStateStore.save(linkStateStore.diff(SOURCE, document("<p><a href=\"https://example.org/b\">B</a></p>")));
+		}
+		assertThat(Files.readAllLines(file)).hasSize(2);
+
+		try (LinkStateStore ignored = new LinkStateStore(file)) {
+			// Compacted on open.
+		}
+		assertThat(Files.readAllLines(file)).hasSize(1);
+	}
+
+	private static Document document(String body) {
+		return Jsoup.parse("<html><body>" + body + "</body></html>");
+	}
+}
@@ -1,6 +1,7 @@
 package dev.rilling.webmention4j.client;
 
 import dev.rilling.webmention4j.common.Webmention;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -26,6 +27,11 @@ class WebmentionClientExternalIT {
 
 	final WebmentionClient client = new WebmentionClient();
 
+	@AfterEach
+	void tearDown() {
+		client.close();
+	}
+
 	@ParameterizedTest
 	@MethodSource(value = "createEndpoints")
 	void supportsWebmention(URI target) throws Exception {
@@ -58,7 +64,6 @@ class WebmentionClientExternalIT {
 			"https://webmention.rocks/test/16",
 			"https://webmention.rocks/test/17",
 			"https://webmention.rocks/test/18",
-			// TODO: broken due to Link parser issue, see https://github.com/eclipse-ee4j/jersey/issues/3769
 			"https://webmention.rocks/test/19",
 			"https://webmention.rocks/test/20",
 			"https://webmention.rocks/test/21",
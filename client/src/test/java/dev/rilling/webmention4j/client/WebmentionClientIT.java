@@ -4,18 +4,28 @@ import com.github.tomakehurst.wiremock.http.RequestMethod;
 import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
 import com.github.tomakehurst.wiremock.matching.EqualToPattern;
 import com.github.tomakehurst.wiremock.matching.UrlPattern;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
 import dev.rilling.webmention4j.client.WebmentionClient.Config;
 import dev.rilling.webmention4j.common.Webmention;
 import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpStatus;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
@@ -39,6 +49,11 @@ class WebmentionClientIT {
 		webmentionClient = new WebmentionClient(config);
 	}
 
+	@AfterEach
+	void tearDown() {
+		webmentionClient.close();
+	}
+
 	@Test
 	@DisplayName("#supportsWebmention returns false if no endpoint is found")
 	void supportsWebmentionFalse() throws IOException {
@@ -87,4 +102,229 @@ class WebmentionClientIT {
 		EqualToPattern bodyPattern = new EqualToPattern("source=%s&target=%s".formatted(encodedSource, encodedTarget));
 		TARGET_SERVER.verify(newRequestPattern(RequestMethod.POST, urlPattern).withRequestBody(bodyPattern));
 	}
+
+	@Test
+	@DisplayName("#sendWebmention can be called repeatedly on the same client")
+	void sendWebmentionReusesClient() throws IOException {
+		TARGET_SERVER.stubFor(get("/post").willReturn(ok().withHeader(HttpHeaders.LINK,
+			"</endpoint>; rel=\"webmention\"")));
+		TARGET_SERVER.stubFor(post("/endpoint").willReturn(ok()));
+
+		URI target = URI.create(TARGET_SERVER.url("/post"));
+		for (int i = 0; i < 10; i++) {
+			webmentionClient.sendWebmention(new Webmention(URI.create("https://example.com/" + i), target));
+		}
+
+		TARGET_SERVER.verify(10, postRequestedFor(urlEqualTo("/endpoint")));
+	}
+
+	@Test
+	@DisplayName("#trySendWebmention sends the Webmention if an endpoint exists")
+	void trySendWebmentionSends() {
+		TARGET_SERVER.stubFor(get("/post").willReturn(ok().withHeader(HttpHeaders.LINK,
+			"</endpoint>; rel=\"webmention\"")));
+		TARGET_SERVER.stubFor(post("/endpoint").willReturn(aResponse().withStatus(HttpStatus.SC_CREATED)
+			.withHeader(HttpHeaders.LOCATION, "http://aaronpk.example/status/1")));
+
+		Webmention webmention = new Webmention(URI.create("https://example.com"), URI.create(TARGET_SERVER.url("/post")));
+		assertThat(webmentionClient.trySendWebmention(webmention)).isEqualTo(new WebmentionSendResult.Sent(Optional.of(
+			URI.create("http://aaronpk.example/status/1"))));
+		TARGET_SERVER.verify(1, getRequestedFor(urlEqualTo("/post")));
+		TARGET_SERVER.verify(1, postRequestedFor(urlEqualTo("/endpoint")));
+	}
+
+	@Test
+	@DisplayName("#trySendWebmention fetches the target once if no endpoint exists")
+	void trySendWebmentionNoEndpoint() {
+		TARGET_SERVER.stubFor(get("/no-content").willReturn(ok()));
+
+		Webmention webmention = new Webmention(URI.create("https://example.com"),
+			URI.create(TARGET_SERVER.url("/no-content")));
+		assertThat(webmentionClient.trySendWebmention(webmention)).isEqualTo(new WebmentionSendResult.NoEndpoint());
+		TARGET_SERVER.verify(1, getRequestedFor(urlEqualTo("/no-content")));
+	}
+
+	@Test
+	@DisplayName("#trySendWebmention returns rejection by the endpoint")
+	void trySendWebmentionRejected() {
+		TARGET_SERVER.stubFor(get("/post").willReturn(ok().withHeader(HttpHeaders.LINK,
+			"</endpoint>; rel=\"webmention\"")));
+		TARGET_SERVER.stubFor(post("/endpoint").willReturn(badRequest()));
+
+		Webmention webmention = new Webmention(URI.create("https://example.com"), URI.create(TARGET_SERVER.url("/post")));
+		assertThat(webmentionClient.trySendWebmention(webmention)).isEqualTo(new WebmentionSendResult.Rejected(
+			HttpStatus.SC_BAD_REQUEST));
+	}
+
+	@Test
+	@DisplayName("#trySendWebmention does not treat rate limiting by the endpoint as rejection")
+	void trySendWebmentionRateLimited() {
+		TARGET_SERVER.stubFor(get("/post").willReturn(ok().withHeader(HttpHeaders.LINK,
+			"</endpoint>; rel=\"webmention\"")));
+		TARGET_SERVER.stubFor(post("/endpoint").willReturn(aResponse().withStatus(HttpStatus.SC_TOO_MANY_REQUESTS)));
+
+		Webmention webmention = new Webmention(URI.create("https://example.com"), URI.create(TARGET_SERVER.url("/post")));
+		assertThat(webmentionClient.trySendWebmention(webmention)).isInstanceOf(WebmentionSendResult.Failed.class);
+	}
+
+	@Test
+	@DisplayName("#trySendWebmention returns failures")
+	void trySendWebmentionFailed() {
+		TARGET_SERVER.stubFor(get("/error").willReturn(serverError()));
+
+		Webmention webmention = new Webmention(URI.create("https://example.com"),
+			URI.create(TARGET_SERVER.url("/error")));
+		assertThat(webmentionClient.trySendWebmention(webmention)).isInstanceOfSatisfying(WebmentionSendResult.Failed.class,
+			result -> assertThat(result.cause()).isInstanceOf(IOException.class));
+	}
+
+	@Test
+	@DisplayName("#sendWebmentions returns a result for each Webmention")
+	void sendWebmentionsReturnsResults() {
+		TARGET_SERVER.stubFor(get("/post").willReturn(ok().withHeader(HttpHeaders.LINK,
+			"</endpoint>; rel=\"webmention\"")));
+		TARGET_SERVER.stubFor(post("/endpoint").willReturn(ok()));
+		TARGET_SERVER.stubFor(get("/post-with-status").willReturn(ok().withHeader(HttpHeaders.LINK,
+			"</endpoint-with-status>; rel=\"webmention\"")));
+		TARGET_SERVER.stubFor(post("/endpoint-with-status").willReturn(aResponse().withStatus(HttpStatus.SC_CREATED)
+			.withHeader(HttpHeaders.LOCATION, "http://aaronpk.example/status/1")));
+		TARGET_SERVER.stubFor(get("/no-content").willReturn(ok()));
+		TARGET_SERVER.stubFor(get("/error").willReturn(serverError()));
+
+		URI source = URI.create("https://example.com");
+		Webmention sent = new Webmention(source, URI.create(TARGET_SERVER.url("/post")));
+		Webmention sentWithStatus = new Webmention(source, URI.create(TARGET_SERVER.url("/post-with-status")));
+		Webmention noEndpoint = new Webmention(source, URI.create(TARGET_SERVER.url("/no-content")));
+		Webmention failed = new Webmention(source, URI.create(TARGET_SERVER.url("/error")));
+
+		Map<Webmention, WebmentionSendResult> results = webmentionClient.sendWebmentions(List.of(sent,
+			sentWithStatus,
+			noEndpoint,
+			failed));
+
+		assertThat(results).containsOnlyKeys(sent, sentWithStatus, noEndpoint, failed);
+		assertThat(results.get(sent)).isEqualTo(new WebmentionSendResult.Sent(Optional.empty()));
+		assertThat(results.get(sentWithStatus)).isEqualTo(new WebmentionSendResult.Sent(Optional.of(URI.create(
+			"http://aaronpk.example/status/1"))));
+		assertThat(results.get(noEndpoint)).isEqualTo(new WebmentionSendResult.NoEndpoint());
+		assertThat(results.get(failed)).isInstanceOfSatisfying(WebmentionSendResult.Failed.class,
+			result -> assertThat(result.cause()).isInstanceOf(IOException.class));
+	}
+
+	@Test
+	@DisplayName("#sendWebmentions sends many Webmentions")
+	void sendWebmentionsSendsMany() {
+		TARGET_SERVER.stubFor(get("/post").willReturn(ok().withHeader(HttpHeaders.LINK,
+			"</endpoint>; rel=\"webmention\"")));
+		TARGET_SERVER.stubFor(post("/endpoint").willReturn(ok()));
+
+		URI target = URI.create(TARGET_SERVER.url("/post"));
+		List<Webmention> webmentions = IntStream.range(0, 50)
+			.mapToObj(i -> new Webmention(URI.create("https://example.com/" + i), target))
+			.toList();
+
+		assertThat(webmentionClient.sendWebmentions(webmentions)).hasSize(50)
+			.allSatisfy((webmention, result) -> assertThat(result).isInstanceOf(WebmentionSendResult.Sent.class));
+		TARGET_SERVER.verify(50, postRequestedFor(urlEqualTo("/endpoint")));
+	}
+
+	@Test
+	@DisplayName("#sendWebmentions retries temporary failures")
+	void sendWebmentionsRetries() {
+		webmentionClient.close();
+		Config config = new Config();
+		config.setAllowLocalhostEndpoint(true);
+		config.setRetryInitialDelay(Duration.ofMillis(10));
+		webmentionClient = new WebmentionClient(config);
+
+		TARGET_SERVER.stubFor(get("/post").willReturn(ok().withHeader(HttpHeaders.LINK,
+			"</endpoint>; rel=\"webmention\"")));
+		TARGET_SERVER.stubFor(post("/endpoint").inScenario("retry")
+			.whenScenarioStateIs(Scenario.STARTED)
+			.willReturn(aResponse().withStatus(HttpStatus.SC_SERVICE_UNAVAILABLE).withHeader(HttpHeaders.RETRY_AFTER, "0"))
+			.willSetStateTo("available"));
+		TARGET_SERVER.stubFor(post("/endpoint").inScenario("retry").whenScenarioStateIs("available").willReturn(ok()));
+		TARGET_SERVER.stubFor(get("/not-found").willReturn(notFound()));
+
+		Webmention retried = new Webmention(URI.create("https://example.com"), URI.create(TARGET_SERVER.url("/post")));
+		Webmention notFound = new Webmention(URI.create("https://example.com"),
+			URI.create(TARGET_SERVER.url("/not-found")));
+		Map<Webmention, WebmentionSendResult> results = webmentionClient.sendWebmentions(List.of(retried, notFound));
+
+		assertThat(results.get(retried)).isEqualTo(new WebmentionSendResult.Sent(Optional.empty()));
+		assertThat(results.get(notFound)).isInstanceOf(WebmentionSendResult.Failed.class);
+		TARGET_SERVER.verify(2, postRequestedFor(urlEqualTo("/endpoint")));
+		TARGET_SERVER.verify(1, getRequestedFor(urlEqualTo("/not-found")));
+	}
+
+	@Test
+	@DisplayName("#sendWebmention fails fast for hosts that failed repeatedly")
+	void sendWebmentionCircuitBreaker() {
+		webmentionClient.close();
+		Config config = new Config();
+		config.setAllowLocalhostEndpoint(true);
+		config.setCircuitBreakerFailureThreshold(2);
+		webmentionClient = new WebmentionClient(config);
+
+		TARGET_SERVER.stubFor(get("/post").willReturn(serviceUnavailable()));
+
+		Webmention webmention = new Webmention(URI.create("https://example.com"), URI.create(TARGET_SERVER.url("/post")));
+		for (int i = 0; i < 2; i++) {
+			assertThatThrownBy(() -> webmentionClient.sendWebmention(webmention)).isNotInstanceOf(CircuitOpenException.class);
+		}
+		int requestCount = TARGET_SERVER.findAll(getRequestedFor(urlEqualTo("/post"))).size();
+
+		assertThatThrownBy(() -> webmentionClient.sendWebmention(webmention)).isInstanceOf(CircuitOpenException.class);
+		assertThat(webmentionClient.getUnavailableHosts()).containsExactly("localhost");
+		TARGET_SERVER.verify(requestCount, getRequestedFor(urlEqualTo("/post")));
+	}
+
+	@Test
+	@DisplayName("#sendWebmention gives up once the time budget is used up")
+	void sendWebmentionDeadline() {
+		TARGET_SERVER.stubFor(get("/redirect").willReturn(temporaryRedirect("/post").withFixedDelay(300)));
+		TARGET_SERVER.stubFor(get("/post").willReturn(ok().withHeader(HttpHeaders.LINK,
+			"</endpoint>; rel=\"webmention\"").withFixedDelay(300)));
+		TARGET_SERVER.stubFor(post("/endpoint").willReturn(ok().withFixedDelay(5000)));
+
+		Webmention webmention = new Webmention(URI.create("https://example.com"),
+			URI.create(TARGET_SERVER.url("/redirect")));
+		long start = System.nanoTime();
+		assertThatThrownBy(() -> webmentionClient.sendWebmention(webmention, Duration.ofSeconds(1))).isInstanceOf(
+			DeadlineExceededException.class);
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(3));
+		TARGET_SERVER.verify(1, postRequestedFor(urlEqualTo("/endpoint")));
+		// Running out of time says nothing about the host.
+		assertThat(webmentionClient.getUnavailableHosts()).isEmpty();
+	}
+
+	@Test
+	@DisplayName("#supportsWebmention revalidates responses cached by a previous client")
+	void supportsWebmentionRevalidatesCachedResponse(@TempDir Path httpCacheDirectory) throws IOException {
+		webmentionClient.close();
+		Config config = new Config();
+		config.setAllowLocalhostEndpoint(true);
+		config.setHttpCacheDirectory(httpCacheDirectory);
+
+		TARGET_SERVER.stubFor(get("/post").willReturn(ok(
+			"<html><head><link href=\"/endpoint\" rel=\"webmention\"></head></html>")
+			.withHeader(HttpHeaders.CONTENT_TYPE, "text/html")
+			.withHeader(HttpHeaders.CACHE_CONTROL, "max-age=0")
+			.withHeader(HttpHeaders.ETAG, "\"v1\"")));
+		// WireMock may append a suffix to the entity tag if it compresses the response.
+		TARGET_SERVER.stubFor(get("/post").withHeader(HttpHeaders.IF_NONE_MATCH, containing("v1"))
+			.willReturn(aResponse().withStatus(HttpStatus.SC_NOT_MODIFIED).withHeader(HttpHeaders.ETAG, "\"v1\"")));
+
+		URI target = URI.create(TARGET_SERVER.url("/post"));
+		try (WebmentionClient firstClient = new WebmentionClient(config)) {
+			assertThat(firstClient.supportsWebmention(target)).isTrue();
+		}
+		// A new client, as after a restart, only knows the endpoint from the cache on disk.
+		webmentionClient = new WebmentionClient(config);
+		assertThat(webmentionClient.supportsWebmention(target)).isTrue();
+
+		TARGET_SERVER.verify(1, getRequestedFor(urlEqualTo("/post")).withoutHeader(HttpHeaders.IF_NONE_MATCH));
+		TARGET_SERVER.verify(1,
+			getRequestedFor(urlEqualTo("/post")).withHeader(HttpHeaders.IF_NONE_MATCH, containing("v1")));
+	}
 }
@@ -29,21 +29,20 @@ class WebmentionClientSpecIT {
 		"'During the discovery step, if the sender discovers the endpoint is localhost or a loopback IP address (127.0.0.0/8)," +
 			" it SHOULD NOT send the Webmention to that endpoint.'")
 	void sendWebmentionLocalhost() {
-		Config config = new Config();
-		config.setAllowLocalhostEndpoint(false);
-		WebmentionClient webmentionClient = new WebmentionClient(config);
-
 		TARGET_SERVER.stubFor(get("/post").willReturn(ok().withHeader(HttpHeaders.LINK,
 			"</endpoint>; rel=\"webmention\"")));
 		TARGET_SERVER.stubFor(post("/endpoint").willReturn(ok()));
 
-
-		URI target = URI.create(TARGET_SERVER.url("/post"));
-		Webmention webmention = new Webmention(URI.create("https://example.com"), target);
-		assertThatThrownBy(() -> webmentionClient.sendWebmention(webmention)).isNotNull()
-			.isInstanceOf(IOException.class)
-			.hasMessageMatching(
-				"Endpoint 'http://.*/endpoint' is localhost or a loopback IP address, refusing to notify\\.");
+		Config config = new Config();
+		config.setAllowLocalhostEndpoint(false);
+		try (WebmentionClient webmentionClient = new WebmentionClient(config)) {
+			URI target = URI.create(TARGET_SERVER.url("/post"));
+			Webmention webmention = new Webmention(URI.create("https://example.com"), target);
+			assertThatThrownBy(() -> webmentionClient.sendWebmention(webmention)).isNotNull()
+				.isInstanceOf(IOException.class)
+				.hasMessageMatching(
+					"Endpoint 'http://.*/endpoint' is localhost or a loopback IP address, refusing to notify\\.");
+		}
 	}
 
 	@Test
@@ -51,21 +50,21 @@ class WebmentionClientSpecIT {
 		"'During the discovery step, if the sender discovers the endpoint is localhost or a loopback IP address (127.0.0.0/8)," +
 			" it SHOULD NOT send the Webmention to that endpoint.'")
 	void sendWebmentionLocalhostRedirect() {
-		Config config = new Config();
-		config.setAllowLocalhostEndpoint(false);
-		WebmentionClient webmentionClient = new WebmentionClient(config);
-
 		TARGET_SERVER.stubFor(get("/post").willReturn(ok().withHeader(HttpHeaders.LINK,
 			"</endpoint>; rel=\"webmention\"")));
 		TARGET_SERVER.stubFor(post("/endpoint").willReturn(permanentRedirect(TARGET_SERVER.url("/real-endpoint"))));
 		TARGET_SERVER.stubFor(post("/real-endpoint").willReturn(ok()));
 
-		URI target = URI.create(TARGET_SERVER.url("/post"));
-		Webmention webmention = new Webmention(URI.create("https://example.com"), target);
-		assertThatThrownBy(() -> webmentionClient.sendWebmention(webmention)).isNotNull()
-			.isInstanceOf(IOException.class)
-			.hasMessageMatching(
-				"Endpoint 'http://.*/endpoint' is localhost or a loopback IP address, refusing to notify\\.");
+		Config config = new Config();
+		config.setAllowLocalhostEndpoint(false);
+		try (WebmentionClient webmentionClient = new WebmentionClient(config)) {
+			URI target = URI.create(TARGET_SERVER.url("/post"));
+			Webmention webmention = new Webmention(URI.create("https://example.com"), target);
+			assertThatThrownBy(() -> webmentionClient.sendWebmention(webmention)).isNotNull()
+				.isInstanceOf(IOException.class)
+				.hasMessageMatching(
+					"Endpoint 'http://.*/endpoint' is localhost or a loopback IP address, refusing to notify\\.");
+		}
 	}
 
 	// TODO: add test for localhost found during redirect following for notification.
@@ -0,0 +1,168 @@
+package dev.rilling.webmention4j.client;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+import dev.rilling.webmention4j.client.WebmentionClient.Config;
+import dev.rilling.webmention4j.client.internal.Journal;
+import dev.rilling.webmention4j.common.Webmention;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WebmentionOutboxIT {
+
+	static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+	@RegisterExtension
+	static final WireMockExtension TARGET_SERVER = WireMockExtension.newInstance()
+		.options(wireMockConfig().dynamicPort())
+		.build();
+
+	@TempDir
+	Path tempDir;
+
+	WebmentionClient webmentionClient;
+
+	@BeforeEach
+	void setUp() {
+		Config config = new Config();
+		config.setAllowLocalhostEndpoint(true);
+		webmentionClient = new WebmentionClient(config);
+
+		TARGET_SERVER.stubFor(get("/post").willReturn(ok().withHeader(HttpHeaders.LINK,
+			"</endpoint>; rel=\"webmention\"")));
+		TARGET_SERVER.stubFor(post("/endpoint").willReturn(ok()));
+	}
+
+	@AfterEach
+	void tearDown() {
+		webmentionClient.close();
+	}
+
+	@Test
+	@DisplayName("#enqueue sends the Webmention")
+	void enqueueSends() throws IOException {
+		Webmention webmention = new Webmention(URI.create("https://example.com"),
+			URI.create(TARGET_SERVER.url("/post")));
+
+		try (WebmentionOutbox outbox = new WebmentionOutbox(webmentionClient, tempDir.resolve("outbox"))) {
+			assertThat(outbox.enqueue(webmention)).succeedsWithin(TIMEOUT)
+				.isEqualTo(new WebmentionSendResult.Sent(Optional.empty()));
+			assertThat(outbox.getPendingCount()).isZero();
+		}
+		TARGET_SERVER.verify(1, postRequestedFor(urlEqualTo("/endpoint")));
+	}
+
+	@Test
+	@DisplayName("#enqueueAll sends all Webmentions")
+	void enqueueAllSends() throws IOException {
+		URI target = URI.create(TARGET_SERVER.url("/post"));
+		List<Webmention> webmentions = IntStream.range(0, 50)
+			.mapToObj(i -> new Webmention(URI.create("https://example.com/" + i), target))
+			.toList();
+
+		try (WebmentionOutbox outbox = new WebmentionOutbox(webmentionClient, tempDir.resolve("outbox"))) {
+			List<CompletableFuture<WebmentionSendResult>> results = outbox.enqueueAll(webmentions);
+			assertThat(results).hasSize(50);
+			assertThat(CompletableFuture.allOf(results.toArray(CompletableFuture[]::new))).succeedsWithin(TIMEOUT);
+		}
+		TARGET_SERVER.verify(50, postRequestedFor(urlEqualTo("/endpoint")));
+	}
+
+	@Test
+	@DisplayName("#WebmentionOutbox sends Webmentions pending from before")
+	void resumesPending() throws IOException {
+		Path journalFile = tempDir.resolve("outbox");
+		String target = TARGET_SERVER.url("/post");
+		// Simulate a crash after enqueueing.
+		try (Journal journal = new Journal(journalFile, "test")) {
+			assertThat(journal.append(List.of("E 1 https://example.com/1 " + target,
+				"E 2 https://example.com/2 " + target,
+				"D 1 sent"))).succeedsWithin(TIMEOUT);
+		}
+
+		try (WebmentionOutbox outbox = new WebmentionOutbox(webmentionClient, journalFile)) {
+			awaitNoPending(outbox);
+		}
+		TARGET_SERVER.verify(1, postRequestedFor(urlEqualTo("/endpoint")));
+		TARGET_SERVER.verify(postRequestedFor(urlEqualTo("/endpoint")).withRequestBody(containing("example.com%2F2")));
+
+		// Nothing is pending anymore.
+		try (WebmentionOutbox outbox = new WebmentionOutbox(webmentionClient, journalFile)) {
+			assertThat(outbox.getPendingCount()).isZero();
+		}
+		TARGET_SERVER.verify(1, postRequestedFor(urlEqualTo("/endpoint")));
+	}
+
+	@Test
+	@DisplayName("#enqueue keeps Webmentions pending if sending failed")
+	void enqueueKeepsFailed() throws IOException {
+		TARGET_SERVER.stubFor(post("/failing-endpoint").willReturn(serviceUnavailable()));
+		TARGET_SERVER.stubFor(get("/failing-post").willReturn(ok().withHeader(HttpHeaders.LINK,
+			"</failing-endpoint>; rel=\"webmention\"")));
+		Path journalFile = tempDir.resolve("outbox");
+		Webmention webmention = new Webmention(URI.create("https://example.com"),
+			URI.create(TARGET_SERVER.url("/failing-post")));
+		Config config = new Config();
+		config.setAllowLocalhostEndpoint(true);
+		config.setMaxRetries(0);
+
+		try (WebmentionClient failingWebmentionClient = new WebmentionClient(config);
+			 WebmentionOutbox outbox = new WebmentionOutbox(failingWebmentionClient, journalFile)) {
+			assertThat(outbox.enqueue(webmention)).succeedsWithin(TIMEOUT)
+				.isInstanceOf(WebmentionSendResult.Failed.class);
+			assertThat(outbox.getPendingCount()).isOne();
+		}
+
+		TARGET_SERVER.stubFor(post("/failing-endpoint").willReturn(ok()));
+		try (WebmentionOutbox outbox = new WebmentionOutbox(webmentionClient, journalFile)) {
+			awaitNoPending(outbox);
+		}
+		TARGET_SERVER.verify(postRequestedFor(urlEqualTo("/failing-endpoint")).withRequestBody(containing(
+			"example.com")));
+	}
+
+	@Test
+	@DisplayName("#enqueue does not keep Webmentions pending if sending failed permanently")
+	void enqueueDropsPermanentlyFailed() throws IOException {
+		TARGET_SERVER.stubFor(get("/missing-post").willReturn(notFound()));
+		Path journalFile = tempDir.resolve("outbox");
+		Webmention webmention = new Webmention(URI.create("https://example.com"),
+			URI.create(TARGET_SERVER.url("/missing-post")));
+
+		try (WebmentionOutbox outbox = new WebmentionOutbox(webmentionClient, journalFile)) {
+			assertThat(outbox.enqueue(webmention)).succeedsWithin(TIMEOUT)
+				.isInstanceOf(WebmentionSendResult.Failed.class);
+			assertThat(outbox.getPendingCount()).isZero();
+		}
+
+		try (WebmentionOutbox outbox = new WebmentionOutbox(webmentionClient, journalFile)) {
+			assertThat(outbox.getPendingCount()).isZero();
+		}
+		TARGET_SERVER.verify(1, getRequestedFor(urlEqualTo("/missing-post")));
+	}
+
+	private static void awaitNoPending(WebmentionOutbox outbox) {
+		long deadline = System.nanoTime() + TIMEOUT.toNanos();
+		while (outbox.getPendingCount() > 0) {
+			assertThat(System.nanoTime()).as("Webmentions still pending").isLessThan(deadline);
+			Thread.onSpinWait();
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package dev.rilling.webmention4j.client;
+
+import org.apache.hc.core5.http.HttpStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WebmentionStatusTest {
+
+	static final URI STATUS_URL = URI.create("https://example.com/status/1");
+
+	@Test
+	@DisplayName("#isFinal is false for pending statuses")
+	void isFinalPending() {
+		assertThat(new WebmentionStatus(STATUS_URL, HttpStatus.SC_ACCEPTED, "").isFinal()).isFalse();
+		assertThat(new WebmentionStatus(STATUS_URL, HttpStatus.SC_SERVICE_UNAVAILABLE, "").isFinal()).isFalse();
+		assertThat(new WebmentionStatus(STATUS_URL, HttpStatus.SC_OK, "{\"status\":\"queued\"}").isFinal()).isFalse();
+		assertThat(new WebmentionStatus(STATUS_URL, HttpStatus.SC_OK, "{\"status\": \"Pending\"}").isFinal()).isFalse();
+	}
+
+	@Test
+	@DisplayName("#isFinal is true for other statuses")
+	void isFinalFinal() {
+		assertThat(new WebmentionStatus(STATUS_URL, HttpStatus.SC_OK, "").isFinal()).isTrue();
+		assertThat(new WebmentionStatus(STATUS_URL, HttpStatus.SC_OK, "{\"status\": \"accepted\"}").isFinal()).isTrue();
+		assertThat(new WebmentionStatus(STATUS_URL, HttpStatus.SC_NOT_FOUND, "").isFinal()).isTrue();
+	}
+}
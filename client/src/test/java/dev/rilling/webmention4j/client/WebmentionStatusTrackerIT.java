@@ -0,0 +1,97 @@
+package dev.rilling.webmention4j.client;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import dev.rilling.webmention4j.client.WebmentionClient.Config;
+import org.apache.hc.core5.http.HttpStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WebmentionStatusTrackerIT {
+
+	static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+	@RegisterExtension
+	static final WireMockExtension STATUS_SERVER = WireMockExtension.newInstance()
+		.options(wireMockConfig().dynamicPort())
+		.build();
+
+	WebmentionClient webmentionClient;
+	WebmentionStatusTracker statusTracker;
+
+	@BeforeEach
+	void setUp() {
+		Config config = new Config();
+		config.setAllowLocalhostEndpoint(true);
+		webmentionClient = new WebmentionClient(config);
+		statusTracker = new WebmentionStatusTracker(webmentionClient,
+			Duration.ofMillis(10),
+			Duration.ofMillis(50),
+			Duration.ofSeconds(1));
+	}
+
+	@AfterEach
+	void tearDown() {
+		statusTracker.close();
+		webmentionClient.close();
+	}
+
+	@Test
+	@DisplayName("#track polls until the status is final")
+	void trackPollsUntilFinal() {
+		STATUS_SERVER.stubFor(get("/status").inScenario("status")
+			.whenScenarioStateIs(Scenario.STARTED)
+			.willReturn(okJson("{\"status\": \"queued\"}"))
+			.willSetStateTo("processing"));
+		STATUS_SERVER.stubFor(get("/status").inScenario("status")
+			.whenScenarioStateIs("processing")
+			.willReturn(aResponse().withStatus(HttpStatus.SC_ACCEPTED))
+			.willSetStateTo("done"));
+		STATUS_SERVER.stubFor(get("/status").inScenario("status")
+			.whenScenarioStateIs("done")
+			.willReturn(okJson("{\"status\": \"accepted\"}")));
+
+		URI statusUrl = URI.create(STATUS_SERVER.url("/status"));
+		assertThat(statusTracker.track(statusUrl)).succeedsWithin(TIMEOUT)
+			.isEqualTo(new WebmentionStatus(statusUrl, HttpStatus.SC_OK, "{\"status\": \"accepted\"}"));
+		STATUS_SERVER.verify(3, getRequestedFor(urlEqualTo("/status")));
+		assertThat(statusTracker.getTrackedCount()).isZero();
+	}
+
+	@Test
+	@DisplayName("#track deduplicates status URLs")
+	void trackDeduplicates() {
+		STATUS_SERVER.stubFor(get("/status").willReturn(notFound()));
+
+		URI statusUrl = URI.create(STATUS_SERVER.url("/status"));
+		CompletableFuture<WebmentionStatus> first = statusTracker.track(statusUrl);
+		CompletableFuture<WebmentionStatus> second = statusTracker.track(statusUrl);
+
+		assertThat(second).isSameAs(first);
+		assertThat(first).succeedsWithin(TIMEOUT).extracting(WebmentionStatus::statusCode).isEqualTo(HttpStatus.SC_NOT_FOUND);
+		STATUS_SERVER.verify(1, getRequestedFor(urlEqualTo("/status")));
+	}
+
+	@Test
+	@DisplayName("#track gives up after the maximum duration")
+	void trackTimesOut() {
+		STATUS_SERVER.stubFor(get("/status").willReturn(aResponse().withStatus(HttpStatus.SC_ACCEPTED)));
+
+		assertThat(statusTracker.track(URI.create(STATUS_SERVER.url("/status")))).failsWithin(TIMEOUT)
+			.withThrowableThat()
+			.havingCause()
+			.isInstanceOf(TimeoutException.class);
+	}
+}
@@ -0,0 +1,71 @@
+package dev.rilling.webmention4j.client.internal;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AimdLimitTest {
+
+	static final long LATENCY = Duration.ofMillis(100).toNanos();
+
+	@Test
+	@DisplayName("#onSuccess grows the limit by about one per limit's worth of successes")
+	void onSuccessGrows() {
+		AimdLimit aimdLimit = new AimdLimit(2, 4);
+		long now = 0;
+
+		aimdLimit.onSuccess(LATENCY, 2, now);
+		assertThat(aimdLimit.getLimit()).isEqualTo(2);
+		aimdLimit.onSuccess(LATENCY, 2, now);
+		aimdLimit.onSuccess(LATENCY, 2, now);
+		assertThat(aimdLimit.getLimit()).isEqualTo(3);
+
+		for (int i = 0; i < 100; i++) {
+			aimdLimit.onSuccess(LATENCY, 4, now);
+		}
+		assertThat(aimdLimit.getLimit()).isEqualTo(4);
+	}
+
+	@Test
+	@DisplayName("#onSuccess does not grow the limit if it is not used")
+	void onSuccessUnused() {
+		AimdLimit aimdLimit = new AimdLimit(2, 4);
+
+		for (int i = 0; i < 100; i++) {
+			aimdLimit.onSuccess(LATENCY, 1, 0);
+		}
+		assertThat(aimdLimit.getLimit()).isEqualTo(2);
+	}
+
+	@Test
+	@DisplayName("#onSuccess halves the limit if latency rises")
+	void onSuccessSlow() {
+		AimdLimit aimdLimit = new AimdLimit(8, 8);
+
+		aimdLimit.onSuccess(LATENCY, 1, 0);
+		aimdLimit.onSuccess(LATENCY * 5, 1, 0);
+		assertThat(aimdLimit.getLimit()).isEqualTo(4);
+	}
+
+	@Test
+	@DisplayName("#onOverload halves the limit once per round trip")
+	void onOverload() {
+		AimdLimit aimdLimit = new AimdLimit(8, 8);
+		aimdLimit.onSuccess(LATENCY, 1, 0);
+
+		aimdLimit.onOverload(0);
+		assertThat(aimdLimit.getLimit()).isEqualTo(4);
+		// Same burst of failures.
+		aimdLimit.onOverload(LATENCY / 2);
+		assertThat(aimdLimit.getLimit()).isEqualTo(4);
+
+		aimdLimit.onOverload(LATENCY * 2);
+		assertThat(aimdLimit.getLimit()).isEqualTo(2);
+		aimdLimit.onOverload(LATENCY * 4);
+		aimdLimit.onOverload(LATENCY * 6);
+		assertThat(aimdLimit.getLimit()).isEqualTo(1);
+	}
+}
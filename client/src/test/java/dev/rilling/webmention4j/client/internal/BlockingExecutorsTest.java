@@ -0,0 +1,29 @@
+package dev.rilling.webmention4j.client.internal;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BlockingExecutorsTest {
+
+	@Test
+	@DisplayName("#newExecutor runs tasks on named daemon threads")
+	void newExecutor() {
+		ExecutorService executor = BlockingExecutors.newExecutor("test", 2);
+		try {
+			Future<Thread> thread = executor.submit(Thread::currentThread);
+
+			assertThat(thread).succeedsWithin(Duration.ofSeconds(10)).satisfies(result -> {
+				assertThat(result.getName()).startsWith("test-");
+				assertThat(result.isDaemon()).isTrue();
+			});
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
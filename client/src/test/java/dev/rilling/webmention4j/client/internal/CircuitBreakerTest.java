@@ -0,0 +1,163 @@
+package dev.rilling.webmention4j.client.internal;
+
+import dev.rilling.webmention4j.client.CircuitOpenException;
+import dev.rilling.webmention4j.common.HttpStatusException;
+import org.apache.hc.core5.http.HttpStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CircuitBreakerTest {
+
+	final MutableClock clock = new MutableClock();
+	final AtomicInteger requestCount = new AtomicInteger();
+
+	@Test
+	@DisplayName("#execute fails fast once the failure threshold is reached")
+	void executeOpens() throws IOException {
+		CircuitBreaker circuitBreaker = new CircuitBreaker(3, Duration.ofMinutes(1), clock);
+
+		for (int i = 0; i < 3; i++) {
+			assertThatThrownBy(() -> circuitBreaker.execute("example.com", this::fail)).isInstanceOf(ConnectException.class);
+		}
+		assertThat(circuitBreaker.getUnavailableHosts()).containsExactly("example.com");
+
+		clock.advance(Duration.ofSeconds(20));
+		assertThatThrownBy(() -> circuitBreaker.execute("example.com",
+			this::succeed)).isInstanceOfSatisfying(CircuitOpenException.class, e -> {
+			assertThat(e.getHost()).isEqualTo("example.com");
+			assertThat(e.getRetryAfter()).isEqualTo(Duration.ofSeconds(40));
+		});
+		assertThat(requestCount).hasValue(3);
+
+		// Other hosts are not affected.
+		assertThat(circuitBreaker.execute("example.org", this::succeed)).isEqualTo("foo");
+	}
+
+	@Test
+	@DisplayName("#execute closes the circuit if the probe succeeds")
+	void executeProbeSucceeds() throws IOException {
+		CircuitBreaker circuitBreaker = new CircuitBreaker(1, Duration.ofMinutes(1), clock);
+		assertThatThrownBy(() -> circuitBreaker.execute("example.com", this::fail)).isInstanceOf(ConnectException.class);
+
+		clock.advance(Duration.ofMinutes(1));
+		assertThat(circuitBreaker.execute("example.com", this::succeed)).isEqualTo("foo");
+		assertThat(circuitBreaker.getUnavailableHosts()).isEmpty();
+		assertThat(circuitBreaker.execute("example.com", this::succeed)).isEqualTo("foo");
+	}
+
+	@Test
+	@DisplayName("#execute opens the circuit again if the probe fails")
+	void executeProbeFails() {
+		CircuitBreaker circuitBreaker = new CircuitBreaker(2, Duration.ofMinutes(1), clock);
+		assertThatThrownBy(() -> circuitBreaker.execute("example.com", this::fail)).isInstanceOf(ConnectException.class);
+		assertThatThrownBy(() -> circuitBreaker.execute("example.com", this::fail)).isInstanceOf(ConnectException.class);
+
+		clock.advance(Duration.ofMinutes(1));
+		assertThatThrownBy(() -> circuitBreaker.execute("example.com", this::fail)).isInstanceOf(ConnectException.class);
+		assertThatThrownBy(() -> circuitBreaker.execute("example.com",
+			this::succeed)).isInstanceOf(CircuitOpenException.class);
+		assertThat(requestCount).hasValue(3);
+	}
+
+	@Test
+	@DisplayName("#execute only counts failures indicating that the host is unavailable")
+	void executeIgnoresOtherFailures() {
+		CircuitBreaker circuitBreaker = new CircuitBreaker(2, Duration.ofMinutes(1), clock);
+
+		assertThatThrownBy(() -> circuitBreaker.execute("example.com", this::fail)).isInstanceOf(ConnectException.class);
+		// The host responded, so it is available.
+		assertThatThrownBy(() -> circuitBreaker.execute("example.com", () -> {
+			throw new HttpStatusException("Not found.", HttpStatus.SC_NOT_FOUND, null);
+		})).isInstanceOf(HttpStatusException.class);
+		assertThatThrownBy(() -> circuitBreaker.execute("example.com", this::fail)).isInstanceOf(ConnectException.class);
+
+		assertThat(circuitBreaker.getUnavailableHosts()).isEmpty();
+	}
+
+	@Test
+	@DisplayName("#execute does not open circuits if disabled")
+	void executeDisabled() {
+		CircuitBreaker circuitBreaker = new CircuitBreaker(0, Duration.ofMinutes(1), clock);
+
+		for (int i = 0; i < 10; i++) {
+			assertThatThrownBy(() -> circuitBreaker.execute("example.com", this::fail)).isInstanceOf(ConnectException.class);
+		}
+		assertThat(circuitBreaker.getUnavailableHosts()).isEmpty();
+	}
+
+	@Test
+	@DisplayName("#executeAsync fails fast once the failure threshold is reached")
+	void executeAsyncOpens() {
+		CircuitBreaker circuitBreaker = new CircuitBreaker(1, Duration.ofMinutes(1), clock);
+
+		assertThat(circuitBreaker.executeAsync("example.com",
+			() -> CompletableFuture.failedFuture(new SocketTimeoutException()))).isCompletedExceptionally();
+		assertThat(circuitBreaker.executeAsync("example.com", () -> {
+			requestCount.incrementAndGet();
+			return CompletableFuture.completedFuture("foo");
+		})).isCompletedExceptionally();
+		assertThat(requestCount).hasValue(0);
+	}
+
+	@Test
+	@DisplayName("#isUnavailability is true for connect errors, timeouts and outage responses")
+	void isUnavailability() {
+		assertThat(CircuitBreaker.isUnavailability(new ConnectException())).isTrue();
+		assertThat(CircuitBreaker.isUnavailability(new SocketTimeoutException())).isTrue();
+		assertThat(CircuitBreaker.isUnavailability(new HttpStatusException("Unavailable.",
+			HttpStatus.SC_SERVICE_UNAVAILABLE,
+			null))).isTrue();
+
+		assertThat(CircuitBreaker.isUnavailability(new HttpStatusException("Too many requests.",
+			HttpStatus.SC_TOO_MANY_REQUESTS,
+			null))).isFalse();
+		assertThat(CircuitBreaker.isUnavailability(new IOException())).isFalse();
+	}
+
+	private String succeed() {
+		requestCount.incrementAndGet();
+		return "foo";
+	}
+
+	private String fail() throws IOException {
+		requestCount.incrementAndGet();
+		throw new ConnectException();
+	}
+
+	private static final class MutableClock extends Clock {
+		private Instant instant = Instant.EPOCH;
+
+		void advance(Duration duration) {
+			instant = instant.plus(duration);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Instant instant() {
+			return instant;
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package dev.rilling.webmention4j.client.internal;
+
+import dev.rilling.webmention4j.client.DeadlineExceededException;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.util.Timeout;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DeadlineTest {
+
+	final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	@DisplayName("#createContext limits the request to the remaining time")
+	void createContextLimits() throws IOException {
+		Clock clock = Clock.fixed(Instant.EPOCH, ZoneOffset.UTC);
+		try (Deadline deadline = Deadline.after(Duration.ofSeconds(5), DeadlineTest::createRequestConfig, executor, clock)) {
+			HttpClientContext context = deadline.createContext(new HttpGet("https://example.com"));
+
+			assertThat(context.getRequestConfig().getResponseTimeout()).isEqualTo(Timeout.ofSeconds(5));
+			assertThat(deadline.getRemaining()).contains(Duration.ofSeconds(5));
+		}
+	}
+
+	@Test
+	@DisplayName("#createContext does not limit requests without deadline")
+	void createContextNone() throws IOException {
+		HttpClientContext context = Deadline.none().createContext(new HttpGet("https://example.com"));
+
+		assertThat(context.getRequestConfig()).isEqualTo(RequestConfig.DEFAULT);
+		assertThat(Deadline.none().isExpired()).isFalse();
+	}
+
+	@Test
+	@DisplayName("#createContext fails once the deadline passed")
+	void createContextExpired() {
+		try (Deadline deadline = Deadline.after(Duration.ZERO,
+			DeadlineTest::createRequestConfig,
+			executor,
+			Clock.systemUTC())) {
+			assertThat(deadline.isExpired()).isTrue();
+			assertThatThrownBy(() -> deadline.createContext(new HttpGet("https://example.com"))).isInstanceOf(
+				DeadlineExceededException.class);
+		}
+	}
+
+	@Test
+	@DisplayName("#cancel aborts requests in progress")
+	void cancelAborts() throws IOException {
+		try (Deadline deadline = Deadline.after(Duration.ofHours(1),
+			DeadlineTest::createRequestConfig,
+			executor,
+			Clock.systemUTC())) {
+			HttpGet request = new HttpGet("https://example.com");
+			deadline.createContext(request);
+
+			deadline.cancel();
+			assertThat(request.isCancelled()).isTrue();
+			assertThat(deadline.isExpired()).isTrue();
+		}
+	}
+
+	@Test
+	@DisplayName("#translate only translates failures once the deadline passed")
+	void translate() {
+		try (Deadline deadline = Deadline.after(Duration.ofHours(1),
+			DeadlineTest::createRequestConfig,
+			executor,
+			Clock.systemUTC())) {
+			SocketTimeoutException failure = new SocketTimeoutException();
+			assertThat(deadline.translate(failure)).isSameAs(failure);
+
+			deadline.cancel();
+			assertThat(deadline.translate(failure)).isInstanceOf(DeadlineExceededException.class).hasCause(failure);
+		}
+	}
+
+	private static RequestConfig createRequestConfig(Duration limit) {
+		return RequestConfig.custom().setResponseTimeout(Timeout.of(limit)).build();
+	}
+}
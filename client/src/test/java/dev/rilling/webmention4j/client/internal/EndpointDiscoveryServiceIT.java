@@ -3,21 +3,42 @@ package dev.rilling.webmention4j.client.internal;
 import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
 import dev.rilling.webmention4j.client.internal.link.HeaderLinkParser;
 import dev.rilling.webmention4j.client.internal.link.HtmlLinkParser;
+import dev.rilling.webmention4j.common.CacheStats;
+import dev.rilling.webmention4j.common.HttpStatusException;
 import dev.rilling.webmention4j.common.test.AutoClosableExtension;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.http.HttpHeaders;
 import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.protocol.BasicHttpContext;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
-import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 
 class EndpointDiscoveryServiceIT {
 
@@ -53,4 +74,373 @@ class EndpointDiscoveryServiceIT {
 
 	}
 
+	@Test
+	@DisplayName("#discoverEndpoint coalesces concurrent discoveries of the same target")
+	void coalescesConcurrentDiscoveries() throws Exception {
+		TARGET_SERVER.stubFor(get("/popular").willReturn(ok().withHeader(HttpHeaders.LINK,
+			"<http://aaronpk.example/webmention-endpoint>; rel=\"webmention\"").withFixedDelay(500)));
+		URI target = URI.create(TARGET_SERVER.url("/popular"));
+
+		ExecutorService executorService = Executors.newFixedThreadPool(5);
+		try {
+			List<Future<Optional<URI>>> futures = executorService.invokeAll(Collections.nCopies(5,
+				() -> endpointDiscoveryService.discoverEndpoint(HTTP_CLIENT_EXTENSION.get(), target)));
+			for (Future<Optional<URI>> future : futures) {
+				assertThat(future.get()).contains(URI.create("http://aaronpk.example/webmention-endpoint"));
+			}
+		} finally {
+			executorService.shutdownNow();
+		}
+
+		TARGET_SERVER.verify(1, getRequestedFor(urlEqualTo("/popular")));
+	}
+
+	@Test
+	@DisplayName("#discoverEndpoint counts a failure shared by coalesced discoveries once")
+	void coalescedFailureCountsOnce() throws Exception {
+		CircuitBreaker circuitBreaker = new CircuitBreaker(3, Duration.ofMinutes(1), Clock.systemUTC());
+		EndpointDiscoveryService guardedEndpointDiscoveryService = new EndpointDiscoveryService(new HeaderLinkParser(),
+			new HtmlLinkParser(),
+			EndpointCache.disabled(),
+			NoEndpointCache.disabled(),
+			HeadRequestPolicy.disabled(),
+			PermanentRedirectCache.disabled(),
+			circuitBreaker);
+		TARGET_SERVER.stubFor(get("/unavailable").willReturn(serviceUnavailable().withFixedDelay(500)));
+		URI target = URI.create(TARGET_SERVER.url("/unavailable"));
+
+		ExecutorService executorService = Executors.newFixedThreadPool(5);
+		try {
+			List<Future<Optional<URI>>> futures = executorService.invokeAll(Collections.nCopies(5,
+				() -> guardedEndpointDiscoveryService.discoverEndpoint(HTTP_CLIENT_EXTENSION.get(), target)));
+			for (Future<Optional<URI>> future : futures) {
+				assertThatThrownBy(future::get).hasCauseInstanceOf(HttpStatusException.class);
+			}
+		} finally {
+			executorService.shutdownNow();
+		}
+
+		assertThat(circuitBreaker.getUnavailableHosts()).isEmpty();
+	}
+
+	@Test
+	@DisplayName("#discoverEndpoint answers from the cache while the circuit of the host is open")
+	void cachedEndpointBypassesCircuitBreaker() throws IOException {
+		CircuitBreaker circuitBreaker = new CircuitBreaker(1, Duration.ofMinutes(1), Clock.systemUTC());
+		EndpointDiscoveryService guardedEndpointDiscoveryService = new EndpointDiscoveryService(new HeaderLinkParser(),
+			new HtmlLinkParser(),
+			new EndpointCache(10, Duration.ofHours(1), Duration.ofDays(1), false, Clock.systemUTC()),
+			NoEndpointCache.disabled(),
+			HeadRequestPolicy.disabled(),
+			PermanentRedirectCache.disabled(),
+			circuitBreaker);
+		TARGET_SERVER.stubFor(get("/cached").willReturn(ok().withHeader(HttpHeaders.LINK,
+			"<http://aaronpk.example/webmention-endpoint>; rel=\"webmention\"")));
+		TARGET_SERVER.stubFor(get("/unavailable").willReturn(serviceUnavailable()));
+		URI cached = URI.create(TARGET_SERVER.url("/cached"));
+
+		assertThat(guardedEndpointDiscoveryService.discoverEndpoint(HTTP_CLIENT_EXTENSION.get(), cached)).isPresent();
+		assertThatThrownBy(() -> guardedEndpointDiscoveryService.discoverEndpoint(HTTP_CLIENT_EXTENSION.get(),
+			URI.create(TARGET_SERVER.url("/unavailable")))).isInstanceOf(HttpStatusException.class);
+		assertThat(circuitBreaker.getUnavailableHosts()).containsExactly("localhost");
+
+		assertThat(guardedEndpointDiscoveryService.discoverEndpoint(HTTP_CLIENT_EXTENSION.get(), cached)).contains(URI.create(
+			"http://aaronpk.example/webmention-endpoint"));
+		assertThat(circuitBreaker.getUnavailableHosts()).containsExactly("localhost");
+		TARGET_SERVER.verify(1, getRequestedFor(urlEqualTo("/cached")));
+	}
+
+	@Test
+	@DisplayName("#discoverEndpoint uses cached endpoint")
+	void usesCache() throws IOException {
+		EndpointDiscoveryService cachingEndpointDiscoveryService = new EndpointDiscoveryService(new HeaderLinkParser(),
+			new HtmlLinkParser(),
+			new EndpointCache(10, Duration.ofHours(1), Duration.ofDays(1), false, Clock.systemUTC()),
+			NoEndpointCache.disabled(),
+			HeadRequestPolicy.disabled());
+		TARGET_SERVER.stubFor(get("/cached").willReturn(ok().withHeader(HttpHeaders.LINK,
+			"<http://aaronpk.example/webmention-endpoint>; rel=\"webmention\"")));
+		URI target = URI.create(TARGET_SERVER.url("/cached"));
+
+		assertThat(cachingEndpointDiscoveryService.discoverEndpoint(HTTP_CLIENT_EXTENSION.get(), target)).contains(URI.create(
+			"http://aaronpk.example/webmention-endpoint"));
+		assertThat(cachingEndpointDiscoveryService.discoverEndpoint(HTTP_CLIENT_EXTENSION.get(), target)).contains(URI.create(
+			"http://aaronpk.example/webmention-endpoint"));
+
+		TARGET_SERVER.verify(1, getRequestedFor(urlEqualTo("/cached")));
+		assertThat(cachingEndpointDiscoveryService.getEndpointCacheStats()).isEqualTo(new CacheStats(1, 1, 1));
+	}
+
+	@Test
+	@DisplayName("#discoverEndpoint does not cache if forbidden by response")
+	void doesNotCacheIfForbidden() throws IOException {
+		EndpointDiscoveryService cachingEndpointDiscoveryService = new EndpointDiscoveryService(new HeaderLinkParser(),
+			new HtmlLinkParser(),
+			new EndpointCache(10, Duration.ofHours(1), Duration.ofDays(1), false, Clock.systemUTC()),
+			NoEndpointCache.disabled(),
+			HeadRequestPolicy.disabled());
+		TARGET_SERVER.stubFor(get("/no-store").willReturn(ok().withHeader(HttpHeaders.LINK,
+			"<http://aaronpk.example/webmention-endpoint>; rel=\"webmention\"").withHeader(HttpHeaders.CACHE_CONTROL, "no-store")));
+		URI target = URI.create(TARGET_SERVER.url("/no-store"));
+
+		cachingEndpointDiscoveryService.discoverEndpoint(HTTP_CLIENT_EXTENSION.get(), target);
+		cachingEndpointDiscoveryService.discoverEndpoint(HTTP_CLIENT_EXTENSION.get(), target);
+
+		TARGET_SERVER.verify(2, getRequestedFor(urlEqualTo("/no-store")));
+	}
+
+	@Test
+	@DisplayName("#discoverEndpoint shares cached endpoint within origin if configured")
+	void usesCacheByOrigin() throws IOException {
+		EndpointDiscoveryService cachingEndpointDiscoveryService = new EndpointDiscoveryService(new HeaderLinkParser(),
+			new HtmlLinkParser(),
+			new EndpointCache(10, Duration.ofHours(1), Duration.ofDays(1), true, Clock.systemUTC()),
+			NoEndpointCache.disabled(),
+			HeadRequestPolicy.disabled());
+		TARGET_SERVER.stubFor(get(urlPathMatching("/posts/.*")).willReturn(ok().withHeader(HttpHeaders.LINK,
+			"<http://aaronpk.example/webmention-endpoint>; rel=\"webmention\"")));
+
+		cachingEndpointDiscoveryService.discoverEndpoint(HTTP_CLIENT_EXTENSION.get(),
+			URI.create(TARGET_SERVER.url("/posts/1")));
+		assertThat(cachingEndpointDiscoveryService.discoverEndpoint(HTTP_CLIENT_EXTENSION.get(),
+			URI.create(TARGET_SERVER.url("/posts/2")))).contains(URI.create("http://aaronpk.example/webmention-endpoint"));
+
+		TARGET_SERVER.verify(1, getRequestedFor(urlPathMatching("/posts/.*")));
+	}
+
+	@Test
+	@DisplayName("#discoverEndpoint remembers targets and hosts without endpoint")
+	void usesNoEndpointCache() throws IOException {
+		EndpointDiscoveryService cachingEndpointDiscoveryService = new EndpointDiscoveryService(new HeaderLinkParser(),
+			new HtmlLinkParser(),
+			EndpointCache.disabled(),
+			new NoEndpointCache(10, Duration.ofHours(1), 2, Clock.systemUTC()),
+			HeadRequestPolicy.disabled());
+		TARGET_SERVER.stubFor(get(urlPathMatching("/no-endpoint/.*")).willReturn(ok()));
+
+		URI target1 = URI.create(TARGET_SERVER.url("/no-endpoint/1"));
+		assertThat(cachingEndpointDiscoveryService.discoverEndpoint(HTTP_CLIENT_EXTENSION.get(), target1)).isEmpty();
+		assertThat(cachingEndpointDiscoveryService.discoverEndpoint(HTTP_CLIENT_EXTENSION.get(), target1)).isEmpty();
+		TARGET_SERVER.verify(1, getRequestedFor(urlPathMatching("/no-endpoint/.*")));
+
+		// Second target without endpoint reaches the threshold of the host.
+		URI target2 = URI.create(TARGET_SERVER.url("/no-endpoint/2"));
+		assertThat(cachingEndpointDiscoveryService.discoverEndpoint(HTTP_CLIENT_EXTENSION.get(), target2)).isEmpty();
+		URI target3 = URI.create(TARGET_SERVER.url("/no-endpoint/3"));
+		assertThat(cachingEndpointDiscoveryService.discoverEndpoint(HTTP_CLIENT_EXTENSION.get(), target3)).isEmpty();
+		TARGET_SERVER.verify(2, getRequestedFor(urlPathMatching("/no-endpoint/.*")));
+
+		assertThat(cachingEndpointDiscoveryService.getNoEndpointCacheStats()).isEqualTo(new CacheStats(2, 2, 3));
+	}
+
+	@Test
+	@DisplayName("#discoverEndpoint stops reading the body once the endpoint is found")
+	void stopsReadingBody() throws Exception {
+		String head = """
+			<html lang="en">
+			<head>
+				<link href="http://aaronpk.example/webmention-endpoint" rel="webmention" />
+			</head>
+			<body>
+				<p>%s""".formatted("a".repeat(8 * 1024));
+		TARGET_SERVER.stubFor(get("/small").willReturn(ok()));
+
+		try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+			Thread serverThread = serveStalledResponse(serverSocket,
+				"HTTP/1.1 200 OK\r\nContent-Type: text/html\r\nContent-Length: 100000000\r\n\r\n" + head);
+
+			URI target = URI.create("http://localhost:%d/large".formatted(serverSocket.getLocalPort()));
+			assertTimeoutPreemptively(Duration.ofSeconds(5),
+				() -> assertThat(endpointDiscoveryService.discoverEndpoint(HTTP_CLIENT_EXTENSION.get(),
+					target)).contains(URI.create("http://aaronpk.example/webmention-endpoint")));
+			serverThread.join(Duration.ofSeconds(5).toMillis());
+			assertThat(serverThread.isAlive()).isFalse();
+		}
+
+		// The client remains usable.
+		assertThat(endpointDiscoveryService.discoverEndpoint(HTTP_CLIENT_EXTENSION.get(),
+			URI.create(TARGET_SERVER.url("/small")))).isEmpty();
+	}
+
+	@Test
+	@DisplayName("#discoverEndpoint does not read large body if endpoint is found in header")
+	void skipsLargeBodyForHeader() throws Exception {
+		try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+			Thread serverThread = serveStalledResponse(serverSocket, """
+				HTTP/1.1 200 OK\r
+				Content-Type: text/html\r
+				Content-Length: 100000000\r
+				Link: <http://aaronpk.example/webmention-endpoint>; rel="webmention"\r
+				\r
+				<html>""");
+
+			URI target = URI.create("http://localhost:%d/large".formatted(serverSocket.getLocalPort()));
+			assertTimeoutPreemptively(Duration.ofSeconds(5),
+				() -> assertThat(endpointDiscoveryService.discoverEndpoint(HTTP_CLIENT_EXTENSION.get(),
+					target)).contains(URI.create("http://aaronpk.example/webmention-endpoint")));
+			serverThread.join(Duration.ofSeconds(5).toMillis());
+			assertThat(serverThread.isAlive()).isFalse();
+		}
+	}
+
+	@Test
+	@DisplayName("#discoverEndpoint keeps connection reusable if remaining body is small")
+	void drainsSmallBodyForHeader() throws IOException {
+		TARGET_SERVER.stubFor(get("/small-body").willReturn(ok("<html><body>%s</body></html>".formatted("a".repeat(
+			1024))).withHeader(HttpHeaders.LINK, "<http://aaronpk.example/webmention-endpoint>; rel=\"webmention\"")));
+		TARGET_SERVER.stubFor(get("/large-body").willReturn(ok("<html><body>%s</body></html>".formatted("a".repeat(
+			1024 * 1024))).withHeader(HttpHeaders.LINK,
+			"<http://aaronpk.example/webmention-endpoint>; rel=\"webmention\"")));
+
+		try (PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+			 CloseableHttpClient httpClient = HttpClients.custom().setConnectionManager(connectionManager).build()) {
+			endpointDiscoveryService.discoverEndpoint(httpClient, URI.create(TARGET_SERVER.url("/small-body")));
+			assertThat(connectionManager.getTotalStats().getAvailable()).isEqualTo(1);
+
+			endpointDiscoveryService.discoverEndpoint(httpClient, URI.create(TARGET_SERVER.url("/large-body")));
+			assertThat(connectionManager.getTotalStats().getAvailable()).isZero();
+		}
+	}
+
+	@Test
+	@DisplayName("#discoverEndpoint uses HEAD request if configured")
+	void usesHeadRequest() throws IOException {
+		EndpointDiscoveryService headFirstEndpointDiscoveryService = new EndpointDiscoveryService(new HeaderLinkParser(),
+			new HtmlLinkParser(),
+			EndpointCache.disabled(),
+			NoEndpointCache.disabled(),
+			new HeadRequestPolicy(true, Clock.systemUTC()));
+		TARGET_SERVER.stubFor(head(urlEqualTo("/header")).willReturn(ok().withHeader(HttpHeaders.LINK,
+			"<http://aaronpk.example/webmention-endpoint>; rel=\"webmention\"")));
+
+		assertThat(headFirstEndpointDiscoveryService.discoverEndpoint(HTTP_CLIENT_EXTENSION.get(),
+			URI.create(TARGET_SERVER.url("/header")))).contains(URI.create("http://aaronpk.example/webmention-endpoint"));
+
+		TARGET_SERVER.verify(0, getRequestedFor(urlEqualTo("/header")));
+	}
+
+	@Test
+	@DisplayName("#discoverEndpoint skips HEAD request for hosts advertising in body")
+	void learnsHostsWithoutHeader() throws IOException {
+		EndpointDiscoveryService headFirstEndpointDiscoveryService = new EndpointDiscoveryService(new HeaderLinkParser(),
+			new HtmlLinkParser(),
+			EndpointCache.disabled(),
+			NoEndpointCache.disabled(),
+			new HeadRequestPolicy(true, Clock.systemUTC()));
+		TARGET_SERVER.stubFor(head(urlPathMatching("/body/.*")).willReturn(aResponse().withStatus(HttpStatus.SC_METHOD_NOT_ALLOWED)));
+		TARGET_SERVER.stubFor(get(urlPathMatching("/body/.*")).willReturn(ok("""
+			<html><head><link href="http://aaronpk.example/webmention-endpoint" rel="webmention" /></head></html>""").withHeader(
+			HttpHeaders.CONTENT_TYPE,
+			"text/html")));
+
+		assertThat(headFirstEndpointDiscoveryService.discoverEndpoint(HTTP_CLIENT_EXTENSION.get(),
+			URI.create(TARGET_SERVER.url("/body/1")))).contains(URI.create("http://aaronpk.example/webmention-endpoint"));
+		assertThat(headFirstEndpointDiscoveryService.discoverEndpoint(HTTP_CLIENT_EXTENSION.get(),
+			URI.create(TARGET_SERVER.url("/body/2")))).contains(URI.create("http://aaronpk.example/webmention-endpoint"));
+
+		TARGET_SERVER.verify(1, headRequestedFor(urlPathMatching("/body/.*")));
+		TARGET_SERVER.verify(2, getRequestedFor(urlPathMatching("/body/.*")));
+	}
+
+	@Test
+	@DisplayName("#discoverEndpoint resolves relative endpoints against the redirect location")
+	void resolvesAgainstRedirectLocation() throws IOException {
+		TARGET_SERVER.stubFor(get("/old/post").willReturn(temporaryRedirect("/new/post")));
+		TARGET_SERVER.stubFor(get("/new/post").willReturn(ok().withHeader(HttpHeaders.LINK,
+			"<webmention-endpoint>; rel=\"webmention\"")));
+
+		assertThat(endpointDiscoveryService.discoverEndpoint(HTTP_CLIENT_EXTENSION.get(),
+			URI.create(TARGET_SERVER.url("/old/post")))).contains(URI.create(TARGET_SERVER.url("/new/webmention-endpoint")));
+	}
+
+	@Test
+	@DisplayName("#discoverEndpoint requests targets at their known permanent location")
+	void usesPermanentRedirectCache() throws IOException {
+		EndpointDiscoveryService redirectCachingEndpointDiscoveryService = new EndpointDiscoveryService(new HeaderLinkParser(),
+			new HtmlLinkParser(),
+			EndpointCache.disabled(),
+			NoEndpointCache.disabled(),
+			HeadRequestPolicy.disabled(),
+			new PermanentRedirectCache(10, Duration.ofHours(1), Clock.systemUTC()));
+		TARGET_SERVER.stubFor(get("/moved").willReturn(permanentRedirect("/canonical")));
+		TARGET_SERVER.stubFor(get("/temporary").willReturn(temporaryRedirect("/canonical")));
+		TARGET_SERVER.stubFor(get("/canonical").willReturn(ok().withHeader(HttpHeaders.LINK,
+			"<http://aaronpk.example/webmention-endpoint>; rel=\"webmention\"")));
+		URI moved = URI.create(TARGET_SERVER.url("/moved"));
+		URI temporary = URI.create(TARGET_SERVER.url("/temporary"));
+
+		try (CloseableHttpClient httpClient = HttpClients.custom()
+			.setRedirectStrategy(new RecordingRedirectStrategy())
+			.build()) {
+			for (int i = 0; i < 2; i++) {
+				assertThat(redirectCachingEndpointDiscoveryService.discoverEndpoint(httpClient, moved)).contains(URI.create(
+					"http://aaronpk.example/webmention-endpoint"));
+				assertThat(redirectCachingEndpointDiscoveryService.discoverEndpoint(httpClient, temporary)).contains(
+					URI.create("http://aaronpk.example/webmention-endpoint"));
+			}
+		}
+
+		TARGET_SERVER.verify(1, getRequestedFor(urlEqualTo("/moved")));
+		TARGET_SERVER.verify(2, getRequestedFor(urlEqualTo("/temporary")));
+		TARGET_SERVER.verify(4, getRequestedFor(urlEqualTo("/canonical")));
+		assertThat(redirectCachingEndpointDiscoveryService.getPermanentRedirectCacheStats()).isEqualTo(new CacheStats(1,
+			3,
+			1));
+	}
+
+	@Test
+	@DisplayName("#discoverEndpoint forgets permanent redirects if their location fails")
+	void invalidatesPermanentRedirect() throws IOException {
+		PermanentRedirectCache permanentRedirectCache = new PermanentRedirectCache(10,
+			Duration.ofHours(1),
+			Clock.systemUTC());
+		EndpointDiscoveryService redirectCachingEndpointDiscoveryService = new EndpointDiscoveryService(new HeaderLinkParser(),
+			new HtmlLinkParser(),
+			EndpointCache.disabled(),
+			NoEndpointCache.disabled(),
+			HeadRequestPolicy.disabled(),
+			permanentRedirectCache);
+		TARGET_SERVER.stubFor(get("/moved-away").willReturn(ok().withHeader(HttpHeaders.LINK,
+			"<http://aaronpk.example/webmention-endpoint>; rel=\"webmention\"")));
+		TARGET_SERVER.stubFor(get("/gone").willReturn(aResponse().withStatus(HttpStatus.SC_GONE)));
+		URI target = URI.create(TARGET_SERVER.url("/moved-away"));
+		RedirectChain redirectChain = RedirectChain.attach(new BasicHttpContext());
+		redirectChain.add(new RedirectChain.Redirect(target,
+			URI.create(TARGET_SERVER.url("/gone")),
+			HttpStatus.SC_MOVED_PERMANENTLY));
+		permanentRedirectCache.putAll(redirectChain);
+
+		assertThatThrownBy(() -> redirectCachingEndpointDiscoveryService.discoverEndpoint(HTTP_CLIENT_EXTENSION.get(),
+			target)).isInstanceOf(IOException.class);
+		assertThat(redirectCachingEndpointDiscoveryService.discoverEndpoint(HTTP_CLIENT_EXTENSION.get(),
+			target)).contains(URI.create("http://aaronpk.example/webmention-endpoint"));
+	}
+
+	/**
+	 * Serves a single connection by sending the response start but nothing after,
+	 * so reading all of a response with a larger announced length would hang.
+	 */
+	private static Thread serveStalledResponse(ServerSocket serverSocket, String responseStart) {
+		Thread serverThread = new Thread(() -> {
+			try (Socket socket = serverSocket.accept()) {
+				BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+					StandardCharsets.US_ASCII));
+				String line;
+				do {
+					line = reader.readLine();
+				} while (line != null && !line.isEmpty());
+				OutputStream outputStream = socket.getOutputStream();
+				outputStream.write(responseStart.getBytes(StandardCharsets.UTF_8));
+				outputStream.flush();
+				// Wait until the client closes the connection.
+				while (socket.getInputStream().read() != -1) {
+					// Ignore
+				}
+			} catch (IOException ignored) {
+				// Client closed the connection.
+			}
+		});
+		serverThread.start();
+		return serverThread;
+	}
 }
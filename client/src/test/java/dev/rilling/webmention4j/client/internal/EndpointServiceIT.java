@@ -3,20 +3,26 @@ package dev.rilling.webmention4j.client.internal;
 import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
 import dev.rilling.webmention4j.common.Webmention;
 import dev.rilling.webmention4j.common.test.AutoClosableExtension;
+import org.apache.hc.client5.http.DnsResolver;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
 import org.apache.hc.core5.http.HttpHeaders;
 import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.protocol.BasicHttpContext;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 
 import java.io.IOException;
+import java.net.InetAddress;
 import java.net.URI;
+import java.net.UnknownHostException;
+import java.time.Clock;
+import java.time.Duration;
 
-import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
-import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class EndpointServiceIT {
@@ -30,6 +36,29 @@ class EndpointServiceIT {
 	static final AutoClosableExtension<CloseableHttpClient> HTTP_CLIENT_EXTENSION = new AutoClosableExtension<>(
 		HttpClients::createDefault);
 
+	@RegisterExtension
+	static final AutoClosableExtension<CloseableHttpClient> RECORDING_HTTP_CLIENT_EXTENSION = new AutoClosableExtension<>(
+		() -> HttpClients.custom().setRedirectStrategy(new RecordingRedirectStrategy()).build());
+
+	/*
+	 * Only treats 'localhost' as loopback, so that the endpoint server can be reached via '127.0.0.1'
+	 * without being localhost itself.
+	 */
+	static final DnsResolver LOCALHOST_ONLY_DNS_RESOLVER = new DnsResolver() {
+		@Override
+		public InetAddress[] resolve(String host) throws UnknownHostException {
+			if (host.equals("localhost")) {
+				return new InetAddress[]{InetAddress.getLoopbackAddress()};
+			}
+			return new InetAddress[]{InetAddress.getByAddress(host, new byte[]{(byte) 192, 0, 2, 1})};
+		}
+
+		@Override
+		public String resolveCanonicalHostname(String host) {
+			return host;
+		}
+	};
+
 	final EndpointService endpointService = new EndpointService();
 
 	@Test
@@ -46,4 +75,55 @@ class EndpointServiceIT {
 			new Webmention(source, target))).isInstanceOf(IOException.class);
 	}
 
+	@Test
+	@DisplayName("#notifyEndpoint does not cache permanent redirects to localhost")
+	void notifyEndpointDoesNotCacheLocalhostRedirects() throws IOException {
+		ENDPOINT_SERVER.stubFor(post("/webmention-endpoint").willReturn(aResponse().withStatus(HttpStatus.SC_PERMANENT_REDIRECT)
+			.withHeader(HttpHeaders.LOCATION, ENDPOINT_SERVER.url("/moved-endpoint"))));
+		ENDPOINT_SERVER.stubFor(post("/moved-endpoint").willReturn(aResponse().withStatus(HttpStatus.SC_ACCEPTED)));
+
+		PermanentRedirectCache permanentRedirectCache = new PermanentRedirectCache(10,
+			Duration.ofHours(1),
+			Clock.systemUTC());
+		EndpointService rejectingEndpointService = new EndpointService(permanentRedirectCache,
+			LOCALHOST_ONLY_DNS_RESOLVER);
+		URI endpoint = URI.create("http://127.0.0.1:%d/webmention-endpoint".formatted(ENDPOINT_SERVER.getPort()));
+		Webmention webmention = new Webmention(URI.create("https://waterpigs.example/post-by-barnaby"),
+			URI.create("https://aaronpk.example/post-by-aaron"));
+
+		rejectingEndpointService.notifyEndpoint(RECORDING_HTTP_CLIENT_EXTENSION.get(), endpoint, webmention);
+		rejectingEndpointService.notifyEndpoint(RECORDING_HTTP_CLIENT_EXTENSION.get(), endpoint, webmention);
+
+		ENDPOINT_SERVER.verify(2, postRequestedFor(urlEqualTo("/webmention-endpoint")));
+		assertThat(permanentRedirectCache.resolve(endpoint)).isEqualTo(endpoint);
+	}
+
+	@Test
+	@DisplayName("#notifyEndpoint refuses cached redirects to localhost")
+	void notifyEndpointRefusesCachedLocalhostRedirects() {
+		ENDPOINT_SERVER.stubFor(post("/moved-endpoint").willReturn(aResponse().withStatus(HttpStatus.SC_ACCEPTED)));
+
+		URI endpoint = URI.create("http://127.0.0.1:%d/webmention-endpoint".formatted(ENDPOINT_SERVER.getPort()));
+		PermanentRedirectCache permanentRedirectCache = new PermanentRedirectCache(10,
+			Duration.ofHours(1),
+			Clock.systemUTC());
+		// E.g. recorded by a request which was allowed to be redirected to localhost.
+		RedirectChain redirectChain = RedirectChain.attach(new BasicHttpContext());
+		redirectChain.add(new RedirectChain.Redirect(endpoint,
+			URI.create(ENDPOINT_SERVER.url("/moved-endpoint")),
+			HttpStatus.SC_MOVED_PERMANENTLY));
+		permanentRedirectCache.putAll(redirectChain);
+		EndpointService rejectingEndpointService = new EndpointService(permanentRedirectCache,
+			LOCALHOST_ONLY_DNS_RESOLVER);
+		Webmention webmention = new Webmention(URI.create("https://waterpigs.example/post-by-barnaby"),
+			URI.create("https://aaronpk.example/post-by-aaron"));
+
+		assertThatThrownBy(() -> rejectingEndpointService.notifyEndpoint(RECORDING_HTTP_CLIENT_EXTENSION.get(),
+			endpoint,
+			webmention)).isInstanceOf(IOException.class).hasMessageContaining("localhost");
+
+		ENDPOINT_SERVER.verify(0, postRequestedFor(urlEqualTo("/moved-endpoint")));
+		assertThat(permanentRedirectCache.resolve(endpoint)).isEqualTo(endpoint);
+	}
+
 }
@@ -0,0 +1,134 @@
+package dev.rilling.webmention4j.client.internal;
+
+import org.apache.hc.client5.http.cache.HttpCacheEntry;
+import org.apache.hc.client5.http.impl.cache.HeapResource;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileHttpCacheStorageTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	@DisplayName("#getEntry returns entries stored by a previous instance")
+	void getEntrySurvivesNewInstance() throws Exception {
+		new FileHttpCacheStorage(directory, 10, 1).putEntry("https://example.com/post", createEntry("foo"));
+
+		FileHttpCacheStorage storage = new FileHttpCacheStorage(directory, 10, 1);
+
+		assertThat(storage.getEntryCount()).isEqualTo(1);
+		HttpCacheEntry entry = storage.getEntry("https://example.com/post");
+		assertThat(entry).isNotNull();
+		assertThat(entry.getFirstHeader(HttpHeaders.ETAG).getValue()).isEqualTo("\"v1\"");
+		assertThat(new String(entry.getResource().get(), StandardCharsets.UTF_8)).isEqualTo("foo");
+		assertThat(storage.getEntry("https://example.com/other")).isNull();
+	}
+
+	@Test
+	@DisplayName("#updateEntry replaces entries")
+	void updateEntryReplaces() throws Exception {
+		FileHttpCacheStorage storage = new FileHttpCacheStorage(directory, 10, 1);
+		storage.putEntry("https://example.com/post", createEntry("foo"));
+
+		storage.updateEntry("https://example.com/post", existing -> createEntry("bar"));
+
+		assertThat(new String(storage.getEntry("https://example.com/post").getResource().get(),
+			StandardCharsets.UTF_8)).isEqualTo("bar");
+		assertThat(storage.getEntryCount()).isEqualTo(1);
+	}
+
+	@Test
+	@DisplayName("#updateEntry does not lose concurrent updates")
+	void updateEntryConcurrently() throws Exception {
+		FileHttpCacheStorage storage = new FileHttpCacheStorage(directory, 10, 1000);
+		storage.putEntry("https://example.com/post", createEntry(""));
+
+		ExecutorService executorService = Executors.newFixedThreadPool(4);
+		try {
+			List<Callable<Void>> updates = Collections.nCopies(100, () -> {
+				storage.updateEntry("https://example.com/post",
+					existing -> createEntry(new String(existing.getResource().get(), StandardCharsets.UTF_8) + "x"));
+				return null;
+			});
+			for (Future<Void> future : executorService.invokeAll(updates)) {
+				future.get();
+			}
+		} finally {
+			executorService.shutdownNow();
+		}
+
+		assertThat(new String(storage.getEntry("https://example.com/post").getResource().get(),
+			StandardCharsets.UTF_8)).isEqualTo("x".repeat(100));
+		try (var files = Files.list(directory)) {
+			assertThat(files).hasSize(1);
+		}
+	}
+
+	@Test
+	@DisplayName("#removeEntry deletes entries")
+	void removeEntryDeletes() throws Exception {
+		FileHttpCacheStorage storage = new FileHttpCacheStorage(directory, 10, 1);
+		storage.putEntry("https://example.com/post", createEntry("foo"));
+
+		storage.removeEntry("https://example.com/post");
+
+		assertThat(storage.getEntry("https://example.com/post")).isNull();
+		assertThat(storage.getEntryCount()).isZero();
+		try (var files = Files.list(directory)) {
+			assertThat(files).isEmpty();
+		}
+	}
+
+	@Test
+	@DisplayName("#putEntry evicts entries if the cache is full")
+	void putEntryEvicts() throws Exception {
+		FileHttpCacheStorage storage = new FileHttpCacheStorage(directory, 10, 1);
+
+		for (int i = 0; i < 11; i++) {
+			storage.putEntry("https://example.com/" + i, createEntry("foo"));
+		}
+
+		assertThat(storage.getEntryCount()).isEqualTo(9);
+		try (var files = Files.list(directory)) {
+			assertThat(files).hasSize(9);
+		}
+	}
+
+	@Test
+	@DisplayName("#FileHttpCacheStorage removes temporary files left behind")
+	void constructorRemovesTemporaryFiles() throws Exception {
+		Files.writeString(directory.resolve("abc.tmp"), "partial");
+
+		FileHttpCacheStorage storage = new FileHttpCacheStorage(directory, 10, 1);
+
+		assertThat(storage.getEntryCount()).isZero();
+		assertThat(directory.resolve("abc.tmp")).doesNotExist();
+	}
+
+	private static HttpCacheEntry createEntry(String body) {
+		Instant instant = Instant.parse("2024-01-01T00:00:00Z");
+		return new HttpCacheEntry(instant,
+			instant,
+			HttpStatus.SC_OK,
+			new BasicHeader[]{new BasicHeader(HttpHeaders.ETAG, "\"v1\"")},
+			new HeapResource(body.getBytes(StandardCharsets.UTF_8)));
+	}
+}
@@ -0,0 +1,185 @@
+package dev.rilling.webmention4j.client.internal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HostSchedulerTest {
+
+	static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+	final ExecutorService executor = Executors.newFixedThreadPool(8);
+	final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+		timer.shutdownNow();
+	}
+
+	@Test
+	@DisplayName("#submit completes with the task result")
+	void submitCompletes() {
+		HostScheduler hostScheduler = new HostScheduler(executor, 1);
+
+		assertThat(hostScheduler.submit("example.com", () -> "foo")).succeedsWithin(TIMEOUT).isEqualTo("foo");
+		assertThat(hostScheduler.submit("example.com", () -> {
+			throw new IOException("bar");
+		})).failsWithin(TIMEOUT).withThrowableThat().havingCause().isInstanceOf(IOException.class);
+	}
+
+	@Test
+	@DisplayName("#submit runs no more tasks for one host at once than allowed")
+	void submitLimitsPerHost() {
+		HostScheduler hostScheduler = new HostScheduler(executor, 2);
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+
+		List<CompletableFuture<Void>> futures = IntStream.range(0, 20)
+			.mapToObj(i -> hostScheduler.<Void>submit("example.com", () -> {
+				maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+				Thread.sleep(10);
+				running.decrementAndGet();
+				return null;
+			}))
+			.toList();
+
+		assertThat(CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))).succeedsWithin(TIMEOUT);
+		assertThat(maxRunning.get()).isEqualTo(2);
+	}
+
+	@Test
+	@DisplayName("#submit does not let a busy host block other hosts")
+	void submitDoesNotBlockOtherHosts() {
+		HostScheduler hostScheduler = new HostScheduler(executor, 1);
+		CompletableFuture<Void> blocker = new CompletableFuture<>();
+
+		hostScheduler.submit("slow.example.com", blocker::join);
+		hostScheduler.submit("slow.example.com", blocker::join);
+
+		assertThat(hostScheduler.submit("fast.example.com", () -> "foo")).succeedsWithin(TIMEOUT);
+		blocker.complete(null);
+	}
+
+	@Test
+	@DisplayName("#submit serves hosts in turns")
+	void submitRoundRobin() {
+		HostScheduler hostScheduler = new HostScheduler(executor, timer, 1, 2, HostScheduler.Politeness.NONE, null);
+		CompletableFuture<Void> blocker = new CompletableFuture<>();
+		List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+		hostScheduler.submit("a.example.com", blocker::join);
+		List<CompletableFuture<Boolean>> futures = List.of(hostScheduler.submit("a.example.com", () -> order.add("a2")),
+			hostScheduler.submit("a.example.com", () -> order.add("a3")),
+			hostScheduler.submit("b.example.com", () -> order.add("b1")),
+			hostScheduler.submit("b.example.com", () -> order.add("b2")));
+		blocker.complete(null);
+
+		assertThat(CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))).succeedsWithin(TIMEOUT);
+		assertThat(order).containsExactly("a2", "b1", "a3", "b2");
+	}
+
+	@Test
+	@DisplayName("#submit waits the minimum delay between tasks for the same host")
+	void submitMinDelay() {
+		Duration minDelay = Duration.ofMillis(100);
+		HostScheduler hostScheduler = new HostScheduler(executor,
+			timer,
+			8,
+			8,
+			new HostScheduler.Politeness(minDelay, 0),
+			null);
+
+		List<CompletableFuture<Long>> futures = IntStream.range(0, 3)
+			.mapToObj(i -> hostScheduler.submit("example.com", System::nanoTime))
+			.toList();
+		CompletableFuture<String> otherHost = hostScheduler.submit("other.example.com", () -> "foo");
+
+		assertThat(otherHost).succeedsWithin(minDelay.dividedBy(2));
+		assertThat(CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))).succeedsWithin(TIMEOUT);
+		List<Long> startTimes = futures.stream().map(CompletableFuture::join).sorted().toList();
+		assertThat(startTimes.get(1) - startTimes.get(0)).isGreaterThanOrEqualTo(minDelay.toNanos() * 9 / 10);
+		assertThat(startTimes.get(2) - startTimes.get(1)).isGreaterThanOrEqualTo(minDelay.toNanos() * 9 / 10);
+	}
+
+	@Test
+	@DisplayName("#submit limits the rate of tasks for the same host")
+	void submitRateLimit() {
+		HostScheduler hostScheduler = new HostScheduler(executor,
+			timer,
+			8,
+			8,
+			new HostScheduler.Politeness(Duration.ZERO, 20),
+			null);
+
+		long start = System.nanoTime();
+		// The first 20 are allowed as burst, the next 10 take 0.5 seconds.
+		List<CompletableFuture<Long>> futures = IntStream.range(0, 30)
+			.mapToObj(i -> hostScheduler.submit("example.com", System::nanoTime))
+			.toList();
+
+		assertThat(CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))).succeedsWithin(TIMEOUT);
+		List<Long> startTimes = futures.stream().map(CompletableFuture::join).sorted().toList();
+		assertThat(startTimes.get(19) - start).isLessThan(Duration.ofMillis(250).toNanos());
+		assertThat(startTimes.get(29) - start).isGreaterThanOrEqualTo(Duration.ofMillis(450).toNanos());
+	}
+
+	@Test
+	@DisplayName("#failWaitingTasks fails tasks that were not started")
+	void failWaitingTasks() {
+		HostScheduler hostScheduler = new HostScheduler(executor,
+			timer,
+			8,
+			8,
+			new HostScheduler.Politeness(Duration.ofHours(1), 0),
+			null);
+
+		assertThat(hostScheduler.submit("example.com", () -> "foo")).succeedsWithin(TIMEOUT);
+		CompletableFuture<String> waiting = hostScheduler.submit("example.com", () -> "bar");
+		assertThat(waiting).isNotDone();
+
+		hostScheduler.failWaitingTasks();
+		assertThat(waiting).failsWithin(TIMEOUT)
+			.withThrowableThat()
+			.havingCause()
+			.isInstanceOf(RejectedExecutionException.class);
+	}
+
+	@Test
+	@DisplayName("#submit adapts the concurrency limit of a host")
+	void submitAdapts() {
+		HostScheduler hostScheduler = new HostScheduler(executor,
+			timer,
+			8,
+			4,
+			HostScheduler.Politeness.NONE,
+			new HostScheduler.Adaptivity(8, IllegalStateException.class::isInstance));
+
+		CompletableFuture<Void> overloaded = hostScheduler.submit("overloaded.example.com", () -> {
+			throw new IllegalStateException();
+		});
+		CompletableFuture<Void> notFound = hostScheduler.submit("healthy.example.com", () -> {
+			throw new IOException("Not found");
+		});
+		assertThat(overloaded).failsWithin(TIMEOUT);
+		assertThat(notFound).failsWithin(TIMEOUT);
+
+		assertThat(hostScheduler.getConcurrencyLimits()).containsEntry("overloaded.example.com", 2)
+			.containsEntry("healthy.example.com", 4);
+	}
+}
@@ -0,0 +1,151 @@
+package dev.rilling.webmention4j.client.internal;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JournalTest {
+
+	static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	@DisplayName("#getRecoveredRecords returns records appended before")
+	void recoversAppendedRecords() throws IOException {
+		Path path = tempDir.resolve("journal");
+		try (Journal journal = new Journal(path, "test")) {
+			assertThat(journal.getRecoveredRecords()).isEmpty();
+			assertThat(journal.append(List.of("foo", "bar"))).succeedsWithin(TIMEOUT);
+			assertThat(journal.append(List.of("fizz buzz"))).succeedsWithin(TIMEOUT);
+		}
+
+		try (Journal journal = new Journal(path, "test")) {
+			assertThat(journal.getRecoveredRecords()).containsExactly("foo", "bar", "fizz buzz");
+			assertThat(journal.getRecordCount()).isEqualTo(3);
+		}
+	}
+
+	@Test
+	@DisplayName("#append keeps all records when appending concurrently")
+	void appendConcurrently() throws IOException {
+		Path path = tempDir.resolve("journal");
+		try (Journal journal = new Journal(path, "test")) {
+			List<CompletableFuture<Void>> futures = IntStream.range(0, 500)
+				.parallel()
+				.mapToObj(i -> journal.append(List.of(String.valueOf(i))))
+				.toList();
+			assertThat(CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))).succeedsWithin(TIMEOUT);
+		}
+
+		try (Journal journal = new Journal(path, "test")) {
+			assertThat(journal.getRecoveredRecords()).hasSize(500)
+				.containsExactlyInAnyOrderElementsOf(IntStream.range(0, 500).mapToObj(String::valueOf).toList());
+		}
+	}
+
+	@Test
+	@DisplayName("#append rejects records with line breaks")
+	void appendRejectsLineBreaks() throws IOException {
+		try (Journal journal = new Journal(tempDir.resolve("journal"), "test")) {
+			assertThatThrownBy(() -> journal.append(List.of("foo\nbar"))).isInstanceOf(IllegalArgumentException.class);
+		}
+	}
+
+	@Test
+	@DisplayName("#getRecoveredRecords skips partially written records")
+	void skipsPartialRecords() throws IOException {
+		Path path = tempDir.resolve("journal");
+		try (Journal journal = new Journal(path, "test")) {
+			assertThat(journal.append(List.of("foo", "bar"))).succeedsWithin(TIMEOUT);
+		}
+		// Simulate a crash while writing.
+		byte[] content = Files.readAllBytes(path);
+		Files.write(path, Arrays.copyOf(content, content.length - 2));
+		Files.writeString(path, "garbage", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+		try (Journal journal = new Journal(path, "test")) {
+			assertThat(journal.getRecoveredRecords()).containsExactly("foo");
+		}
+	}
+
+	@Test
+	@DisplayName("#append does not append to partially written records")
+	void appendAfterPartialRecord() throws IOException {
+		Path path = tempDir.resolve("journal");
+		try (Journal journal = new Journal(path, "test")) {
+			assertThat(journal.append(List.of("foo", "b\u00e4r"))).succeedsWithin(TIMEOUT);
+		}
+		// Simulate a crash while writing, splitting the 'ä'.
+		byte[] content = Files.readAllBytes(path);
+		Files.write(path, Arrays.copyOf(content, content.length - 3));
+
+		try (Journal journal = new Journal(path, "test")) {
+			assertThat(journal.getRecoveredRecords()).containsExactly("foo");
+			assertThat(journal.append(List.of("fizz"))).succeedsWithin(TIMEOUT);
+		}
+
+		try (Journal journal = new Journal(path, "test")) {
+			assertThat(journal.getRecoveredRecords()).containsExactly("foo", "fizz");
+		}
+	}
+
+	@Test
+	@DisplayName("#compact replaces records with the live ones")
+	void compact() throws IOException {
+		Path path = tempDir.resolve("journal");
+		try (Journal journal = new Journal(path, "test")) {
+			assertThat(journal.append(List.of("foo", "bar", "fizz"))).succeedsWithin(TIMEOUT);
+			assertThat(journal.compact(() -> List.of("bar"))).succeedsWithin(TIMEOUT);
+			assertThat(journal.getRecordCount()).isEqualTo(1);
+			assertThat(journal.append(List.of("buzz"))).succeedsWithin(TIMEOUT);
+		}
+
+		try (Journal journal = new Journal(path, "test")) {
+			assertThat(journal.getRecoveredRecords()).containsExactly("bar", "buzz");
+		}
+		assertThat(tempDir.resolve("journal.compact")).doesNotExist();
+	}
+
+	@Test
+	@DisplayName("#append completes when closing concurrently")
+	void appendWhileClosing() throws IOException {
+		Journal journal = new Journal(tempDir.resolve("journal"), "test");
+		CompletableFuture<List<CompletableFuture<Void>>> appending = CompletableFuture.supplyAsync(() -> IntStream.range(0,
+			1000).mapToObj(i -> journal.append(List.of(String.valueOf(i)))).toList());
+		journal.close();
+
+		assertThat(appending).succeedsWithin(TIMEOUT);
+		// Appends either made it in before closing or failed, but none are left hanging.
+		for (CompletableFuture<Void> future : appending.join()) {
+			assertThat(future.handle((ignored, throwable) -> null)).succeedsWithin(TIMEOUT);
+		}
+	}
+
+	@Test
+	@DisplayName("#append fails after closing")
+	void appendAfterClose() throws IOException {
+		Journal journal = new Journal(tempDir.resolve("journal"), "test");
+		journal.close();
+
+		assertThat(journal.append(List.of("foo"))).failsWithin(TIMEOUT)
+			.withThrowableThat()
+			.havingCause()
+			.isInstanceOf(IOException.class);
+	}
+}
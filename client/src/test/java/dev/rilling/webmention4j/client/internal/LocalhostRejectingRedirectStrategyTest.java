@@ -57,4 +57,18 @@ class LocalhostRejectingRedirectStrategyTest {
 				new HttpClientContext())).isFalse();
 		}
 	}
+
+	@Test
+	@DisplayName("#isRedirected keeps redirect locations that are localhost for requests it does not apply to")
+	void isRedirectedKeepsLocalhostForOtherRequests() throws Exception {
+		LocalhostRejectingRedirectStrategy postOnlyStrategy = new LocalhostRejectingRedirectStrategy(request -> Method.POST.isSame(
+			request.getMethod()));
+
+		HttpRequest request = new BasicClassicHttpRequest(Method.GET, URI.create("https://example.com"));
+		try (BasicClassicHttpResponse response = new BasicClassicHttpResponse(HttpStatus.SC_MOVED_PERMANENTLY)) {
+			response.setHeader(HttpHeaders.LOCATION, "https://localhost");
+
+			assertThat(postOnlyStrategy.isRedirected(request, response, new HttpClientContext())).isTrue();
+		}
+	}
 }
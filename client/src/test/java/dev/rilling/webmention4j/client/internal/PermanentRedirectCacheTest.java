@@ -0,0 +1,71 @@
+package dev.rilling.webmention4j.client.internal;
+
+import dev.rilling.webmention4j.common.CacheStats;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.protocol.BasicHttpContext;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PermanentRedirectCacheTest {
+
+	final PermanentRedirectCache permanentRedirectCache = new PermanentRedirectCache(10,
+		Duration.ofHours(1),
+		Clock.systemUTC());
+
+	@Test
+	@DisplayName("#resolve follows cached permanent redirects")
+	void resolveFollowsPermanentRedirects() {
+		permanentRedirectCache.putAll(chain(new RedirectChain.Redirect(URI.create("http://example.com/post"),
+			URI.create("https://example.com/post"),
+			HttpStatus.SC_MOVED_PERMANENTLY), new RedirectChain.Redirect(URI.create("https://example.com/post"),
+			URI.create("https://example.com/posts/1"),
+			HttpStatus.SC_PERMANENT_REDIRECT)));
+
+		assertThat(permanentRedirectCache.resolve(URI.create("http://example.com/post"))).isEqualTo(URI.create(
+			"https://example.com/posts/1"));
+		assertThat(permanentRedirectCache.resolve(URI.create("https://example.com/other"))).isEqualTo(URI.create(
+			"https://example.com/other"));
+		assertThat(permanentRedirectCache.getStats()).isEqualTo(new CacheStats(1, 1, 2));
+	}
+
+	@Test
+	@DisplayName("#putAll does not cache temporary redirects")
+	void putAllIgnoresTemporaryRedirects() {
+		permanentRedirectCache.putAll(chain(new RedirectChain.Redirect(URI.create("https://example.com/post"),
+			URI.create("https://example.com/moved"),
+			HttpStatus.SC_MOVED_PERMANENTLY)));
+		permanentRedirectCache.putAll(chain(new RedirectChain.Redirect(URI.create("https://example.com/post"),
+			URI.create("https://example.com/login"),
+			HttpStatus.SC_TEMPORARY_REDIRECT)));
+
+		assertThat(permanentRedirectCache.resolve(URI.create("https://example.com/post"))).isEqualTo(URI.create(
+			"https://example.com/post"));
+	}
+
+	@Test
+	@DisplayName("#resolve stops at redirect loops")
+	void resolveStopsAtLoops() {
+		permanentRedirectCache.putAll(chain(new RedirectChain.Redirect(URI.create("https://example.com/a"),
+			URI.create("https://example.com/b"),
+			HttpStatus.SC_MOVED_PERMANENTLY), new RedirectChain.Redirect(URI.create("https://example.com/b"),
+			URI.create("https://example.com/a"),
+			HttpStatus.SC_MOVED_PERMANENTLY)));
+
+		assertThat(permanentRedirectCache.resolve(URI.create("https://example.com/a"))).isEqualTo(URI.create(
+			"https://example.com/b"));
+	}
+
+	private static RedirectChain chain(RedirectChain.Redirect... redirects) {
+		RedirectChain redirectChain = RedirectChain.attach(new BasicHttpContext());
+		for (RedirectChain.Redirect redirect : redirects) {
+			redirectChain.add(redirect);
+		}
+		return redirectChain;
+	}
+}
@@ -0,0 +1,147 @@
+package dev.rilling.webmention4j.client.internal;
+
+import dev.rilling.webmention4j.client.CircuitOpenException;
+import dev.rilling.webmention4j.common.HttpStatusException;
+import org.apache.hc.core5.http.HttpStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RetrySchedulerTest {
+
+	static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+	final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+	@AfterEach
+	void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	@DisplayName("#isRetryable is true for connect errors and overload responses")
+	void isRetryable() {
+		assertThat(RetryScheduler.isRetryable(new ConnectException())).isTrue();
+		assertThat(RetryScheduler.isRetryable(statusException(HttpStatus.SC_TOO_MANY_REQUESTS, null))).isTrue();
+		assertThat(RetryScheduler.isRetryable(statusException(HttpStatus.SC_BAD_GATEWAY, null))).isTrue();
+		assertThat(RetryScheduler.isRetryable(statusException(HttpStatus.SC_SERVICE_UNAVAILABLE, null))).isTrue();
+		assertThat(RetryScheduler.isRetryable(statusException(HttpStatus.SC_GATEWAY_TIMEOUT, null))).isTrue();
+		assertThat(RetryScheduler.isRetryable(new CircuitOpenException("example.com", Duration.ofMinutes(1)))).isTrue();
+
+		assertThat(RetryScheduler.isRetryable(statusException(HttpStatus.SC_BAD_REQUEST, null))).isFalse();
+		assertThat(RetryScheduler.isRetryable(statusException(HttpStatus.SC_NOT_FOUND, null))).isFalse();
+		assertThat(RetryScheduler.isRetryable(statusException(HttpStatus.SC_INTERNAL_SERVER_ERROR, null))).isFalse();
+		assertThat(RetryScheduler.isRetryable(new UnknownHostException())).isFalse();
+		assertThat(RetryScheduler.isRetryable(new IOException())).isFalse();
+	}
+
+	@Test
+	@DisplayName("#getRetryDelay backs off exponentially with jitter")
+	void getRetryDelayBackoff() {
+		RetryScheduler minJitter = new RetryScheduler(executor, 10, Duration.ofSeconds(1), Duration.ofSeconds(30), () -> 0);
+		RetryScheduler maxJitter = new RetryScheduler(executor, 10, Duration.ofSeconds(1), Duration.ofSeconds(30), () -> 1);
+		ConnectException failure = new ConnectException();
+
+		assertThat(minJitter.getRetryDelay(0, failure)).contains(Duration.ofMillis(500));
+		assertThat(maxJitter.getRetryDelay(0, failure)).contains(Duration.ofSeconds(1));
+		assertThat(minJitter.getRetryDelay(3, failure)).contains(Duration.ofSeconds(4));
+		assertThat(maxJitter.getRetryDelay(3, failure)).contains(Duration.ofSeconds(8));
+		assertThat(maxJitter.getRetryDelay(10, failure)).contains(Duration.ofSeconds(30));
+		assertThat(maxJitter.getRetryDelay(100, failure)).contains(Duration.ofSeconds(30));
+	}
+
+	@Test
+	@DisplayName("#getRetryDelay honors Retry-After")
+	void getRetryDelayRetryAfter() {
+		RetryScheduler retryScheduler = new RetryScheduler(executor, 10, Duration.ofSeconds(1), Duration.ofSeconds(30), () -> 1);
+
+		assertThat(retryScheduler.getRetryDelay(0,
+			statusException(HttpStatus.SC_TOO_MANY_REQUESTS, Duration.ofSeconds(10)))).contains(Duration.ofSeconds(10));
+		// Backoff is longer.
+		assertThat(retryScheduler.getRetryDelay(4,
+			statusException(HttpStatus.SC_TOO_MANY_REQUESTS, Duration.ofSeconds(10)))).contains(Duration.ofSeconds(16));
+		// Longer than allowed.
+		assertThat(retryScheduler.getRetryDelay(0,
+			statusException(HttpStatus.SC_TOO_MANY_REQUESTS, Duration.ofMinutes(1)))).isEmpty();
+		// Not retryable.
+		assertThat(retryScheduler.getRetryDelay(0,
+			statusException(HttpStatus.SC_NOT_FOUND, Duration.ofSeconds(1)))).isEmpty();
+		// Waits until the circuit is half-open.
+		assertThat(retryScheduler.getRetryDelay(0,
+			new CircuitOpenException("example.com", Duration.ofSeconds(20)))).contains(Duration.ofSeconds(20));
+	}
+
+	@Test
+	@DisplayName("#execute retries until the task succeeds")
+	void executeRetries() {
+		RetryScheduler retryScheduler = new RetryScheduler(executor, 3, Duration.ofMillis(10), Duration.ofSeconds(1));
+		AtomicInteger attempts = new AtomicInteger();
+
+		CompletableFuture<String> result = retryScheduler.execute(() -> {
+			if (attempts.incrementAndGet() < 3) {
+				return CompletableFuture.failedFuture(statusException(HttpStatus.SC_SERVICE_UNAVAILABLE, null));
+			}
+			return CompletableFuture.completedFuture("foo");
+		});
+
+		assertThat(result).succeedsWithin(TIMEOUT).isEqualTo("foo");
+		assertThat(attempts).hasValue(3);
+	}
+
+	@Test
+	@DisplayName("#execute gives up after the maximum number of retries")
+	void executeGivesUp() {
+		RetryScheduler retryScheduler = new RetryScheduler(executor, 2, Duration.ofMillis(10), Duration.ofSeconds(1));
+		AtomicInteger attempts = new AtomicInteger();
+
+		CompletableFuture<String> result = retryScheduler.execute(() -> {
+			attempts.incrementAndGet();
+			return CompletableFuture.failedFuture(new ConnectException());
+		});
+
+		assertThat(result).failsWithin(TIMEOUT).withThrowableThat().havingCause().isInstanceOf(ConnectException.class);
+		assertThat(attempts).hasValue(3);
+	}
+
+	@Test
+	@DisplayName("#execute does not retry permanent failures")
+	void executeDoesNotRetryPermanent() {
+		RetryScheduler retryScheduler = new RetryScheduler(executor, 3, Duration.ofMillis(10), Duration.ofSeconds(1));
+		AtomicInteger attempts = new AtomicInteger();
+
+		CompletableFuture<String> result = retryScheduler.execute(() -> {
+			attempts.incrementAndGet();
+			return CompletableFuture.failedFuture(statusException(HttpStatus.SC_NOT_FOUND, null));
+		});
+
+		assertThat(result).failsWithin(TIMEOUT).withThrowableThat().havingCause().isInstanceOf(HttpStatusException.class);
+		assertThat(attempts).hasValue(1);
+	}
+
+	@Test
+	@DisplayName("#failPendingRetries fails tasks waiting for a retry")
+	void failPendingRetries() {
+		RetryScheduler retryScheduler = new RetryScheduler(executor, 3, Duration.ofHours(1), Duration.ofHours(1));
+
+		CompletableFuture<String> result = retryScheduler.execute(() -> CompletableFuture.failedFuture(new ConnectException()));
+		assertThat(result).isNotDone();
+
+		retryScheduler.failPendingRetries();
+		assertThat(result).failsWithin(TIMEOUT).withThrowableThat().havingCause().isInstanceOf(ConnectException.class);
+	}
+
+	private static HttpStatusException statusException(int statusCode, Duration retryAfter) {
+		return new HttpStatusException("Request failed: " + statusCode, statusCode, retryAfter);
+	}
+}
@@ -0,0 +1,124 @@
+package dev.rilling.webmention4j.client.internal;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+	static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+	final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+	@Test
+	@DisplayName("#execute shares a running execution with concurrent callers")
+	void executeCoalesces() throws Exception {
+		AtomicInteger callCount = new AtomicInteger();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executorService = Executors.newSingleThreadExecutor();
+		try {
+			Future<String> first = executorService.submit(() -> singleFlight.execute("key", () -> {
+				callCount.incrementAndGet();
+				started.countDown();
+				release.await();
+				return "result";
+			}));
+			started.await();
+
+			CompletableFuture<String> second = new CompletableFuture<>();
+			Thread secondThread = new Thread(() -> {
+				try {
+					second.complete(singleFlight.execute("key", () -> {
+						callCount.incrementAndGet();
+						return "other";
+					}));
+				} catch (IOException e) {
+					second.completeExceptionally(e);
+				}
+			});
+			secondThread.start();
+			// Wait until the second caller waits for the first one.
+			while (secondThread.getState() != Thread.State.WAITING) {
+				Thread.onSpinWait();
+			}
+			release.countDown();
+
+			assertThat(first.get()).isEqualTo("result");
+			assertThat(second).succeedsWithin(TIMEOUT).isEqualTo("result");
+			assertThat(callCount).hasValue(1);
+			assertThat(singleFlight.getInFlightCount()).isZero();
+		} finally {
+			executorService.shutdownNow();
+		}
+	}
+
+	@Test
+	@DisplayName("#execute runs again once the previous execution completed")
+	void executeDoesNotCache() throws Exception {
+		AtomicInteger callCount = new AtomicInteger();
+
+		assertThat(singleFlight.execute("key", () -> "result" + callCount.incrementAndGet())).isEqualTo("result1");
+		assertThat(singleFlight.execute("key", () -> "result" + callCount.incrementAndGet())).isEqualTo("result2");
+	}
+
+	@Test
+	@DisplayName("#execute rethrows failure")
+	void executeFails() {
+		assertThatThrownBy(() -> singleFlight.execute("key", () -> {
+			throw new IOException("Oh no!");
+		})).isInstanceOf(IOException.class).hasMessage("Oh no!");
+		assertThat(singleFlight.getInFlightCount()).isZero();
+	}
+
+	@Test
+	@DisplayName("#executeAsync shares a running execution with concurrent callers")
+	void executeAsyncCoalesces() {
+		AtomicInteger callCount = new AtomicInteger();
+		CompletableFuture<String> operation = new CompletableFuture<>();
+
+		CompletableFuture<String> first = singleFlight.executeAsync("key", () -> {
+			callCount.incrementAndGet();
+			return operation;
+		});
+		CompletableFuture<String> second = singleFlight.executeAsync("key", () -> {
+			callCount.incrementAndGet();
+			return CompletableFuture.completedFuture("other");
+		});
+		CompletableFuture<String> otherKey = singleFlight.executeAsync("other-key",
+			() -> CompletableFuture.completedFuture("other"));
+		assertThat(otherKey).isCompletedWithValue("other");
+
+		// Cancelling one caller does not affect the others.
+		first.cancel(false);
+		operation.complete("result");
+
+		assertThat(second).isCompletedWithValue("result");
+		assertThat(callCount).hasValue(1);
+		assertThat(singleFlight.getInFlightCount()).isZero();
+	}
+
+	@Test
+	@DisplayName("#executeAsync shares failure")
+	void executeAsyncFails() {
+		CompletableFuture<String> operation = new CompletableFuture<>();
+
+		CompletableFuture<String> first = singleFlight.executeAsync("key", () -> operation);
+		CompletableFuture<String> second = singleFlight.executeAsync("key", () -> operation);
+		operation.completeExceptionally(new IOException("Oh no!"));
+
+		assertThat(first).failsWithin(TIMEOUT).withThrowableThat().havingCause().isInstanceOf(IOException.class);
+		assertThat(second).failsWithin(TIMEOUT).withThrowableThat().havingCause().isInstanceOf(IOException.class);
+	}
+}
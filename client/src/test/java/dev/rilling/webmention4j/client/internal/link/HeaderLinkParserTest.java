@@ -29,6 +29,21 @@ class HeaderLinkParserTest {
 		}
 	}
 
+	@Test
+	@DisplayName("#parse gets links from multiple headers")
+	void parseGetsLinksFromMultipleHeaders() throws IOException {
+		try (ClassicHttpResponse response = new BasicClassicHttpResponse(HttpStatus.SC_OK)) {
+			response.addHeader(HttpHeaders.LINK,
+				"<http://aaronpk.example/other>; rel=\"other\", <http://aaronpk.example/webmention-endpoint1>; rel=\"webmention\"");
+			response.addHeader(HttpHeaders.LINK, "<http://aaronpk.example/webmention-endpoint2>; rel=\"webmention\"");
+
+			assertThat(headerLinkParser.parse(URI.create("https://example.com"), response)).containsExactly(new Link(URI.create(
+					"http://aaronpk.example/other"), Set.of("other")),
+				new Link(URI.create("http://aaronpk.example/webmention-endpoint1"), Set.of("webmention")),
+				new Link(URI.create("http://aaronpk.example/webmention-endpoint2"), Set.of("webmention")));
+		}
+	}
+
 	@Test
 	@DisplayName("#parse wraps exceptions for invalid header formats")
 	void parseHandlesInvalidHeader() throws IOException {
@@ -85,4 +85,72 @@ class HtmlLinkParserTest {
 		}
 	}
 
+	@Test
+	@DisplayName("#findFirst gets first matching link in document order")
+	void findFirstGetsFirstLink() throws IOException {
+		try (ClassicHttpResponse response = new BasicClassicHttpResponse(HttpStatus.SC_OK)) {
+			response.setHeader(HttpHeaders.CONTENT_TYPE, ContentType.TEXT_HTML.toString());
+			response.setEntity(new StringEntity("""
+				<html lang="en">
+				<head>
+					<title>Foo</title>
+					<link href="http://aaronpk.example/stylesheet" rel="stylesheet" />
+				</head>
+				<body>
+					<a href="http://aaronpk.example/webmention-endpoint1" rel="webmention">
+						<span>webmention</span>
+						<a href="http://aaronpk.example/webmention-endpoint2" rel="webmention">webmention</a>
+					</a>
+					<a href="http://aaronpk.example/webmention-endpoint3" rel="webmention">webmention</a>
+				</body>
+				</html>""", StandardCharsets.UTF_8));
+
+			assertThat(htmlLinkParser.findFirst(URI.create("https://example.com"),
+				response,
+				link -> link.rel().contains("webmention"))).contains(new Link(URI.create(
+				"http://aaronpk.example/webmention-endpoint1"), Set.of("webmention")));
+		}
+	}
+
+	@Test
+	@DisplayName("#findFirst considers outer element first")
+	void findFirstConsidersOuterElement() throws IOException {
+		try (ClassicHttpResponse response = new BasicClassicHttpResponse(HttpStatus.SC_OK)) {
+			response.setHeader(HttpHeaders.CONTENT_TYPE, ContentType.TEXT_HTML.toString());
+			// The inner element is closed, and therefore emitted by the parser, first.
+			response.setEntity(new StringEntity("""
+				<html lang="en">
+				<body>
+					<a href="http://aaronpk.example/webmention-endpoint1" rel="webmention">
+						<link href="http://aaronpk.example/webmention-endpoint2" rel="webmention" />
+					</a>
+				</body>
+				</html>""", StandardCharsets.UTF_8));
+
+			assertThat(htmlLinkParser.findFirst(URI.create("https://example.com"),
+				response,
+				link -> link.rel().contains("webmention"))).contains(new Link(URI.create(
+				"http://aaronpk.example/webmention-endpoint1"), Set.of("webmention")));
+		}
+	}
+
+	@Test
+	@DisplayName("#findFirst does not read beyond maximum body size")
+	void findFirstRespectsMaxBodySize() throws IOException {
+		HtmlLinkParser limitedHtmlLinkParser = new HtmlLinkParser(1024);
+		try (ClassicHttpResponse response = new BasicClassicHttpResponse(HttpStatus.SC_OK)) {
+			response.setHeader(HttpHeaders.CONTENT_TYPE, ContentType.TEXT_HTML.toString());
+			response.setEntity(new StringEntity("""
+				<html lang="en">
+				<body>
+					<p>%s</p>
+					<a href="http://aaronpk.example/webmention-endpoint" rel="webmention">webmention</a>
+				</body>
+				</html>""".formatted("a".repeat(2048)), StandardCharsets.UTF_8));
+
+			assertThat(limitedHtmlLinkParser.findFirst(URI.create("https://example.com"),
+				response,
+				link -> link.rel().contains("webmention"))).isEmpty();
+		}
+	}
 }
@@ -0,0 +1,92 @@
+package dev.rilling.webmention4j.client.internal.link;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.Set;
+
+import static dev.rilling.webmention4j.client.internal.link.LinkValueParser.createLink;
+import static dev.rilling.webmention4j.client.internal.link.LinkValueParser.parseHeaderValue;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LinkValueParserTest {
+
+	static final URI BASE = URI.create("https://example.com/foo/bar");
+
+	@Test
+	@DisplayName("#parseHeaderValue parses single link")
+	void parseHeaderValueSingle() {
+		assertThat(parseHeaderValue(BASE, "<https://example.com/webmention>; rel=\"webmention\"")).containsExactly(new Link(
+			URI.create("https://example.com/webmention"),
+			Set.of("webmention")));
+		assertThat(parseHeaderValue(BASE, "<https://example.com/webmention>;rel=webmention")).containsExactly(new Link(
+			URI.create("https://example.com/webmention"),
+			Set.of("webmention")));
+	}
+
+	@Test
+	@DisplayName("#parseHeaderValue parses multiple links in order")
+	void parseHeaderValueMultiple() {
+		assertThat(parseHeaderValue(BASE,
+			"<https://example.com/a,b>; rel=\"other\"; title=\"a, b; c\", <https://example.com/webmention>; rel=\"webmention\"")).containsExactly(
+			new Link(URI.create("https://example.com/a,b"), Set.of("other")),
+			new Link(URI.create("https://example.com/webmention"), Set.of("webmention")));
+	}
+
+	@Test
+	@DisplayName("#parseHeaderValue parses multiple relation types")
+	void parseHeaderValueMultipleRel() {
+		assertThat(parseHeaderValue(BASE, "<https://example.com/webmention>; rel=\"Webmention  somethingelse\"")).containsExactly(
+			new Link(URI.create("https://example.com/webmention"), Set.of("webmention", "somethingelse")));
+	}
+
+	@Test
+	@DisplayName("#parseHeaderValue uses only first rel parameter")
+	void parseHeaderValueFirstRel() {
+		assertThat(parseHeaderValue(BASE, "<https://example.com/webmention>; rel=\"webmention\"; rel=\"other\"")).containsExactly(
+			new Link(URI.create("https://example.com/webmention"), Set.of("webmention")));
+		assertThat(parseHeaderValue(BASE, "<https://example.com/webmention>; anchor=\"#foo\"")).containsExactly(new Link(
+			URI.create("https://example.com/webmention"),
+			Set.of()));
+	}
+
+	@Test
+	@DisplayName("#parseHeaderValue unescapes quoted strings")
+	void parseHeaderValueEscapes() {
+		assertThat(parseHeaderValue(BASE, "<https://example.com/webmention>; title=\"a \\\"quoted\\\" title\"; rel=webmention")).containsExactly(
+			new Link(URI.create("https://example.com/webmention"), Set.of("webmention")));
+	}
+
+	@Test
+	@DisplayName("#parseHeaderValue resolves relative links")
+	void parseHeaderValueRelative() {
+		assertThat(parseHeaderValue(BASE, "</webmention>; rel=webmention, <webmention?a=b>; rel=webmention")).containsExactly(
+			new Link(URI.create("https://example.com/webmention"), Set.of("webmention")),
+			new Link(URI.create("https://example.com/foo/webmention?a=b"), Set.of("webmention")));
+	}
+
+	@Test
+	@DisplayName("#parseHeaderValue throws for invalid values")
+	void parseHeaderValueInvalid() {
+		assertThatThrownBy(() -> parseHeaderValue(BASE, "huh? this looks wrong.")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> parseHeaderValue(BASE, "<https://example.com/webmention; rel=webmention")).isInstanceOf(
+			IllegalArgumentException.class);
+		assertThatThrownBy(() -> parseHeaderValue(BASE, "<https://example.com/webmention>; rel=\"webmention")).isInstanceOf(
+			IllegalArgumentException.class);
+		assertThatThrownBy(() -> parseHeaderValue(BASE, "<huh? this looks wrong.>; rel=webmention")).isInstanceOf(
+			IllegalArgumentException.class);
+	}
+
+	@Test
+	@DisplayName("#createLink resolves relative links")
+	void createLinkRelative() {
+		assertThat(createLink(URI.create("https://example.com"), "webmention", "webmention")).isEqualTo(new Link(URI.create(
+			"https://example.com/webmention"), Set.of("webmention")));
+		assertThat(createLink(URI.create("https://example.com/foo?bar#baz"), "", "webmention")).isEqualTo(new Link(URI.create(
+			"https://example.com/foo?bar"), Set.of("webmention")));
+		assertThat(createLink(BASE, " https://example.org/webmention ", null)).isEqualTo(new Link(URI.create(
+			"https://example.org/webmention"), Set.of()));
+	}
+}
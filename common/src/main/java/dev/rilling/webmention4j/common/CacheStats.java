@@ -0,0 +1,30 @@
+package dev.rilling.webmention4j.common;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Statistics of a cache, e.g. to help with sizing it.
+ *
+ * @param hitCount  Number of lookups that were answered from the cache.
+ * @param missCount Number of lookups that were not answered from the cache, including expired entries.
+ * @param size      Number of entries currently held, which may include expired entries not yet removed.
+ */
+public record CacheStats(long hitCount, long missCount, int size) {
+
+	/**
+	 * @return Ratio of lookups answered from the cache, or {@code 0} if no lookups happened yet.
+	 */
+	public double hitRate() {
+		long requestCount = hitCount + missCount;
+		return requestCount == 0 ? 0 : (double) hitCount / requestCount;
+	}
+
+	/**
+	 * @param other Statistics of another cache.
+	 * @return Statistics of both caches taken together.
+	 */
+	@NotNull
+	public CacheStats plus(@NotNull CacheStats other) {
+		return new CacheStats(hitCount + other.hitCount, missCount + other.missCount, size + other.size);
+	}
+}
@@ -0,0 +1,48 @@
+package dev.rilling.webmention4j.common;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Thrown if a server responded with a non-successful status code.
+ */
+public class HttpStatusException extends IOException {
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	private final int statusCode;
+	private final transient Duration retryAfter;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param message    Message.
+	 * @param statusCode Status code of the response.
+	 * @param retryAfter Time to wait before retrying as requested by the server, if any.
+	 */
+	public HttpStatusException(@NotNull String message, int statusCode, @Nullable Duration retryAfter) {
+		super(message);
+		this.statusCode = statusCode;
+		this.retryAfter = retryAfter;
+	}
+
+	/**
+	 * @return Status code of the response.
+	 */
+	public int getStatusCode() {
+		return statusCode;
+	}
+
+	/**
+	 * @return Time to wait before retrying as requested by the server using the 'Retry-After' header, if any.
+	 */
+	@NotNull
+	public Optional<Duration> getRetryAfter() {
+		return Optional.ofNullable(retryAfter);
+	}
+}
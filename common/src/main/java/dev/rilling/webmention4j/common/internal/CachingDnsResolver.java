@@ -0,0 +1,118 @@
+package dev.rilling.webmention4j.common.internal;
+
+import dev.rilling.webmention4j.common.CacheStats;
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.SystemDefaultDnsResolver;
+import org.jetbrains.annotations.NotNull;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * {@link DnsResolver} which caches resolved addresses for a fixed time-to-live, and may refuse to resolve hosts to
+ * local addresses.
+ * <p>
+ * Sharing one instance between address checks (e.g. {@link UriUtils#isLocalhost(java.net.URI, DnsResolver)}) and the
+ * connection manager means that a host is only looked up once, and that the connection is made to the addresses that
+ * were checked rather than to the result of a second lookup.
+ * <p>
+ * Failed lookups are not cached.
+ */
+public final class CachingDnsResolver implements DnsResolver {
+
+	private final DnsResolver delegate;
+	private final Duration timeToLive;
+	private final boolean rejectLocalAddresses;
+	private final ExpiringCache<String, InetAddress[]> cache;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param delegate             Resolver to look up hosts that are not cached.
+	 * @param maxSize              Maximum number of hosts to cache. {@code 0} disables caching.
+	 * @param timeToLive           How long resolved addresses are cached.
+	 * @param rejectLocalAddresses If hosts resolving to a {@link #isLocalAddress(InetAddress) local address} are
+	 *                             rejected with an {@link UnknownHostException}, preventing connections to them.
+	 * @param clock                Clock used to determine expiry.
+	 */
+	public CachingDnsResolver(@NotNull DnsResolver delegate,
+							  int maxSize,
+							  @NotNull Duration timeToLive,
+							  boolean rejectLocalAddresses,
+							  @NotNull Clock clock) {
+		this.delegate = delegate;
+		this.timeToLive = timeToLive;
+		this.rejectLocalAddresses = rejectLocalAddresses;
+		cache = new ExpiringCache<>(maxSize, clock);
+	}
+
+	/**
+	 * Creates a resolver backed by the system resolver.
+	 *
+	 * @param maxSize              Maximum number of hosts to cache. {@code 0} disables caching.
+	 * @param timeToLive           How long resolved addresses are cached.
+	 * @param rejectLocalAddresses If hosts resolving to a local address are rejected.
+	 */
+	public CachingDnsResolver(int maxSize, @NotNull Duration timeToLive, boolean rejectLocalAddresses) {
+		this(SystemDefaultDnsResolver.INSTANCE, maxSize, timeToLive, rejectLocalAddresses, Clock.systemUTC());
+	}
+
+	@Override
+	public InetAddress[] resolve(String host) throws UnknownHostException {
+		String key = host.toLowerCase(Locale.ROOT);
+		Optional<InetAddress[]> cached = cache.get(key);
+		InetAddress[] addresses;
+		if (cached.isPresent()) {
+			addresses = cached.get();
+		} else {
+			addresses = delegate.resolve(host);
+			cache.put(key, addresses, timeToLive);
+		}
+		if (rejectLocalAddresses) {
+			Optional<InetAddress> localAddress = Arrays.stream(addresses)
+				.filter(CachingDnsResolver::isLocalAddress)
+				.findFirst();
+			if (localAddress.isPresent()) {
+				throw new UnknownHostException("Host '%s' resolves to local address '%s', refusing to connect.".formatted(
+					host,
+					localAddress.get().getHostAddress()));
+			}
+		}
+		return addresses.clone();
+	}
+
+	@Override
+	public String resolveCanonicalHostname(String host) throws UnknownHostException {
+		return delegate.resolveCanonicalHostname(host);
+	}
+
+	/**
+	 * @return Statistics of the address cache.
+	 */
+	@NotNull
+	public CacheStats getStats() {
+		return cache.getStats();
+	}
+
+	/**
+	 * Checks if an address is not publicly routable, i.e. a loopback, wildcard, link-local or private address
+	 * (including IPv6 unique local addresses).
+	 *
+	 * @param address Address to check.
+	 * @return If the address is local.
+	 */
+	public static boolean isLocalAddress(@NotNull InetAddress address) {
+		if (address.isLoopbackAddress() || address.isAnyLocalAddress() || address.isLinkLocalAddress() ||
+			address.isSiteLocalAddress()) {
+			return true;
+		}
+		// fc00::/7, which InetAddress#isSiteLocalAddress does not cover.
+		return address instanceof Inet6Address && (address.getAddress()[0] & 0xFE) == 0xFC;
+	}
+}
@@ -0,0 +1,120 @@
+package dev.rilling.webmention4j.common.internal;
+
+import dev.rilling.webmention4j.common.CacheStats;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded cache whose entries expire after an individual time-to-live.
+ * <p>
+ * If the cache is full, the least recently used entry is evicted. Expired entries are removed when they are looked up
+ * or evicted. All operations are thread-safe.
+ *
+ * @param <K> Key type.
+ * @param <V> Value type.
+ */
+public final class ExpiringCache<K, V> {
+
+	private final int maxSize;
+	private final Clock clock;
+
+	private final Map<K, Entry<V>> entries;
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param maxSize Maximum number of entries. {@code 0} disables caching.
+	 * @param clock   Clock used to determine expiry.
+	 */
+	public ExpiringCache(int maxSize, @NotNull Clock clock) {
+		if (maxSize < 0) {
+			throw new IllegalArgumentException("Maximum size must not be negative.");
+		}
+		this.maxSize = maxSize;
+		this.clock = clock;
+		entries = new LinkedHashMap<>(16, 0.75F, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+				return size() > ExpiringCache.this.maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Looks up a value.
+	 *
+	 * @param key Key to look up.
+	 * @return The value, or empty if none is cached or it has expired.
+	 */
+	@NotNull
+	public Optional<V> get(@NotNull K key) {
+		Instant now = clock.instant();
+		V value = null;
+		synchronized (entries) {
+			Entry<V> entry = entries.get(key);
+			if (entry != null) {
+				if (entry.expiresAt().isAfter(now)) {
+					value = entry.value();
+				} else {
+					entries.remove(key);
+				}
+			}
+		}
+		(value != null ? hitCount : missCount).increment();
+		return Optional.ofNullable(value);
+	}
+
+	/**
+	 * Caches a value, replacing any previous value for the key.
+	 *
+	 * @param key        Key to cache the value for.
+	 * @param value      Value to cache.
+	 * @param timeToLive How long the value is valid for. If not positive, the value is not cached
+	 *                   and any previous value is removed.
+	 */
+	public void put(@NotNull K key, @NotNull V value, @NotNull Duration timeToLive) {
+		if (timeToLive.isNegative() || timeToLive.isZero()) {
+			invalidate(key);
+			return;
+		}
+		Instant expiresAt = clock.instant().plus(timeToLive);
+		synchronized (entries) {
+			entries.put(key, new Entry<>(value, expiresAt));
+		}
+	}
+
+	/**
+	 * Removes the value for the key, if one is cached.
+	 *
+	 * @param key Key to remove the value of.
+	 */
+	public void invalidate(@NotNull K key) {
+		synchronized (entries) {
+			entries.remove(key);
+		}
+	}
+
+	/**
+	 * @return Statistics of this cache.
+	 */
+	@NotNull
+	public CacheStats getStats() {
+		int size;
+		synchronized (entries) {
+			size = entries.size();
+		}
+		return new CacheStats(hitCount.sum(), missCount.sum(), size);
+	}
+
+	private record Entry<V>(V value, Instant expiresAt) {
+	}
+}
@@ -3,15 +3,22 @@ package dev.rilling.webmention4j.common.internal;
 import org.apache.hc.core5.http.ContentType;
 import org.apache.hc.core5.http.HttpEntity;
 import org.apache.hc.core5.http.MessageHeaders;
-import org.apache.hc.core5.http.ParseException;
-import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.StreamParser;
 import org.jsoup.select.Evaluator;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
 
 public final class HtmlUtils {
 
@@ -28,18 +35,49 @@ public final class HtmlUtils {
 	}
 
 	/**
+	 * The content is streamed into the parser rather than being read into a string first.
+	 *
 	 * @return The response as a HTML document.
 	 * @see #isHtml(MessageHeaders)
 	 */
 	@NotNull
 	public static Document parse(@NotNull HttpEntity entity) throws IOException {
-		try {
-			return Jsoup.parse(EntityUtils.toString(entity));
-		} catch (ParseException e) {
-			throw new IOException("Could not parse body.", e);
+		try (InputStream content = entity.getContent()) {
+			return Jsoup.parse(content, getCharset(entity).name(), "");
 		}
 	}
 
+	/**
+	 * Starts a progressive parse of the response, allowing callers to stop once they found what they are looking for.
+	 * The caller is responsible for closing the returned parser. This does not close the entity content, so that the
+	 * caller can decide what happens with the unread rest.
+	 *
+	 * @param entity    Entity to parse.
+	 * @param maxLength Maximum number of bytes to read. Any content beyond is ignored.
+	 * @return A parser emitting elements once they are complete.
+	 * @see #isHtml(MessageHeaders)
+	 */
+	@NotNull
+	public static StreamParser parseStreaming(@NotNull HttpEntity entity, long maxLength) throws IOException {
+		Charset charset = getCharset(entity);
+		InputStream content = new FilterInputStream(entity.getContent()) {
+			@Override
+			public void close() {
+				// Left to the caller.
+			}
+		};
+		Reader reader = new InputStreamReader(new LimitedInputStream(content, maxLength), charset);
+		return new StreamParser(Parser.htmlParser()).parse(reader, "");
+	}
+
+	private static Charset getCharset(HttpEntity entity) {
+		// Same default as EntityUtils#toString
+		return Optional.ofNullable(entity.getContentType())
+			.map(ContentType::parseLenient)
+			.map(contentType -> contentType.getCharset(StandardCharsets.ISO_8859_1))
+			.orElse(StandardCharsets.ISO_8859_1);
+	}
+
 	/**
 	 * Filters for HTML elements that are link-like.
 	 * This includes:
@@ -1,16 +1,53 @@
 package dev.rilling.webmention4j.common.internal;
 
+import dev.rilling.webmention4j.common.HttpStatusException;
+import org.apache.hc.client5.http.async.methods.SimpleBody;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestProducer;
+import org.apache.hc.client5.http.async.methods.SimpleResponseConsumer;
+import org.apache.hc.client5.http.entity.DecompressingEntity;
+import org.apache.hc.client5.http.entity.DeflateInputStreamFactory;
+import org.apache.hc.client5.http.entity.GZIPInputStreamFactory;
+import org.apache.hc.client5.http.entity.InputStreamFactory;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.client5.http.utils.DateUtils;
+import org.apache.hc.core5.concurrent.FutureCallback;
 import org.apache.hc.core5.http.*;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
+import org.apache.hc.core5.http.message.MessageSupport;
+import org.apache.hc.core5.http.nio.AsyncResponseConsumer;
+import org.apache.hc.core5.http.protocol.HttpContext;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
 
 public final class HttpUtils {
 
+	/**
+	 * Content codings which {@link #toClassicResponse(SimpleHttpResponse)} is able to decode, to be used as the
+	 * 'Accept-Encoding' of async requests. The classic client negotiates and decodes the same codings on its own.
+	 */
+	public static final String ACCEPT_ENCODING = "gzip, x-gzip, deflate";
+
+	/**
+	 * Error bodies only end up in exception messages, so there is no need to read huge ones fully.
+	 */
+	private static final int MAX_ERROR_BODY_SIZE = 4 * 1024;
+
 	private HttpUtils() {
 	}
 
@@ -19,7 +56,8 @@ public final class HttpUtils {
 	 * Validates that the response has a 2xx status code.
 	 *
 	 * @param response Response to check.
-	 * @throws IOException if the response has a non-2xx status code.
+	 * @throws HttpStatusException if the response has a non-2xx status code.
+	 * @throws IOException         if I/O fails.
 	 */
 	public static void validateResponse(@NotNull ClassicHttpResponse response) throws IOException {
 		// See AbstractHttpClientResponseHandler
@@ -29,12 +67,14 @@ public final class HttpUtils {
 				body = "<no body>";
 			} else {
 				try {
-					body = EntityUtils.toString(response.getEntity());
+					body = EntityUtils.toString(response.getEntity(), MAX_ERROR_BODY_SIZE);
 				} catch (ParseException ignored) {
 					body = "<parsing of body failed>";
 				}
 			}
-			throw new IOException("Request failed: %d - %s:%n%s".formatted(response.getCode(), response.getReasonPhrase(), body));
+			throw new HttpStatusException("Request failed: %d - %s:%n%s".formatted(response.getCode(),
+				response.getReasonPhrase(),
+				body), response.getCode(), getRetryAfter(response, Instant.now()).orElse(null));
 		}
 	}
 
@@ -64,6 +104,205 @@ public final class HttpUtils {
 		}
 	}
 
+	/**
+	 * Determines how long a response may be reused for based on its 'Cache-Control' and 'Expires' headers,
+	 * following the rules for a private cache.
+	 *
+	 * @param response Response to check.
+	 * @param now      Current time, used if the response has no 'Date' header.
+	 * @return The freshness lifetime, which is zero if the response must not be reused,
+	 * or empty if the response does not specify one.
+	 */
+	// Spec: https://www.rfc-editor.org/rfc/rfc9111#section-4.2.1
+	@NotNull
+	public static Optional<Duration> getFreshnessLifetime(@NotNull HttpResponse response, @NotNull Instant now) {
+		Iterator<HeaderElement> cacheControlIterator = MessageSupport.iterate(response, HttpHeaders.CACHE_CONTROL);
+		Duration maxAge = null;
+		while (cacheControlIterator.hasNext()) {
+			HeaderElement directive = cacheControlIterator.next();
+			String name = directive.getName().toLowerCase(Locale.ROOT);
+			if (name.equals("no-store") || name.equals("no-cache")) {
+				return Optional.of(Duration.ZERO);
+			}
+			if (name.equals("max-age") && maxAge == null) {
+				try {
+					maxAge = Duration.ofSeconds(Math.max(0, Long.parseLong(directive.getValue())));
+				} catch (NumberFormatException ignored) {
+					// Spec: 'a cache ought to consider [an invalid value] as stale'
+					maxAge = Duration.ZERO;
+				}
+			}
+		}
+		if (maxAge != null) {
+			return Optional.of(maxAge);
+		}
+
+		if (response.containsHeader(HttpHeaders.EXPIRES)) {
+			Instant expires = DateUtils.parseStandardDate(response, HttpHeaders.EXPIRES);
+			if (expires == null) {
+				// Spec: 'A cache recipient MUST interpret invalid date formats [...] as representing a time in the past'
+				return Optional.of(Duration.ZERO);
+			}
+			Instant date = Objects.requireNonNullElse(DateUtils.parseStandardDate(response, HttpHeaders.DATE), now);
+			Duration lifetime = Duration.between(date, expires);
+			return Optional.of(lifetime.isNegative() ? Duration.ZERO : lifetime);
+		}
+
+		return Optional.empty();
+	}
+
+	/**
+	 * Determines how long to wait before retrying based on the 'Retry-After' header.
+	 *
+	 * @param response Response to check.
+	 * @param now      Current time, used if the response has no 'Date' header.
+	 * @return The time to wait, or empty if the response does not specify a valid one.
+	 */
+	// Spec: https://www.rfc-editor.org/rfc/rfc9110#section-10.2.3
+	@NotNull
+	public static Optional<Duration> getRetryAfter(@NotNull HttpResponse response, @NotNull Instant now) {
+		Header retryAfterHeader = response.getFirstHeader(HttpHeaders.RETRY_AFTER);
+		if (retryAfterHeader == null || retryAfterHeader.getValue() == null) {
+			return Optional.empty();
+		}
+
+		String value = retryAfterHeader.getValue().trim();
+		if (!value.isEmpty() && value.chars().allMatch(Character::isDigit)) {
+			try {
+				return Optional.of(Duration.ofSeconds(Long.parseLong(value)));
+			} catch (NumberFormatException ignored) {
+				// Too large to be meaningful.
+				return Optional.empty();
+			}
+		}
+		Instant retryAt = DateUtils.parseStandardDate(value);
+		if (retryAt == null) {
+			return Optional.empty();
+		}
+		Instant date = Objects.requireNonNullElse(DateUtils.parseStandardDate(response, HttpHeaders.DATE), now);
+		Duration retryAfter = Duration.between(date, retryAt);
+		return Optional.of(retryAfter.isNegative() ? Duration.ZERO : retryAfter);
+	}
+
+	/**
+	 * Executes a request asynchronously.
+	 * Cancelling the returned future cancels the request.
+	 *
+	 * @param httpClient Started HTTP client.
+	 * @param request    Request to execute.
+	 * @return Future of the fully buffered response.
+	 */
+	@NotNull
+	public static CompletableFuture<SimpleHttpResponse> execute(@NotNull CloseableHttpAsyncClient httpClient,
+																@NotNull SimpleHttpRequest request) {
+		return execute(httpClient, request, HttpClientContext.create());
+	}
+
+	/**
+	 * Executes a request asynchronously.
+	 * Cancelling the returned future cancels the request.
+	 *
+	 * @param httpClient Started HTTP client.
+	 * @param request    Request to execute.
+	 * @param context    Context to execute the request with.
+	 * @return Future of the fully buffered response.
+	 */
+	@NotNull
+	public static CompletableFuture<SimpleHttpResponse> execute(@NotNull CloseableHttpAsyncClient httpClient,
+																@NotNull SimpleHttpRequest request,
+																@NotNull HttpContext context) {
+		return execute(httpClient, request, SimpleResponseConsumer.create(), context);
+	}
+
+	/**
+	 * Executes a request asynchronously, buffering at most a maximum number of bytes of the response body.
+	 * Cancelling the returned future cancels the request.
+	 *
+	 * @param httpClient  Started HTTP client.
+	 * @param request     Request to execute.
+	 * @param context     Context to execute the request with.
+	 * @param maxBodySize Maximum number of bytes of the body to buffer. Bytes after that are not transferred.
+	 * @return Future of the response, with the body cut off after the maximum number of bytes.
+	 */
+	@NotNull
+	public static CompletableFuture<SimpleHttpResponse> execute(@NotNull CloseableHttpAsyncClient httpClient,
+																@NotNull SimpleHttpRequest request,
+																@NotNull HttpContext context,
+																long maxBodySize) {
+		return execute(httpClient, request, new LimitedResponseConsumer(maxBodySize), context);
+	}
+
+	private static CompletableFuture<SimpleHttpResponse> execute(CloseableHttpAsyncClient httpClient,
+																 SimpleHttpRequest request,
+																 AsyncResponseConsumer<SimpleHttpResponse> responseConsumer,
+																 HttpContext context) {
+		CompletableFuture<SimpleHttpResponse> result = new CompletableFuture<>();
+		Future<SimpleHttpResponse> requestFuture = httpClient.execute(SimpleRequestProducer.create(request),
+			responseConsumer,
+			context,
+			new FutureCallback<>() {
+				@Override
+				public void completed(SimpleHttpResponse response) {
+					result.complete(response);
+				}
+
+				@Override
+				public void failed(Exception ex) {
+					result.completeExceptionally(ex);
+				}
+
+				@Override
+				public void cancelled() {
+					result.cancel(false);
+				}
+			});
+		result.whenComplete((response, throwable) -> {
+			if (result.isCancelled()) {
+				requestFuture.cancel(true);
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Adapts a buffered async response to the classic API, allowing it to be processed by the same code.
+	 * <p>
+	 * A body compressed with one of the codings in {@link #ACCEPT_ENCODING} is decompressed while it is read, so callers
+	 * limiting how much of the body they read also limit how much is decompressed.
+	 */
+	@NotNull
+	public static ClassicHttpResponse toClassicResponse(@NotNull SimpleHttpResponse response) {
+		BasicClassicHttpResponse classicResponse = new BasicClassicHttpResponse(response.getCode(),
+			response.getReasonPhrase());
+		classicResponse.setVersion(response.getVersion());
+		classicResponse.setHeaders(response.getHeaders());
+		SimpleBody body = response.getBody();
+		if (body != null) {
+			HttpEntity entity = new ByteArrayEntity(body.getBodyBytes(), body.getContentType());
+			Header contentEncoding = response.getFirstHeader(HttpHeaders.CONTENT_ENCODING);
+			Optional<InputStreamFactory> decoder = contentEncoding != null ?
+				findDecoder(contentEncoding.getValue()) :
+				Optional.empty();
+			if (decoder.isPresent()) {
+				// Same as ContentCompressionExec of the classic client.
+				entity = new DecompressingEntity(entity, decoder.get());
+				classicResponse.removeHeaders(HttpHeaders.CONTENT_LENGTH);
+				classicResponse.removeHeaders(HttpHeaders.CONTENT_ENCODING);
+				classicResponse.removeHeaders(HttpHeaders.CONTENT_MD5);
+			}
+			classicResponse.setEntity(entity);
+		}
+		return classicResponse;
+	}
+
+	private static Optional<InputStreamFactory> findDecoder(String contentEncoding) {
+		return switch (contentEncoding.trim().toLowerCase(Locale.ROOT)) {
+			case "gzip", "x-gzip" -> Optional.of(GZIPInputStreamFactory.getInstance());
+			case "deflate" -> Optional.of(DeflateInputStreamFactory.getInstance());
+			default -> Optional.empty();
+		};
+	}
+
 	/**
 	 * Creates a user-agent string for the given name and the version associated with the given package.
 	 *
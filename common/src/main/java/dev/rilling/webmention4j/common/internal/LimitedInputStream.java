@@ -0,0 +1,80 @@
+package dev.rilling.webmention4j.common.internal;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream which ends once a maximum number of bytes was read, regardless of how much the wrapped stream has left.
+ */
+public final class LimitedInputStream extends FilterInputStream {
+
+	private long remaining;
+	private boolean limitReached = false;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param in        Stream to read from.
+	 * @param maxLength Maximum number of bytes to read.
+	 */
+	public LimitedInputStream(@NotNull InputStream in, long maxLength) {
+		super(in);
+		remaining = maxLength;
+	}
+
+	/**
+	 * @return If reading stopped early because the maximum number of bytes was read.
+	 */
+	public boolean isLimitReached() {
+		return limitReached;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (remaining <= 0) {
+			limitReached = true;
+			return -1;
+		}
+		int result = super.read();
+		if (result != -1) {
+			remaining--;
+		}
+		return result;
+	}
+
+	@Override
+	public int read(byte @NotNull [] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (remaining <= 0) {
+			limitReached = true;
+			return -1;
+		}
+		int result = super.read(b, off, (int) Math.min(len, remaining));
+		if (result != -1) {
+			remaining -= result;
+		}
+		return result;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		long skipped = super.skip(Math.min(n, remaining));
+		remaining -= skipped;
+		return skipped;
+	}
+
+	@Override
+	public int available() throws IOException {
+		return (int) Math.min(super.available(), remaining);
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+}
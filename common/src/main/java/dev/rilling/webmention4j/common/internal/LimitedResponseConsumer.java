@@ -0,0 +1,82 @@
+package dev.rilling.webmention4j.common.internal;
+
+import org.apache.hc.client5.http.async.methods.AbstractBinResponseConsumer;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.util.ByteArrayBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Response consumer which buffers at most a maximum number of bytes of the body, regardless of how much the server
+ * sends. Once the maximum is reached, the response completes with the body read so far and the rest of the exchange
+ * is aborted. This is the async counterpart of {@link LimitedInputStream}.
+ */
+final class LimitedResponseConsumer extends AbstractBinResponseConsumer<SimpleHttpResponse> {
+
+	private final long maxBodySize;
+
+	private HttpResponse response;
+	private ContentType contentType;
+	private ByteArrayBuffer buffer;
+	private boolean limitReached = false;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param maxBodySize Maximum number of bytes of the body to buffer.
+	 */
+	LimitedResponseConsumer(long maxBodySize) {
+		this.maxBodySize = maxBodySize;
+	}
+
+	@Override
+	protected void start(HttpResponse response, ContentType contentType) {
+		this.response = response;
+		this.contentType = contentType;
+		buffer = new ByteArrayBuffer(1024);
+	}
+
+	@Override
+	protected int capacityIncrement() {
+		return Integer.MAX_VALUE;
+	}
+
+	@Override
+	protected void data(ByteBuffer src, boolean endOfStream) throws IOException {
+		if (limitReached) {
+			return;
+		}
+		long remaining = maxBodySize - buffer.length();
+		if (src.remaining() <= remaining) {
+			buffer.append(src);
+			return;
+		}
+
+		ByteBuffer head = src.slice();
+		head.limit((int) remaining);
+		buffer.append(head);
+		limitReached = true;
+		completed();
+		// Aborts the exchange, so that the rest of the body is not transferred. The result is already complete.
+		throw new IOException("Body exceeds %d bytes, discarding the rest.".formatted(maxBodySize));
+	}
+
+	@Override
+	protected SimpleHttpResponse buildResult() {
+		SimpleHttpResponse simpleResponse = SimpleHttpResponse.copy(response);
+		if (contentType != null) {
+			simpleResponse.setBody(buffer.toByteArray(), contentType);
+		}
+		return simpleResponse;
+	}
+
+	@Override
+	public void releaseResources() {
+		response = null;
+		contentType = null;
+		buffer = null;
+	}
+}
@@ -1,10 +1,13 @@
 package dev.rilling.webmention4j.common.internal;
 
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.SystemDefaultDnsResolver;
 import org.jetbrains.annotations.NotNull;
 
 import java.net.InetAddress;
 import java.net.URI;
 import java.net.UnknownHostException;
+import java.util.Arrays;
 
 public final class UriUtils {
 
@@ -15,8 +18,21 @@ public final class UriUtils {
 	 * @return if the given URL is localhost or a loopback IP address.
 	 */
 	public static boolean isLocalhost(@NotNull URI uri) throws UnknownHostException {
+		return isLocalhost(uri, SystemDefaultDnsResolver.INSTANCE);
+	}
+
+	/**
+	 * @param uri         URL to check.
+	 * @param dnsResolver Resolver to look up the host with. Should be the one used to connect to the host later.
+	 * @return if the given URL is localhost or resolves to any loopback IP address.
+	 */
+	public static boolean isLocalhost(@NotNull URI uri, @NotNull DnsResolver dnsResolver) throws UnknownHostException {
+		if (uri.getHost() == null) {
+			// Like InetAddress#getByName, which treats a missing host as the loopback address.
+			return true;
+		}
 		// Handles 'localhost' check internally.
-		return InetAddress.getByName(uri.getHost()).isLoopbackAddress();
+		return Arrays.stream(dnsResolver.resolve(uri.getHost())).anyMatch(InetAddress::isLoopbackAddress);
 	}
 
 	/**
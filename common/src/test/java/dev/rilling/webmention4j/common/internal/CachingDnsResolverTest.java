@@ -0,0 +1,122 @@
+package dev.rilling.webmention4j.common.internal;
+
+import org.apache.hc.client5.http.DnsResolver;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CachingDnsResolverTest {
+
+	final MutableClock clock = new MutableClock();
+	final CountingDnsResolver delegate = new CountingDnsResolver();
+
+	@Test
+	@DisplayName("#resolve caches addresses until they expire")
+	void resolveCaches() throws Exception {
+		delegate.addresses.put("example.com", InetAddress.getByAddress("example.com", new byte[]{(byte) 192, 0, 2, 1}));
+		CachingDnsResolver resolver = new CachingDnsResolver(delegate, 10, Duration.ofMinutes(1), false, clock);
+
+		assertThat(resolver.resolve("example.com")).hasSize(1);
+		assertThat(resolver.resolve("EXAMPLE.com")).hasSize(1);
+		assertThat(delegate.lookupCount).isEqualTo(1);
+
+		clock.advance(Duration.ofMinutes(1));
+		assertThat(resolver.resolve("example.com")).hasSize(1);
+		assertThat(delegate.lookupCount).isEqualTo(2);
+	}
+
+	@Test
+	@DisplayName("#resolve does not cache failed lookups")
+	void resolveDoesNotCacheFailures() {
+		CachingDnsResolver resolver = new CachingDnsResolver(delegate, 10, Duration.ofMinutes(1), false, clock);
+
+		assertThatThrownBy(() -> resolver.resolve("unknown.example")).isInstanceOf(UnknownHostException.class);
+		assertThatThrownBy(() -> resolver.resolve("unknown.example")).isInstanceOf(UnknownHostException.class);
+		assertThat(delegate.lookupCount).isEqualTo(2);
+	}
+
+	@Test
+	@DisplayName("#resolve rejects local addresses if configured")
+	void resolveRejectsLocal() throws Exception {
+		delegate.addresses.put("intranet.example", InetAddress.getByAddress("intranet.example", new byte[]{10, 0, 0, 1}));
+		CachingDnsResolver allowingResolver = new CachingDnsResolver(delegate, 10, Duration.ofMinutes(1), false, clock);
+		CachingDnsResolver rejectingResolver = new CachingDnsResolver(delegate, 10, Duration.ofMinutes(1), true, clock);
+
+		assertThat(allowingResolver.resolve("intranet.example")).hasSize(1);
+		assertThatThrownBy(() -> rejectingResolver.resolve("intranet.example")).isInstanceOf(UnknownHostException.class)
+			.hasMessageContaining("10.0.0.1");
+	}
+
+	@Test
+	@DisplayName("#isLocalAddress detects loopback, link-local and private addresses")
+	void isLocalAddress() throws Exception {
+		assertThat(CachingDnsResolver.isLocalAddress(InetAddress.getByName("127.0.0.1"))).isTrue();
+		assertThat(CachingDnsResolver.isLocalAddress(InetAddress.getByName("::1"))).isTrue();
+		assertThat(CachingDnsResolver.isLocalAddress(InetAddress.getByName("0.0.0.0"))).isTrue();
+		assertThat(CachingDnsResolver.isLocalAddress(InetAddress.getByName("10.1.2.3"))).isTrue();
+		assertThat(CachingDnsResolver.isLocalAddress(InetAddress.getByName("172.16.0.1"))).isTrue();
+		assertThat(CachingDnsResolver.isLocalAddress(InetAddress.getByName("192.168.1.1"))).isTrue();
+		assertThat(CachingDnsResolver.isLocalAddress(InetAddress.getByName("169.254.169.254"))).isTrue();
+		assertThat(CachingDnsResolver.isLocalAddress(InetAddress.getByName("fe80::1"))).isTrue();
+		assertThat(CachingDnsResolver.isLocalAddress(InetAddress.getByName("fd12:3456::1"))).isTrue();
+
+		// https://developers.google.com/style/examples#example-ip-addresses
+		assertThat(CachingDnsResolver.isLocalAddress(InetAddress.getByName("192.0.2.1"))).isFalse();
+		assertThat(CachingDnsResolver.isLocalAddress(InetAddress.getByName("2001:db8::1"))).isFalse();
+	}
+
+	private static final class CountingDnsResolver implements DnsResolver {
+		final Map<String, InetAddress> addresses = new HashMap<>();
+		int lookupCount = 0;
+
+		@Override
+		public InetAddress[] resolve(String host) throws UnknownHostException {
+			lookupCount++;
+			InetAddress address = addresses.get(host.toLowerCase());
+			if (address == null) {
+				throw new UnknownHostException(host);
+			}
+			return new InetAddress[]{address};
+		}
+
+		@Override
+		public String resolveCanonicalHostname(String host) {
+			return host;
+		}
+	}
+
+	private static final class MutableClock extends Clock {
+		private Instant instant = Instant.EPOCH;
+
+		void advance(Duration duration) {
+			instant = instant.plus(duration);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Instant instant() {
+			return instant;
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package dev.rilling.webmention4j.common.internal;
+
+import dev.rilling.webmention4j.common.CacheStats;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExpiringCacheTest {
+
+	final MutableClock clock = new MutableClock();
+
+	@Test
+	@DisplayName("#get returns cached value until it expires")
+	void getExpires() {
+		ExpiringCache<String, String> cache = new ExpiringCache<>(10, clock);
+
+		cache.put("foo", "bar", Duration.ofMinutes(1));
+		assertThat(cache.get("foo")).contains("bar");
+
+		clock.advance(Duration.ofMinutes(1));
+		assertThat(cache.get("foo")).isEmpty();
+	}
+
+	@Test
+	@DisplayName("#put does not cache with non-positive time-to-live")
+	void putNonPositive() {
+		ExpiringCache<String, String> cache = new ExpiringCache<>(10, clock);
+
+		cache.put("foo", "bar", Duration.ofMinutes(1));
+		cache.put("foo", "bar", Duration.ZERO);
+		assertThat(cache.get("foo")).isEmpty();
+
+		cache.put("fizz", "buzz", Duration.ofMinutes(-1));
+		assertThat(cache.get("fizz")).isEmpty();
+	}
+
+	@Test
+	@DisplayName("#put evicts least recently used entry when full")
+	void putEvicts() {
+		ExpiringCache<String, String> cache = new ExpiringCache<>(2, clock);
+
+		cache.put("a", "1", Duration.ofMinutes(1));
+		cache.put("b", "2", Duration.ofMinutes(1));
+		cache.get("a");
+		cache.put("c", "3", Duration.ofMinutes(1));
+
+		assertThat(cache.get("a")).contains("1");
+		assertThat(cache.get("b")).isEmpty();
+		assertThat(cache.get("c")).contains("3");
+	}
+
+	@Test
+	@DisplayName("#getStats counts hits and misses")
+	void getStats() {
+		ExpiringCache<String, String> cache = new ExpiringCache<>(10, clock);
+
+		cache.get("foo");
+		cache.put("foo", "bar", Duration.ofMinutes(1));
+		cache.get("foo");
+		cache.get("foo");
+
+		assertThat(cache.getStats()).isEqualTo(new CacheStats(2, 1, 1));
+		assertThat(cache.getStats().hitRate()).isEqualTo(2.0 / 3);
+	}
+
+	private static final class MutableClock extends Clock {
+		private Instant instant = Instant.EPOCH;
+
+		void advance(Duration duration) {
+			instant = instant.plus(duration);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Instant instant() {
+			return instant;
+		}
+	}
+}
@@ -1,17 +1,26 @@
 package dev.rilling.webmention4j.common.internal;
 
+import dev.rilling.webmention4j.common.HttpStatusException;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
 import org.apache.hc.core5.http.ClassicHttpResponse;
 import org.apache.hc.core5.http.ContentType;
 import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpResponse;
 import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.apache.hc.core5.http.io.entity.StringEntity;
 import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.zip.GZIPOutputStream;
 
 import static dev.rilling.webmention4j.common.internal.HttpUtils.*;
 import static org.assertj.core.api.Assertions.*;
@@ -59,6 +68,33 @@ class HttpUtilsTest {
 		}
 	}
 
+	@Test
+	@DisplayName("#validateResponse only includes the start of huge error bodies")
+	void validateResponseErrorHugeBody() throws IOException {
+		try (ClassicHttpResponse internalErrorResponse = new BasicClassicHttpResponse(HttpStatus.SC_INTERNAL_SERVER_ERROR)) {
+			internalErrorResponse.setEntity(new StringEntity("x".repeat(1024 * 1024), ContentType.TEXT_PLAIN));
+
+			assertThatThrownBy(() -> validateResponse(internalErrorResponse)).isInstanceOf(IOException.class)
+				.message()
+				.hasSizeLessThan(5 * 1024);
+		}
+	}
+
+	@Test
+	@DisplayName("#validateResponse throws exception with status code and Retry-After")
+	void validateResponseStatusException() throws IOException {
+		try (ClassicHttpResponse tooManyRequestsResponse = new BasicClassicHttpResponse(HttpStatus.SC_TOO_MANY_REQUESTS)) {
+			tooManyRequestsResponse.setHeader(HttpHeaders.RETRY_AFTER, "120");
+
+			assertThatThrownBy(() -> validateResponse(tooManyRequestsResponse)).isInstanceOfSatisfying(
+				HttpStatusException.class,
+				e -> {
+					assertThat(e.getStatusCode()).isEqualTo(HttpStatus.SC_TOO_MANY_REQUESTS);
+					assertThat(e.getRetryAfter()).contains(Duration.ofSeconds(120));
+				});
+		}
+	}
+
 	@Test
 	@DisplayName("#extractContentType extracts content type")
 	void extractContentTypeExtracts() throws IOException {
@@ -109,5 +145,109 @@ class HttpUtilsTest {
 		}
 	}
 
+	@Test
+	@DisplayName("#getFreshnessLifetime uses max-age")
+	void getFreshnessLifetimeMaxAge() {
+		HttpResponse response = new BasicHttpResponse(HttpStatus.SC_OK);
+		response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=60");
+		response.setHeader(HttpHeaders.EXPIRES, "Thu, 01 Jan 1970 00:00:00 GMT");
 
+		assertThat(getFreshnessLifetime(response, Instant.EPOCH)).contains(Duration.ofSeconds(60));
+	}
+
+	@Test
+	@DisplayName("#getFreshnessLifetime is zero for no-store and no-cache")
+	void getFreshnessLifetimeNoStore() {
+		HttpResponse noStoreResponse = new BasicHttpResponse(HttpStatus.SC_OK);
+		noStoreResponse.setHeader(HttpHeaders.CACHE_CONTROL, "max-age=60, no-store");
+		assertThat(getFreshnessLifetime(noStoreResponse, Instant.EPOCH)).contains(Duration.ZERO);
+
+		HttpResponse noCacheResponse = new BasicHttpResponse(HttpStatus.SC_OK);
+		noCacheResponse.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+		assertThat(getFreshnessLifetime(noCacheResponse, Instant.EPOCH)).contains(Duration.ZERO);
+	}
+
+	@Test
+	@DisplayName("#getFreshnessLifetime uses Expires relative to Date")
+	void getFreshnessLifetimeExpires() {
+		HttpResponse response = new BasicHttpResponse(HttpStatus.SC_OK);
+		response.setHeader(HttpHeaders.DATE, "Sun, 06 Nov 1994 08:49:37 GMT");
+		response.setHeader(HttpHeaders.EXPIRES, "Sun, 06 Nov 1994 09:49:37 GMT");
+		assertThat(getFreshnessLifetime(response, Instant.EPOCH)).contains(Duration.ofHours(1));
+
+		HttpResponse invalidResponse = new BasicHttpResponse(HttpStatus.SC_OK);
+		invalidResponse.setHeader(HttpHeaders.EXPIRES, "0");
+		assertThat(getFreshnessLifetime(invalidResponse, Instant.EPOCH)).contains(Duration.ZERO);
+	}
+
+	@Test
+	@DisplayName("#getFreshnessLifetime is empty without caching headers")
+	void getFreshnessLifetimeEmpty() {
+		HttpResponse response = new BasicHttpResponse(HttpStatus.SC_OK);
+		response.setHeader(HttpHeaders.CACHE_CONTROL, "public");
+
+		assertThat(getFreshnessLifetime(response, Instant.EPOCH)).isEmpty();
+	}
+
+	@Test
+	@DisplayName("#getRetryAfter parses seconds")
+	void getRetryAfterSeconds() {
+		HttpResponse response = new BasicHttpResponse(HttpStatus.SC_SERVICE_UNAVAILABLE);
+		response.setHeader(HttpHeaders.RETRY_AFTER, "120");
+
+		assertThat(getRetryAfter(response, Instant.EPOCH)).contains(Duration.ofSeconds(120));
+	}
+
+	@Test
+	@DisplayName("#getRetryAfter parses date relative to Date")
+	void getRetryAfterDate() {
+		HttpResponse response = new BasicHttpResponse(HttpStatus.SC_SERVICE_UNAVAILABLE);
+		response.setHeader(HttpHeaders.DATE, "Sun, 06 Nov 1994 08:49:37 GMT");
+		response.setHeader(HttpHeaders.RETRY_AFTER, "Sun, 06 Nov 1994 08:50:37 GMT");
+		assertThat(getRetryAfter(response, Instant.EPOCH)).contains(Duration.ofMinutes(1));
+
+		HttpResponse pastResponse = new BasicHttpResponse(HttpStatus.SC_SERVICE_UNAVAILABLE);
+		pastResponse.setHeader(HttpHeaders.RETRY_AFTER, "Sun, 06 Nov 1994 08:50:37 GMT");
+		assertThat(getRetryAfter(pastResponse, Instant.now())).contains(Duration.ZERO);
+	}
+
+	@Test
+	@DisplayName("#getRetryAfter is empty without or with invalid header")
+	void getRetryAfterEmpty() {
+		HttpResponse response = new BasicHttpResponse(HttpStatus.SC_SERVICE_UNAVAILABLE);
+		assertThat(getRetryAfter(response, Instant.EPOCH)).isEmpty();
+
+		response.setHeader(HttpHeaders.RETRY_AFTER, "soon");
+		assertThat(getRetryAfter(response, Instant.EPOCH)).isEmpty();
+	}
+
+	@Test
+	@DisplayName("#toClassicResponse decompresses gzip bodies")
+	void toClassicResponseDecompresses() throws Exception {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressed)) {
+			gzipOutputStream.write("<html>Hello</html>".getBytes(StandardCharsets.UTF_8));
+		}
+		SimpleHttpResponse response = new SimpleHttpResponse(HttpStatus.SC_OK);
+		response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+		response.setBody(compressed.toByteArray(), ContentType.TEXT_HTML);
+
+		ClassicHttpResponse classicResponse = toClassicResponse(response);
+
+		assertThat(classicResponse.containsHeader(HttpHeaders.CONTENT_ENCODING)).isFalse();
+		assertThat(EntityUtils.toString(classicResponse.getEntity())).isEqualTo("<html>Hello</html>");
+	}
+
+	@Test
+	@DisplayName("#toClassicResponse keeps bodies with unknown encoding")
+	void toClassicResponseKeepsUnknownEncoding() throws Exception {
+		SimpleHttpResponse response = new SimpleHttpResponse(HttpStatus.SC_OK);
+		response.setHeader(HttpHeaders.CONTENT_ENCODING, "identity");
+		response.setBody("Hello", ContentType.TEXT_PLAIN);
+
+		ClassicHttpResponse classicResponse = toClassicResponse(response);
+
+		assertThat(classicResponse.containsHeader(HttpHeaders.CONTENT_ENCODING)).isTrue();
+		assertThat(EntityUtils.toString(classicResponse.getEntity())).isEqualTo("Hello");
+	}
 }
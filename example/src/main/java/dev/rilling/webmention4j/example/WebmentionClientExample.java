@@ -1,6 +1,7 @@
 package dev.rilling.webmention4j.example;
 
 import dev.rilling.webmention4j.client.WebmentionClient;
+import dev.rilling.webmention4j.client.WebmentionSendResult;
 import dev.rilling.webmention4j.common.Webmention;
 import dev.rilling.webmention4j.common.internal.HtmlUtils;
 import dev.rilling.webmention4j.common.internal.HttpUtils;
@@ -19,11 +20,13 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 import static dev.rilling.webmention4j.example.CliUtils.parseArgs;
 import static dev.rilling.webmention4j.example.CliUtils.printHelp;
 
-public final class WebmentionClientExample {
+public final class WebmentionClientExample implements AutoCloseable {
 	private static final Logger LOGGER = LoggerFactory.getLogger(WebmentionClientExample.class);
 
 	private static final Option HELP = Option.builder()
@@ -106,21 +109,27 @@ public final class WebmentionClientExample {
 		if (commandLine.hasOption(ALLOW_LOCALHOST_ENDPOINT)) {
 			config.setAllowLocalhostEndpoint(true);
 		}
-		WebmentionClientExample webmentionClientExample = new WebmentionClientExample(config);
-
-		if (commandLine.hasOption(CRAWL)) {
-			webmentionClientExample.sendWebmentionForLinked(source, commandLine.hasOption(INCLUDE_IDENTICAL_HOST));
-		} else if (commandLine.hasOption(TARGET)) {
-			URI target = URI.create(commandLine.getOptionValue(TARGET));
-			webmentionClientExample.sendWebmention(source, target);
-		} else {
-			throw new IllegalArgumentException("Either '--%s' or '--%s' has to be specified.".formatted(TARGET.getLongOpt(),
-				CRAWL.getLongOpt()));
+		try (WebmentionClientExample webmentionClientExample = new WebmentionClientExample(config)) {
+			if (commandLine.hasOption(CRAWL)) {
+				webmentionClientExample.sendWebmentionForLinked(source, commandLine.hasOption(INCLUDE_IDENTICAL_HOST));
+			} else if (commandLine.hasOption(TARGET)) {
+				URI target = URI.create(commandLine.getOptionValue(TARGET));
+				webmentionClientExample.sendWebmention(source, target);
+			} else {
+				throw new IllegalArgumentException("Either '--%s' or '--%s' has to be specified.".formatted(TARGET.getLongOpt(),
+					CRAWL.getLongOpt()));
+			}
 		}
 	}
 
+	@Override
+	public void close() {
+		webmentionClient.close();
+	}
+
 	private void sendWebmentionForLinked(URI source, boolean includeIdenticalHost) {
 		Document sourceDocument = readSourceDocument(source);
+		Set<Webmention> webmentions = new LinkedHashSet<>();
 		for (Element element : sourceDocument.select(new HtmlUtils.LinkLikeElementEvaluator())) {
 			URI target;
 			String linkStr = HtmlUtils.LinkLikeElementEvaluator.getLink(element);
@@ -141,8 +150,21 @@ public final class WebmentionClientExample {
 				continue;
 			}
 
-			sendWebmention(source, target);
+			webmentions.add(new Webmention(source, target));
 		}
+
+		LOGGER.info("Sending {} Webmention(s).", webmentions.size());
+		webmentionClient.sendWebmentions(webmentions).forEach((webmention, result) -> {
+			if (result instanceof WebmentionSendResult.Failed failed) {
+				LOGGER.error("Sending Webmention '{}' failed.", webmention, failed.cause());
+			} else if (result instanceof WebmentionSendResult.Rejected rejected) {
+				LOGGER.error("Endpoint rejected Webmention '{}' with status code {}.", webmention, rejected.statusCode());
+			} else if (result instanceof WebmentionSendResult.NoEndpoint) {
+				LOGGER.info("No endpoint found for target URL of '{}'.", webmention);
+			} else {
+				LOGGER.info("Sent Webmention '{}'.", webmention);
+			}
+		});
 	}
 
 	private Document readSourceDocument(URI source) {
@@ -171,16 +193,15 @@ public final class WebmentionClientExample {
 	private void sendWebmention(URI source, URI target) {
 		Webmention webmention = new Webmention(source, target);
 		LOGGER.info("Sending Webmention '{}'.", webmention);
-		try {
-			if (!webmentionClient.supportsWebmention(target)) {
-				LOGGER.info("No endpoint found for target URL.");
-				return;
-			}
-
-			webmentionClient.sendWebmention(webmention);
+		WebmentionSendResult result = webmentionClient.trySendWebmention(webmention);
+		if (result instanceof WebmentionSendResult.Failed failed) {
+			LOGGER.error("Unhandled error.", failed.cause());
+		} else if (result instanceof WebmentionSendResult.Rejected rejected) {
+			LOGGER.error("Endpoint rejected Webmention with status code {}.", rejected.statusCode());
+		} else if (result instanceof WebmentionSendResult.NoEndpoint) {
+			LOGGER.info("No endpoint found for target URL.");
+		} else {
 			LOGGER.info("Success!");
-		} catch (IOException e) {
-			LOGGER.error("Unhandled error.", e);
 		}
 	}
 }
@@ -1,6 +1,7 @@
 package dev.rilling.webmention4j.server;
 
 import dev.rilling.webmention4j.common.Webmention;
+import dev.rilling.webmention4j.common.internal.CachingDnsResolver;
 import dev.rilling.webmention4j.common.internal.HttpUtils;
 import dev.rilling.webmention4j.server.internal.VerificationService;
 import dev.rilling.webmention4j.server.internal.verifier.HtmlVerifier;
@@ -11,8 +12,10 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.apache.hc.client5.http.DnsResolver;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
 import org.apache.hc.core5.http.ContentType;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -23,10 +26,11 @@ import java.io.IOException;
 import java.io.Serial;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
-import java.util.function.Supplier;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -49,7 +53,10 @@ public abstract class AbstractWebmentionEndpointServlet extends HttpServlet {
 
 	private static final ContentType EXPECTED_CONTENT_TYPE = ContentType.APPLICATION_FORM_URLENCODED;
 
-	private final Supplier<CloseableHttpClient> httpClientFactory;
+	private static final int DNS_CACHE_SIZE = 1000;
+	private static final Duration DNS_CACHE_TIME_TO_LIVE = Duration.ofMinutes(1);
+
+	private final Function<Boolean, CloseableHttpClient> httpClientFactory;
 	private final VerificationService verificationService;
 
 	private CloseableHttpClient httpClient;
@@ -62,7 +69,7 @@ public abstract class AbstractWebmentionEndpointServlet extends HttpServlet {
 			new VerificationService(List.of(new HtmlVerifier(), new TextVerifier(), new JsonVerifier())));
 	}
 
-	private AbstractWebmentionEndpointServlet(@NotNull Supplier<CloseableHttpClient> httpClientFactory,
+	private AbstractWebmentionEndpointServlet(@NotNull Function<Boolean, CloseableHttpClient> httpClientFactory,
 											  @NotNull VerificationService verificationService) {
 		this.httpClientFactory = httpClientFactory;
 		this.verificationService = verificationService;
@@ -77,7 +84,8 @@ public abstract class AbstractWebmentionEndpointServlet extends HttpServlet {
 			validHosts = Arrays.stream(validHostsParam.split(",")).collect(Collectors.toUnmodifiableSet());
 		}
 
-		httpClient = httpClientFactory.get();
+		boolean rejectLocalSources = Boolean.parseBoolean(config.getInitParameter("rejectLocalSources"));
+		httpClient = httpClientFactory.apply(rejectLocalSources);
 	}
 
 	@Override
@@ -197,8 +205,14 @@ public abstract class AbstractWebmentionEndpointServlet extends HttpServlet {
 	}
 
 	@NotNull
-	private static CloseableHttpClient createDefaultHttpClient() {
+	private static CloseableHttpClient createDefaultHttpClient(boolean rejectLocalSources) {
+		/*
+		 * Rejecting local addresses in the resolver rather than checking the source URL up front covers redirects as
+		 * well, and leaves no gap between the check and the lookup used to connect.
+		 */
+		DnsResolver dnsResolver = new CachingDnsResolver(DNS_CACHE_SIZE, DNS_CACHE_TIME_TO_LIVE, rejectLocalSources);
 		return HttpClients.custom()
+			.setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create().setDnsResolver(dnsResolver).build())
 			.setUserAgent(HttpUtils.createUserAgentString("webmention4j-server",
 				AbstractWebmentionEndpointServlet.class.getPackage()))
 			.build();
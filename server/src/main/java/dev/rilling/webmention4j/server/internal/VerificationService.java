@@ -2,10 +2,12 @@ package dev.rilling.webmention4j.server.internal;
 
 import dev.rilling.webmention4j.common.Webmention;
 import dev.rilling.webmention4j.common.internal.HttpUtils;
+import dev.rilling.webmention4j.common.internal.LimitedInputStream;
 import dev.rilling.webmention4j.common.internal.UriUtils;
 import dev.rilling.webmention4j.server.internal.verifier.Verifier;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.core5.http.*;
+import org.apache.hc.core5.http.io.entity.HttpEntityWrapper;
 import org.apache.hc.core5.http.io.support.ClassicRequestBuilder;
 import org.apache.hc.core5.http.message.BasicHeader;
 import org.jetbrains.annotations.NotNull;
@@ -13,6 +15,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Serial;
 import java.net.URI;
 import java.util.List;
@@ -22,10 +25,28 @@ import java.util.stream.Collectors;
 public class VerificationService {
 	private static final Logger LOGGER = LoggerFactory.getLogger(VerificationService.class);
 
+	/**
+	 * Default for {@link #VerificationService(List, long)}.
+	 */
+	public static final long DEFAULT_MAX_SOURCE_SIZE = 4 * 1024 * 1024;
+
 	private final List<Verifier> verifiers;
+	private final long maxSourceSize;
 
 	public VerificationService(@NotNull List<Verifier> verifiers) {
+		this(verifiers, DEFAULT_MAX_SOURCE_SIZE);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param verifiers     Verifiers for the supported content types.
+	 * @param maxSourceSize Maximum number of bytes of the source to read, after decompression.
+	 *                      Content after that is ignored.
+	 */
+	public VerificationService(@NotNull List<Verifier> verifiers, long maxSourceSize) {
 		this.verifiers = List.copyOf(verifiers);
+		this.maxSourceSize = maxSourceSize;
 	}
 
 	/**
@@ -61,6 +82,11 @@ public class VerificationService {
 
 		LOGGER.debug("Verifying source '{}'.", webmention.source());
 		return httpClient.execute(request, response -> {
+			/*
+			 * The client negotiates compression and decompresses while the body is read, so limiting what is read
+			 * also prevents a small compressed body from expanding into an arbitrarily large one.
+			 */
+			limitContent(response);
 			if (response.getCode() == HttpStatus.SC_NOT_ACCEPTABLE) {
 				throw new UnsupportedContentTypeException(
 					"Remote server does not support any of the content types supported for verification.");
@@ -90,6 +116,25 @@ public class VerificationService {
 		}
 	}
 
+	private void limitContent(ClassicHttpResponse response) {
+		if (response.getEntity() == null) {
+			return;
+		}
+		response.setEntity(new HttpEntityWrapper(response.getEntity()) {
+			@Override
+			public InputStream getContent() throws IOException {
+				return new LimitedInputStream(super.getContent(), maxSourceSize);
+			}
+
+			@Override
+			public long getContentLength() {
+				// Readers may size their buffers based on this.
+				long contentLength = super.getContentLength();
+				return contentLength > maxSourceSize ? -1 : contentLength;
+			}
+		});
+	}
+
 	private Header createAcceptHeader() {
 		String acceptValue = verifiers.stream().map(Verifier::getSupportedMimeType).collect(Collectors.joining(", "));
 		return new BasicHeader(HttpHeaders.ACCEPT, acceptValue);
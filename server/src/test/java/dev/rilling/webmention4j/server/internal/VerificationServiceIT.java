@@ -15,9 +15,12 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
@@ -116,4 +119,43 @@ class VerificationServiceIT {
 		assertThat(verificationService.isWebmentionValid(HTTP_CLIENT_EXTENSION.get(),
 			new Webmention(source, target))).isFalse();
 	}
+
+	@Test
+	@DisplayName("#isWebmentionValid negotiates and decompresses compressed responses")
+	void isWebmentionValidDecompresses() throws Exception {
+		SOURCE_SERVER.stubFor(get("/blog/post").willReturn(ok().withHeader(HttpHeaders.CONTENT_TYPE,
+				ContentType.TEXT_HTML.toString())
+			.withHeader(HttpHeaders.CONTENT_ENCODING, "gzip")
+			.withBody(gzip("<html><body><a href=\"https://example.com\">cool site</a></body></html>"))));
+
+		URI source = URI.create(SOURCE_SERVER.url("/blog/post"));
+		URI target = URI.create("https://example.com");
+		assertThat(verificationService.isWebmentionValid(HTTP_CLIENT_EXTENSION.get(),
+			new Webmention(source, target))).isTrue();
+		SOURCE_SERVER.verify(getRequestedFor(urlEqualTo("/blog/post")).withHeader(HttpHeaders.ACCEPT_ENCODING,
+			containing("gzip")));
+	}
+
+	@Test
+	@DisplayName("#isWebmentionValid does not read more than the maximum source size after decompression")
+	void isWebmentionValidLimitsDecompressedSize() throws Exception {
+		VerificationService limitedVerificationService = new VerificationService(List.of(new TextVerifier()), 1024);
+		// Compresses to a few kilobytes.
+		String body = "a".repeat(1024 * 1024) + "https://example.com";
+		SOURCE_SERVER.stubFor(get("/blog/post").willReturn(ok().withHeader(HttpHeaders.CONTENT_TYPE,
+			ContentType.TEXT_PLAIN.toString()).withHeader(HttpHeaders.CONTENT_ENCODING, "gzip").withBody(gzip(body))));
+
+		URI source = URI.create(SOURCE_SERVER.url("/blog/post"));
+		URI target = URI.create("https://example.com");
+		assertThat(limitedVerificationService.isWebmentionValid(HTTP_CLIENT_EXTENSION.get(),
+			new Webmention(source, target))).isFalse();
+	}
+
+	private static byte[] gzip(String content) throws IOException {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(compressed)) {
+			gzipOutputStream.write(content.getBytes(StandardCharsets.UTF_8));
+		}
+		return compressed.toByteArray();
+	}
 }